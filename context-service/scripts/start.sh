@@ -0,0 +1,36 @@
+#!/usr/bin/env bash
+# Starts context-service on Java 25 with a JVM AOT cache, which holds the classes loaded, linked and
+# profiled during a training run, so they are not loaded and verified again on every start.
+#
+# The boot jar is extracted first, the cache needs a stable classpath of plain jars. The cache is trained
+# again whenever the boot jar changes. Arguments are passed to both the training run and the service.
+#
+#   JAR         boot jar, default build/libs/context-service-0.0.1-SNAPSHOT.jar
+#   APP_DIR     where the jar is extracted and the cache kept, default build/aot
+#   JAVA_OPTS   JVM options, the same for training and running, default tuned for a small host
+#   SPRING_AOT  use the AOT-processed bean definitions, default true. Set to false with the postgres
+#               profile, conditional beans are evaluated for the default profile when building the jar
+set -euo pipefail
+
+build_dir="$(cd "$(dirname "$0")/.." && pwd)/build"
+jar="${JAR:-$build_dir/libs/context-service-0.0.1-SNAPSHOT.jar}"
+app_dir="${APP_DIR:-$build_dir/aot}"
+java="${JAVA_HOME:+$JAVA_HOME/bin/}java"
+read -r -a java_opts <<< "${JAVA_OPTS:--XX:+UseSerialGC -XX:MaxRAMPercentage=60 -Xss512k}"
+java_opts+=("-Dspring.aot.enabled=${SPRING_AOT:-true}")
+
+extracted_jar="$app_dir/$(basename "$jar")"
+cache="$app_dir/context-service.aot"
+
+if [[ ! -f "$extracted_jar" || "$jar" -nt "$extracted_jar" ]]; then
+  "$java" -Djarmode=tools -jar "$jar" extract --force --destination "$app_dir"
+  rm -f "$cache"
+fi
+
+if [[ ! -f "$cache" ]]; then
+  # Refreshes the context and exits before the listeners start
+  "$java" "${java_opts[@]}" -XX:AOTCacheOutput="$cache" -Dspring.context.exit=onRefresh \
+    -jar "$extracted_jar" "$@"
+fi
+
+exec "$java" "${java_opts[@]}" -XX:AOTCache="$cache" -jar "$extracted_jar" "$@"
@@ -0,0 +1,94 @@
+package com.prithvianilk.mybestofriendo.contextservice.serialization;
+
+import com.prithvianilk.mybestofriendo.contextservice.model.WhatsAppMessage;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decoding cost of one whatsapp-messages record, as whatsapp-service writes it in each wire format.
+ * Payload sizes are printed at setup. Run with {@code ./gradlew jmh}, add {@code -Pjmh.profilers=gc} for
+ * allocation per record.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class WhatsAppMessageDeserializerBenchmark {
+
+    private static final String TOPIC = "whatsapp-messages";
+
+    @Param({"short", "long"})
+    public String content;
+
+    private WhatsAppMessageDeserializer deserializer;
+    private WhatsAppMessage message;
+    private byte[] json;
+    private byte[] avro;
+    private RecordHeaders jsonHeaders;
+    private RecordHeaders avroHeaders;
+
+    @Setup
+    public void setUp() {
+        deserializer = new WhatsAppMessageDeserializer();
+        deserializer.configure(Map.of(
+                JsonDeserializer.TRUSTED_PACKAGES, "*",
+                JsonDeserializer.VALUE_DEFAULT_TYPE, WhatsAppMessage.class.getName(),
+                JsonDeserializer.USE_TYPE_INFO_HEADERS, false), false);
+
+        String text = "short".equals(content)
+                ? "Kal shaam 7 baje dinner pe milte hain?"
+                : "Haan bhai, kal shaam 7 baje Indiranagar wale usual place pe dinner pe milte hain. Main Priya "
+                        + "ko bhi bol deta hoon, aur agar tu time pe nahi aaya toh bill tu dega. Also mom ne kaha "
+                        + "hai Sunday ko ghar aa jaana, unhe groceries laani hain aur phone ka recharge bhi karna hai.";
+        message = new WhatsAppMessage("9876543210", "Rahul", false, text,
+                Instant.parse("2025-01-02T03:04:05.678Z"));
+
+        // JSON.stringify of the producer's message, dates become ISO strings
+        json = """
+                {"participantMobileNumber":"%s","senderName":"%s","fromMe":%s,"content":"%s",\
+                "sentAt":"%s","tenantId":"%s"}""".formatted(message.participantMobileNumber(),
+                message.senderName(), message.fromMe(), message.content(), message.sentAt(), message.tenantId())
+                .getBytes(StandardCharsets.UTF_8);
+        avro = WhatsAppMessageAvroCodec.encode(message);
+
+        jsonHeaders = new RecordHeaders();
+        avroHeaders = new RecordHeaders();
+        avroHeaders.add(WhatsAppMessageDeserializer.CONTENT_TYPE_HEADER,
+                WhatsAppMessageAvroCodec.CONTENT_TYPE.getBytes(StandardCharsets.UTF_8));
+        System.out.printf("%n%s content: JSON %d bytes, Avro %d bytes and a %d byte content-type header%n", content,
+                json.length, avro.length, WhatsAppMessageAvroCodec.CONTENT_TYPE.length());
+    }
+
+    @TearDown
+    public void tearDown() {
+        deserializer.close();
+    }
+
+    @Benchmark
+    public WhatsAppMessage decodeJson() {
+        return deserializer.deserialize(TOPIC, jsonHeaders, json);
+    }
+
+    @Benchmark
+    public WhatsAppMessage decodeAvro() {
+        return deserializer.deserialize(TOPIC, avroHeaders, avro);
+    }
+
+    @Benchmark
+    public byte[] encodeAvro() {
+        return WhatsAppMessageAvroCodec.encode(message);
+    }
+}
@@ -3,10 +3,12 @@ package com.prithvianilk.mybestofriendo.contextservice;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ImportRuntimeHints;
 
 import java.time.Clock;
 
 @SpringBootApplication
+@ImportRuntimeHints(ContextServiceRuntimeHints.class)
 public class ContextServiceApplication {
 
 	public static void main(String[] args) {
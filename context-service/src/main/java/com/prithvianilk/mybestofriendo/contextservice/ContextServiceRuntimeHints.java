@@ -0,0 +1,110 @@
+package com.prithvianilk.mybestofriendo.contextservice;
+
+import com.google.api.client.auth.oauth2.StoredCredential;
+import com.google.api.client.http.GenericUrl;
+import com.google.api.client.http.HttpHeaders;
+import com.google.api.client.json.GenericJson;
+import com.google.api.client.util.GenericData;
+import com.prithvianilk.mybestofriendo.contextservice.logging.CommitmentManagementContext;
+import com.prithvianilk.mybestofriendo.contextservice.logging.ShadowVariantContext;
+import com.prithvianilk.mybestofriendo.contextservice.model.CommitmentActionResponse;
+import com.prithvianilk.mybestofriendo.contextservice.model.CommitmentEntity;
+import com.prithvianilk.mybestofriendo.contextservice.model.CommitmentReminder;
+import com.prithvianilk.mybestofriendo.contextservice.model.WhatsAppMessage;
+import com.prithvianilk.mybestofriendo.contextservice.model.WindowSnapshot;
+import com.prithvianilk.mybestofriendo.contextservice.serialization.WhatsAppMessageDeserializer;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Reflection, resource and serialization hints for the native image, for what Spring's AOT processing
+ * cannot see on its own.
+ */
+public class ContextServiceRuntimeHints implements RuntimeHintsRegistrar {
+
+    /**
+     * Bound by Jackson: Kafka payloads, the LLM's structured output and wide events.
+     */
+    private static final List<Class<?>> JSON_TYPES = List.of(
+            WhatsAppMessage.class,
+            WindowSnapshot.class,
+            CommitmentActionResponse.class,
+            CommitmentManagementContext.class,
+            ShadowVariantContext.class,
+            CommitmentEntity.class,
+            CommitmentReminder.class);
+
+    /**
+     * google-http-client maps JSON bodies, query parameters and headers onto {@code @Key} fields
+     * reflectively. Classes are listed by package, so newly used Calendar model classes are covered.
+     */
+    private static final List<String> GOOGLE_KEY_TYPE_PATTERNS = List.of(
+            "com/google/api/services/calendar/model/*.class",
+            "com/google/api/services/calendar/Calendar$*.class",
+            "com/google/api/client/auth/oauth2/*.class",
+            "com/google/api/client/googleapis/auth/oauth2/Google*.class",
+            "com/google/api/client/googleapis/json/GoogleJsonError*.class");
+
+    private static final MemberCategory[] GOOGLE_KEY_TYPE_MEMBERS = {
+            MemberCategory.DECLARED_FIELDS,
+            MemberCategory.INVOKE_DECLARED_CONSTRUCTORS,
+            MemberCategory.INVOKE_PUBLIC_METHODS
+    };
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        new BindingReflectionHintsRegistrar().registerReflectionHints(hints.reflection(),
+                JSON_TYPES.toArray(Class<?>[]::new));
+
+        List.of(HttpHeaders.class, GenericUrl.class, GenericJson.class, GenericData.class)
+                .forEach(type -> hints.reflection().registerType(type, GOOGLE_KEY_TYPE_MEMBERS));
+        registerGoogleKeyTypes(hints, classLoader);
+        hints.resources().registerPattern("com/google/api/client/**/*.properties");
+        hints.resources().registerPattern("com/google/api/client/googleapis/google.*");
+        hints.resources().registerPattern("schemas/*/*.avsc");
+
+        // Instantiated by Kafka from the consumer properties
+        hints.reflection().registerType(WhatsAppMessageDeserializer.class, MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+        // ConsumerPollMetrics wraps consumers in a proxy
+        hints.proxies().registerJdkProxy(Consumer.class);
+
+        // FileDataStoreFactory stores credentials as a serialized map of serialized StoredCredentials
+        hints.serialization().registerType(HashMap.class);
+        hints.serialization().registerType(byte[].class);
+        hints.serialization().registerType(StoredCredential.class);
+        hints.serialization().registerType(Long.class);
+        hints.serialization().registerType(Number.class);
+
+        // Instantiated by name from spring.jpa.database-platform
+        hints.reflection().registerTypeIfPresent(classLoader, "org.hibernate.community.dialect.SQLiteDialect",
+                MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+    }
+
+    private static void registerGoogleKeyTypes(RuntimeHints hints, ClassLoader classLoader) {
+        PathMatchingResourcePatternResolver resolver = new PathMatchingResourcePatternResolver(classLoader);
+        for (String pattern : GOOGLE_KEY_TYPE_PATTERNS) {
+            String packageName = pattern.substring(0, pattern.lastIndexOf('/')).replace('/', '.');
+            try {
+                for (Resource resource : resolver.getResources("classpath*:" + pattern)) {
+                    String fileName = Objects.requireNonNull(resource.getFilename());
+                    String className = packageName + "." + fileName.substring(0, fileName.length() - ".class".length());
+                    hints.reflection().registerType(TypeReference.of(className), GOOGLE_KEY_TYPE_MEMBERS);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to list classes matching " + pattern, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.prithvianilk.mybestofriendo.contextservice.analytics;
+
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Log-scale latency buckets, each 5% wider than the one below it, so any percentile read back from bucket
+ * counts is within 5% of the exact one while an hour of a stage needs at most a few hundred rows.
+ */
+public final class LatencyHistogram {
+
+    private static final double LOG_GROWTH = Math.log(1.05);
+
+    private LatencyHistogram() {
+    }
+
+    public static int bucket(long millis) {
+        return (int) Math.ceil(Math.log1p(Math.max(0, millis)) / LOG_GROWTH);
+    }
+
+    /**
+     * @return the upper bound of the bucket in millis
+     */
+    public static long upperBound(int bucket) {
+        return Math.round(Math.expm1(bucket * LOG_GROWTH));
+    }
+
+    /**
+     * Nearest-rank percentile of the events counted per bucket.
+     */
+    public static long percentile(Map<Integer, Long> countsByBucket, double percentile) {
+        NavigableMap<Integer, Long> sorted = new TreeMap<>(countsByBucket);
+        long total = sorted.values().stream().mapToLong(Long::longValue).sum();
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile * total));
+        long seen = 0;
+        for (Map.Entry<Integer, Long> entry : sorted.entrySet()) {
+            seen += entry.getValue();
+            if (seen >= rank) {
+                return upperBound(entry.getKey());
+            }
+        }
+        return upperBound(sorted.lastKey());
+    }
+}
@@ -0,0 +1,514 @@
+package com.prithvianilk.mybestofriendo.contextservice.analytics;
+
+import com.prithvianilk.mybestofriendo.contextservice.config.WideEventAnalyticsConfig;
+import com.prithvianilk.mybestofriendo.contextservice.logging.CommitmentManagementContext;
+import com.prithvianilk.mybestofriendo.contextservice.logging.ShadowVariantContext;
+import com.prithvianilk.mybestofriendo.contextservice.model.HourlyRollup;
+import com.prithvianilk.mybestofriendo.contextservice.model.LatencyRollup;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Embedded store of every logged wide event, with hourly rollups that answer the usual questions, such as
+ * the p99 LLM latency of a day or the failure reasons of an hour, by reading a few hundred rows.
+ * <p>
+ * Events are queued by the logging aspect and written by a background thread once per flush interval, in
+ * one transaction that appends the raw events and adds them to the rollups:
+ * <ul>
+ *     <li>latency per stage, as counts per {@link LatencyHistogram} bucket, where a stage is an annotated
+ *     method, {@code llm} for primary LLM calls, {@code llm.shadow} for shadow ones or {@code end-to-end}
+ *     from whatsapp-service receiving a message to its Calendar write</li>
+ *     <li>events and LLM tokens per value of each {@link Dimension}</li>
+ * </ul>
+ * Raw events are kept for a week by default for ad hoc queries, rollups for much longer. Events dropped by
+ * sampling only count in the rollups. Fields redacted from kept events are stored right away, before the
+ * event is logged, once per distinct content and for as long as some event still referenced them within the
+ * payload retention. The store is one SQLite file for all tenants, as it is for operating the service rather
+ * than for users.
+ */
+@Slf4j
+@Repository
+public class WideEventStore {
+
+    private static final long HOUR_MILLIS = Duration.ofHours(1).toMillis();
+
+    private static final List<String> SCHEMA = List.of(
+            """
+            CREATE TABLE IF NOT EXISTS wide_event (
+                id INTEGER PRIMARY KEY AUTOINCREMENT,
+                occurred_at INTEGER NOT NULL,
+                stage TEXT NOT NULL,
+                duration_ms INTEGER NOT NULL,
+                context TEXT NOT NULL
+            )""",
+            """
+            CREATE INDEX IF NOT EXISTS idx_wide_event_occurred_at ON wide_event (occurred_at)""",
+            """
+            CREATE TABLE IF NOT EXISTS wide_event_latency_hourly (
+                hour INTEGER NOT NULL,
+                stage TEXT NOT NULL,
+                bucket INTEGER NOT NULL,
+                events INTEGER NOT NULL,
+                PRIMARY KEY (stage, hour, bucket)
+            ) WITHOUT ROWID""",
+            """
+            CREATE TABLE IF NOT EXISTS wide_event_count_hourly (
+                hour INTEGER NOT NULL,
+                dimension TEXT NOT NULL,
+                value TEXT NOT NULL,
+                events INTEGER NOT NULL,
+                prompt_tokens INTEGER NOT NULL,
+                completion_tokens INTEGER NOT NULL,
+                PRIMARY KEY (dimension, hour, value)
+            ) WITHOUT ROWID""",
+            """
+            CREATE TABLE IF NOT EXISTS wide_event_payload (
+                hash TEXT PRIMARY KEY,
+                content TEXT NOT NULL,
+                last_seen_at INTEGER NOT NULL
+            )""",
+            """
+            CREATE INDEX IF NOT EXISTS idx_wide_event_payload_last_seen_at ON wide_event_payload (last_seen_at)""");
+
+    private static final String INSERT_EVENT = """
+            INSERT INTO wide_event (occurred_at, stage, duration_ms, context) VALUES (?, ?, ?, ?)""";
+
+    private static final String UPSERT_LATENCY = """
+            INSERT INTO wide_event_latency_hourly (hour, stage, bucket, events) VALUES (?, ?, ?, ?)
+            ON CONFLICT (stage, hour, bucket) DO UPDATE SET events = events + excluded.events""";
+
+    private static final String UPSERT_COUNT = """
+            INSERT INTO wide_event_count_hourly (hour, dimension, value, events, prompt_tokens, completion_tokens)
+            VALUES (?, ?, ?, ?, ?, ?)
+            ON CONFLICT (dimension, hour, value) DO UPDATE SET
+                events = events + excluded.events,
+                prompt_tokens = prompt_tokens + excluded.prompt_tokens,
+                completion_tokens = completion_tokens + excluded.completion_tokens""";
+
+    private static final String UPSERT_PAYLOAD = """
+            INSERT INTO wide_event_payload (hash, content, last_seen_at) VALUES (?, ?, ?)
+            ON CONFLICT (hash) DO UPDATE SET last_seen_at = excluded.last_seen_at""";
+
+    /**
+     * Most hashes of payloads written since the last purge to remember, so that they are not written again.
+     */
+    private static final int MAX_RECENT_PAYLOADS = 100_000;
+
+    public enum Dimension {
+        /**
+         * Commitment action the LLM decided on, NONE when it found none.
+         */
+        ACTION,
+        /**
+         * Failure reason of commitment management.
+         */
+        FAILURE,
+        /**
+         * Prompt variant of the primary LLM call.
+         */
+        VARIANT,
+        /**
+         * Shadow variant and whether it agreed with the primary one, like "terse:disagree".
+         */
+        SHADOW
+    }
+
+    private record Latency(String stage, long millis) {
+    }
+
+    private record Count(Dimension dimension, String value, int promptTokens, int completionTokens) {
+    }
+
+    private record Event(long occurredAt, String stage, long durationMillis, String context,
+                         List<Latency> latencies, List<Count> counts) {
+    }
+
+    private record LatencyKey(long hour, String stage, int bucket) {
+    }
+
+    private record CountKey(long hour, Dimension dimension, String value) {
+    }
+
+    private final WideEventAnalyticsConfig config;
+    private final Clock clock;
+    private final BlockingQueue<Event> queue;
+    private final Counter droppedEvents;
+    // Hour each payload was last written in, so its last seen time is refreshed at least once an hour
+    private final Map<String, Long> recentPayloads = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(
+            runnable -> Thread.ofPlatform().name("wide-event-flusher").daemon().unstarted(runnable));
+
+    private HikariDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private long lastPurgeHour;
+
+    public WideEventStore(WideEventAnalyticsConfig config, MeterRegistry meterRegistry, Clock clock) {
+        this.config = config;
+        this.clock = clock;
+        this.queue = new ArrayBlockingQueue<>(config.getQueueCapacity());
+        this.droppedEvents = meterRegistry.counter("whatsapp.analytics.dropped");
+        meterRegistry.gauge("whatsapp.analytics.queued", queue, BlockingQueue::size);
+    }
+
+    @PostConstruct
+    public void open() throws IOException {
+        if (!config.isEnabled()) {
+            return;
+        }
+
+        Path path = Path.of(config.getPath()).toAbsolutePath();
+        Files.createDirectories(path.getParent());
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:sqlite:" + path + "?journal_mode=WAL&busy_timeout=30000");
+        dataSource.setMaximumPoolSize(2);
+        dataSource.setPoolName("wide-events");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        SCHEMA.forEach(jdbcTemplate::execute);
+
+        long flushMillis = config.getFlushInterval().toMillis();
+        flusher.scheduleWithFixedDelay(this::flush, flushMillis, flushMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void close() {
+        flusher.shutdownNow();
+        if (Objects.nonNull(dataSource)) {
+            flush();
+            dataSource.close();
+        }
+    }
+
+    /**
+     * Queues a logged wide event. Never blocks, the event is dropped when the queue is full.
+     *
+     * @param stage          the method that logged the event
+     * @param durationMillis how long the method ran
+     * @param context        the wide event context
+     * @param json           the context as logged, null if the event was sampled out and only counts in the
+     *                       rollups
+     */
+    public void append(String stage, long durationMillis, Map<String, Object> context, String json) {
+        if (!config.isEnabled()) {
+            return;
+        }
+
+        List<Latency> latencies = new ArrayList<>(2);
+        List<Count> counts = new ArrayList<>(2);
+        latencies.add(new Latency(stage, durationMillis));
+        if (context.get("commitmentManagement") instanceof CommitmentManagementContext commitmentManagement) {
+            addCommitmentManagement(commitmentManagement, latencies, counts);
+        }
+        if (context.get("shadowVariant") instanceof ShadowVariantContext shadowVariant) {
+            addShadowVariant(shadowVariant, latencies, counts);
+        }
+
+        Event event = new Event(clock.millis(), stage, durationMillis, json, latencies, counts);
+        if (!queue.offer(event)) {
+            droppedEvents.increment();
+        }
+    }
+
+    /**
+     * Stores the content of the fields redacted from an event, so that the references in the event can be
+     * looked up once it is logged. Unlike {@link #append}, this writes before returning.
+     *
+     * @param payloads content by hash
+     * @return false if the store is disabled or the write failed, when the event must be logged unredacted
+     */
+    public boolean storePayloads(Map<String, String> payloads) {
+        if (Objects.isNull(dataSource)) {
+            return false;
+        }
+        long now = clock.millis();
+        List<Map.Entry<String, String>> unwritten = payloads.entrySet().stream()
+                .filter(payload -> !Objects.equals(recentPayloads.get(payload.getKey()), hour(now)))
+                .toList();
+        if (unwritten.isEmpty()) {
+            return true;
+        }
+
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement statement = connection.prepareStatement(UPSERT_PAYLOAD)) {
+                for (Map.Entry<String, String> payload : unwritten) {
+                    statement.setString(1, payload.getKey());
+                    statement.setString(2, payload.getValue());
+                    statement.setLong(3, now);
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException | RuntimeException e) {
+            log.warn("Failed to store {} wide event payloads", unwritten.size(), e);
+            return false;
+        }
+
+        if (recentPayloads.size() + unwritten.size() > MAX_RECENT_PAYLOADS) {
+            recentPayloads.clear();
+        }
+        unwritten.forEach(payload -> recentPayloads.put(payload.getKey(), hour(now)));
+        return true;
+    }
+
+    /**
+     * Writes the queued events and adds them to the rollups.
+     */
+    public synchronized void flush() {
+        if (Objects.isNull(dataSource)) {
+            return;
+        }
+        List<Event> events = new ArrayList<>(queue.size());
+        queue.drainTo(events);
+        try {
+            purgeExpired();
+            if (!events.isEmpty()) {
+                write(events);
+            }
+        } catch (SQLException | RuntimeException e) {
+            log.warn("Failed to write {} wide events", events.size(), e);
+            droppedEvents.increment(events.size());
+        }
+    }
+
+    /**
+     * Content of a field redacted from a logged event, by the hash in its {@code sha256:} reference.
+     */
+    public Optional<String> payload(String hash) {
+        if (Objects.isNull(jdbcTemplate)) {
+            return Optional.empty();
+        }
+        return jdbcTemplate.query("SELECT content FROM wide_event_payload WHERE hash = ?",
+                (resultSet, _) -> resultSet.getString("content"), hash).stream().findFirst();
+    }
+
+    /**
+     * Latency percentiles of every stage, or only of {@code stage} if it is not null, over the hours
+     * overlapping {@code from} to {@code to}.
+     */
+    public List<LatencyRollup> latency(String stage, Instant from, Instant to, List<Double> percentiles) {
+        if (Objects.isNull(jdbcTemplate)) {
+            return List.of();
+        }
+        long fromHour = hour(from.toEpochMilli());
+        long toHour = hour(to.toEpochMilli() - 1) + HOUR_MILLIS;
+
+        StringBuilder sql = new StringBuilder("""
+                SELECT stage, bucket, SUM(events) AS events FROM wide_event_latency_hourly
+                WHERE hour >= ? AND hour < ?""");
+        List<Object> arguments = new ArrayList<>(List.of(fromHour, toHour));
+        if (Objects.nonNull(stage)) {
+            sql.append(" AND stage = ?");
+            arguments.add(stage);
+        }
+        sql.append(" GROUP BY stage, bucket");
+
+        Map<String, Map<Integer, Long>> countsByStage = new LinkedHashMap<>();
+        jdbcTemplate.query(sql.toString(), resultSet -> {
+            countsByStage.computeIfAbsent(resultSet.getString("stage"), _ -> new HashMap<>())
+                    .put(resultSet.getInt("bucket"), resultSet.getLong("events"));
+        }, arguments.toArray());
+
+        List<LatencyRollup> rollups = new ArrayList<>(countsByStage.size());
+        countsByStage.forEach((stageName, countsByBucket) -> {
+            Map<String, Long> values = new LinkedHashMap<>();
+            for (double percentile : percentiles) {
+                values.put(percentileName(percentile), LatencyHistogram.percentile(countsByBucket, percentile));
+            }
+            long events = countsByBucket.values().stream().mapToLong(Long::longValue).sum();
+            rollups.add(new LatencyRollup(stageName, Instant.ofEpochMilli(fromHour), Instant.ofEpochMilli(toHour),
+                    events, values));
+        });
+        return rollups;
+    }
+
+    /**
+     * Events and tokens per hour and value of the dimension, over the hours overlapping {@code from} to
+     * {@code to}, oldest first.
+     */
+    public List<HourlyRollup> counts(Dimension dimension, Instant from, Instant to) {
+        if (Objects.isNull(jdbcTemplate)) {
+            return List.of();
+        }
+        return jdbcTemplate.query("""
+                        SELECT hour, value, events, prompt_tokens, completion_tokens FROM wide_event_count_hourly
+                        WHERE dimension = ? AND hour >= ? AND hour < ?
+                        ORDER BY hour, events DESC""",
+                (resultSet, _) -> new HourlyRollup(
+                        Instant.ofEpochMilli(resultSet.getLong("hour")),
+                        resultSet.getString("value"),
+                        resultSet.getLong("events"),
+                        resultSet.getLong("prompt_tokens"),
+                        resultSet.getLong("completion_tokens")),
+                dimension.name(), hour(from.toEpochMilli()), hour(to.toEpochMilli() - 1) + HOUR_MILLIS);
+    }
+
+    private static void addCommitmentManagement(
+            CommitmentManagementContext context,
+            List<Latency> latencies,
+            List<Count> counts) {
+        int promptTokens = Objects.isNull(context.promptTokens()) ? 0 : context.promptTokens();
+        int completionTokens = Objects.isNull(context.completionTokens()) ? 0 : context.completionTokens();
+        if (Objects.nonNull(context.llmLatencyMillis())) {
+            latencies.add(new Latency("llm", context.llmLatencyMillis()));
+        }
+        if (Objects.nonNull(context.endToEndMillis())) {
+            latencies.add(new Latency("end-to-end", context.endToEndMillis()));
+        }
+        if (Objects.nonNull(context.actionType()) || Objects.nonNull(context.llmLatencyMillis())) {
+            String action = Objects.isNull(context.actionType()) ? "NONE" : context.actionType().name();
+            counts.add(new Count(Dimension.ACTION, action, promptTokens, completionTokens));
+        }
+        if (Boolean.FALSE.equals(context.success())) {
+            String reason = Objects.nonNull(context.failureReason()) ? context.failureReason()
+                    : Objects.nonNull(context.validationErrors()) ? "Invalid LLM response" : "Unknown";
+            counts.add(new Count(Dimension.FAILURE, reason, promptTokens, completionTokens));
+        }
+        if (Objects.nonNull(context.promptVariant())) {
+            counts.add(new Count(Dimension.VARIANT, context.promptVariant(), promptTokens, completionTokens));
+        }
+    }
+
+    private static void addShadowVariant(ShadowVariantContext context, List<Latency> latencies, List<Count> counts) {
+        if (Objects.nonNull(context.llmLatencyMillis())) {
+            latencies.add(new Latency("llm.shadow", context.llmLatencyMillis()));
+        }
+        String result = Objects.nonNull(context.failureReason()) ? "failure"
+                : Boolean.TRUE.equals(context.agreesWithPrimary()) ? "agree" : "disagree";
+        counts.add(new Count(Dimension.SHADOW, context.variant() + ":" + result,
+                Objects.isNull(context.promptTokens()) ? 0 : context.promptTokens(),
+                Objects.isNull(context.completionTokens()) ? 0 : context.completionTokens()));
+    }
+
+    private void write(List<Event> events) throws SQLException {
+        Map<LatencyKey, Long> latencyCounts = new HashMap<>();
+        Map<CountKey, long[]> counts = new HashMap<>();
+        for (Event event : events) {
+            long hour = hour(event.occurredAt());
+            for (Latency latency : event.latencies()) {
+                latencyCounts.merge(new LatencyKey(hour, latency.stage(), LatencyHistogram.bucket(latency.millis())),
+                        1L, Long::sum);
+            }
+            for (Count count : event.counts()) {
+                long[] totals = counts.computeIfAbsent(new CountKey(hour, count.dimension(), count.value()),
+                        _ -> new long[3]);
+                totals[0]++;
+                totals[1] += count.promptTokens();
+                totals[2] += count.completionTokens();
+            }
+        }
+
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                try (PreparedStatement statement = connection.prepareStatement(INSERT_EVENT)) {
+                    for (Event event : events) {
+                        if (Objects.isNull(event.context())) {
+                            continue;
+                        }
+                        statement.setLong(1, event.occurredAt());
+                        statement.setString(2, event.stage());
+                        statement.setLong(3, event.durationMillis());
+                        statement.setString(4, event.context());
+                        statement.addBatch();
+                    }
+                    statement.executeBatch();
+                }
+                try (PreparedStatement statement = connection.prepareStatement(UPSERT_LATENCY)) {
+                    for (Map.Entry<LatencyKey, Long> entry : latencyCounts.entrySet()) {
+                        statement.setLong(1, entry.getKey().hour());
+                        statement.setString(2, entry.getKey().stage());
+                        statement.setInt(3, entry.getKey().bucket());
+                        statement.setLong(4, entry.getValue());
+                        statement.addBatch();
+                    }
+                    statement.executeBatch();
+                }
+                try (PreparedStatement statement = connection.prepareStatement(UPSERT_COUNT)) {
+                    for (Map.Entry<CountKey, long[]> entry : counts.entrySet()) {
+                        statement.setLong(1, entry.getKey().hour());
+                        statement.setString(2, entry.getKey().dimension().name());
+                        statement.setString(3, entry.getKey().value());
+                        statement.setLong(4, entry.getValue()[0]);
+                        statement.setLong(5, entry.getValue()[1]);
+                        statement.setLong(6, entry.getValue()[2]);
+                        statement.addBatch();
+                    }
+                    statement.executeBatch();
+                }
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        }
+    }
+
+    /**
+     * Deletes raw events and rollups past their retention, at most once an hour.
+     */
+    private void purgeExpired() throws SQLException {
+        long now = clock.millis();
+        if (hour(now) == lastPurgeHour) {
+            return;
+        }
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.executeUpdate("DELETE FROM wide_event WHERE occurred_at < "
+                    + (now - config.getEventRetention().toMillis()));
+            long rollupsBefore = now - config.getRollupRetention().toMillis();
+            statement.executeUpdate("DELETE FROM wide_event_latency_hourly WHERE hour < " + rollupsBefore);
+            statement.executeUpdate("DELETE FROM wide_event_count_hourly WHERE hour < " + rollupsBefore);
+            statement.executeUpdate("DELETE FROM wide_event_payload WHERE last_seen_at < "
+                    + (now - config.getPayloadRetention().toMillis()));
+        }
+        // Payloads written in earlier hours are no longer recent
+        recentPayloads.clear();
+        lastPurgeHour = hour(now);
+    }
+
+    private static long hour(long epochMillis) {
+        return Math.floorDiv(epochMillis, HOUR_MILLIS) * HOUR_MILLIS;
+    }
+
+    private static String percentileName(double percentile) {
+        String name = Double.toString(percentile * 100);
+        return "p" + (name.endsWith(".0") ? name.substring(0, name.length() - 2) : name);
+    }
+}
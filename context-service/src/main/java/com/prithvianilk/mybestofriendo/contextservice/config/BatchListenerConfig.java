@@ -0,0 +1,55 @@
+package com.prithvianilk.mybestofriendo.contextservice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+@Data
+@Configuration
+@ConfigurationProperties(value = "whatsapp.listener.batch")
+public class BatchListenerConfig {
+
+    /**
+     * Consume whatsapp-messages in batches instead of one record per poll, e.g. to catch up after downtime.
+     */
+    private boolean enabled = false;
+
+    private int maxPollRecords = 500;
+
+    /**
+     * A whole batch, LLM calls included, must be processed within this interval or the consumer is
+     * considered dead and its partitions are rebalanced.
+     */
+    private Duration maxPollInterval = Duration.ofMinutes(15);
+
+    /**
+     * The broker holds a fetch until this many bytes are available or {@link #fetchMaxWait} passes, so
+     * each fetch carries several compressed producer batches instead of a few records.
+     */
+    private DataSize fetchMinBytes = DataSize.ofKilobytes(256);
+
+    private Duration fetchMaxWait = Duration.ofMillis(500);
+
+    /**
+     * Upper bound per partition per fetch. Must be at least the largest compressed producer batch.
+     */
+    private DataSize maxPartitionFetchBytes = DataSize.ofMegabytes(8);
+
+    private DataSize fetchMaxBytes = DataSize.ofMegabytes(32);
+
+    private DataSize receiveBuffer = DataSize.ofMegabytes(1);
+
+    /**
+     * The listener is paused once this many messages or summary updates are queued downstream of it, and
+     * resumed once the backlog drains to {@link #resumeBelowQueued}. Paused consumers keep polling, so
+     * they are not rebalanced away.
+     */
+    private int pauseAboveQueued = 500;
+
+    private int resumeBelowQueued = 100;
+
+    private Duration backpressureCheckInterval = Duration.ofMillis(200);
+}
@@ -0,0 +1,23 @@
+package com.prithvianilk.mybestofriendo.contextservice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Data
+@Configuration
+@ConfigurationProperties(value = "google.calendar.sync")
+public class CalendarSyncConfig {
+
+    /**
+     * Pull changes made to events directly in Google Calendar, like an event deleted or moved on the
+     * phone, back into the commitments.
+     */
+    private boolean enabled = true;
+
+    private Duration interval = Duration.ofMinutes(5);
+
+    private int pageSize = 250;
+}
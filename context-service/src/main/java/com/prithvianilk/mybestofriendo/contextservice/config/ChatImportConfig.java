@@ -0,0 +1,80 @@
+package com.prithvianilk.mybestofriendo.contextservice.config;
+
+import com.prithvianilk.mybestofriendo.contextservice.tenant.TenantContext;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.ZoneId;
+import java.util.Objects;
+
+@Data
+@Configuration
+@ConfigurationProperties(value = "whatsapp.import")
+public class ChatImportConfig {
+
+    /**
+     * A WhatsApp chat export, the .txt file or the .zip it is shared as. Setting it starts the service in
+     * import mode, which imports the file and exits.
+     */
+    private Path file;
+
+    /**
+     * Resume state of the import, defaults to the export's path with ".checkpoint" appended.
+     */
+    private Path checkpoint;
+
+    /**
+     * Mobile number of the other person in the chat. Exports only carry display names.
+     */
+    private String participant;
+
+    /**
+     * Display name of the exporting user in the chat, their messages are imported as sent by them.
+     */
+    private String ownerName;
+
+    private String tenant = TenantContext.DEFAULT_TENANT;
+
+    /**
+     * Exports use the phone's locale, e.g. 31/12/23 in India and 12/31/23 in the US.
+     */
+    private DateOrder dateOrder = DateOrder.DAY_FIRST;
+
+    /**
+     * Zone of the phone the chat was exported from, export timestamps are local times.
+     */
+    private ZoneId zone = ZoneId.of("Asia/Kolkata");
+
+    private int batchSize = 500;
+
+    /**
+     * Only messages sent this recently go through commitment detection, older ones are just indexed and
+     * added to the window, since reminders for them would be in the past. Commitments detected in recent
+     * messages that were due before the import are skipped too.
+     */
+    private Duration detectCommitmentsWithin = Duration.ofDays(14);
+
+    /**
+     * Parsing waits while more summary updates than this are queued.
+     */
+    private int maxQueuedSummaries = 100;
+
+    /**
+     * Whether the service was started to import {@link #file}, see {@code ChatImportRunner}.
+     */
+    public boolean isImporting() {
+        return Objects.nonNull(file);
+    }
+
+    public Path checkpointPath() {
+        return Objects.nonNull(checkpoint) ? checkpoint : Path.of(file + ".checkpoint");
+    }
+
+    public enum DateOrder {
+        DAY_FIRST,
+        MONTH_FIRST
+    }
+}
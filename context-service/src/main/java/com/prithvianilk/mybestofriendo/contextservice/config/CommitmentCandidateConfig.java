@@ -0,0 +1,42 @@
+package com.prithvianilk.mybestofriendo.contextservice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Data
+@Configuration
+@ConfigurationProperties(value = "whatsapp.candidates")
+public class CommitmentCandidateConfig {
+
+    /**
+     * Most future commitments put in the prompt, the best ranked ones are kept.
+     */
+    private int maxCandidates = 5;
+
+    /**
+     * Recent messages compared against each commitment, including the latest one.
+     */
+    private int contextMessages = 4;
+
+    /**
+     * Cancel obvious cancellations without the LLM when one commitment clearly matches.
+     */
+    private boolean cancelShortcutEnabled = true;
+
+    /**
+     * Score the best commitment needs for an obvious cancellation to be resolved without the LLM.
+     */
+    private double cancelShortcutMinScore = 0.35;
+
+    /**
+     * How far ahead of the second best commitment the best one must be for the shortcut.
+     */
+    private double cancelShortcutMinMargin = 0.15;
+
+    /**
+     * Score a participant's only future commitment needs for the shortcut, as there is no second best
+     * commitment to be ahead of.
+     */
+    private double cancelShortcutSoleMinScore = 0.7;
+}
@@ -0,0 +1,21 @@
+package com.prithvianilk.mybestofriendo.contextservice.config;
+
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+@Getter
+@Configuration
+public class ConversationSummaryConfig {
+    @Value("${whatsapp.summary.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * Number of messages that must fall out of a participant's window before the summary is updated.
+     */
+    @Value("${whatsapp.summary.batch-size:5}")
+    private int batchSize;
+
+    @Value("${whatsapp.summary.max-length:1500}")
+    private int maxLength;
+}
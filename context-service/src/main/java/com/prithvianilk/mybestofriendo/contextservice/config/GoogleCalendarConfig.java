@@ -1,59 +1,77 @@
 package com.prithvianilk.mybestofriendo.contextservice.config;
 
-import com.google.api.client.auth.oauth2.Credential;
-import com.google.api.client.extensions.java6.auth.oauth2.AuthorizationCodeInstalledApp;
-import com.google.api.client.extensions.jetty.auth.oauth2.LocalServerReceiver;
-import com.google.api.client.googleapis.auth.oauth2.GoogleAuthorizationCodeFlow;
 import com.google.api.client.googleapis.javanet.GoogleNetHttpTransport;
-import com.google.api.client.http.javanet.NetHttpTransport;
-import com.google.api.client.json.JsonFactory;
-import com.google.api.client.json.gson.GsonFactory;
-import com.google.api.client.util.store.FileDataStoreFactory;
-import com.google.api.services.calendar.Calendar;
-import com.google.api.services.calendar.CalendarScopes;
+import com.google.api.client.http.HttpTransport;
+import com.prithvianilk.mybestofriendo.contextservice.http.JdkHttpTransport;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
-import java.io.File;
 import java.io.IOException;
 import java.security.GeneralSecurityException;
-import java.util.List;
+import java.time.Duration;
 
 @Data
 @Configuration
 @ConfigurationProperties(value = "google.calendar")
 public class GoogleCalendarConfig {
 
-    private static final JsonFactory JSON_FACTORY = GsonFactory.getDefaultInstance();
-    private static final List<String> SCOPES = List.of(CalendarScopes.CALENDAR);
-    private static final String APPLICATION_NAME = "MyBestoFriendo";
+    public enum Transport {
+        /**
+         * JDK HttpClient, pooled keep-alive connections and HTTP/2.
+         */
+        JDK,
+        /**
+         * The Google client's HttpURLConnection transport.
+         */
+        NET_HTTP
+    }
 
     private String clientId;
 
     private String clientSecret;
 
+    /**
+     * Directory of the default tenant's stored OAuth tokens. Other tenants keep theirs in
+     * {@code tenants/<tenant>} under it.
+     */
     private String credentialsPath;
 
-    @Bean
-    public Calendar googleCalendarService() throws GeneralSecurityException, IOException {
-        NetHttpTransport httpTransport = GoogleNetHttpTransport.newTrustedTransport();
-        Credential credential = getCredentials(httpTransport);
+    private Transport transport = Transport.JDK;
 
-        return new Calendar.Builder(httpTransport, JSON_FACTORY, credential)
-                .setApplicationName(APPLICATION_NAME)
-                .build();
-    }
+    private Duration connectTimeout = Duration.ofSeconds(5);
+
+    private Duration readTimeout = Duration.ofSeconds(20);
 
-    private Credential getCredentials(NetHttpTransport httpTransport) throws IOException {
-        GoogleAuthorizationCodeFlow flow = new GoogleAuthorizationCodeFlow.Builder(
-                httpTransport, JSON_FACTORY, clientId, clientSecret, SCOPES)
-                .setDataStoreFactory(new FileDataStoreFactory(new File(credentialsPath)))
-                .setAccessType("offline")
-                .build();
+    /**
+     * Access tokens expiring within this long are refreshed in the background, so requests never wait on
+     * a refresh.
+     */
+    private Duration tokenRefreshAhead = Duration.ofMinutes(5);
 
-        LocalServerReceiver receiver = new LocalServerReceiver.Builder().setHost("localhost").setPort(8888).build();
-        return new AuthorizationCodeInstalledApp(flow, receiver).authorize("user");
+    private Duration tokenRefreshCheckInterval = Duration.ofMinutes(1);
+
+    /**
+     * Tenant to run the browser consent flow for, see
+     * {@link com.prithvianilk.mybestofriendo.contextservice.service.CalendarConsentRunner}.
+     */
+    private String consentTenant;
+
+    /**
+     * Port of the local server receiving the OAuth redirect during consent. Must match a redirect URI of the
+     * OAuth client; pass a different one per run to authorise tenants side by side.
+     */
+    private int consentPort = 8888;
+
+    /**
+     * Shared by the Calendar clients of every tenant.
+     */
+    @Bean
+    public HttpTransport googleHttpTransport() throws GeneralSecurityException, IOException {
+        return switch (transport) {
+            case JDK -> new JdkHttpTransport(connectTimeout);
+            case NET_HTTP -> GoogleNetHttpTransport.newTrustedTransport();
+        };
     }
 }
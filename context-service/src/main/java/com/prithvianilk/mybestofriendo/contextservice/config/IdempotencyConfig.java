@@ -0,0 +1,21 @@
+package com.prithvianilk.mybestofriendo.contextservice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Data
+@Configuration
+@ConfigurationProperties(value = "whatsapp.idempotency")
+public class IdempotencyConfig {
+
+    /**
+     * How long processed messages are remembered. Keep it longer than the retention of whatsapp-messages,
+     * otherwise a replay from the earliest offset processes the oldest messages again.
+     */
+    private Duration retention = Duration.ofDays(30);
+
+    private Duration purgeInterval = Duration.ofHours(1);
+}
@@ -1,6 +1,12 @@
 package com.prithvianilk.mybestofriendo.contextservice.config;
 
+import com.prithvianilk.mybestofriendo.contextservice.listener.ConsumerPollMetrics;
+import com.prithvianilk.mybestofriendo.contextservice.listener.WindowOwnershipRebalanceListener;
 import com.prithvianilk.mybestofriendo.contextservice.model.WhatsAppMessage;
+import com.prithvianilk.mybestofriendo.contextservice.model.WindowSnapshot;
+import com.prithvianilk.mybestofriendo.contextservice.serialization.WhatsAppMessageDeserializer;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.springframework.beans.factory.annotation.Value;
@@ -9,6 +15,7 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.ConsumerFactory;
 import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.MicrometerConsumerListener;
 import org.springframework.kafka.listener.ContainerProperties;
 import org.springframework.kafka.listener.DefaultErrorHandler;
 import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
@@ -19,44 +26,93 @@ import java.util.HashMap;
 import java.util.Map;
 
 @Configuration
+@RequiredArgsConstructor
 public class KafkaConsumerConfig {
 
     @Value("${spring.kafka.bootstrap-servers}")
     private String bootstrapServers;
 
+    private final BatchListenerConfig batchListenerConfig;
+    private final MeterRegistry meterRegistry;
+
     @Bean
     public ConsumerFactory<String, WhatsAppMessage> consumerFactory() {
+        Map<String, Object> props = consumerProperties();
+        // Process one record at a time to prevent session timeouts during slow LLM
+        // processing
+        props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, "1");
+
+        DefaultKafkaConsumerFactory<String, WhatsAppMessage> factory = new DefaultKafkaConsumerFactory<>(props);
+        factory.addListener(new MicrometerConsumerListener<>(meterRegistry));
+        return factory;
+    }
+
+    @Bean
+    public ConsumerFactory<String, WhatsAppMessage> batchConsumerFactory() {
+        Map<String, Object> props = consumerProperties();
+        props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, batchListenerConfig.getMaxPollRecords());
+        props.put(ConsumerConfig.MAX_POLL_INTERVAL_MS_CONFIG,
+                (int) batchListenerConfig.getMaxPollInterval().toMillis());
+        // Large fetches of compressed producer batches, see spec/whatsapp-messages-topic.md
+        props.put(ConsumerConfig.FETCH_MIN_BYTES_CONFIG, (int) batchListenerConfig.getFetchMinBytes().toBytes());
+        props.put(ConsumerConfig.FETCH_MAX_WAIT_MS_CONFIG, (int) batchListenerConfig.getFetchMaxWait().toMillis());
+        props.put(ConsumerConfig.MAX_PARTITION_FETCH_BYTES_CONFIG,
+                (int) batchListenerConfig.getMaxPartitionFetchBytes().toBytes());
+        props.put(ConsumerConfig.FETCH_MAX_BYTES_CONFIG, (int) batchListenerConfig.getFetchMaxBytes().toBytes());
+        props.put(ConsumerConfig.RECEIVE_BUFFER_CONFIG, (int) batchListenerConfig.getReceiveBuffer().toBytes());
+
+        DefaultKafkaConsumerFactory<String, WhatsAppMessage> factory = new DefaultKafkaConsumerFactory<>(props);
+        factory.addListener(new MicrometerConsumerListener<>(meterRegistry));
+        factory.addPostProcessor(new ConsumerPollMetrics<>(meterRegistry, "batch"));
+        return factory;
+    }
+
+    /**
+     * Consumer for reading the window snapshot topic on startup. Partitions are assigned manually and no
+     * offsets are committed.
+     */
+    @Bean
+    public ConsumerFactory<String, WindowSnapshot> windowSnapshotConsumerFactory() {
+        Map<String, Object> props = consumerProperties();
+        props.put(ConsumerConfig.GROUP_ID_CONFIG, "context-service-window-hydrator");
+        props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, 1000);
+        props.put(ErrorHandlingDeserializer.VALUE_DESERIALIZER_CLASS, JsonDeserializer.class);
+        props.put(JsonDeserializer.VALUE_DEFAULT_TYPE, WindowSnapshot.class.getName());
+
+        return new DefaultKafkaConsumerFactory<>(props);
+    }
+
+    private Map<String, Object> consumerProperties() {
         Map<String, Object> props = new HashMap<>();
         props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         props.put(ConsumerConfig.GROUP_ID_CONFIG, "context-service-group");
         props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
-        // Process one record at a time to prevent session timeouts during slow LLM
-        // processing
-        props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, "1");
-        // Disable auto-commit to let Spring manage offsets (AckMode.RECORD)
+        // Disable auto-commit to let Spring manage offsets (AckMode.RECORD / AckMode.BATCH)
         props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
 
         // Configure ErrorHandlingDeserializer for key
         props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, ErrorHandlingDeserializer.class);
         props.put(ErrorHandlingDeserializer.KEY_DESERIALIZER_CLASS, StringDeserializer.class);
 
-        // Configure ErrorHandlingDeserializer for value with JsonDeserializer
+        // Configure ErrorHandlingDeserializer for value, Avro or JSON by the record's content type header
         props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ErrorHandlingDeserializer.class);
-        props.put(ErrorHandlingDeserializer.VALUE_DESERIALIZER_CLASS, JsonDeserializer.class);
+        props.put(ErrorHandlingDeserializer.VALUE_DESERIALIZER_CLASS, WhatsAppMessageDeserializer.class);
 
-        // JsonDeserializer specific configuration
+        // JsonDeserializer specific configuration, also used for JSON records by WhatsAppMessageDeserializer
         props.put(JsonDeserializer.TRUSTED_PACKAGES, "*");
         props.put(JsonDeserializer.VALUE_DEFAULT_TYPE, WhatsAppMessage.class.getName());
         props.put(JsonDeserializer.USE_TYPE_INFO_HEADERS, false);
 
-        return new DefaultKafkaConsumerFactory<>(props);
+        return props;
     }
 
     @Bean
-    public ConcurrentKafkaListenerContainerFactory<String, WhatsAppMessage> kafkaListenerContainerFactory() {
+    public ConcurrentKafkaListenerContainerFactory<String, WhatsAppMessage> kafkaListenerContainerFactory(
+            WindowOwnershipRebalanceListener rebalanceListener) {
         ConcurrentKafkaListenerContainerFactory<String, WhatsAppMessage> factory = new ConcurrentKafkaListenerContainerFactory<>();
         factory.setConsumerFactory(consumerFactory());
         factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.RECORD);
+        factory.getContainerProperties().setConsumerRebalanceListener(rebalanceListener);
 
         // Configure error handler
         DefaultErrorHandler errorHandler = new DefaultErrorHandler(
@@ -66,4 +122,22 @@ public class KafkaConsumerConfig {
 
         return factory;
     }
+
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, WhatsAppMessage> batchKafkaListenerContainerFactory(
+            WindowOwnershipRebalanceListener rebalanceListener) {
+        ConcurrentKafkaListenerContainerFactory<String, WhatsAppMessage> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(batchConsumerFactory());
+        factory.setBatchListener(true);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.BATCH);
+        factory.getContainerProperties().setConsumerRebalanceListener(rebalanceListener);
+
+        // Retries from the record reported in BatchListenerFailedException, committing the ones before it
+        DefaultErrorHandler errorHandler = new DefaultErrorHandler(
+                new FixedBackOff(1000L, 3L) // 1 second interval, 3 retry attempts
+        );
+        factory.setCommonErrorHandler(errorHandler);
+
+        return factory;
+    }
 }
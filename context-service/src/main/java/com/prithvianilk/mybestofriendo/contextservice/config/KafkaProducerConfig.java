@@ -0,0 +1,76 @@
+package com.prithvianilk.mybestofriendo.contextservice.config;
+
+import lombok.RequiredArgsConstructor;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.TopicBuilder;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@Configuration
+@RequiredArgsConstructor
+public class KafkaProducerConfig {
+
+    @Value("${spring.kafka.bootstrap-servers}")
+    private String bootstrapServers;
+
+    private final WindowSnapshotConfig windowSnapshotConfig;
+    private final MessagePriorityConfig messagePriorityConfig;
+    private final ProducerBatchingConfig producerBatchingConfig;
+    private final ReminderConfig reminderConfig;
+
+    @Bean
+    public ProducerFactory<String, Object> producerFactory() {
+        Map<String, Object> props = new HashMap<>();
+        props.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
+        props.put(JsonSerializer.ADD_TYPE_INFO_HEADERS, false);
+        props.put(ProducerConfig.ACKS_CONFIG, "all");
+        props.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        props.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, producerBatchingConfig.getCompressionType());
+        props.put(ProducerConfig.LINGER_MS_CONFIG, (int) producerBatchingConfig.getLinger().toMillis());
+        props.put(ProducerConfig.BATCH_SIZE_CONFIG, (int) producerBatchingConfig.getBatchSize().toBytes());
+
+        return new DefaultKafkaProducerFactory<>(props);
+    }
+
+    @Bean
+    public KafkaTemplate<String, Object> kafkaTemplate() {
+        return new KafkaTemplate<>(producerFactory());
+    }
+
+    @Bean
+    public NewTopic windowSnapshotTopic() {
+        return TopicBuilder.name(windowSnapshotConfig.getTopic())
+                .partitions(windowSnapshotConfig.getPartitions())
+                .replicas(1)
+                .compact()
+                .build();
+    }
+
+    @Bean
+    public NewTopic catchUpTopic() {
+        return TopicBuilder.name(messagePriorityConfig.getCatchUpTopic())
+                .partitions(windowSnapshotConfig.getPartitions())
+                .replicas(1)
+                .build();
+    }
+
+    @Bean
+    public NewTopic reminderTopic() {
+        return TopicBuilder.name(reminderConfig.getTopic())
+                .partitions(windowSnapshotConfig.getPartitions())
+                .replicas(1)
+                .build();
+    }
+}
@@ -0,0 +1,29 @@
+package com.prithvianilk.mybestofriendo.contextservice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Data
+@Configuration
+@ConfigurationProperties(value = "whatsapp.dispatch")
+public class MessageDispatchConfig {
+
+    /**
+     * Worker threads per service. Each participant is pinned to one of them, so a service sees a
+     * participant's messages in order.
+     */
+    private int stripes = 4;
+
+    /**
+     * Messages each worker thread may have queued before new ones are rejected.
+     */
+    private int queueCapacity = 100;
+
+    /**
+     * How long a message waits for a service before giving up on it.
+     */
+    private Duration timeout = Duration.ofMinutes(2);
+}
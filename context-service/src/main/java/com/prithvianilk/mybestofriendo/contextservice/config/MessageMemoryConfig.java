@@ -0,0 +1,41 @@
+package com.prithvianilk.mybestofriendo.contextservice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Data
+@Configuration
+@ConfigurationProperties(value = "whatsapp.memory")
+public class MessageMemoryConfig {
+
+    private boolean enabled = true;
+
+    /**
+     * Directory holding the message vector log and the HNSW graph snapshot.
+     */
+    private String directory = "message-memory";
+
+    private int dimensions = 128;
+
+    /**
+     * Maximum number of links per node on the upper HNSW layers, twice this on the bottom layer.
+     */
+    private int m = 16;
+
+    private int efConstruction = 100;
+
+    private int efSearch = 64;
+
+    /**
+     * Searches stop expanding once this budget is spent and return the best matches found so far.
+     */
+    private Duration searchBudget = Duration.ofMillis(50);
+
+    /**
+     * Number of indexed messages between HNSW graph snapshots.
+     */
+    private int snapshotInterval = 5000;
+}
@@ -0,0 +1,49 @@
+package com.prithvianilk.mybestofriendo.contextservice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Data
+@Configuration
+@ConfigurationProperties(value = "whatsapp.priority")
+public class MessagePriorityConfig {
+
+    private boolean enabled = true;
+
+    /**
+     * Normal priority messages older than this when consumed are deferred to the catch-up topic, as their
+     * age means the listener is behind.
+     */
+    private Duration shedAfter = Duration.ofMinutes(2);
+
+    /**
+     * Normal priority messages a participant can send in a burst before being rate limited.
+     */
+    private int bucketCapacity = 10;
+
+    /**
+     * Time for a participant's bucket to regain one token.
+     */
+    private Duration refillInterval = Duration.ofSeconds(6);
+
+    /**
+     * Normal priority messages a tenant can send in a burst, across all of its chats, before being rate
+     * limited.
+     */
+    private int tenantBucketCapacity = 30;
+
+    /**
+     * Time for a tenant's bucket to regain one token.
+     */
+    private Duration tenantRefillInterval = Duration.ofSeconds(2);
+
+    private String catchUpTopic = "whatsapp-messages-catchup";
+
+    /**
+     * How long to wait for a deferred message to be acknowledged by the catch-up topic before failing it.
+     */
+    private Duration deferralTimeout = Duration.ofSeconds(30);
+}
@@ -0,0 +1,19 @@
+package com.prithvianilk.mybestofriendo.contextservice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Data
+@Configuration
+@ConfigurationProperties(value = "whatsapp.ownership")
+public class PartitionOwnershipConfig {
+
+    /**
+     * Run as one of several instances. Each instance only keeps the windows of participants on its
+     * assigned whatsapp-messages partitions, hydrating them on assignment instead of all at startup.
+     */
+    private boolean enabled = false;
+
+    private String topic = "whatsapp-messages";
+}
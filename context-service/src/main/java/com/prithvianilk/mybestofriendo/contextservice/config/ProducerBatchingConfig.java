@@ -0,0 +1,28 @@
+package com.prithvianilk.mybestofriendo.contextservice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * Batching and compression of the records this service produces, following the same contract as
+ * whatsapp-messages producers, see spec/whatsapp-messages-topic.md.
+ */
+@Data
+@Configuration
+@ConfigurationProperties(value = "whatsapp.producer")
+public class ProducerBatchingConfig {
+
+    /**
+     * none, gzip, snappy, lz4 or zstd. Batches are compressed as a whole, so compression pays off with
+     * {@link #linger} giving records time to share a batch.
+     */
+    private String compressionType = "zstd";
+
+    private Duration linger = Duration.ofMillis(20);
+
+    private DataSize batchSize = DataSize.ofKilobytes(256);
+}
@@ -0,0 +1,63 @@
+package com.prithvianilk.mybestofriendo.contextservice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@Configuration
+@ConfigurationProperties(value = "whatsapp.experiment")
+public class PromptExperimentConfig {
+
+    /**
+     * Assign participants to {@link #variants} for commitment detection. When disabled, or with no variants,
+     * every message uses the built-in prompt and the configured model.
+     */
+    private boolean enabled = false;
+
+    /**
+     * Mixed into the participant hash. Changing it reshuffles participants between variants.
+     */
+    private String salt = "commitment-detection";
+
+    private List<Variant> variants = new ArrayList<>();
+
+    /**
+     * Variants also run on every message in the background, whatever variant it was assigned. Their results
+     * are only logged and measured, never acted on.
+     */
+    private List<String> shadowVariants = new ArrayList<>();
+
+    private int shadowThreads = 2;
+
+    /**
+     * Shadow runs waiting for a thread. Further ones are dropped, so shadows never slow the listener down.
+     */
+    private int shadowQueueCapacity = 100;
+
+    @Data
+    public static class Variant {
+
+        private String name;
+
+        /**
+         * Model to call, the configured spring.ai model if not set.
+         */
+        private String model;
+
+        /**
+         * Resource with the prompt template, with the same four %s placeholders as the built-in prompt. The
+         * built-in prompt if not set.
+         */
+        private String prompt;
+
+        /**
+         * Share of participants assigned to the variant, relative to the other variants. Zero for a variant
+         * that only runs as a shadow.
+         */
+        private int weight = 1;
+    }
+}
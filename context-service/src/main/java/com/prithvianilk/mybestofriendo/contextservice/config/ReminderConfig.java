@@ -0,0 +1,45 @@
+package com.prithvianilk.mybestofriendo.contextservice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.List;
+
+@Data
+@Configuration
+@ConfigurationProperties(value = "whatsapp.reminder")
+public class ReminderConfig {
+
+    /**
+     * Fire reminders for commitments to {@link #topic}. With partition ownership enabled every instance
+     * would fire them, so enable it on one instance only.
+     */
+    private boolean enabled = true;
+
+    private String topic = "commitment-reminders";
+
+    /**
+     * How long before a commitment is due each pre-due reminder fires. A due reminder always fires too.
+     */
+    private List<Duration> leads = List.of(Duration.ofHours(1));
+
+    /**
+     * Reminders missed while the service was down are fired late on startup if they were due within this
+     * long, only the latest one per commitment.
+     */
+    private Duration missedFireWindow = Duration.ofHours(12);
+
+    /**
+     * Delay before retrying a reminder that failed to send, doubled on each further failure up to
+     * {@link #maxRetryBackoff}. Retries stop once the reminder is older than {@link #missedFireWindow}.
+     */
+    private Duration retryBackoff = Duration.ofSeconds(10);
+
+    private Duration maxRetryBackoff = Duration.ofMinutes(5);
+
+    private Duration tick = Duration.ofSeconds(1);
+
+    private int wheelSize = 512;
+}
@@ -0,0 +1,20 @@
+package com.prithvianilk.mybestofriendo.contextservice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.ZoneId;
+
+@Data
+@Configuration
+@ConfigurationProperties(value = "whatsapp.temporal")
+public class TemporalResolutionConfig {
+
+    private boolean enabled = true;
+
+    /**
+     * Zone the conversation happens in, used to read expressions like "tomorrow evening".
+     */
+    private ZoneId zone = ZoneId.of("Asia/Kolkata");
+}
@@ -0,0 +1,35 @@
+package com.prithvianilk.mybestofriendo.contextservice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Data
+@Configuration
+@ConfigurationProperties(value = "whatsapp.tenancy")
+public class TenancyConfig {
+
+    /**
+     * Give every tenant other than the default one its own SQLite file. The default tenant always uses
+     * spring.datasource.
+     */
+    private boolean shardingEnabled = true;
+
+    /**
+     * Give every tenant other than the default one its own schema in spring.datasource, for a shared
+     * PostgreSQL database. Replaces sharding, so only one of the two may be enabled.
+     */
+    private boolean schemasEnabled = false;
+
+    private String shardDirectory = "tenants";
+
+    private int shardPoolSize = 2;
+
+    /**
+     * Shards with no open connections that have not been used for this long are closed, and reopened on
+     * the tenant's next message.
+     */
+    private Duration shardIdleTimeout = Duration.ofMinutes(10);
+}
@@ -0,0 +1,36 @@
+package com.prithvianilk.mybestofriendo.contextservice.config;
+
+import com.prithvianilk.mybestofriendo.contextservice.tenant.SchemaRoutingDataSource;
+import com.prithvianilk.mybestofriendo.contextservice.tenant.TenantRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * Replaces the auto-configured DataSource with one that routes each connection to the current tenant's
+ * shard, a SQLite file of its own or, in a shared PostgreSQL database, a schema of its own. The default
+ * tenant keeps using spring.datasource, so single-user deployments are unaffected.
+ */
+@Configuration
+public class TenantDataSourceConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "whatsapp.tenancy.sharding-enabled", havingValue = "true", matchIfMissing = true)
+    public DataSource dataSource(DataSourceProperties properties, TenancyConfig tenancyConfig) {
+        return new TenantRoutingDataSource(primary(properties), tenancyConfig);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "whatsapp.tenancy.schemas-enabled", havingValue = "true")
+    public SchemaRoutingDataSource schemaRoutingDataSource(DataSourceProperties properties) {
+        return new SchemaRoutingDataSource(primary(properties));
+    }
+
+    private static HikariDataSource primary(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+}
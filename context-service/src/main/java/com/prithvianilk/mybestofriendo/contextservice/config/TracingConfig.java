@@ -0,0 +1,40 @@
+package com.prithvianilk.mybestofriendo.contextservice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+@Data
+@Configuration
+@ConfigurationProperties(value = "whatsapp.tracing")
+public class TracingConfig {
+
+    /**
+     * Export finished spans. Trace context is propagated, and wide events carry their trace id, either way.
+     */
+    private boolean enabled = true;
+
+    /**
+     * File the spans are appended to, one OTLP/JSON export request per line, as read by the OpenTelemetry
+     * Collector's otlpjsonfile receiver.
+     */
+    private String path = "traces.jsonl";
+
+    /**
+     * Size at which the file is renamed to {@code <path>.1}, replacing the previous one, and a new file is
+     * started. Traces take at most twice this on disk.
+     */
+    private DataSize maxFileSize = DataSize.ofMegabytes(64);
+
+    private String serviceName = "context-service";
+
+    private Duration flushInterval = Duration.ofSeconds(1);
+
+    /**
+     * Spans waiting to be written. Further ones are dropped.
+     */
+    private int queueCapacity = 10000;
+}
@@ -0,0 +1,46 @@
+package com.prithvianilk.mybestofriendo.contextservice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Data
+@Configuration
+@ConfigurationProperties(value = "whatsapp.analytics")
+public class WideEventAnalyticsConfig {
+
+    /**
+     * Store every logged wide event, with hourly rollups, for the analytics endpoint.
+     */
+    private boolean enabled = true;
+
+    /**
+     * SQLite file of the store, separate from the tenant databases.
+     */
+    private String path = "wide-events.db";
+
+    private Duration flushInterval = Duration.ofSeconds(1);
+
+    /**
+     * Events waiting to be flushed. Further ones are dropped, so a slow disk never holds up a listener.
+     */
+    private int queueCapacity = 10000;
+
+    /**
+     * How long raw events are kept.
+     */
+    private Duration eventRetention = Duration.ofDays(7);
+
+    /**
+     * How long hourly rollups are kept.
+     */
+    private Duration rollupRetention = Duration.ofDays(90);
+
+    /**
+     * How long content redacted from logged events is kept after an event last referenced it. Longer than
+     * the raw events, as the logs keep referring to it.
+     */
+    private Duration payloadRetention = Duration.ofDays(30);
+}
@@ -0,0 +1,49 @@
+package com.prithvianilk.mybestofriendo.contextservice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.List;
+
+@Data
+@Configuration
+@ConfigurationProperties(value = "whatsapp.wide-event-logging")
+public class WideEventLoggingConfig {
+
+    /**
+     * Sample wide events once they have finished. Failed, slow and commitment changing events are always kept.
+     */
+    private boolean samplingEnabled = true;
+
+    /**
+     * Share of the remaining, no-op events that are kept.
+     */
+    private double noOpSampleRate = 0.1;
+
+    /**
+     * Events taking at least this long, in total or in the LLM call, are always kept.
+     */
+    private Duration slowThreshold = Duration.ofSeconds(5);
+
+    /**
+     * Replace large fields of kept events with a hash of their content, storing the content once in the
+     * analytics store. Skipped when the analytics store is disabled.
+     */
+    private boolean redactionEnabled = true;
+
+    /**
+     * Dotted paths of the fields to redact. A path ending in {@code []} redacts each element of an array on
+     * its own, so messages shared by overlapping windows are stored once.
+     */
+    private List<String> redactedFields = List.of(
+            "commitmentManagement.prompt",
+            "commitmentManagement.historyMessages[]",
+            "commitmentManagement.futureCommitments");
+
+    /**
+     * Values shorter than this, in characters of JSON, are cheaper to log than to redact.
+     */
+    private int redactionMinLength = 64;
+}
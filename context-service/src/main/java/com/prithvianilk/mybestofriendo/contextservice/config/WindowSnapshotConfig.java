@@ -0,0 +1,28 @@
+package com.prithvianilk.mybestofriendo.contextservice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Data
+@Configuration
+@ConfigurationProperties(value = "whatsapp.window.snapshot")
+public class WindowSnapshotConfig {
+
+    private boolean enabled = true;
+
+    private String topic = "whatsapp-window-snapshots";
+
+    /**
+     * Keep equal to the partition count of whatsapp-messages, so a participant's snapshot lives on the
+     * same partition number as its messages.
+     */
+    private int partitions = 1;
+
+    /**
+     * Startup gives up on hydration after this long and continues with whatever windows were read.
+     */
+    private Duration hydrationTimeout = Duration.ofMinutes(2);
+}
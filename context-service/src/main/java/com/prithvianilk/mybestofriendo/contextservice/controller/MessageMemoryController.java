@@ -0,0 +1,25 @@
+package com.prithvianilk.mybestofriendo.contextservice.controller;
+
+import com.prithvianilk.mybestofriendo.contextservice.model.MessageMatch;
+import com.prithvianilk.mybestofriendo.contextservice.repository.MessageVectorRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/context-service/memory")
+@RequiredArgsConstructor
+public class MessageMemoryController {
+
+    private static final int MAX_K = 100;
+
+    private final MessageVectorRepository messageVectorRepository;
+
+    @GetMapping
+    public List<MessageMatch> findSimilarMessages(
+            @RequestParam("query") String query,
+            @RequestParam(value = "k", defaultValue = "10") int k) {
+        return messageVectorRepository.findSimilar(query, Math.clamp(k, 1, MAX_K));
+    }
+}
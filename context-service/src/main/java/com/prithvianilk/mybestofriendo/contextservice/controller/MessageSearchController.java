@@ -0,0 +1,40 @@
+package com.prithvianilk.mybestofriendo.contextservice.controller;
+
+import com.prithvianilk.mybestofriendo.contextservice.model.MessageSearchPage;
+import com.prithvianilk.mybestofriendo.contextservice.model.MessageSearchQuery;
+import com.prithvianilk.mybestofriendo.contextservice.repository.WhatsAppMessageLogRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Instant;
+
+@RestController
+@RequestMapping("/context-service/messages")
+@RequiredArgsConstructor
+public class MessageSearchController {
+
+    private static final int MAX_LIMIT = 200;
+
+    private final WhatsAppMessageLogRepository messageLogRepository;
+
+    @GetMapping("/search")
+    public MessageSearchPage searchMessages(
+            @RequestParam("query") String query,
+            @RequestParam(value = "participant", required = false) String participant,
+            @RequestParam(value = "from", required = false) Instant from,
+            @RequestParam(value = "to", required = false) Instant to,
+            @RequestParam(value = "limit", defaultValue = "20") int limit,
+            @RequestParam(value = "cursor", required = false) String cursor) {
+        if (!messageLogRepository.isSearchSupported()) {
+            throw new ResponseStatusException(HttpStatus.NOT_IMPLEMENTED, "Message search needs the SQLite shards");
+        }
+        try {
+            return messageLogRepository.search(new MessageSearchQuery(
+                    query, participant, from, to, Math.clamp(limit, 1, MAX_LIMIT), cursor));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+    }
+}
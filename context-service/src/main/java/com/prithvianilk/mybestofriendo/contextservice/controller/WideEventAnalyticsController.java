@@ -0,0 +1,83 @@
+package com.prithvianilk.mybestofriendo.contextservice.controller;
+
+import com.prithvianilk.mybestofriendo.contextservice.analytics.WideEventStore;
+import com.prithvianilk.mybestofriendo.contextservice.model.HourlyRollup;
+import com.prithvianilk.mybestofriendo.contextservice.model.LatencyRollup;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * Hourly rollups of the wide events, for example the p99 LLM latency of a day with
+ * {@code /latency?stage=llm&from=2025-01-14T00:00:00Z&to=2025-01-15T00:00:00Z}. Ranges are widened to
+ * whole hours and default to the last day.
+ */
+@RestController
+@RequestMapping("/context-service/analytics")
+@RequiredArgsConstructor
+public class WideEventAnalyticsController {
+
+    private static final Duration DEFAULT_RANGE = Duration.ofDays(1);
+
+    private final WideEventStore wideEventStore;
+    private final Clock clock;
+
+    @GetMapping("/latency")
+    public List<LatencyRollup> latency(
+            @RequestParam(value = "stage", required = false) String stage,
+            @RequestParam(value = "from", required = false) Instant from,
+            @RequestParam(value = "to", required = false) Instant to,
+            @RequestParam(value = "percentiles", defaultValue = "0.5,0.9,0.99") List<Double> percentiles) {
+        if (percentiles.stream().anyMatch(percentile -> percentile <= 0 || percentile > 1)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Percentiles must be in (0, 1]");
+        }
+        Instant end = Objects.isNull(to) ? clock.instant() : to;
+        return wideEventStore.latency(stage, start(from, end), end, percentiles);
+    }
+
+    /**
+     * @param dimension one of action, failure, variant or shadow
+     */
+    @GetMapping("/counts/{dimension}")
+    public List<HourlyRollup> counts(
+            @PathVariable("dimension") String dimension,
+            @RequestParam(value = "from", required = false) Instant from,
+            @RequestParam(value = "to", required = false) Instant to) {
+        WideEventStore.Dimension parsedDimension;
+        try {
+            parsedDimension = WideEventStore.Dimension.valueOf(dimension.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown dimension: " + dimension, e);
+        }
+        Instant end = Objects.isNull(to) ? clock.instant() : to;
+        return wideEventStore.counts(parsedDimension, start(from, end), end);
+    }
+
+    /**
+     * Content of a field redacted from a logged wide event.
+     *
+     * @param hash the hash of a {@code sha256:} reference in the log, with or without the prefix
+     */
+    @GetMapping(value = "/payloads/{hash}", produces = MediaType.TEXT_PLAIN_VALUE)
+    public String payload(@PathVariable("hash") String hash) {
+        return wideEventStore.payload(hash.startsWith("sha256:") ? hash.substring("sha256:".length()) : hash)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "No payload with hash " + hash));
+    }
+
+    private static Instant start(Instant from, Instant end) {
+        Instant start = Objects.isNull(from) ? end.minus(DEFAULT_RANGE) : from;
+        if (!start.isBefore(end)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "from must be before to");
+        }
+        return start;
+    }
+}
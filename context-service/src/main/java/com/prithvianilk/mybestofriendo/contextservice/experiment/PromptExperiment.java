@@ -0,0 +1,181 @@
+package com.prithvianilk.mybestofriendo.contextservice.experiment;
+
+import com.prithvianilk.mybestofriendo.contextservice.config.PromptExperimentConfig;
+import com.prithvianilk.mybestofriendo.contextservice.tenant.TenantContext;
+import com.prithvianilk.mybestofriendo.contextservice.tracing.Span;
+import com.prithvianilk.mybestofriendo.contextservice.tracing.TraceContext;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+
+/**
+ * Assigns each participant to a prompt and model variant for commitment detection, and runs shadow variants
+ * off the critical path.
+ * <p>
+ * Assignment hashes the salted, tenant qualified participant number into the variants' weights, so a
+ * participant always gets the same variant, on every instance and across restarts, and a conversation is
+ * never split between prompts. Shadow variants get the same prompt sections as the primary one and run on
+ * a small bounded pool; when it is full they are dropped rather than queued behind the listener.
+ */
+@Slf4j
+@Service
+public class PromptExperiment {
+
+    private static final int PROMPT_PLACEHOLDERS = 4;
+
+    private final ShadowVariantRunner shadowRunner;
+    private final MeterRegistry meterRegistry;
+    private final String salt;
+    private final List<PromptVariant> assignableVariants;
+    private final int totalWeight;
+    private final List<PromptVariant> shadowVariants;
+    private final ThreadPoolExecutor shadowExecutor;
+
+    public PromptExperiment(
+            PromptExperimentConfig config,
+            ResourceLoader resourceLoader,
+            ShadowVariantRunner shadowRunner,
+            MeterRegistry meterRegistry) {
+        this.shadowRunner = shadowRunner;
+        this.meterRegistry = meterRegistry;
+        this.salt = config.getSalt();
+
+        Map<String, PromptVariant> variantsByName = new LinkedHashMap<>();
+        if (config.isEnabled()) {
+            for (PromptExperimentConfig.Variant variant : config.getVariants()) {
+                if (Objects.isNull(variant.getName()) || variant.getName().isBlank()) {
+                    throw new IllegalStateException("Every prompt variant needs a name");
+                }
+                if (variantsByName.containsKey(variant.getName())) {
+                    throw new IllegalStateException("Duplicate prompt variant: " + variant.getName());
+                }
+                variantsByName.put(variant.getName(), new PromptVariant(variant.getName(), variant.getModel(),
+                        loadPromptSegments(resourceLoader, variant), variant.getWeight()));
+            }
+        }
+        this.assignableVariants = variantsByName.values().stream().filter(variant -> variant.weight() > 0).toList();
+        this.totalWeight = assignableVariants.stream().mapToInt(PromptVariant::weight).sum();
+
+        List<PromptVariant> shadows = new ArrayList<>();
+        if (config.isEnabled()) {
+            for (String name : config.getShadowVariants()) {
+                PromptVariant shadow = variantsByName.get(name);
+                if (Objects.isNull(shadow) && PromptVariant.CONTROL.equals(name)) {
+                    shadow = PromptVariant.DEFAULT;
+                }
+                if (Objects.isNull(shadow)) {
+                    throw new IllegalStateException("Unknown shadow variant: " + name);
+                }
+                shadows.add(shadow);
+            }
+        }
+        this.shadowVariants = List.copyOf(shadows);
+        if (config.isEnabled()) {
+            log.info("Prompt experiment with variants {} and shadow variants {}",
+                    assignableVariants.stream().map(PromptVariant::name).toList(),
+                    shadowVariants.stream().map(PromptVariant::name).toList());
+        }
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.shadowExecutor = new ThreadPoolExecutor(config.getShadowThreads(), config.getShadowThreads(),
+                0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(config.getShadowQueueCapacity()),
+                runnable -> Thread.ofPlatform()
+                        .name("prompt-shadow-" + threadCount.getAndIncrement())
+                        .daemon()
+                        .unstarted(runnable));
+    }
+
+    /**
+     * @return the participant's variant, {@link PromptVariant#DEFAULT} when no experiment is running
+     */
+    public PromptVariant assign(String participantMobileNumber) {
+        if (totalWeight == 0) {
+            return PromptVariant.DEFAULT;
+        }
+        CRC32 hash = new CRC32();
+        hash.update((salt + ':' + TenantContext.qualify(participantMobileNumber)).getBytes(StandardCharsets.UTF_8));
+        long bucket = hash.getValue() % totalWeight;
+        for (PromptVariant variant : assignableVariants) {
+            bucket -= variant.weight();
+            if (bucket < 0) {
+                return variant;
+            }
+        }
+        return assignableVariants.getLast();
+    }
+
+    /**
+     * Whether any shadow variant runs next to the given primary one, so its prompt sections are needed.
+     */
+    public boolean hasShadows(PromptVariant primary) {
+        return shadowVariants.stream().anyMatch(shadow -> !shadow.name().equals(primary.name()));
+    }
+
+    /**
+     * Submits every shadow variant other than the primary one, built from the primary prompt's sections.
+     */
+    public void runShadows(
+            PromptVariant primary,
+            String primaryOutcome,
+            String participantMobileNumber,
+            String[] defaultSegments,
+            List<String> sections) {
+        Span span = TraceContext.current();
+        for (PromptVariant shadow : shadowVariants) {
+            if (shadow.name().equals(primary.name())) {
+                continue;
+            }
+            try {
+                shadowExecutor.execute(() -> TraceContext.run(span, () -> shadowRunner.run(
+                        new ShadowVariantRunner.ShadowRun(shadow, shadow.render(defaultSegments, sections),
+                                participantMobileNumber, primary.name(), primaryOutcome))));
+            } catch (RejectedExecutionException e) {
+                meterRegistry.counter("whatsapp.experiment.shadow", "variant", shadow.name(), "result", "rejected")
+                        .increment();
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        shadowExecutor.shutdownNow();
+    }
+
+    private static String[] loadPromptSegments(ResourceLoader resourceLoader, PromptExperimentConfig.Variant variant) {
+        if (Objects.isNull(variant.getPrompt())) {
+            return null;
+        }
+        Resource resource = resourceLoader.getResource(variant.getPrompt());
+        String template;
+        try {
+            template = resource.getContentAsString(StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read prompt of variant " + variant.getName(), e);
+        }
+        String[] segments = template.split("%s", -1);
+        if (segments.length != PROMPT_PLACEHOLDERS + 1) {
+            throw new IllegalStateException("Prompt of variant " + variant.getName() + " must have "
+                    + PROMPT_PLACEHOLDERS + " %s placeholders, it has " + (segments.length - 1));
+        }
+        return segments;
+    }
+}
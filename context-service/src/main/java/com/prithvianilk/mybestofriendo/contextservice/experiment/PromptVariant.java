@@ -0,0 +1,36 @@
+package com.prithvianilk.mybestofriendo.contextservice.experiment;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A prompt template and model to run commitment detection with.
+ *
+ * @param model          model to call, null for the configured one
+ * @param promptSegments the template split around its placeholders, null for the built-in prompt
+ */
+public record PromptVariant(String name, String model, String[] promptSegments, int weight) {
+
+    public static final String CONTROL = "control";
+
+    /**
+     * The built-in prompt with the configured model.
+     */
+    public static final PromptVariant DEFAULT = new PromptVariant(CONTROL, null, null, 1);
+
+    public String[] segments(String[] defaultSegments) {
+        return Objects.isNull(promptSegments) ? defaultSegments : promptSegments;
+    }
+
+    /**
+     * Fills the variant's template with the sections of a prompt built for another variant.
+     */
+    public String render(String[] defaultSegments, List<String> sections) {
+        String[] segments = segments(defaultSegments);
+        StringBuilder prompt = new StringBuilder(segments[0]);
+        for (int i = 0; i < sections.size(); i++) {
+            prompt.append(sections.get(i)).append(segments[i + 1]);
+        }
+        return prompt.toString();
+    }
+}
@@ -0,0 +1,100 @@
+package com.prithvianilk.mybestofriendo.contextservice.experiment;
+
+import com.prithvianilk.mybestofriendo.contextservice.model.CommitmentActionResponse;
+import com.prithvianilk.mybestofriendo.contextservice.tracing.Span;
+import com.prithvianilk.mybestofriendo.contextservice.tracing.Tracer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.client.ResponseEntity;
+import org.springframework.ai.chat.metadata.Usage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.openai.OpenAiChatOptions;
+import org.springframework.stereotype.Component;
+
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Asks the LLM for a commitment action with a variant's model, measuring latency and token usage per
+ * variant, in a span of its own.
+ */
+@Component
+@RequiredArgsConstructor
+public class PromptVariantClient {
+
+    private final ChatClient chatClient;
+    private final MeterRegistry meterRegistry;
+    private final Tracer tracer;
+
+    /**
+     * @param response the parsed action, null if the LLM returned nothing
+     */
+    public record VariantCall(CommitmentActionResponse response, long latencyMillis, int promptTokens,
+                              int completionTokens) {
+
+        /**
+         * The action, commitment id and completion time, for comparing variants. NONE when no action was
+         * found.
+         */
+        public String outcome() {
+            if (Objects.isNull(response) || Objects.isNull(response.type())) {
+                return "NONE";
+            }
+            StringBuilder outcome = new StringBuilder(response.type().name());
+            if (Objects.nonNull(response.id())) {
+                outcome.append(':').append(response.id());
+            }
+            if (Objects.nonNull(response.commitment()) && Objects.nonNull(response.commitment().toBeCompletedAt())) {
+                outcome.append('@').append(response.commitment().toBeCompletedAt());
+            }
+            return outcome.toString();
+        }
+    }
+
+    public VariantCall call(PromptVariant variant, String prompt, boolean shadow) {
+        String role = shadow ? "shadow" : "primary";
+        Span span = tracer.start("chat " + Objects.requireNonNullElse(variant.model(), "default"), Span.Kind.CLIENT)
+                .setAttribute("gen_ai.operation.name", "chat")
+                .setAttribute("gen_ai.request.model", variant.model())
+                .setAttribute("experiment.variant", variant.name())
+                .setAttribute("experiment.role", role);
+        return tracer.inSpan(span, () -> call(variant, prompt, role, span));
+    }
+
+    private VariantCall call(PromptVariant variant, String prompt, String role, Span span) {
+        ChatClient.ChatClientRequestSpec request = chatClient.prompt().user(prompt);
+        if (Objects.nonNull(variant.model())) {
+            request = request.options(OpenAiChatOptions.builder().model(variant.model()).build());
+        }
+
+        long startNanos = System.nanoTime();
+        ResponseEntity<ChatResponse, CommitmentActionResponse> result = request.call()
+                .responseEntity(CommitmentActionResponse.class);
+        long latencyNanos = System.nanoTime() - startNanos;
+
+        Usage usage = Objects.isNull(result.response()) ? null : result.response().getMetadata().getUsage();
+        int promptTokens = Objects.isNull(usage) ? 0 : tokens(usage.getPromptTokens());
+        int completionTokens = Objects.isNull(usage) ? 0 : tokens(usage.getCompletionTokens());
+        span.setAttribute("gen_ai.usage.input_tokens", promptTokens)
+                .setAttribute("gen_ai.usage.output_tokens", completionTokens);
+
+        Timer.builder("whatsapp.experiment.llm")
+                .tag("variant", variant.name())
+                .tag("role", role)
+                .register(meterRegistry)
+                .record(latencyNanos, TimeUnit.NANOSECONDS);
+        meterRegistry.counter("whatsapp.experiment.tokens", "variant", variant.name(), "role", role, "type", "prompt")
+                .increment(promptTokens);
+        meterRegistry.counter("whatsapp.experiment.tokens", "variant", variant.name(), "role", role,
+                "type", "completion").increment(completionTokens);
+
+        return new VariantCall(result.entity(), TimeUnit.NANOSECONDS.toMillis(latencyNanos), promptTokens,
+                completionTokens);
+    }
+
+    private static int tokens(Integer tokens) {
+        return Objects.isNull(tokens) ? 0 : tokens;
+    }
+}
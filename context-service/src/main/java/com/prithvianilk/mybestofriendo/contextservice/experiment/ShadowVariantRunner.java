@@ -0,0 +1,53 @@
+package com.prithvianilk.mybestofriendo.contextservice.experiment;
+
+import com.prithvianilk.mybestofriendo.contextservice.logging.ShadowVariantContext;
+import com.prithvianilk.mybestofriendo.contextservice.logging.WideEventContext;
+import com.prithvianilk.mybestofriendo.contextservice.logging.WithWideEventLogging;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+/**
+ * Runs a shadow variant on a prompt and compares its outcome with the one the primary variant acted on.
+ * Nothing is written, the result only goes to its own wide event and to metrics.
+ */
+@Service
+@RequiredArgsConstructor
+public class ShadowVariantRunner {
+
+    private final PromptVariantClient variantClient;
+    private final MeterRegistry meterRegistry;
+
+    public record ShadowRun(PromptVariant variant, String prompt, String participantMobileNumber,
+                            String primaryVariant, String primaryOutcome) {
+    }
+
+    @WithWideEventLogging
+    public void run(ShadowRun run) {
+        ShadowVariantContext.ShadowVariantContextBuilder context = ShadowVariantContext.builder()
+                .variant(run.variant().name())
+                .model(run.variant().model())
+                .participantMobileNumber(run.participantMobileNumber())
+                .primaryVariant(run.primaryVariant())
+                .primaryOutcome(run.primaryOutcome());
+
+        String result;
+        try {
+            PromptVariantClient.VariantCall call = variantClient.call(run.variant(), run.prompt(), true);
+            boolean agrees = call.outcome().equals(run.primaryOutcome());
+            context.outcome(call.outcome())
+                    .agreesWithPrimary(agrees)
+                    .llmLatencyMillis(call.latencyMillis())
+                    .promptTokens(call.promptTokens())
+                    .completionTokens(call.completionTokens());
+            result = agrees ? "agree" : "disagree";
+        } catch (RuntimeException e) {
+            context.failureReason(e.getMessage());
+            result = "failure";
+        }
+
+        WideEventContext.put("shadowVariant", context.build());
+        meterRegistry.counter("whatsapp.experiment.shadow", "variant", run.variant().name(), "result", result)
+                .increment();
+    }
+}
@@ -0,0 +1,197 @@
+package com.prithvianilk.mybestofriendo.contextservice.http;
+
+import com.google.api.client.http.HttpTransport;
+import com.google.api.client.http.LowLevelHttpRequest;
+import com.google.api.client.http.LowLevelHttpResponse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Google API client transport on the JDK {@link HttpClient}, which keeps connections alive in a pool and
+ * negotiates HTTP/2, so calls to the same host share one TLS connection instead of handshaking per call
+ * like the default {@code HttpURLConnection} transport.
+ */
+public class JdkHttpTransport extends HttpTransport {
+
+    // Set by HttpClient itself, it rejects requests that try to
+    private static final Set<String> RESTRICTED_HEADERS = Set.of(
+            "connection", "content-length", "expect", "host", "upgrade");
+
+    private final HttpClient httpClient;
+
+    public JdkHttpTransport(Duration connectTimeout) {
+        this(HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(connectTimeout)
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .build());
+    }
+
+    public JdkHttpTransport(HttpClient httpClient) {
+        this.httpClient = httpClient;
+    }
+
+    @Override
+    public boolean supportsMethod(String method) {
+        return true;
+    }
+
+    @Override
+    protected LowLevelHttpRequest buildRequest(String method, String url) {
+        return new JdkHttpRequest(method, url);
+    }
+
+    @Override
+    public void shutdown() {
+        httpClient.close();
+    }
+
+    private class JdkHttpRequest extends LowLevelHttpRequest {
+        private final HttpRequest.Builder builder;
+        private final String method;
+
+        JdkHttpRequest(String method, String url) {
+            this.method = method;
+            this.builder = HttpRequest.newBuilder(URI.create(url));
+        }
+
+        @Override
+        public void addHeader(String name, String value) {
+            if (!RESTRICTED_HEADERS.contains(name.toLowerCase(Locale.ROOT))) {
+                builder.header(name, value);
+            }
+        }
+
+        @Override
+        public void setTimeout(int connectTimeout, int readTimeout) {
+            // The client's connect timeout applies, the read timeout bounds the whole exchange
+            if (readTimeout > 0) {
+                builder.timeout(Duration.ofMillis(readTimeout));
+            }
+        }
+
+        @Override
+        public LowLevelHttpResponse execute() throws IOException {
+            if (Objects.nonNull(getContentType())) {
+                builder.setHeader("Content-Type", getContentType());
+            }
+            if (Objects.nonNull(getContentEncoding())) {
+                builder.setHeader("Content-Encoding", getContentEncoding());
+            }
+            builder.method(method, bodyPublisher());
+
+            try {
+                HttpResponse<InputStream> response = httpClient.send(builder.build(),
+                        HttpResponse.BodyHandlers.ofInputStream());
+                return new JdkHttpResponse(response);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for " + method + " response");
+            }
+        }
+
+        private HttpRequest.BodyPublisher bodyPublisher() throws IOException {
+            if (Objects.isNull(getStreamingContent())) {
+                return HttpRequest.BodyPublishers.noBody();
+            }
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            getStreamingContent().writeTo(body);
+            return HttpRequest.BodyPublishers.ofByteArray(body.toByteArray());
+        }
+    }
+
+    private static class JdkHttpResponse extends LowLevelHttpResponse {
+        private final HttpResponse<InputStream> response;
+        private final List<String> headerNames = new ArrayList<>();
+        private final List<String> headerValues = new ArrayList<>();
+
+        JdkHttpResponse(HttpResponse<InputStream> response) {
+            this.response = response;
+            for (Map.Entry<String, List<String>> header : response.headers().map().entrySet()) {
+                // HTTP/2 pseudo headers such as :status
+                if (header.getKey().startsWith(":")) {
+                    continue;
+                }
+                for (String value : header.getValue()) {
+                    headerNames.add(header.getKey());
+                    headerValues.add(value);
+                }
+            }
+        }
+
+        @Override
+        public InputStream getContent() {
+            return response.body();
+        }
+
+        @Override
+        public String getContentEncoding() {
+            return response.headers().firstValue("Content-Encoding").orElse(null);
+        }
+
+        @Override
+        public long getContentLength() {
+            return response.headers().firstValueAsLong("Content-Length").orElse(-1);
+        }
+
+        @Override
+        public String getContentType() {
+            return response.headers().firstValue("Content-Type").orElse(null);
+        }
+
+        @Override
+        public String getStatusLine() {
+            String version = response.version() == HttpClient.Version.HTTP_2 ? "HTTP/2" : "HTTP/1.1";
+            return version + " " + response.statusCode();
+        }
+
+        @Override
+        public int getStatusCode() {
+            return response.statusCode();
+        }
+
+        @Override
+        public String getReasonPhrase() {
+            // Not exposed by HttpClient, and absent from HTTP/2 altogether
+            return null;
+        }
+
+        @Override
+        public int getHeaderCount() {
+            return headerNames.size();
+        }
+
+        @Override
+        public String getHeaderName(int index) {
+            return headerNames.get(index);
+        }
+
+        @Override
+        public String getHeaderValue(int index) {
+            return headerValues.get(index);
+        }
+
+        @Override
+        public void disconnect() {
+            try {
+                response.body().close();
+            } catch (IOException ignored) {
+                // Nothing left to release
+            }
+        }
+    }
+}
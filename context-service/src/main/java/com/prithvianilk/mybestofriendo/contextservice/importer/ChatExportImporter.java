@@ -0,0 +1,191 @@
+package com.prithvianilk.mybestofriendo.contextservice.importer;
+
+import com.prithvianilk.mybestofriendo.contextservice.config.ChatImportConfig;
+import com.prithvianilk.mybestofriendo.contextservice.importer.ChatExportParser.ExportedMessage;
+import com.prithvianilk.mybestofriendo.contextservice.model.WhatsAppMessage;
+import com.prithvianilk.mybestofriendo.contextservice.service.ConversationSummaryService;
+import com.prithvianilk.mybestofriendo.contextservice.service.WhatsAppMessageProcessor;
+import com.prithvianilk.mybestofriendo.contextservice.tenant.TenantContext;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Imports a WhatsApp chat export into the same stores live messages go to.
+ * <p>
+ * The export is parsed one batch ahead on its own thread. Each batch is appended to the message log and
+ * vector index on another thread while, in parallel, its messages enter the window in order. Messages sent
+ * within {@link ChatImportConfig#getDetectCommitmentsWithin()} also go through the services, commitment
+ * detection included, the rest only feed the window and so the conversation summary.
+ * <p>
+ * After every batch a checkpoint with the offset of the next message is written, and an interrupted import
+ * continues from it when run again. Messages are also recorded in the idempotency ledger, so importing an
+ * overlapping export does not detect commitments twice. Batches never end between two messages with the same
+ * timestamp, so a resumed import numbers repeated messages the same way.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ChatExportImporter {
+
+    private static final Duration BACKPRESSURE_WAIT = Duration.ofMillis(100);
+
+    private final ChatImportConfig config;
+    private final WhatsAppMessageProcessor processor;
+    private final ConversationSummaryService conversationSummaryService;
+    private final MeterRegistry meterRegistry;
+    private final Clock clock;
+
+    private record Batch(List<WhatsAppMessage> messages, long nextOffset) {
+    }
+
+    public ImportCheckpoint importExport(Path file) throws IOException, InterruptedException {
+        if (Objects.isNull(config.getParticipant())) {
+            throw new IllegalStateException("whatsapp.import.participant is required to import " + file);
+        }
+
+        Path checkpointPath = config.checkpointPath();
+        ImportCheckpoint checkpoint = ImportCheckpoint.load(checkpointPath);
+        if (checkpoint.completed()) {
+            log.info("{} was already imported, {} messages, delete {} to import it again",
+                    file, checkpoint.messages(), checkpointPath);
+            return checkpoint;
+        }
+        if (checkpoint.offset() > 0) {
+            log.info("Resuming import of {} at offset {} after {} messages",
+                    file, checkpoint.offset(), checkpoint.messages());
+        }
+
+        Instant detectCommitmentsFrom = clock.instant().minus(config.getDetectCommitmentsWithin());
+        long startNanos = System.nanoTime();
+        long startMessages = checkpoint.messages();
+        try (ChatExportLines lines = ChatExportLines.open(file, checkpoint.offset());
+             ExecutorService executor = Executors.newFixedThreadPool(2,
+                     Thread.ofPlatform().name("chat-import-", 0).daemon().factory())) {
+            ChatExportParser parser = new ChatExportParser(lines, config.getDateOrder());
+
+            CompletableFuture<Batch> next = CompletableFuture.supplyAsync(() -> readBatch(parser), executor);
+            while (true) {
+                Batch batch = join(next);
+                if (batch.messages().isEmpty()) {
+                    break;
+                }
+                next = CompletableFuture.supplyAsync(() -> readBatch(parser), executor);
+
+                awaitSummaries();
+                CompletableFuture<Void> indexed = CompletableFuture.runAsync(
+                        () -> TenantContext.run(config.getTenant(), () -> processor.ingestAll(batch.messages())),
+                        executor);
+                TenantContext.run(config.getTenant(), () -> addToWindows(batch.messages(), detectCommitmentsFrom));
+                join(indexed);
+
+                checkpoint = checkpoint.advance(batch.nextOffset(), batch.messages().size());
+                checkpoint.save(checkpointPath);
+                meterRegistry.counter("whatsapp.import.messages").increment(batch.messages().size());
+                log.info("Imported {} messages of {}, {} messages/s", checkpoint.messages(), file,
+                        rate(checkpoint.messages() - startMessages, startNanos));
+            }
+        }
+
+        checkpoint = checkpoint.complete();
+        checkpoint.save(checkpointPath);
+        log.info("Finished importing {}, {} messages", file, checkpoint.messages());
+        return checkpoint;
+    }
+
+    private Batch readBatch(ChatExportParser parser) {
+        List<WhatsAppMessage> messages = new ArrayList<>(config.getBatchSize());
+        long nextOffset = 0;
+        try {
+            ExportedMessage exported;
+            while ((messages.size() < config.getBatchSize() || parser.continuesTimestamp())
+                    && Objects.nonNull(exported = parser.next())) {
+                messages.add(toWhatsAppMessage(exported));
+                nextOffset = exported.nextOffset();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read chat export", e);
+        }
+        return new Batch(messages, nextOffset);
+    }
+
+    /**
+     * Repeats of a message at one timestamp are a millisecond apart, so each has its own
+     * {@link WhatsAppMessage#messageKey()} and is not skipped as a duplicate of the first. The first keeps the
+     * exported time, so it matches the same message in an overlapping export.
+     */
+    private WhatsAppMessage toWhatsAppMessage(ExportedMessage exported) {
+        return new WhatsAppMessage(
+                config.getParticipant(),
+                exported.senderName(),
+                exported.senderName().equals(config.getOwnerName()),
+                exported.content(),
+                exported.sentAt().atZone(config.getZone()).toInstant().plusMillis(exported.repeat()),
+                config.getTenant());
+    }
+
+    /**
+     * Feeds messages to the window in export order, passing the recent ones through the services as well.
+     */
+    private void addToWindows(List<WhatsAppMessage> messages, Instant detectCommitmentsFrom) {
+        List<WhatsAppMessage> history = new ArrayList<>();
+        for (WhatsAppMessage message : messages) {
+            if (message.sentAt().isBefore(detectCommitmentsFrom)) {
+                history.add(message);
+                continue;
+            }
+            if (!history.isEmpty()) {
+                processor.processHistory(config.getParticipant(), history);
+                history = new ArrayList<>();
+            }
+            processor.processIngested(message, null);
+        }
+        if (!history.isEmpty()) {
+            processor.processHistory(config.getParticipant(), history);
+        }
+    }
+
+    /**
+     * Messages evicted from the window queue summary updates, which are LLM calls, so years of history would
+     * otherwise queue them far faster than they run.
+     */
+    private void awaitSummaries() throws InterruptedException {
+        while (conversationSummaryService.queuedUpdates() > config.getMaxQueuedSummaries()) {
+            Thread.sleep(BACKPRESSURE_WAIT);
+        }
+    }
+
+    private static <T> T join(CompletableFuture<T> future) throws IOException {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof UncheckedIOException io) {
+                throw io.getCause();
+            }
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw e;
+        }
+    }
+
+    private static long rate(long messages, long startNanos) {
+        long elapsedMillis = Math.max(1, Duration.ofNanos(System.nanoTime() - startNanos).toMillis());
+        return messages * 1000 / elapsedMillis;
+    }
+}
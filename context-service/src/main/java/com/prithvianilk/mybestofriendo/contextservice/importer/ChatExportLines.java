@@ -0,0 +1,203 @@
+package com.prithvianilk.mybestofriendo.contextservice.importer;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.Objects;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Reads a chat export line by line, tracking the byte offset after each line so an import can be resumed
+ * from where it stopped. Plain text exports are memory-mapped a window at a time and zipped ones are
+ * streamed out of the archive, so memory use is bounded by the window or the longest line, not the file.
+ */
+abstract class ChatExportLines implements Closeable {
+
+    private static final int BYTE_ORDER_MARK_LENGTH = 3;
+
+    protected long offset;
+
+    /**
+     * Opens the export and skips to {@code offset}, which must be the start of a line.
+     */
+    static ChatExportLines open(Path file, long offset) throws IOException {
+        ChatExportLines lines = file.getFileName().toString().toLowerCase().endsWith(".zip")
+                ? new Zipped(file)
+                : new Mapped(file);
+        lines.skipTo(offset);
+        return lines;
+    }
+
+    /**
+     * @return the next line without its line terminator, or null at the end of the export
+     */
+    String next() throws IOException {
+        long start = offset;
+        byte[] line = readLine();
+        if (Objects.isNull(line)) {
+            return null;
+        }
+        int from = start == 0 && hasByteOrderMark(line) ? BYTE_ORDER_MARK_LENGTH : 0;
+        int to = line.length;
+        if (to > from && line[to - 1] == '\n') {
+            to--;
+        }
+        if (to > from && line[to - 1] == '\r') {
+            to--;
+        }
+        return new String(line, from, to - from, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Byte offset of the start of the next line.
+     */
+    long offset() {
+        return offset;
+    }
+
+    /**
+     * Reads up to and including the next newline, advancing {@link #offset}.
+     */
+    protected abstract byte[] readLine() throws IOException;
+
+    protected abstract void skipTo(long offset) throws IOException;
+
+    private static boolean hasByteOrderMark(byte[] line) {
+        return line.length >= BYTE_ORDER_MARK_LENGTH
+                && (line[0] & 0xff) == 0xef && (line[1] & 0xff) == 0xbb && (line[2] & 0xff) == 0xbf;
+    }
+
+    private static final class Mapped extends ChatExportLines {
+
+        private static final int WINDOW_SIZE = 64 * 1024 * 1024;
+
+        private final FileChannel channel;
+        private final long size;
+        private MappedByteBuffer window;
+        private long windowStart;
+
+        Mapped(Path file) throws IOException {
+            channel = FileChannel.open(file, StandardOpenOption.READ);
+            size = channel.size();
+        }
+
+        @Override
+        protected void skipTo(long offset) throws IOException {
+            this.offset = Math.min(offset, size);
+            map(this.offset);
+        }
+
+        @Override
+        protected byte[] readLine() throws IOException {
+            if (offset >= size) {
+                return null;
+            }
+            int start = (int) (offset - windowStart);
+            int end = indexOfNewline(start);
+            if (end < 0 && windowStart + window.limit() < size) {
+                // The line continues past the window, move the window to start at the line
+                map(offset);
+                start = 0;
+                end = indexOfNewline(start);
+                if (end < 0 && window.limit() < size - offset) {
+                    throw new IOException("Line at offset " + offset + " is longer than " + WINDOW_SIZE + " bytes");
+                }
+            }
+            int length = (end < 0 ? window.limit() : end + 1) - start;
+            byte[] line = new byte[length];
+            window.get(start, line);
+            offset += length;
+            return line;
+        }
+
+        private int indexOfNewline(int from) {
+            for (int i = from; i < window.limit(); i++) {
+                if (window.get(i) == '\n') {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private void map(long start) throws IOException {
+            windowStart = start;
+            window = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(WINDOW_SIZE, size - start));
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    private static final class Zipped extends ChatExportLines {
+
+        private final ZipFile zipFile;
+        private final InputStream in;
+        private final ByteArrayOutputStream line = new ByteArrayOutputStream();
+
+        Zipped(Path file) throws IOException {
+            zipFile = new ZipFile(file.toFile(), StandardCharsets.UTF_8);
+            try {
+                in = new BufferedInputStream(zipFile.getInputStream(chatEntry(zipFile)), 64 * 1024);
+            } catch (IOException | RuntimeException e) {
+                zipFile.close();
+                throw e;
+            }
+        }
+
+        /**
+         * The chat is "_chat.txt" in iOS exports and "WhatsApp Chat with ....txt" in Android ones, next to
+         * any exported media.
+         */
+        private static ZipEntry chatEntry(ZipFile zipFile) throws IOException {
+            return zipFile.stream()
+                    .filter(entry -> !entry.isDirectory() && entry.getName().toLowerCase().endsWith(".txt"))
+                    .min(Comparator.comparing((ZipEntry entry) -> !entry.getName().endsWith("_chat.txt"))
+                            .thenComparing(ZipEntry::getName))
+                    .orElseThrow(() -> new IOException("No chat .txt file in " + zipFile.getName()));
+        }
+
+        @Override
+        protected void skipTo(long offset) throws IOException {
+            try {
+                in.skipNBytes(offset);
+            } catch (EOFException e) {
+                throw new IOException("Offset " + offset + " is past the end of the chat in " + zipFile.getName());
+            }
+            this.offset = offset;
+        }
+
+        @Override
+        protected byte[] readLine() throws IOException {
+            line.reset();
+            int b;
+            while ((b = in.read()) >= 0) {
+                line.write(b);
+                if (b == '\n') {
+                    break;
+                }
+            }
+            if (line.size() == 0) {
+                return null;
+            }
+            offset += line.size();
+            return line.toByteArray();
+        }
+
+        @Override
+        public void close() throws IOException {
+            zipFile.close();
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.prithvianilk.mybestofriendo.contextservice.importer;
+
+import com.prithvianilk.mybestofriendo.contextservice.config.ChatImportConfig.DateOrder;
+
+import java.io.IOException;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Parses the messages of a WhatsApp chat export, one at a time.
+ * <p>
+ * Both export layouts are understood, Android's {@code 31/12/23, 9:41 pm - Rahul: Hi} and iOS's
+ * {@code [31/12/23, 9:41:12 PM] Rahul: Hi}, with 12 or 24 hour times. Lines without a timestamp continue
+ * the previous message. System lines without a sender, media placeholders and deleted messages are skipped.
+ * <p>
+ * Android exports only have minutes, so the same short reply can appear several times with one timestamp.
+ * Each message is numbered among the identical ones before it at its timestamp, to tell them apart.
+ */
+class ChatExportParser {
+
+    private static final Pattern HEADER = Pattern.compile(
+            "^\\[?(\\d{1,2})[/.](\\d{1,2})[/.](\\d{2,4}),? (\\d{1,2})[:.](\\d{2})(?:[:.](\\d{2}))?"
+                    + "(?:[\\s\\u202f]?([AaPp])\\.?[Mm]\\.?)?(?:] | - )(.*)$");
+
+    private static final String SENDER_SEPARATOR = ": ";
+
+    private static final String LEFT_TO_RIGHT_MARK = "\u200e";
+
+    private static final Set<String> PLACEHOLDERS = Set.of(
+            "<Media omitted>",
+            "This message was deleted",
+            "You deleted this message",
+            "null");
+
+    private final ChatExportLines lines;
+    private final DateOrder dateOrder;
+
+    private Header pending;
+    private LocalDateTime lastSentAt;
+    private final Map<String, Integer> repeatsAtLastSentAt = new HashMap<>();
+
+    /**
+     * @param repeat how many messages with the same sender, content and timestamp came before this one
+     */
+    record ExportedMessage(String senderName, String content, LocalDateTime sentAt, long nextOffset, int repeat) {
+    }
+
+    private record Header(LocalDateTime sentAt, String senderName, String content) {
+    }
+
+    ChatExportParser(ChatExportLines lines, DateOrder dateOrder) {
+        this.lines = lines;
+        this.dateOrder = dateOrder;
+    }
+
+    /**
+     * @return the next message, or null at the end of the export
+     */
+    ExportedMessage next() throws IOException {
+        while (true) {
+            Header header = pending;
+            if (Objects.isNull(header)) {
+                header = readHeader();
+                if (Objects.isNull(header)) {
+                    return null;
+                }
+            }
+            pending = null;
+
+            StringBuilder content = new StringBuilder(header.content());
+            long nextOffset;
+            while (true) {
+                long lineOffset = lines.offset();
+                String line = lines.next();
+                if (Objects.isNull(line)) {
+                    nextOffset = lineOffset;
+                    break;
+                }
+                Header nextHeader = parseHeader(line);
+                if (Objects.nonNull(nextHeader)) {
+                    pending = nextHeader;
+                    nextOffset = lineOffset;
+                    break;
+                }
+                content.append('\n').append(stripMarks(line));
+            }
+
+            String text = content.toString().strip();
+            if (Objects.nonNull(header.senderName()) && !isPlaceholder(text)) {
+                return new ExportedMessage(header.senderName(), text, header.sentAt(), nextOffset,
+                        repeat(header, text));
+            }
+        }
+    }
+
+    /**
+     * Whether the next message has the timestamp of the last one returned. Stopping here would restart the
+     * repeat numbering of that timestamp when parsing resumes from this offset.
+     */
+    boolean continuesTimestamp() {
+        return Objects.nonNull(pending) && pending.sentAt().equals(lastSentAt);
+    }
+
+    private int repeat(Header header, String text) {
+        if (!header.sentAt().equals(lastSentAt)) {
+            lastSentAt = header.sentAt();
+            repeatsAtLastSentAt.clear();
+        }
+        return repeatsAtLastSentAt.merge(header.senderName() + '\n' + text, 1, Integer::sum) - 1;
+    }
+
+    /**
+     * Skips lines until the first message header, such as a note above the first message.
+     */
+    private Header readHeader() throws IOException {
+        String line;
+        while (Objects.nonNull(line = lines.next())) {
+            Header header = parseHeader(line);
+            if (Objects.nonNull(header)) {
+                return header;
+            }
+        }
+        return null;
+    }
+
+    private Header parseHeader(String line) {
+        Matcher matcher = HEADER.matcher(stripMarks(line));
+        if (!matcher.matches()) {
+            return null;
+        }
+
+        LocalDateTime sentAt;
+        try {
+            sentAt = timestamp(matcher);
+        } catch (DateTimeException e) {
+            // Looks like a header but is not a date, e.g. a pasted "13/13/23, 10:00 - ..."
+            return null;
+        }
+
+        String rest = matcher.group(8);
+        int separator = rest.indexOf(SENDER_SEPARATOR);
+        if (separator <= 0) {
+            return new Header(sentAt, null, rest);
+        }
+        return new Header(sentAt, rest.substring(0, separator).strip(),
+                rest.substring(separator + SENDER_SEPARATOR.length()));
+    }
+
+    private LocalDateTime timestamp(Matcher matcher) {
+        int first = Integer.parseInt(matcher.group(1));
+        int second = Integer.parseInt(matcher.group(2));
+        int year = Integer.parseInt(matcher.group(3));
+        int hour = Integer.parseInt(matcher.group(4));
+        int minute = Integer.parseInt(matcher.group(5));
+        int secondOfMinute = Objects.isNull(matcher.group(6)) ? 0 : Integer.parseInt(matcher.group(6));
+
+        if (Objects.nonNull(matcher.group(7))) {
+            boolean pm = matcher.group(7).equalsIgnoreCase("p");
+            if (hour < 1 || hour > 12) {
+                throw new DateTimeException("Invalid 12 hour time: " + hour);
+            }
+            hour = hour % 12 + (pm ? 12 : 0);
+        }
+        if (year < 100) {
+            year += 2000;
+        }
+
+        int day = dateOrder == DateOrder.DAY_FIRST ? first : second;
+        int month = dateOrder == DateOrder.DAY_FIRST ? second : first;
+        return LocalDateTime.of(year, month, day, hour, minute, secondOfMinute);
+    }
+
+    private static boolean isPlaceholder(String content) {
+        // iOS marks attachments, e.g. "image omitted", with a left-to-right mark
+        return content.isEmpty() || PLACEHOLDERS.contains(content) || content.startsWith(LEFT_TO_RIGHT_MARK);
+    }
+
+    /**
+     * Removes the left-to-right marks iOS puts before timestamps and attachments.
+     */
+    private static String stripMarks(String line) {
+        return line.startsWith(LEFT_TO_RIGHT_MARK) ? line.substring(1) : line;
+    }
+}
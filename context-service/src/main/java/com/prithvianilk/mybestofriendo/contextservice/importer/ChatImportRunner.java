@@ -0,0 +1,49 @@
+package com.prithvianilk.mybestofriendo.contextservice.importer;
+
+import com.prithvianilk.mybestofriendo.contextservice.config.ChatImportConfig;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+/**
+ * Command-line import mode. With {@code whatsapp.import.file} set, the service imports the export once the
+ * context is up and exits, with status 1 if the import failed. Use it with the import profile, which keeps
+ * the web server and Kafka listeners from starting:
+ * <pre>
+ * java -jar context-service.jar --spring.profiles.active=import \
+ *     --whatsapp.import.file=chat.zip --whatsapp.import.participant=9876543210 --whatsapp.import.owner-name=Me
+ * </pre>
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "whatsapp.import.file")
+public class ChatImportRunner implements ApplicationRunner {
+
+    private final ChatImportConfig config;
+    private final ChatExportImporter importer;
+    private final ConfigurableApplicationContext context;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        int exitCode = 0;
+        try {
+            importer.importExport(config.getFile());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Import of {} was interrupted, run again to resume", config.getFile());
+            exitCode = 1;
+        } catch (Exception e) {
+            log.error("Import of {} failed, run again to resume", config.getFile(), e);
+            exitCode = 1;
+        }
+
+        int status = exitCode;
+        System.exit(SpringApplication.exit(context, () -> status));
+    }
+}
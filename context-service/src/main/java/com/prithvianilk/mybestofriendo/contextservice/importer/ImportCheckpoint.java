@@ -0,0 +1,58 @@
+package com.prithvianilk.mybestofriendo.contextservice.importer;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+
+/**
+ * How far an import has got: the byte offset in the export's chat text where the next unimported message
+ * starts, and how many messages were imported before it.
+ */
+public record ImportCheckpoint(long offset, long messages, boolean completed) {
+
+    static final ImportCheckpoint START = new ImportCheckpoint(0, 0, false);
+
+    static ImportCheckpoint load(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return START;
+        }
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+        return new ImportCheckpoint(
+                Long.parseLong(properties.getProperty("offset", "0")),
+                Long.parseLong(properties.getProperty("messages", "0")),
+                Boolean.parseBoolean(properties.getProperty("completed", "false")));
+    }
+
+    /**
+     * Writes the checkpoint to a temporary file and moves it over the previous one, so a crash leaves
+     * either the old or the new checkpoint.
+     */
+    void save(Path path) throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty("offset", Long.toString(offset));
+        properties.setProperty("messages", Long.toString(messages));
+        properties.setProperty("completed", Boolean.toString(completed));
+
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (Writer writer = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+            properties.store(writer, "Chat export import checkpoint");
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    ImportCheckpoint advance(long nextOffset, int importedMessages) {
+        return new ImportCheckpoint(nextOffset, messages + importedMessages, false);
+    }
+
+    ImportCheckpoint complete() {
+        return new ImportCheckpoint(offset, messages, true);
+    }
+}
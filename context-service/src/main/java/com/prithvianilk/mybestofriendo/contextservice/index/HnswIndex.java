@@ -0,0 +1,301 @@
+package com.prithvianilk.mybestofriendo.contextservice.index;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.SplittableRandom;
+
+/**
+ * Hierarchical navigable small world graph for approximate nearest neighbour search over unit-length
+ * vectors, scored by dot product (cosine similarity).
+ * <p>
+ * Node ids are dense and assigned in insertion order, so callers can keep per-node metadata in a list.
+ * Vectors are not copied or persisted by the index; {@link #writeGraph(DataOutput)} only writes the
+ * links, and {@link #restore} re-attaches them to the same vectors in the same order.
+ * <p>
+ * Not thread-safe, callers must serialise inserts against searches.
+ */
+public class HnswIndex {
+
+    public static final long NO_DEADLINE = Long.MAX_VALUE;
+
+    private static final int FORMAT_VERSION = 1;
+
+    private final int dimensions;
+    private final int m;
+    private final int maxM0;
+    private final int efConstruction;
+    private final double levelMultiplier;
+    private final SplittableRandom random;
+
+    private final List<Node> nodes = new ArrayList<>();
+    private int entryPoint = -1;
+    private int maxLevel = -1;
+
+    public HnswIndex(int dimensions, int m, int efConstruction, long seed) {
+        this.dimensions = dimensions;
+        this.m = m;
+        this.maxM0 = 2 * m;
+        this.efConstruction = efConstruction;
+        this.levelMultiplier = 1 / Math.log(m);
+        this.random = new SplittableRandom(seed);
+    }
+
+    public record SearchResult(int id, float score) {
+    }
+
+    public int dimensions() {
+        return dimensions;
+    }
+
+    public int size() {
+        return nodes.size();
+    }
+
+    public int insert(float[] vector) {
+        if (vector.length != dimensions) {
+            throw new IllegalArgumentException(
+                    "Expected vector of %d dimensions, got %d".formatted(dimensions, vector.length));
+        }
+
+        int id = nodes.size();
+        int level = randomLevel();
+        Node node = new Node(vector, level, m, maxM0);
+        nodes.add(node);
+
+        if (entryPoint == -1) {
+            entryPoint = id;
+            maxLevel = level;
+            return id;
+        }
+
+        int current = entryPoint;
+        for (int layer = maxLevel; layer > level; layer--) {
+            current = greedyClosest(vector, current, layer);
+        }
+
+        for (int layer = Math.min(level, maxLevel); layer >= 0; layer--) {
+            List<SearchResult> candidates = searchLayer(vector, current, efConstruction, layer, NO_DEADLINE);
+            int maxLinks = layer == 0 ? maxM0 : m;
+            for (int i = 0; i < Math.min(m, candidates.size()); i++) {
+                int neighbour = candidates.get(i).id();
+                node.addLink(layer, neighbour);
+                link(neighbour, id, layer, maxLinks);
+            }
+            current = candidates.getFirst().id();
+        }
+
+        if (level > maxLevel) {
+            entryPoint = id;
+            maxLevel = level;
+        }
+        return id;
+    }
+
+    /**
+     * Returns up to {@code k} nodes most similar to {@code query}, best first.
+     *
+     * @param ef             size of the dynamic candidate list on the bottom layer, at least {@code k}
+     * @param deadlineNanos  {@link System#nanoTime()} after which the search stops expanding and returns
+     *                       the best results found so far, or {@link #NO_DEADLINE}
+     */
+    public List<SearchResult> search(float[] query, int k, int ef, long deadlineNanos) {
+        if (entryPoint == -1 || k <= 0) {
+            return List.of();
+        }
+
+        int current = entryPoint;
+        for (int layer = maxLevel; layer > 0; layer--) {
+            current = greedyClosest(query, current, layer);
+        }
+
+        List<SearchResult> results = searchLayer(query, current, Math.max(ef, k), 0, deadlineNanos);
+        return results.size() > k ? results.subList(0, k) : results;
+    }
+
+    public float[] vector(int id) {
+        return nodes.get(id).vector;
+    }
+
+    public void writeGraph(DataOutput output) throws IOException {
+        output.writeInt(FORMAT_VERSION);
+        output.writeInt(dimensions);
+        output.writeInt(m);
+        output.writeInt(nodes.size());
+        output.writeInt(entryPoint);
+        output.writeInt(maxLevel);
+        for (Node node : nodes) {
+            output.writeInt(node.links.length);
+            for (int layer = 0; layer < node.links.length; layer++) {
+                output.writeInt(node.linkCounts[layer]);
+                for (int i = 0; i < node.linkCounts[layer]; i++) {
+                    output.writeInt(node.links[layer][i]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Rebuilds an index from a graph written by {@link #writeGraph(DataOutput)}.
+     *
+     * @param vectors the vectors the graph was built over, in insertion order; must contain at least as
+     *                many vectors as the graph has nodes
+     */
+    public static HnswIndex restore(
+            DataInput input,
+            List<float[]> vectors,
+            int efConstruction,
+            long seed) throws IOException {
+        int version = input.readInt();
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Unsupported HNSW graph format version: " + version);
+        }
+
+        int dimensions = input.readInt();
+        int m = input.readInt();
+        int size = input.readInt();
+        if (size > vectors.size()) {
+            throw new IOException("HNSW graph has %d nodes but only %d vectors are available"
+                    .formatted(size, vectors.size()));
+        }
+
+        HnswIndex index = new HnswIndex(dimensions, m, efConstruction, seed);
+        index.entryPoint = input.readInt();
+        index.maxLevel = input.readInt();
+        for (int id = 0; id < size; id++) {
+            Node node = new Node(vectors.get(id), input.readInt() - 1, m, index.maxM0);
+            for (int layer = 0; layer < node.links.length; layer++) {
+                int count = input.readInt();
+                for (int i = 0; i < count; i++) {
+                    node.addLink(layer, input.readInt());
+                }
+            }
+            index.nodes.add(node);
+        }
+        return index;
+    }
+
+    private int randomLevel() {
+        return (int) (-Math.log(1 - random.nextDouble()) * levelMultiplier);
+    }
+
+    private int greedyClosest(float[] query, int start, int layer) {
+        int current = start;
+        float currentScore = similarity(query, nodes.get(current).vector);
+        boolean improved = true;
+        while (improved) {
+            improved = false;
+            Node node = nodes.get(current);
+            for (int i = 0; i < node.linkCounts[layer]; i++) {
+                int neighbour = node.links[layer][i];
+                float score = similarity(query, nodes.get(neighbour).vector);
+                if (score > currentScore) {
+                    current = neighbour;
+                    currentScore = score;
+                    improved = true;
+                }
+            }
+        }
+        return current;
+    }
+
+    private List<SearchResult> searchLayer(float[] query, int start, int ef, int layer, long deadlineNanos) {
+        BitSet visited = new BitSet(nodes.size());
+        PriorityQueue<SearchResult> candidates = new PriorityQueue<>(
+                Comparator.comparingDouble(SearchResult::score).reversed());
+        PriorityQueue<SearchResult> results = new PriorityQueue<>(
+                Comparator.comparingDouble(SearchResult::score));
+
+        SearchResult first = new SearchResult(start, similarity(query, nodes.get(start).vector));
+        visited.set(start);
+        candidates.add(first);
+        results.add(first);
+
+        while (!candidates.isEmpty()) {
+            SearchResult candidate = candidates.poll();
+            if (results.size() >= ef && candidate.score() < results.peek().score()) {
+                break;
+            }
+            if (deadlineNanos != NO_DEADLINE && System.nanoTime() - deadlineNanos > 0) {
+                break;
+            }
+
+            Node node = nodes.get(candidate.id());
+            for (int i = 0; i < node.linkCounts[layer]; i++) {
+                int neighbour = node.links[layer][i];
+                if (visited.get(neighbour)) {
+                    continue;
+                }
+                visited.set(neighbour);
+
+                float score = similarity(query, nodes.get(neighbour).vector);
+                if (results.size() < ef || score > results.peek().score()) {
+                    SearchResult result = new SearchResult(neighbour, score);
+                    candidates.add(result);
+                    results.add(result);
+                    if (results.size() > ef) {
+                        results.poll();
+                    }
+                }
+            }
+        }
+
+        List<SearchResult> sorted = new ArrayList<>(results);
+        sorted.sort(Comparator.comparingDouble(SearchResult::score).reversed());
+        return sorted;
+    }
+
+    private void link(int from, int to, int layer, int maxLinks) {
+        Node node = nodes.get(from);
+        if (node.linkCounts[layer] < maxLinks) {
+            node.addLink(layer, to);
+            return;
+        }
+
+        // Replace the least similar neighbour if the new node is closer
+        int weakest = -1;
+        float weakestScore = similarity(node.vector, nodes.get(to).vector);
+        for (int i = 0; i < node.linkCounts[layer]; i++) {
+            float score = similarity(node.vector, nodes.get(node.links[layer][i]).vector);
+            if (score < weakestScore) {
+                weakest = i;
+                weakestScore = score;
+            }
+        }
+        if (weakest != -1) {
+            node.links[layer][weakest] = to;
+        }
+    }
+
+    private static float similarity(float[] a, float[] b) {
+        float sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    private static final class Node {
+        private final float[] vector;
+        private final int[][] links;
+        private final int[] linkCounts;
+
+        private Node(float[] vector, int level, int m, int maxM0) {
+            this.vector = vector;
+            this.links = new int[level + 1][];
+            this.linkCounts = new int[level + 1];
+            for (int layer = 0; layer <= level; layer++) {
+                links[layer] = new int[layer == 0 ? maxM0 : m];
+            }
+        }
+
+        private void addLink(int layer, int neighbour) {
+            links[layer][linkCounts[layer]++] = neighbour;
+        }
+    }
+}
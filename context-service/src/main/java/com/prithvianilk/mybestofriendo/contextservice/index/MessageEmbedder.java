@@ -0,0 +1,102 @@
+package com.prithvianilk.mybestofriendo.contextservice.index;
+
+import com.prithvianilk.mybestofriendo.contextservice.config.MessageMemoryConfig;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Computes message embeddings locally with signed feature hashing over words, word bigrams and
+ * character trigrams. The vectors are L2-normalised, so a dot product is their cosine similarity.
+ * <p>
+ * This is deliberately model-free: it captures lexical and sub-word overlap (typos, inflections,
+ * transliterated Hinglish) without a network call or a bundled model.
+ */
+@Component
+@RequiredArgsConstructor
+public class MessageEmbedder {
+
+    private static final float WORD_WEIGHT = 1.0f;
+    private static final float BIGRAM_WEIGHT = 0.75f;
+    private static final float TRIGRAM_WEIGHT = 0.5f;
+
+    private final MessageMemoryConfig config;
+
+    public float[] embed(String text) {
+        float[] vector = new float[config.getDimensions()];
+        List<String> words = tokenize(text);
+
+        for (int i = 0; i < words.size(); i++) {
+            String word = words.get(i);
+            addFeature(vector, "w:" + word, WORD_WEIGHT);
+            if (i > 0) {
+                addFeature(vector, "b:" + words.get(i - 1) + " " + word, BIGRAM_WEIGHT);
+            }
+
+            String padded = "^" + word + "$";
+            for (int j = 0; j + 3 <= padded.length(); j++) {
+                addFeature(vector, "c:" + padded.substring(j, j + 3), TRIGRAM_WEIGHT);
+            }
+        }
+
+        normalise(vector);
+        return vector;
+    }
+
+    public static List<String> tokenize(String text) {
+        List<String> words = new ArrayList<>();
+        if (text == null) {
+            return words;
+        }
+
+        StringBuilder word = new StringBuilder();
+        String lowerCased = text.toLowerCase(Locale.ROOT);
+        for (int i = 0; i < lowerCased.length(); i++) {
+            char c = lowerCased.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                word.append(c);
+            } else if (!word.isEmpty()) {
+                words.add(word.toString());
+                word.setLength(0);
+            }
+        }
+        if (!word.isEmpty()) {
+            words.add(word.toString());
+        }
+        return words;
+    }
+
+    private static void addFeature(float[] vector, String feature, float weight) {
+        int hash = mix(feature.hashCode());
+        int index = Math.floorMod(hash, vector.length);
+        vector[index] += hash < 0 ? -weight : weight;
+    }
+
+    // Murmur3 finaliser, spreads String.hashCode over all bits so the sign bit is usable
+    private static int mix(int hash) {
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        hash *= 0xc2b2ae35;
+        hash ^= hash >>> 16;
+        return hash;
+    }
+
+    private static void normalise(float[] vector) {
+        double sumOfSquares = 0;
+        for (float value : vector) {
+            sumOfSquares += value * value;
+        }
+        if (sumOfSquares == 0) {
+            return;
+        }
+
+        float norm = (float) Math.sqrt(sumOfSquares);
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] /= norm;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.prithvianilk.mybestofriendo.contextservice.listener;
+
+import com.prithvianilk.mybestofriendo.contextservice.config.BatchListenerConfig;
+import com.prithvianilk.mybestofriendo.contextservice.service.ConversationSummaryService;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pauses the batch listener while work queued downstream of it, the summary updates of messages evicted from
+ * the windows, is above {@link BatchListenerConfig#getPauseAboveQueued()}, and resumes it once the backlog
+ * is down to {@link BatchListenerConfig#getResumeBelowQueued()}. Large compressed fetches can otherwise
+ * evict messages far faster than the LLM-bound summariser folds them in.
+ * <p>
+ * The services themselves are not counted. The batch listener runs them on its own thread inside each
+ * message's transaction, so they never queue behind it.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "whatsapp.listener.batch.enabled", havingValue = "true")
+public class BulkConsumerBackpressure {
+
+    private final BatchListenerConfig config;
+    private final KafkaListenerEndpointRegistry listenerEndpointRegistry;
+    private final ConversationSummaryService conversationSummaryService;
+    private final MeterRegistry meterRegistry;
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+            runnable -> Thread.ofPlatform().name("bulk-consumer-backpressure").daemon().unstarted(runnable));
+
+    @PostConstruct
+    public void start() {
+        meterRegistry.gauge("whatsapp.listener.downstream.queued", this, BulkConsumerBackpressure::downstreamQueued);
+        long intervalMillis = config.getBackpressureCheckInterval().toMillis();
+        scheduler.scheduleWithFixedDelay(this::check, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    public void check() {
+        MessageListenerContainer container =
+                listenerEndpointRegistry.getListenerContainer(WhatsAppMessageBatchListener.LISTENER_ID);
+        if (Objects.isNull(container) || !container.isRunning()) {
+            return;
+        }
+
+        int queued = downstreamQueued();
+        if (!container.isPauseRequested() && queued >= config.getPauseAboveQueued()) {
+            log.info("Pausing batch listener, {} summary updates queued downstream", queued);
+            container.pause();
+            meterRegistry.counter("whatsapp.listener.backpressure", "action", "pause").increment();
+        } else if (container.isPauseRequested() && queued <= config.getResumeBelowQueued()) {
+            log.info("Resuming batch listener, {} summary updates queued downstream", queued);
+            container.resume();
+            meterRegistry.counter("whatsapp.listener.backpressure", "action", "resume").increment();
+        }
+    }
+
+    private int downstreamQueued() {
+        return conversationSummaryService.queuedUpdates();
+    }
+}
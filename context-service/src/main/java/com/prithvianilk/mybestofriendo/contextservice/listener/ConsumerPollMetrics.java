@@ -0,0 +1,77 @@
+package com.prithvianilk.mybestofriendo.contextservice.listener;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.springframework.kafka.core.ConsumerPostProcessor;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records, for every poll that returns records, how long it took, how many records it returned and their
+ * uncompressed size. Compressed bytes per fetch come from Kafka's own fetch manager metrics.
+ * <p>
+ * Kafka has no decompression metric. It decompresses fetched batches lazily while poll drains them, so
+ * when fetches are already buffered, as they are while catching up, poll time is mostly decompression and
+ * deserialisation.
+ */
+public class ConsumerPollMetrics<K, V> implements ConsumerPostProcessor<K, V> {
+
+    private final Timer pollTimer;
+    private final DistributionSummary recordsPerPoll;
+    private final DistributionSummary bytesPerPoll;
+
+    public ConsumerPollMetrics(MeterRegistry meterRegistry, String consumer) {
+        this.pollTimer = Timer.builder("whatsapp.consumer.poll")
+                .tag("consumer", consumer)
+                .register(meterRegistry);
+        this.recordsPerPoll = DistributionSummary.builder("whatsapp.consumer.poll.records")
+                .tag("consumer", consumer)
+                .register(meterRegistry);
+        this.bytesPerPoll = DistributionSummary.builder("whatsapp.consumer.poll.bytes")
+                .tag("consumer", consumer)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Consumer<K, V> apply(Consumer<K, V> consumer) {
+        return (Consumer<K, V>) Proxy.newProxyInstance(Consumer.class.getClassLoader(),
+                new Class<?>[]{Consumer.class},
+                (_, method, args) -> "poll".equals(method.getName())
+                        ? timedPoll(consumer, method, args)
+                        : invoke(consumer, method, args));
+    }
+
+    private Object timedPoll(Consumer<K, V> consumer, Method method, Object[] args) throws Throwable {
+        long startNanos = System.nanoTime();
+        Object result = invoke(consumer, method, args);
+        long durationNanos = System.nanoTime() - startNanos;
+
+        if (result instanceof ConsumerRecords<?, ?> records && !records.isEmpty()) {
+            pollTimer.record(durationNanos, TimeUnit.NANOSECONDS);
+            recordsPerPoll.record(records.count());
+            long bytes = 0;
+            for (ConsumerRecord<?, ?> record : records) {
+                bytes += Math.max(0, record.serializedKeySize()) + Math.max(0, record.serializedValueSize());
+            }
+            bytesPerPoll.record(bytes);
+        }
+        return result;
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.prithvianilk.mybestofriendo.contextservice.listener;
+
+import com.prithvianilk.mybestofriendo.contextservice.model.MessagePosition;
+import com.prithvianilk.mybestofriendo.contextservice.model.WhatsAppMessage;
+import com.prithvianilk.mybestofriendo.contextservice.service.IdempotencyLedger;
+import com.prithvianilk.mybestofriendo.contextservice.service.WhatsAppMessageProcessor;
+import com.prithvianilk.mybestofriendo.contextservice.tenant.TenantContext;
+import com.prithvianilk.mybestofriendo.contextservice.tracing.Tracer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.kafka.listener.ConsumerSeekAware;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Consumes whatsapp-messages in batches, for catching up after downtime.
+ * <p>
+ * A batch is appended to the message stores in one go, then each message is processed in a transaction of
+ * its own, with its commitment writes, ledger entry and stored offset. The SQLite write lock is only held
+ * for one message's writes rather than for every LLM and Calendar call of the batch, so other writers are
+ * not starved. If a message fails, only its own writes are rolled back, and a
+ * {@link BatchListenerFailedException} makes the error handler commit the offsets of the messages before it
+ * and retry from the failed one. Calendar writes cannot be rolled back, so they are idempotent on replay:
+ * events are created with an ID derived from the message and deleting a missing event succeeds.
+ * <p>
+ * Each tenant has its own shard, so a batch is split into runs of consecutive messages of the same tenant,
+ * each processed with that tenant as the current one.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "whatsapp.listener.batch.enabled", havingValue = "true")
+public class WhatsAppMessageBatchListener implements ConsumerSeekAware {
+
+    public static final String LISTENER_ID = "whatsapp-messages-batch";
+
+    private final WhatsAppMessageProcessor processor;
+    private final TransactionTemplate transactionTemplate;
+    private final IdempotencyLedger idempotencyLedger;
+    private final Tracer tracer;
+
+    @KafkaListener(
+            id = LISTENER_ID,
+            topics = "whatsapp-messages",
+            groupId = "context-service-group",
+            containerFactory = "batchKafkaListenerContainerFactory")
+    public void listen(List<ConsumerRecord<String, WhatsAppMessage>> records) {
+        int start = 0;
+        while (start < records.size()) {
+            String tenantId = records.get(start).value().tenantId();
+            int end = start + 1;
+            while (end < records.size() && records.get(end).value().tenantId().equals(tenantId)) {
+                end++;
+            }
+
+            int firstIndex = start;
+            List<ConsumerRecord<String, WhatsAppMessage>> run = records.subList(start, end);
+            TenantContext.run(tenantId, () -> processRun(run, firstIndex));
+            start = end;
+        }
+    }
+
+    /**
+     * Processes consecutive records of one tenant on that tenant's shard, one transaction per record.
+     *
+     * @param firstIndex index of the run's first record in the whole batch
+     */
+    private void processRun(List<ConsumerRecord<String, WhatsAppMessage>> records, int firstIndex) {
+        processor.ingestAll(records.stream().map(ConsumerRecord::value).toList());
+
+        for (int i = 0; i < records.size(); i++) {
+            ConsumerRecord<String, WhatsAppMessage> record = records.get(i);
+            try {
+                transactionTemplate.executeWithoutResult(_ -> tracer.inSpan(
+                        tracer.startConsumer(record.topic() + " process", record),
+                        () -> processor.processIngested(record.value(), MessagePosition.of(record))));
+            } catch (RuntimeException e) {
+                log.warn("Failed to process message {} of batch", firstIndex + i);
+                throw new BatchListenerFailedException("Failed to process WhatsApp message batch", e,
+                        firstIndex + i);
+            }
+        }
+    }
+
+    @Override
+    public void onPartitionsAssigned(Map<TopicPartition, Long> assignments, ConsumerSeekCallback callback) {
+        idempotencyLedger.seekToRecordedOffsets(assignments, callback);
+    }
+}
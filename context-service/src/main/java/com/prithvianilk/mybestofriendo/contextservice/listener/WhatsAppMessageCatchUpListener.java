@@ -0,0 +1,50 @@
+package com.prithvianilk.mybestofriendo.contextservice.listener;
+
+import com.prithvianilk.mybestofriendo.contextservice.model.MessagePosition;
+import com.prithvianilk.mybestofriendo.contextservice.model.WhatsAppMessage;
+import com.prithvianilk.mybestofriendo.contextservice.service.CommitmentRecorderWhatsAppMessageService;
+import com.prithvianilk.mybestofriendo.contextservice.service.IdempotencyLedger;
+import com.prithvianilk.mybestofriendo.contextservice.service.MessageAdmissionController;
+import com.prithvianilk.mybestofriendo.contextservice.tenant.TenantContext;
+import com.prithvianilk.mybestofriendo.contextservice.tracing.Tracer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Runs commitment detection on messages deferred by {@link MessageAdmissionController}, on its own consumer
+ * group so it never holds up the main listener. Each handled message is released in the controller, so the
+ * participant's next messages can go through the main listener again. Handled messages are recorded in
+ * {@link IdempotencyLedger}, so a redelivered one is only released, not detected again.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "whatsapp.priority.enabled", havingValue = "true", matchIfMissing = true)
+public class WhatsAppMessageCatchUpListener {
+
+    private final CommitmentRecorderWhatsAppMessageService commitmentRecorder;
+    private final MessageAdmissionController admissionController;
+    private final IdempotencyLedger idempotencyLedger;
+    private final Tracer tracer;
+
+    @KafkaListener(topics = "${whatsapp.priority.catch-up-topic}", groupId = "context-service-catchup-group")
+    public void listen(ConsumerRecord<String, WhatsAppMessage> record) {
+        WhatsAppMessage message = record.value();
+        tracer.inSpan(tracer.startConsumer(record.topic() + " process", record),
+                () -> TenantContext.run(message.tenantId(), () -> process(message, MessagePosition.of(record))));
+        admissionController.release(message);
+    }
+
+    private void process(WhatsAppMessage message, MessagePosition position) {
+        if (idempotencyLedger.isCaughtUp(message)) {
+            log.info("Skipping already caught up WhatsApp message at {}", position);
+            return;
+        }
+        commitmentRecorder.onCatchUpMessage(message);
+        idempotencyLedger.recordCaughtUp(message, position, "CommitmentRecorderWhatsAppMessageService=success");
+    }
+}
@@ -1,37 +1,42 @@
 package com.prithvianilk.mybestofriendo.contextservice.listener;
 
-import com.prithvianilk.mybestofriendo.contextservice.logging.CommitmentManagementContext;
-import com.prithvianilk.mybestofriendo.contextservice.logging.WideEventContext;
-import com.prithvianilk.mybestofriendo.contextservice.logging.WithWideEventLogging;
+import com.prithvianilk.mybestofriendo.contextservice.model.MessagePosition;
 import com.prithvianilk.mybestofriendo.contextservice.model.WhatsAppMessage;
-import com.prithvianilk.mybestofriendo.contextservice.repository.WhatsAppMessageRepository;
-import com.prithvianilk.mybestofriendo.contextservice.service.WhatsAppMessageService;
+import com.prithvianilk.mybestofriendo.contextservice.service.IdempotencyLedger;
+import com.prithvianilk.mybestofriendo.contextservice.service.WhatsAppMessageProcessor;
+import com.prithvianilk.mybestofriendo.contextservice.tenant.TenantContext;
+import com.prithvianilk.mybestofriendo.contextservice.tracing.Tracer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.ConsumerSeekAware;
 import org.springframework.stereotype.Component;
 
-import java.time.Instant;
-import java.util.List;
+import java.util.Map;
 
 @Slf4j
 @Component
 @RequiredArgsConstructor
-public class WhatsAppMessageListener {
+@ConditionalOnProperty(name = "whatsapp.listener.batch.enabled", havingValue = "false", matchIfMissing = true)
+public class WhatsAppMessageListener implements ConsumerSeekAware {
 
-    private final WhatsAppMessageRepository repository;
-    private final List<WhatsAppMessageService> services;
+    private final WhatsAppMessageProcessor processor;
+    private final IdempotencyLedger idempotencyLedger;
+    private final Tracer tracer;
 
-    @WithWideEventLogging
     @KafkaListener(topics = "whatsapp-messages", groupId = "context-service-group")
-    public void listen(WhatsAppMessage message) {
-        WideEventContext.enrich("commitmentManagement", CommitmentManagementContext.builder()
-                .whatsappMessageReceivedAt(Instant.now())
-                .build());
-        log.info("Received WhatsApp message: {}", message);
-        repository.add(message);
-        for (WhatsAppMessageService service : services) {
-            service.onNewWhatsAppMessage(message);
-        }
+    public void listen(ConsumerRecord<String, WhatsAppMessage> record) {
+        WhatsAppMessage message = record.value();
+        MessagePosition position = MessagePosition.of(record);
+        tracer.inSpan(tracer.startConsumer(record.topic() + " process", record),
+                () -> TenantContext.run(message.tenantId(), () -> processor.process(message, position)));
+    }
+
+    @Override
+    public void onPartitionsAssigned(Map<TopicPartition, Long> assignments, ConsumerSeekCallback callback) {
+        idempotencyLedger.seekToRecordedOffsets(assignments, callback);
     }
 }
@@ -0,0 +1,98 @@
+package com.prithvianilk.mybestofriendo.contextservice.listener;
+
+import com.prithvianilk.mybestofriendo.contextservice.config.PartitionOwnershipConfig;
+import com.prithvianilk.mybestofriendo.contextservice.repository.FutureCommitmentIndex;
+import com.prithvianilk.mybestofriendo.contextservice.repository.WhatsAppMessageRepository;
+import com.prithvianilk.mybestofriendo.contextservice.service.ConversationSummaryService;
+import com.prithvianilk.mybestofriendo.contextservice.service.WindowHydrator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.utils.Utils;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * Moves participant state between instances as whatsapp-messages partitions move.
+ * <p>
+ * The producer keys messages by participant, so a participant always lands on the same partition, and
+ * window snapshots are keyed the same way on a topic with the same partition count. When partitions are
+ * revoked, the windows and caches of their participants are dropped; when partitions are assigned, the
+ * matching snapshot partitions are replayed while readiness reports {@code REFUSING_TRAFFIC}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class WindowOwnershipRebalanceListener implements ConsumerAwareRebalanceListener {
+
+    private final PartitionOwnershipConfig config;
+    private final WindowHydrator windowHydrator;
+    private final WhatsAppMessageRepository repository;
+    private final FutureCommitmentIndex futureCommitmentIndex;
+    private final ConversationSummaryService conversationSummaryService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Override
+    public void onPartitionsRevokedAfterCommit(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        evict(consumer, partitions);
+    }
+
+    @Override
+    public void onPartitionsLost(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        evict(consumer, partitions);
+    }
+
+    @Override
+    public void onPartitionsAssigned(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        Set<Integer> assigned = partitionNumbers(partitions);
+        if (!config.isEnabled() || assigned.isEmpty()) {
+            return;
+        }
+
+        AvailabilityChangeEvent.publish(eventPublisher, this, ReadinessState.REFUSING_TRAFFIC);
+        try {
+            int snapshots = windowHydrator.hydratePartitions(assigned);
+            log.info("Hydrated {} window snapshots for assigned partitions {}", snapshots, assigned);
+        } finally {
+            AvailabilityChangeEvent.publish(eventPublisher, this, ReadinessState.ACCEPTING_TRAFFIC);
+        }
+    }
+
+    private void evict(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        Set<Integer> revoked = partitionNumbers(partitions);
+        if (!config.isEnabled() || revoked.isEmpty()) {
+            return;
+        }
+
+        int partitionCount = consumer.partitionsFor(config.getTopic()).size();
+        Predicate<String> isRevoked = participant -> revoked.contains(partitionFor(participant, partitionCount));
+        repository.removeIf(isRevoked);
+        futureCommitmentIndex.evictIf(isRevoked);
+        conversationSummaryService.evictIf(isRevoked);
+        log.info("Evicted participant state for revoked partitions {}", revoked);
+    }
+
+    private Set<Integer> partitionNumbers(Collection<TopicPartition> partitions) {
+        return partitions.stream()
+                .filter(partition -> partition.topic().equals(config.getTopic()))
+                .map(TopicPartition::partition)
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     * The partition Kafka's default partitioner, and KafkaJS's, picks for a record keyed by participant.
+     */
+    public static int partitionFor(String participant, int partitionCount) {
+        return Utils.toPositive(Utils.murmur2(participant.getBytes(StandardCharsets.UTF_8))) % partitionCount;
+    }
+}
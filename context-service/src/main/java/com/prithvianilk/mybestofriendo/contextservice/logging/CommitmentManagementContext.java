@@ -2,6 +2,7 @@ package com.prithvianilk.mybestofriendo.contextservice.logging;
 
 import com.prithvianilk.mybestofriendo.contextservice.model.CommitmentActionType;
 import com.prithvianilk.mybestofriendo.contextservice.model.CommitmentEntity;
+import com.prithvianilk.mybestofriendo.contextservice.model.MessagePriority;
 import com.prithvianilk.mybestofriendo.contextservice.model.WhatsAppMessage;
 import lombok.Builder;
 
@@ -16,17 +17,28 @@ public record CommitmentManagementContext(
                 String messageContent,
                 Instant messageSentAt,
                 Instant whatsappMessageReceivedAt,
+                MessagePriority priority,
+                String deferralReason,
                 Integer historySnapshotSize,
                 List<WhatsAppMessage> historyMessages,
                 Integer futureCommitmentsSnapshotSize,
                 List<CommitmentEntity> futureCommitments,
+                Integer conversationSummaryLength,
+                List<Instant> resolvedTimes,
                 String prompt,
+                String promptVariant,
+                Long llmLatencyMillis,
+                Integer promptTokens,
+                Integer completionTokens,
                 CommitmentActionType actionType,
+                Boolean resolvedWithoutLlm,
                 Long commitmentId,
                 String commitmentDescription,
                 Instant committedAt,
                 Instant toBeCompletedAt,
+                Boolean toBeCompletedAtCorrected,
                 String calendarEventId,
+                Long endToEndMillis,
                 Boolean success,
                 String failureReason,
                 String validationErrors) implements Mergeable<CommitmentManagementContext> {
@@ -46,6 +58,9 @@ public record CommitmentManagementContext(
                                 .whatsappMessageReceivedAt(other.whatsappMessageReceivedAt() != null
                                                 ? other.whatsappMessageReceivedAt()
                                                 : this.whatsappMessageReceivedAt())
+                                .priority(other.priority() != null ? other.priority() : this.priority())
+                                .deferralReason(other.deferralReason() != null ? other.deferralReason()
+                                                : this.deferralReason())
                                 .historySnapshotSize(other.historySnapshotSize() != null ? other.historySnapshotSize()
                                                 : this.historySnapshotSize())
                                 .historyMessages(other.historyMessages() != null ? other.historyMessages()
@@ -55,8 +70,23 @@ public record CommitmentManagementContext(
                                                 : this.futureCommitmentsSnapshotSize())
                                 .futureCommitments(other.futureCommitments() != null ? other.futureCommitments()
                                                 : this.futureCommitments())
+                                .conversationSummaryLength(other.conversationSummaryLength() != null
+                                                ? other.conversationSummaryLength()
+                                                : this.conversationSummaryLength())
+                                .resolvedTimes(other.resolvedTimes() != null ? other.resolvedTimes()
+                                                : this.resolvedTimes())
                                 .prompt(other.prompt() != null ? other.prompt() : this.prompt())
+                                .promptVariant(other.promptVariant() != null ? other.promptVariant()
+                                                : this.promptVariant())
+                                .llmLatencyMillis(other.llmLatencyMillis() != null ? other.llmLatencyMillis()
+                                                : this.llmLatencyMillis())
+                                .promptTokens(other.promptTokens() != null ? other.promptTokens() : this.promptTokens())
+                                .completionTokens(other.completionTokens() != null ? other.completionTokens()
+                                                : this.completionTokens())
                                 .actionType(other.actionType() != null ? other.actionType() : this.actionType())
+                                .resolvedWithoutLlm(other.resolvedWithoutLlm() != null
+                                                ? other.resolvedWithoutLlm()
+                                                : this.resolvedWithoutLlm())
                                 .commitmentId(other.commitmentId() != null ? other.commitmentId() : this.commitmentId())
                                 .commitmentDescription(other.commitmentDescription() != null
                                                 ? other.commitmentDescription()
@@ -64,8 +94,13 @@ public record CommitmentManagementContext(
                                 .committedAt(other.committedAt() != null ? other.committedAt() : this.committedAt())
                                 .toBeCompletedAt(other.toBeCompletedAt() != null ? other.toBeCompletedAt()
                                                 : this.toBeCompletedAt())
+                                .toBeCompletedAtCorrected(other.toBeCompletedAtCorrected() != null
+                                                ? other.toBeCompletedAtCorrected()
+                                                : this.toBeCompletedAtCorrected())
                                 .calendarEventId(other.calendarEventId() != null ? other.calendarEventId()
                                                 : this.calendarEventId())
+                                .endToEndMillis(other.endToEndMillis() != null ? other.endToEndMillis()
+                                                : this.endToEndMillis())
                                 .success(other.success() != null ? other.success() : this.success())
                                 .failureReason(other.failureReason() != null ? other.failureReason()
                                                 : this.failureReason())
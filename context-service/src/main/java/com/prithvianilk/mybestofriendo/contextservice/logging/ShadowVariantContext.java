@@ -0,0 +1,22 @@
+package com.prithvianilk.mybestofriendo.contextservice.logging;
+
+import lombok.Builder;
+
+/**
+ * Wide event of a shadow variant run, logged separately from the message's own event since it finishes
+ * after it.
+ */
+@Builder
+public record ShadowVariantContext(
+        String variant,
+        String model,
+        String participantMobileNumber,
+        String primaryVariant,
+        String primaryOutcome,
+        String outcome,
+        Boolean agreesWithPrimary,
+        Long llmLatencyMillis,
+        Integer promptTokens,
+        Integer completionTokens,
+        String failureReason) {
+}
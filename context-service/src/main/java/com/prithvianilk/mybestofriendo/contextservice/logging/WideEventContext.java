@@ -24,6 +24,21 @@ public final class WideEventContext {
         }
     }
 
+    /**
+     * Merges a context captured on another thread into this thread's context, merging {@link Mergeable}
+     * values that share a key.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static void mergeAll(Map<String, Object> other) {
+        for (Map.Entry<String, Object> entry : other.entrySet()) {
+            if (entry.getValue() instanceof Mergeable value) {
+                enrich(entry.getKey(), value);
+            } else {
+                put(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
     public static void put(String key, Object value) {
         CONTEXT.get().put(key, value);
     }
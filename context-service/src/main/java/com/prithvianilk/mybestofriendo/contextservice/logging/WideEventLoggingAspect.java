@@ -1,6 +1,9 @@
 package com.prithvianilk.mybestofriendo.contextservice.logging;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.prithvianilk.mybestofriendo.contextservice.analytics.WideEventStore;
+import com.prithvianilk.mybestofriendo.contextservice.tracing.Span;
+import com.prithvianilk.mybestofriendo.contextservice.tracing.TraceContext;
+import com.prithvianilk.mybestofriendo.contextservice.tracing.Tracer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.aspectj.lang.ProceedingJoinPoint;
@@ -8,38 +11,87 @@ import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
+/**
+ * Logs the wide event context at the end of annotated methods. Every event is counted in the analytics
+ * rollups, but only those kept by the {@link WideEventSampler} are logged and stored, with their large fields
+ * redacted. The redacted content is stored before the event is logged, and the event is logged in full when
+ * that fails, so every reference in the log can be looked up.
+ * <p>
+ * Each annotated method also runs in a span of its own, whose id is the wide event's {@code wideEventId}, so a
+ * logged event leads to its trace and a span back to its event.
+ */
 @Slf4j
 @Aspect
 @Component
 @RequiredArgsConstructor
 public class WideEventLoggingAspect {
 
-    private final ObjectMapper objectMapper;
+    private final WideEventStore wideEventStore;
+    private final WideEventSampler sampler;
+    private final WideEventRedactor redactor;
+    private final Tracer tracer;
 
     @Around("@annotation(WithWideEventLogging)")
     public Object logWideEvent(ProceedingJoinPoint joinPoint) throws Throwable {
+        long startNanos = System.nanoTime();
+        String stage = joinPoint.getSignature().getDeclaringType().getSimpleName()
+                + "." + joinPoint.getSignature().getName();
+        Span span = tracer.start(stage, Span.Kind.INTERNAL);
+        Span previousSpan = TraceContext.enter(span);
+        boolean threw = true;
         try {
-            return joinPoint.proceed();
+            Object result = joinPoint.proceed();
+            threw = false;
+            return result;
+        } catch (Throwable e) {
+            span.recordException(e);
+            throw e;
         } finally {
+            TraceContext.exit(previousSpan);
+            span.end();
             Map<String, Object> context = WideEventContext.getContext();
             if (!context.isEmpty()) {
-                try {
-                    String jsonContext = objectMapper.writeValueAsString(context);
-                    log.info("Wide Event: method={}.{}, context={}",
-                            joinPoint.getSignature().getDeclaringTypeName(),
-                            joinPoint.getSignature().getName(),
-                            jsonContext);
-                } catch (Exception e) {
-                    log.error("Failed to serialize wide event context to JSON", e);
-                    log.info("Wide Event (fallback): method={}.{}, context={}",
-                            joinPoint.getSignature().getDeclaringTypeName(),
-                            joinPoint.getSignature().getName(),
-                            context);
+                long durationMillis = Duration.ofNanos(System.nanoTime() - startNanos).toMillis();
+                WideEventSampler.Decision decision = sampler.decide(context, durationMillis, threw);
+                if (decision.keep()) {
+                    Map<String, Object> event = new LinkedHashMap<>(context);
+                    event.put("traceId", span.context().traceId());
+                    event.put("wideEventId", span.context().spanId());
+                    log(joinPoint, stage, durationMillis, event, decision);
+                } else {
+                    wideEventStore.append(stage, durationMillis, context, null);
                 }
             }
             WideEventContext.clear();
         }
     }
+
+    private void log(
+            ProceedingJoinPoint joinPoint,
+            String stage,
+            long durationMillis,
+            Map<String, Object> context,
+            WideEventSampler.Decision decision) {
+        try {
+            WideEventRedactor.Redacted redacted = redactor.redact(context, decision);
+            String json = redacted.payloads().isEmpty() || wideEventStore.storePayloads(redacted.payloads())
+                    ? redacted.json()
+                    : redactor.unredacted(context, decision);
+            log.info("Wide Event: method={}.{}, context={}",
+                    joinPoint.getSignature().getDeclaringTypeName(),
+                    joinPoint.getSignature().getName(),
+                    json);
+            wideEventStore.append(stage, durationMillis, context, json);
+        } catch (Exception e) {
+            log.error("Failed to serialize wide event context to JSON", e);
+            log.info("Wide Event (fallback): method={}.{}, context={}",
+                    joinPoint.getSignature().getDeclaringTypeName(),
+                    joinPoint.getSignature().getName(),
+                    context);
+        }
+    }
 }
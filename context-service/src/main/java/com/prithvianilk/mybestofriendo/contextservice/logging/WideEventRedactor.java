@@ -0,0 +1,143 @@
+package com.prithvianilk.mybestofriendo.contextservice.logging;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.prithvianilk.mybestofriendo.contextservice.config.WideEventAnalyticsConfig;
+import com.prithvianilk.mybestofriendo.contextservice.config.WideEventLoggingConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Turns a wide event context into the JSON that is logged, replacing the configured large fields with
+ * {@code sha256:<hash>} references to their content. The content of each reference is returned alongside,
+ * to be stored once in the analytics store and looked up with {@code /context-service/analytics/payloads}.
+ */
+@Slf4j
+@Component
+public class WideEventRedactor {
+
+    static final String REFERENCE_PREFIX = "sha256:";
+
+    /**
+     * 64 bits of the hash, plenty to tell apart the payloads of one deployment.
+     */
+    private static final int HASH_BYTES = 8;
+
+    private final ObjectMapper objectMapper;
+    private final WideEventLoggingConfig config;
+    private final boolean enabled;
+
+    /**
+     * @param json     the context as logged
+     * @param payloads content of every reference in it, by hash
+     */
+    public record Redacted(String json, Map<String, String> payloads) {
+    }
+
+    public WideEventRedactor(
+            ObjectMapper objectMapper,
+            WideEventLoggingConfig config,
+            WideEventAnalyticsConfig analyticsConfig) {
+        this.objectMapper = objectMapper;
+        this.config = config;
+        this.enabled = config.isRedactionEnabled() && analyticsConfig.isEnabled();
+        if (config.isRedactionEnabled() && !analyticsConfig.isEnabled()) {
+            log.warn("Wide event redaction needs the analytics store to keep payloads, logging them in full");
+        }
+    }
+
+    public Redacted redact(Map<String, Object> context, WideEventSampler.Decision decision)
+            throws JsonProcessingException {
+        return serialize(context, decision, enabled);
+    }
+
+    /**
+     * The context as logged with every field in full, for when its payloads could not be stored.
+     */
+    public String unredacted(Map<String, Object> context, WideEventSampler.Decision decision)
+            throws JsonProcessingException {
+        return serialize(context, decision, false).json();
+    }
+
+    private Redacted serialize(Map<String, Object> context, WideEventSampler.Decision decision, boolean redact)
+            throws JsonProcessingException {
+        ObjectNode tree = objectMapper.valueToTree(context);
+        Map<String, String> payloads = new HashMap<>();
+        if (redact) {
+            for (String field : config.getRedactedFields()) {
+                redactField(tree, field, payloads);
+            }
+        }
+
+        ObjectNode sampling = tree.putObject("sampling").put("reason", decision.reason());
+        if (decision.rate() < 1) {
+            sampling.put("rate", decision.rate());
+        }
+        return new Redacted(objectMapper.writeValueAsString(tree), payloads);
+    }
+
+    private void redactField(ObjectNode tree, String field, Map<String, String> payloads) {
+        boolean eachElement = field.endsWith("[]");
+        String[] path = (eachElement ? field.substring(0, field.length() - 2) : field).split("\\.");
+
+        ObjectNode parent = tree;
+        for (int i = 0; i < path.length - 1; i++) {
+            if (!(parent.get(path[i]) instanceof ObjectNode child)) {
+                return;
+            }
+            parent = child;
+        }
+        String name = path[path.length - 1];
+        JsonNode value = parent.get(name);
+        if (Objects.isNull(value) || value.isNull()) {
+            return;
+        }
+
+        if (eachElement && value instanceof ArrayNode elements) {
+            for (int i = 0; i < elements.size(); i++) {
+                String reference = reference(elements.get(i), payloads);
+                if (Objects.nonNull(reference)) {
+                    elements.set(i, elements.textNode(reference));
+                }
+            }
+        } else {
+            String reference = reference(value, payloads);
+            if (Objects.nonNull(reference)) {
+                parent.put(name, reference);
+            }
+        }
+    }
+
+    /**
+     * @return the reference to the value's content, or null if it is too short to be worth one
+     */
+    private String reference(JsonNode value, Map<String, String> payloads) {
+        String content = value.isTextual() ? value.textValue() : value.toString();
+        if (content.length() < config.getRedactionMinLength()) {
+            return null;
+        }
+        String hash = hash(content);
+        payloads.put(hash, content);
+        return REFERENCE_PREFIX + hash;
+    }
+
+    static String hash(String content) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(content.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, HASH_BYTES);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.prithvianilk.mybestofriendo.contextservice.logging;
+
+import com.prithvianilk.mybestofriendo.contextservice.config.WideEventLoggingConfig;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.zip.CRC32;
+
+/**
+ * Decides whether a finished wide event is logged. Events that failed, were slow, changed a commitment or
+ * disagreed with the primary prompt are always kept, and only a share of the remaining no-op events.
+ * <p>
+ * No-op events of a message are sampled by its participant and sent time, so the events a message produces
+ * on different threads are kept or dropped together.
+ */
+@Component
+@RequiredArgsConstructor
+public class WideEventSampler {
+
+    private final WideEventLoggingConfig config;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * @param reason why the event is kept, null when it is dropped
+     * @param rate   share of such events that are kept
+     */
+    public record Decision(String reason, double rate) {
+
+        public boolean keep() {
+            return Objects.nonNull(reason);
+        }
+    }
+
+    public Decision decide(Map<String, Object> context, long durationMillis, boolean threw) {
+        Decision decision = alwaysKeptReason(context, durationMillis, threw)
+                .map(reason -> new Decision(reason, 1))
+                .orElseGet(() -> sample(context));
+        meterRegistry.counter("whatsapp.wide-events",
+                "decision", decision.keep() ? decision.reason() : "dropped").increment();
+        return decision;
+    }
+
+    private Optional<String> alwaysKeptReason(Map<String, Object> context, long durationMillis, boolean threw) {
+        if (!config.isSamplingEnabled()) {
+            return Optional.of("unsampled");
+        }
+        if (threw || isFailure(context)) {
+            return Optional.of("failure");
+        }
+        long slowMillis = config.getSlowThreshold().toMillis();
+        CommitmentManagementContext commitmentManagement = commitmentManagement(context);
+        if (durationMillis >= slowMillis || (Objects.nonNull(commitmentManagement)
+                && Objects.nonNull(commitmentManagement.llmLatencyMillis())
+                && commitmentManagement.llmLatencyMillis() >= slowMillis)) {
+            return Optional.of("slow");
+        }
+        if (Objects.nonNull(commitmentManagement) && Objects.nonNull(commitmentManagement.actionType())) {
+            return Optional.of("action");
+        }
+        if (context.get("shadowVariant") instanceof ShadowVariantContext shadowVariant
+                && Boolean.FALSE.equals(shadowVariant.agreesWithPrimary())) {
+            return Optional.of("disagreement");
+        }
+        return Optional.empty();
+    }
+
+    private static boolean isFailure(Map<String, Object> context) {
+        CommitmentManagementContext commitmentManagement = commitmentManagement(context);
+        if (Objects.nonNull(commitmentManagement) && Boolean.FALSE.equals(commitmentManagement.success())) {
+            return true;
+        }
+        if (context.get("shadowVariant") instanceof ShadowVariantContext shadowVariant
+                && Objects.nonNull(shadowVariant.failureReason())) {
+            return true;
+        }
+        return context.get("dispatch") instanceof Map<?, ?> outcomes
+                && outcomes.values().stream().anyMatch(outcome -> !"success".equals(outcome));
+    }
+
+    private Decision sample(Map<String, Object> context) {
+        double rate = config.getNoOpSampleRate();
+        return position(context) < rate ? new Decision("sampled", rate) : new Decision(null, rate);
+    }
+
+    /**
+     * Position of the event's message in [0, 1), random for events without one.
+     */
+    private static double position(Map<String, Object> context) {
+        CommitmentManagementContext commitmentManagement = commitmentManagement(context);
+        if (Objects.isNull(commitmentManagement) || Objects.isNull(commitmentManagement.participantMobileNumber())
+                || Objects.isNull(commitmentManagement.messageSentAt())) {
+            return ThreadLocalRandom.current().nextDouble();
+        }
+        CRC32 hash = new CRC32();
+        hash.update((commitmentManagement.participantMobileNumber() + ":"
+                + commitmentManagement.messageSentAt().toEpochMilli()).getBytes(StandardCharsets.UTF_8));
+        return hash.getValue() / (double) (1L << 32);
+    }
+
+    private static CommitmentManagementContext commitmentManagement(Map<String, Object> context) {
+        return context.get("commitmentManagement") instanceof CommitmentManagementContext commitmentManagement
+                ? commitmentManagement
+                : null;
+    }
+}
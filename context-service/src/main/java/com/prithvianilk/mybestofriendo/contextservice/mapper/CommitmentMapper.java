@@ -11,6 +11,7 @@ public interface CommitmentMapper {
 
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "createdAt", ignore = true)
+    @Mapping(target = "sourceMessageKey", ignore = true)
     @Mapping(target = "participantNumber", source = "participantNumber")
     @Mapping(target = "calendarEventId", source = "calendarEventId")
     CommitmentEntity toEntity(Commitment commitment, String participantNumber, String calendarEventId);
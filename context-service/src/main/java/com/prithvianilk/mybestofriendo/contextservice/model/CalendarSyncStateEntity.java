@@ -0,0 +1,33 @@
+package com.prithvianilk.mybestofriendo.contextservice.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Entity
+@Table(name = "calendar_sync_state")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CalendarSyncStateEntity {
+    @Id
+    @Column(name = "calendar_id")
+    private String calendarId;
+
+    /**
+     * {@code nextSyncToken} of the last completed {@code events.list}, where the next sync continues from.
+     */
+    @Column(name = "sync_token", nullable = false, length = 1024)
+    private String syncToken;
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+}
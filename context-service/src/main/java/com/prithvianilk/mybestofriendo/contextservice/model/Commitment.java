@@ -4,7 +4,11 @@ import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 
 import java.time.Instant;
-import java.time.temporal.ChronoUnit;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Objects;
 
 public record Commitment(
         @NotNull Instant committedAt,
@@ -13,16 +17,29 @@ public record Commitment(
 
         Instant toBeCompletedAt) {
 
+    private static final DateTimeFormatter PROMPT_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss'Z'");
+
     /**
-     * This solves for an LLM having complete context in IST timestamp but returns
-     * an instant value
-     * We convert the value back to an IST instant, such that underlying
+     * Formats an instant the way the LLM reads and writes times: wall-clock time in {@code zone} with a
+     * {@code Z} suffix. {@link #atZone(ZoneId)} reads it back as the same instant.
      */
-    public Commitment {
-        if (toBeCompletedAt != null) {
-            toBeCompletedAt = toBeCompletedAt
-                    .minus(5, ChronoUnit.HOURS)
-                    .minus(30, ChronoUnit.MINUTES);
+    public static String formatForPrompt(Instant instant, ZoneId zone) {
+        return PROMPT_FORMAT.format(instant.atZone(zone));
+    }
+
+    /**
+     * The LLM writes {@code toBeCompletedAt} as wall-clock time in the conversation's zone with a {@code Z}
+     * suffix. Returns a copy with it read as that wall-clock time in {@code zone}, a real instant.
+     */
+    public Commitment atZone(ZoneId zone) {
+        if (Objects.isNull(toBeCompletedAt)) {
+            return this;
         }
+        LocalDateTime wallClockTime = LocalDateTime.ofInstant(toBeCompletedAt, ZoneOffset.UTC);
+        return withToBeCompletedAt(wallClockTime.atZone(zone).toInstant());
+    }
+
+    public Commitment withToBeCompletedAt(Instant toBeCompletedAt) {
+        return new Commitment(committedAt, description, toBeCompletedAt);
     }
 }
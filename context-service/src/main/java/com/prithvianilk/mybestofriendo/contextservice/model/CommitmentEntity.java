@@ -12,7 +12,8 @@ import java.util.Objects;
 @Entity
 // TODO: Index on the right fields
 @Table(name = "commitment", indexes = {
-    @Index(name = "idx_commitment_unique", columnList = "committed_at, participant_number", unique = true)
+    @Index(name = "idx_commitment_unique", columnList = "committed_at, participant_number", unique = true),
+    @Index(name = "idx_commitment_source_message_key", columnList = "source_message_key", unique = true)
 })
 @Data
 @NoArgsConstructor
@@ -38,6 +39,12 @@ public class CommitmentEntity {
     @Column(name = "calendar_event_id")
     private String calendarEventId;
 
+    /**
+     * {@link WhatsAppMessage#messageKey()} of the message the commitment was created from.
+     */
+    @Column(name = "source_message_key", length = 64)
+    private String sourceMessageKey;
+
     @Column(name = "created_at", nullable = false)
     private Instant createdAt;
 
@@ -0,0 +1,24 @@
+package com.prithvianilk.mybestofriendo.contextservice.model;
+
+import java.time.Instant;
+
+/**
+ * Published to the reminder topic when a commitment is about to be or is due, keyed by participant.
+ *
+ * @param late whether the reminder was missed while the service was down and is fired after the fact
+ */
+public record CommitmentReminder(
+        long commitmentId,
+        String participantNumber,
+        String description,
+        Instant toBeCompletedAt,
+        Type type,
+        Instant remindAt,
+        boolean late,
+        String tenantId) {
+
+    public enum Type {
+        PRE_DUE,
+        DUE
+    }
+}
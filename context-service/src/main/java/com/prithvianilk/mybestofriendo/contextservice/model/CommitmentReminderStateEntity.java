@@ -0,0 +1,41 @@
+package com.prithvianilk.mybestofriendo.contextservice.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Entity
+@Table(name = "commitment_reminder_state")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CommitmentReminderStateEntity {
+    @Id
+    @Column(name = "commitment_id")
+    private Long commitmentId;
+
+    /**
+     * The completion time the latest reminder was for. Once the commitment moves its reminders start over,
+     * whatever {@link #lastRemindAt} is. Null for rows written before it was stored.
+     */
+    @Column(name = "to_be_completed_at")
+    private Instant toBeCompletedAt;
+
+    /**
+     * When the latest reminder claimed for the commitment was meant to fire. Reminders at or before it are
+     * not fired again, by this instance after a restart or by any other.
+     */
+    @Column(name = "last_remind_at", nullable = false)
+    private Instant lastRemindAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+}
@@ -0,0 +1,30 @@
+package com.prithvianilk.mybestofriendo.contextservice.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Entity
+@Table(name = "consumer_offset")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ConsumerOffsetEntity {
+    /**
+     * {@code <topic>-<partition>}
+     */
+    @Id
+    @Column(name = "topic_partition")
+    private String topicPartition;
+
+    @Column(name = "next_offset", nullable = false)
+    private long nextOffset;
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+}
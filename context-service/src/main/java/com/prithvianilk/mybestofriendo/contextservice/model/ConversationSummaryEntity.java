@@ -0,0 +1,37 @@
+package com.prithvianilk.mybestofriendo.contextservice.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Entity
+@Table(name = "conversation_summary")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ConversationSummaryEntity {
+    @Id
+    @Column(name = "participant_number")
+    private String participantNumber;
+
+    @Column(name = "summary", length = 4000)
+    private String summary;
+
+    @Column(name = "summarized_message_count", nullable = false)
+    private long summarizedMessageCount;
+
+    @Column(name = "last_summarized_message_sent_at")
+    private Instant lastSummarizedMessageSentAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+
+    // Bumped on every write, see ConversationSummaryRepository#compareAndSet. Null on rows written before it
+    @Column(name = "version")
+    private Long version;
+}
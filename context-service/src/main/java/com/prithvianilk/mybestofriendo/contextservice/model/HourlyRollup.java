@@ -0,0 +1,10 @@
+package com.prithvianilk.mybestofriendo.contextservice.model;
+
+import java.time.Instant;
+
+/**
+ * Events of one hour with a value of a dimension, such as an action type or a failure reason, and the LLM
+ * tokens they spent.
+ */
+public record HourlyRollup(Instant hour, String value, long events, long promptTokens, long completionTokens) {
+}
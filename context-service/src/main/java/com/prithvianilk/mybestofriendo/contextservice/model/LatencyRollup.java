@@ -0,0 +1,10 @@
+package com.prithvianilk.mybestofriendo.contextservice.model;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Latency percentiles of a stage over whole hours from {@code from} to {@code to}, keyed like "p99".
+ */
+public record LatencyRollup(String stage, Instant from, Instant to, long events, Map<String, Long> percentiles) {
+}
@@ -0,0 +1,4 @@
+package com.prithvianilk.mybestofriendo.contextservice.model;
+
+public record MessageMatch(WhatsAppMessage message, float score) {
+}
@@ -0,0 +1,13 @@
+package com.prithvianilk.mybestofriendo.contextservice.model;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+
+/**
+ * Where a message was read from in Kafka.
+ */
+public record MessagePosition(String topic, int partition, long offset) {
+
+    public static MessagePosition of(ConsumerRecord<?, ?> record) {
+        return new MessagePosition(record.topic(), record.partition(), record.offset());
+    }
+}
@@ -0,0 +1,6 @@
+package com.prithvianilk.mybestofriendo.contextservice.model;
+
+public enum MessagePriority {
+    HIGH,
+    NORMAL
+}
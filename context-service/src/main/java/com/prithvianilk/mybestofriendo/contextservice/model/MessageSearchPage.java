@@ -0,0 +1,9 @@
+package com.prithvianilk.mybestofriendo.contextservice.model;
+
+import java.util.List;
+
+/**
+ * A page of search results, newest first. {@code nextCursor} is null on the last page.
+ */
+public record MessageSearchPage(List<MessageSearchResult> results, String nextCursor) {
+}
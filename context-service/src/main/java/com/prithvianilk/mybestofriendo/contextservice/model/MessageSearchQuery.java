@@ -0,0 +1,16 @@
+package com.prithvianilk.mybestofriendo.contextservice.model;
+
+import java.time.Instant;
+
+/**
+ * Full-text message search. Every filter other than {@code text} is optional; {@code from} is inclusive
+ * and {@code to} exclusive.
+ */
+public record MessageSearchQuery(
+        String text,
+        String participantNumber,
+        Instant from,
+        Instant to,
+        int limit,
+        String cursor) {
+}
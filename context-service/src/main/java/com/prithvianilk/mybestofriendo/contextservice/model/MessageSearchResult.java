@@ -0,0 +1,4 @@
+package com.prithvianilk.mybestofriendo.contextservice.model;
+
+public record MessageSearchResult(long id, WhatsAppMessage message, String snippet) {
+}
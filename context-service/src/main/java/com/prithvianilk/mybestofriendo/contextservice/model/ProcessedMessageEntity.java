@@ -0,0 +1,36 @@
+package com.prithvianilk.mybestofriendo.contextservice.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Entity
+@Table(name = "processed_message")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProcessedMessageEntity {
+    @Id
+    @Column(name = "message_key", length = 64)
+    private String messageKey;
+
+    @Column(name = "topic")
+    private String topic;
+
+    @Column(name = "kafka_partition")
+    private Integer kafkaPartition;
+
+    @Column(name = "kafka_offset")
+    private Long kafkaOffset;
+
+    @Column(name = "outcome", length = 500)
+    private String outcome;
+
+    @Column(name = "processed_at", nullable = false)
+    private Instant processedAt;
+}
@@ -0,0 +1,19 @@
+package com.prithvianilk.mybestofriendo.contextservice.model;
+
+import java.time.ZoneId;
+
+/**
+ * A {@link WhatsAppMessage} along with its prompt line, rendered once when the message enters the window.
+ * Send times are written like every other time in the prompt, as wall-clock time in the conversation's zone.
+ */
+public record RenderedWhatsAppMessage(WhatsAppMessage message, String line) {
+
+    public static RenderedWhatsAppMessage of(WhatsAppMessage message, ZoneId zone) {
+        return new RenderedWhatsAppMessage(message, render(message, zone));
+    }
+
+    public static String render(WhatsAppMessage message, ZoneId zone) {
+        return "[" + Commitment.formatForPrompt(message.sentAt(), zone) + "] " + message.senderName() + ": "
+                + message.content();
+    }
+}
@@ -1,11 +1,46 @@
 package com.prithvianilk.mybestofriendo.contextservice.model;
 
+import com.prithvianilk.mybestofriendo.contextservice.tenant.TenantContext;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Instant;
+import java.util.HexFormat;
 
 public record WhatsAppMessage(
     String participantMobileNumber,
     String senderName,
     boolean fromMe,
     String content,
-    Instant sentAt
-) {}
+    Instant sentAt,
+    String tenantId
+) {
+
+    public WhatsAppMessage {
+        tenantId = TenantContext.validate(tenantId);
+    }
+
+    public WhatsAppMessage(String participantMobileNumber, String senderName, boolean fromMe, String content,
+                           Instant sentAt) {
+        this(participantMobileNumber, senderName, fromMe, content, sentAt, TenantContext.DEFAULT_TENANT);
+    }
+
+    /**
+     * SHA-256 of the fields that identify a message, as 64 lowercase hex characters. The same message
+     * redelivered by Kafka or re-sent by the producer always has the same key. Keys of the default tenant
+     * do not include the tenant, so they match the ones recorded before tenants existed.
+     */
+    public String messageKey() {
+        String identity = participantMobileNumber + '\n' + fromMe + '\n' + sentAt + '\n' + content;
+        if (!TenantContext.DEFAULT_TENANT.equals(tenantId)) {
+            identity = tenantId + '\n' + identity;
+        }
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(identity.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.prithvianilk.mybestofriendo.contextservice.model;
+
+import com.prithvianilk.mybestofriendo.contextservice.tenant.TenantContext;
+
+import java.util.List;
+
+/**
+ * The full message window of a participant, published keyed by participant to a log-compacted topic so the
+ * latest window per participant survives restarts.
+ */
+public record WindowSnapshot(String participantMobileNumber, List<WhatsAppMessage> messages, String tenantId) {
+
+    public WindowSnapshot {
+        tenantId = TenantContext.validate(tenantId);
+    }
+}
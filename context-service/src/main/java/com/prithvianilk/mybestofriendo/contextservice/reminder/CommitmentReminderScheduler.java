@@ -0,0 +1,335 @@
+package com.prithvianilk.mybestofriendo.contextservice.reminder;
+
+import com.prithvianilk.mybestofriendo.contextservice.config.ReminderConfig;
+import com.prithvianilk.mybestofriendo.contextservice.model.CommitmentEntity;
+import com.prithvianilk.mybestofriendo.contextservice.model.CommitmentReminder;
+import com.prithvianilk.mybestofriendo.contextservice.model.CommitmentReminderStateEntity;
+import com.prithvianilk.mybestofriendo.contextservice.reminder.HierarchicalTimingWheel.Timeout;
+import com.prithvianilk.mybestofriendo.contextservice.repository.CommitmentReminderStateRepository;
+import com.prithvianilk.mybestofriendo.contextservice.repository.CommitmentRepository;
+import com.prithvianilk.mybestofriendo.contextservice.repository.FutureCommitmentIndex;
+import com.prithvianilk.mybestofriendo.contextservice.tenant.TenantContext;
+import com.prithvianilk.mybestofriendo.contextservice.tenant.TenantDirectory;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+
+/**
+ * Fires pre-due and due reminders for commitments to the reminder topic, for the WhatsApp side to send.
+ * <p>
+ * Upcoming reminders are kept in a {@link HierarchicalTimingWheel} advanced once per tick, so tens of
+ * thousands of pending commitments cost a few bucket visits a second. {@link FutureCommitmentIndex}
+ * forwards every commitment write here, rescheduling or cancelling the commitment's reminders in O(1).
+ * <p>
+ * Every instance schedules every tenant's reminders, so before sending one an instance claims it with a
+ * conditional write of {@link CommitmentReminderStateEntity}; the instances that lose the claim drop it. A
+ * reminder is therefore sent at most once, and not at all if its claimant dies before sending it.
+ * <p>
+ * On startup the commitments of every tenant are loaded, and for each the latest reminder missed while the
+ * service was down, within {@link ReminderConfig#getMissedFireWindow()}, is fired late. A reminder that fails
+ * to send is put back on the wheel with exponential backoff, still claimed, until it is older than that window.
+ */
+@Slf4j
+@Service
+public class CommitmentReminderScheduler {
+
+    private static final Duration SEND_TIMEOUT = Duration.ofSeconds(10);
+
+    private final ReminderConfig config;
+    private final TenantDirectory tenantDirectory;
+    private final CommitmentRepository commitmentRepository;
+    private final CommitmentReminderStateRepository reminderStateRepository;
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final MeterRegistry meterRegistry;
+    private final Clock clock;
+
+    private final HierarchicalTimingWheel<Reminder> wheel;
+    private final Map<CommitmentKey, List<Timeout<Reminder>>> timeoutsByCommitment = new HashMap<>();
+    private final ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor(
+            runnable -> Thread.ofPlatform().name("commitment-reminder-ticker").daemon().unstarted(runnable));
+
+    private record CommitmentKey(String tenantId, long commitmentId) {
+    }
+
+    private record Reminder(CommitmentKey key, Instant toBeCompletedAt, CommitmentReminder.Type type,
+                            Instant remindAt, boolean late, int attempt, boolean claimed) {
+
+        Reminder missed() {
+            return new Reminder(key, toBeCompletedAt, type, remindAt, true, attempt, claimed);
+        }
+
+        Reminder retry() {
+            return new Reminder(key, toBeCompletedAt, type, remindAt, late, attempt + 1, claimed);
+        }
+
+        Reminder claim() {
+            return new Reminder(key, toBeCompletedAt, type, remindAt, late, attempt, true);
+        }
+    }
+
+    public CommitmentReminderScheduler(
+            ReminderConfig config,
+            TenantDirectory tenantDirectory,
+            CommitmentRepository commitmentRepository,
+            CommitmentReminderStateRepository reminderStateRepository,
+            KafkaTemplate<String, Object> kafkaTemplate,
+            MeterRegistry meterRegistry,
+            Clock clock) {
+        this.config = config;
+        this.tenantDirectory = tenantDirectory;
+        this.commitmentRepository = commitmentRepository;
+        this.reminderStateRepository = reminderStateRepository;
+        this.kafkaTemplate = kafkaTemplate;
+        this.meterRegistry = meterRegistry;
+        this.clock = clock;
+        this.wheel = new HierarchicalTimingWheel<>(config.getTick().toMillis(), config.getWheelSize(), clock.millis());
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!config.isEnabled()) {
+            return;
+        }
+        meterRegistry.gauge("whatsapp.reminder.pending", this, CommitmentReminderScheduler::pendingReminders);
+        ticker.execute(this::loadAll);
+        long tickMillis = config.getTick().toMillis();
+        ticker.scheduleAtFixedRate(this::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        ticker.shutdownNow();
+    }
+
+    /**
+     * Schedules the reminders of a created or changed commitment of the current tenant, replacing any it
+     * had.
+     */
+    public void schedule(CommitmentEntity commitment) {
+        if (!config.isEnabled()) {
+            return;
+        }
+        CommitmentKey key = new CommitmentKey(TenantContext.current(), commitment.getId());
+        synchronized (this) {
+            cancel(key);
+            scheduleUpcoming(key, commitment, clock.instant());
+        }
+    }
+
+    /**
+     * Cancels the reminders of a deleted commitment of the current tenant.
+     */
+    public void cancel(CommitmentEntity commitment) {
+        if (!config.isEnabled()) {
+            return;
+        }
+        synchronized (this) {
+            cancel(new CommitmentKey(TenantContext.current(), commitment.getId()));
+        }
+    }
+
+    public synchronized int pendingReminders() {
+        return wheel.size();
+    }
+
+    /**
+     * Fires the reminders that are due.
+     */
+    public void tick() {
+        List<Reminder> due;
+        synchronized (this) {
+            due = wheel.advance(clock.millis());
+            due.forEach(reminder -> timeoutsByCommitment.computeIfPresent(reminder.key(), (_, timeouts) -> {
+                timeouts.removeIf(timeout -> !timeout.isPending());
+                return timeouts.isEmpty() ? null : timeouts;
+            }));
+        }
+        due.forEach(this::fire);
+    }
+
+    /**
+     * Schedules the upcoming reminders of every tenant and fires the ones missed while the service was down.
+     */
+    public void loadAll() {
+        for (String tenantId : tenantDirectory.tenantIds()) {
+            try {
+                TenantContext.run(tenantId, this::load);
+            } catch (RuntimeException e) {
+                log.warn("Failed to load commitment reminders of tenant: {}", tenantId, e);
+            }
+        }
+        log.info("Loaded commitment reminders, {} pending", pendingReminders());
+    }
+
+    private void load() {
+        Instant now = clock.instant();
+        List<CommitmentEntity> commitments =
+                commitmentRepository.findByToBeCompletedAtAfter(now.minus(config.getMissedFireWindow()));
+        Map<Long, Instant> toBeCompletedAtById = commitments.stream()
+                .collect(Collectors.toMap(CommitmentEntity::getId, CommitmentEntity::getToBeCompletedAt));
+        // Reminders claimed for an earlier completion time do not hold back the moved commitment's
+        Map<Long, Instant> lastRemindAtById = reminderStateRepository
+                .findAllById(toBeCompletedAtById.keySet()).stream()
+                .filter(state -> Objects.isNull(state.getToBeCompletedAt())
+                        || state.getToBeCompletedAt().equals(toBeCompletedAtById.get(state.getCommitmentId())))
+                .collect(Collectors.toMap(CommitmentReminderStateEntity::getCommitmentId,
+                        CommitmentReminderStateEntity::getLastRemindAt));
+
+        for (CommitmentEntity commitment : commitments) {
+            CommitmentKey key = new CommitmentKey(TenantContext.current(), commitment.getId());
+            synchronized (this) {
+                if (timeoutsByCommitment.containsKey(key)) {
+                    // Written since startup, already scheduled from the newer state
+                    continue;
+                }
+                // In the same critical section as the check, so a concurrent write is not scheduled twice
+                scheduleUpcoming(key, commitment, now);
+            }
+
+            Instant lastRemindAt = lastRemindAtById.get(commitment.getId());
+            reminders(key, commitment).stream()
+                    .filter(reminder -> !reminder.remindAt().isAfter(now))
+                    .filter(reminder -> reminder.remindAt().isAfter(now.minus(config.getMissedFireWindow())))
+                    .filter(reminder -> Objects.isNull(lastRemindAt) || reminder.remindAt().isAfter(lastRemindAt))
+                    .max(Comparator.comparing(Reminder::remindAt))
+                    .ifPresent(reminder -> fire(reminder.missed()));
+        }
+    }
+
+    /**
+     * Schedules the reminders of the commitment that are still to come. Callers hold the lock and have
+     * cancelled any reminders the commitment had.
+     */
+    private void scheduleUpcoming(CommitmentKey key, CommitmentEntity commitment, Instant now) {
+        List<Timeout<Reminder>> timeouts = new ArrayList<>();
+        for (Reminder reminder : reminders(key, commitment)) {
+            if (reminder.remindAt().isAfter(now)) {
+                timeouts.add(wheel.schedule(reminder.remindAt().toEpochMilli(), reminder));
+            }
+        }
+        if (!timeouts.isEmpty()) {
+            timeoutsByCommitment.put(key, timeouts);
+        }
+    }
+
+    private void fire(Reminder reminder) {
+        TenantContext.run(reminder.key().tenantId(), () -> deliver(reminder));
+    }
+
+    /**
+     * Puts a reminder that failed to send back on the wheel, with the commitment's other reminders so that
+     * a later write cancels it too.
+     */
+    private void retryLater(Reminder reminder, RuntimeException failure) {
+        Instant retryAt = clock.instant().plus(retryBackoff(reminder.attempt()));
+        if (retryAt.isAfter(reminder.remindAt().plus(config.getMissedFireWindow()))) {
+            log.error("Giving up on {} reminder for commitment: {} after {} attempts",
+                    reminder.type(), reminder.key(), reminder.attempt() + 1, failure);
+            meterRegistry.counter("whatsapp.reminder.abandoned", "type", reminder.type().name()).increment();
+            return;
+        }
+        log.warn("Failed to fire {} reminder for commitment: {}, retrying at {}",
+                reminder.type(), reminder.key(), retryAt, failure);
+        synchronized (this) {
+            timeoutsByCommitment.computeIfAbsent(reminder.key(), _ -> new ArrayList<>())
+                    .add(wheel.schedule(retryAt.toEpochMilli(), reminder.retry()));
+        }
+    }
+
+    private Duration retryBackoff(int attempt) {
+        Duration backoff = config.getRetryBackoff().multipliedBy(1L << Math.min(attempt, 20));
+        return backoff.compareTo(config.getMaxRetryBackoff()) > 0 ? config.getMaxRetryBackoff() : backoff;
+    }
+
+    private void deliver(Reminder reminder) {
+        CommitmentEntity entity;
+        try {
+            Optional<CommitmentEntity> commitment = commitmentRepository.findById(reminder.key().commitmentId())
+                    .filter(found -> reminder.toBeCompletedAt().equals(found.getToBeCompletedAt()));
+            if (commitment.isEmpty()) {
+                // Deleted or moved by a write that did not go through FutureCommitmentIndex
+                return;
+            }
+            entity = commitment.get();
+            if (!reminder.claimed() && reminderStateRepository.claim(entity.getId(), entity.getToBeCompletedAt(),
+                    reminder.remindAt(), clock.instant()) == 0) {
+                log.debug("{} reminder for commitment: {} already claimed", reminder.type(), reminder.key());
+                meterRegistry.counter("whatsapp.reminder.claimed_elsewhere").increment();
+                return;
+            }
+        } catch (RuntimeException e) {
+            retryLater(reminder, e);
+            return;
+        }
+
+        Reminder claimed = reminder.claim();
+        try {
+            send(new CommitmentReminder(entity.getId(), entity.getParticipantNumber(), entity.getDescription(),
+                    entity.getToBeCompletedAt(), reminder.type(), reminder.remindAt(), reminder.late(),
+                    reminder.key().tenantId()));
+        } catch (RuntimeException e) {
+            retryLater(claimed, e);
+            return;
+        }
+        meterRegistry.counter("whatsapp.reminder.fired",
+                "type", reminder.type().name(),
+                "late", Boolean.toString(reminder.late())).increment();
+    }
+
+    /**
+     * Waits for the send, so a failed one is retried.
+     */
+    private void send(CommitmentReminder reminder) {
+        try {
+            kafkaTemplate.send(config.getTopic(), reminder.participantNumber(), reminder)
+                    .get(SEND_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while sending reminder", e);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new IllegalStateException("Failed to send reminder to " + config.getTopic(), e);
+        }
+    }
+
+    private List<Reminder> reminders(CommitmentKey key, CommitmentEntity commitment) {
+        Instant toBeCompletedAt = commitment.getToBeCompletedAt();
+        if (Objects.isNull(toBeCompletedAt)) {
+            return List.of();
+        }
+        List<Reminder> reminders = new ArrayList<>(config.getLeads().size() + 1);
+        for (Duration lead : config.getLeads()) {
+            reminders.add(new Reminder(key, toBeCompletedAt, CommitmentReminder.Type.PRE_DUE,
+                    toBeCompletedAt.minus(lead), false, 0, false));
+        }
+        reminders.add(new Reminder(key, toBeCompletedAt, CommitmentReminder.Type.DUE, toBeCompletedAt, false, 0,
+                false));
+        return reminders;
+    }
+
+    private void cancel(CommitmentKey key) {
+        List<Timeout<Reminder>> timeouts = timeoutsByCommitment.remove(key);
+        if (Objects.nonNull(timeouts)) {
+            timeouts.forEach(wheel::cancel);
+        }
+    }
+}
@@ -0,0 +1,261 @@
+package com.prithvianilk.mybestofriendo.contextservice.reminder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Hierarchical timing wheel (Varghese and Lauck) holding tasks until their deadline.
+ * <p>
+ * Level 0 has {@code wheelSize} buckets of one tick each, and every further level has buckets as wide as
+ * the whole level below it, so a handful of levels cover years. A task goes into the lowest level whose
+ * range covers its deadline, and when time reaches a bucket of a higher level its tasks are re-inserted
+ * one level down, ending in level 0 where they expire. Scheduling and cancelling are O(1), and advancing
+ * costs O(1) per tick plus the tasks that expire or cascade. Stretches of ticks with nothing in level 0 are
+ * skipped, so catching up after a long pause is cheap.
+ * <p>
+ * Tasks never expire before their deadline and at most one tick after it. Times are in epoch millis. Not
+ * thread safe.
+ */
+public final class HierarchicalTimingWheel<T> {
+
+    private final long tickMillis;
+    private final int wheelSize;
+    private final List<Level<T>> levels = new ArrayList<>();
+
+    // Tasks scheduled with a deadline that already passed, expired on the next advance
+    private final Bucket<T> overdue = new Bucket<>(null);
+
+    // Start of the level 0 bucket that expires next
+    private long currentTime;
+    private int size;
+
+    public HierarchicalTimingWheel(long tickMillis, int wheelSize, long startMillis) {
+        if (tickMillis <= 0 || wheelSize < 2) {
+            throw new IllegalArgumentException("Tick must be positive and the wheel at least 2 buckets");
+        }
+        this.tickMillis = tickMillis;
+        this.wheelSize = wheelSize;
+        this.currentTime = startMillis - Math.floorMod(startMillis, tickMillis);
+        levels.add(new Level<>(tickMillis, wheelSize));
+    }
+
+    public Timeout<T> schedule(long deadlineMillis, T task) {
+        Timeout<T> timeout = new Timeout<>(deadlineMillis, task);
+        insert(timeout);
+        size++;
+        return timeout;
+    }
+
+    /**
+     * @return whether the task was still pending
+     */
+    public boolean cancel(Timeout<T> timeout) {
+        if (Objects.isNull(timeout.bucket)) {
+            return false;
+        }
+        timeout.bucket.remove(timeout);
+        size--;
+        return true;
+    }
+
+    /**
+     * Moves time forward to {@code nowMillis}.
+     *
+     * @return the tasks whose deadline has passed
+     */
+    public List<T> advance(long nowMillis) {
+        List<T> expired = new ArrayList<>();
+        drain(overdue, expired);
+
+        long until = nowMillis - Math.floorMod(nowMillis, tickMillis);
+        while (currentTime < until) {
+            if (levels.getFirst().size == 0) {
+                // Nothing can expire before the next cascade, so skip the empty ticks up to it
+                currentTime = nextCascade(until) - tickMillis;
+            }
+            drain(levels.getFirst().bucket(currentTime), expired);
+            currentTime += tickMillis;
+            // Higher levels first, so what they cascade lands in a lower level bucket before it is cascaded too
+            for (int i = levels.size() - 1; i > 0; i--) {
+                Level<T> level = levels.get(i);
+                if (Math.floorMod(currentTime, level.tickMillis) == 0) {
+                    Bucket<T> bucket = level.bucket(currentTime);
+                    Timeout<T> timeout;
+                    while (Objects.nonNull(timeout = bucket.poll())) {
+                        insert(timeout);
+                    }
+                }
+            }
+        }
+        return expired;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void insert(Timeout<T> timeout) {
+        long deadline = timeout.deadlineMillis;
+        if (deadline < currentTime) {
+            overdue.add(timeout);
+            return;
+        }
+        for (int i = 0; ; i++) {
+            Level<T> level = level(i);
+            long levelStart = currentTime - Math.floorMod(currentTime, level.tickMillis);
+            if (deadline - levelStart < level.intervalMillis) {
+                level.bucket(deadline).add(timeout);
+                return;
+            }
+        }
+    }
+
+    /**
+     * The first bucket start after {@link #currentTime} at which a non-empty level cascades, at most
+     * {@code until}.
+     */
+    private long nextCascade(long until) {
+        long next = until;
+        for (int i = 1; i < levels.size(); i++) {
+            Level<T> level = levels.get(i);
+            if (level.size > 0) {
+                next = Math.min(next, currentTime - Math.floorMod(currentTime, level.tickMillis) + level.tickMillis);
+            }
+        }
+        return next;
+    }
+
+    private Level<T> level(int index) {
+        if (index == levels.size()) {
+            long levelTickMillis = levels.getLast().intervalMillis;
+            try {
+                Math.multiplyExact(levelTickMillis, (long) wheelSize);
+            } catch (ArithmeticException e) {
+                throw new IllegalArgumentException("Deadline is beyond the range of the wheel");
+            }
+            levels.add(new Level<>(levelTickMillis, wheelSize));
+        }
+        return levels.get(index);
+    }
+
+    private void drain(Bucket<T> bucket, List<T> expired) {
+        Timeout<T> timeout;
+        while (Objects.nonNull(timeout = bucket.poll())) {
+            size--;
+            expired.add(timeout.task);
+        }
+    }
+
+    /**
+     * A scheduled task, to cancel it with {@link #cancel(Timeout)}.
+     */
+    public static final class Timeout<T> {
+
+        private final long deadlineMillis;
+        private final T task;
+
+        private Bucket<T> bucket;
+        private Timeout<T> previous;
+        private Timeout<T> next;
+
+        private Timeout(long deadlineMillis, T task) {
+            this.deadlineMillis = deadlineMillis;
+            this.task = task;
+        }
+
+        public long deadlineMillis() {
+            return deadlineMillis;
+        }
+
+        public T task() {
+            return task;
+        }
+
+        public boolean isPending() {
+            return Objects.nonNull(bucket);
+        }
+    }
+
+    private static final class Level<T> {
+
+        private final long tickMillis;
+        private final long intervalMillis;
+        private final Bucket<T>[] buckets;
+
+        // Timeouts in all buckets of the level
+        private int size;
+
+        @SuppressWarnings("unchecked")
+        Level(long tickMillis, int wheelSize) {
+            this.tickMillis = tickMillis;
+            this.intervalMillis = tickMillis * wheelSize;
+            this.buckets = new Bucket[wheelSize];
+            for (int i = 0; i < wheelSize; i++) {
+                buckets[i] = new Bucket<>(this);
+            }
+        }
+
+        Bucket<T> bucket(long timeMillis) {
+            return buckets[(int) Math.floorMod(Math.floorDiv(timeMillis, tickMillis), (long) buckets.length)];
+        }
+    }
+
+    /**
+     * Doubly linked list of timeouts, so any of them can be unlinked in O(1).
+     */
+    private static final class Bucket<T> {
+
+        // Null for the overdue bucket
+        private final Level<T> level;
+
+        private Timeout<T> head;
+        private Timeout<T> tail;
+
+        Bucket(Level<T> level) {
+            this.level = level;
+        }
+
+        void add(Timeout<T> timeout) {
+            if (Objects.nonNull(level)) {
+                level.size++;
+            }
+            timeout.bucket = this;
+            timeout.previous = tail;
+            timeout.next = null;
+            if (Objects.isNull(tail)) {
+                head = timeout;
+            } else {
+                tail.next = timeout;
+            }
+            tail = timeout;
+        }
+
+        void remove(Timeout<T> timeout) {
+            if (Objects.nonNull(level)) {
+                level.size--;
+            }
+            if (Objects.isNull(timeout.previous)) {
+                head = timeout.next;
+            } else {
+                timeout.previous.next = timeout.next;
+            }
+            if (Objects.isNull(timeout.next)) {
+                tail = timeout.previous;
+            } else {
+                timeout.next.previous = timeout.previous;
+            }
+            timeout.bucket = null;
+            timeout.previous = null;
+            timeout.next = null;
+        }
+
+        Timeout<T> poll() {
+            Timeout<T> timeout = head;
+            if (Objects.nonNull(timeout)) {
+                remove(timeout);
+            }
+            return timeout;
+        }
+    }
+}
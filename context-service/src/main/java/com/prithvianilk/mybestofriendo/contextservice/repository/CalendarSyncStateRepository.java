@@ -0,0 +1,9 @@
+package com.prithvianilk.mybestofriendo.contextservice.repository;
+
+import com.prithvianilk.mybestofriendo.contextservice.model.CalendarSyncStateEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface CalendarSyncStateRepository extends JpaRepository<CalendarSyncStateEntity, String> {
+}
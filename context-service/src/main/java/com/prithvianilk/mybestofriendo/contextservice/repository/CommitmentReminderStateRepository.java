@@ -0,0 +1,40 @@
+package com.prithvianilk.mybestofriendo.contextservice.repository;
+
+import com.prithvianilk.mybestofriendo.contextservice.model.CommitmentReminderStateEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+
+@Repository
+public interface CommitmentReminderStateRepository extends JpaRepository<CommitmentReminderStateEntity, Long> {
+
+    /**
+     * Claims the reminder of a commitment due at {@code toBeCompletedAt} that fires at {@code remindAt}, so
+     * that of all the instances firing it only one sends it. Succeeds unless this reminder, or a later one for
+     * the same completion time, was already claimed.
+     *
+     * @return 1 if the reminder was claimed, 0 if another claim got there first
+     */
+    @Modifying
+    @Transactional
+    @Query(value = """
+            INSERT INTO commitment_reminder_state (commitment_id, to_be_completed_at, last_remind_at, updated_at)
+            VALUES (:commitmentId, :toBeCompletedAt, :remindAt, :updatedAt)
+            ON CONFLICT (commitment_id) DO UPDATE
+            SET to_be_completed_at = excluded.to_be_completed_at,
+                last_remind_at = excluded.last_remind_at,
+                updated_at = excluded.updated_at
+            WHERE commitment_reminder_state.to_be_completed_at IS NULL
+                OR commitment_reminder_state.to_be_completed_at <> excluded.to_be_completed_at
+                OR commitment_reminder_state.last_remind_at < excluded.last_remind_at""", nativeQuery = true)
+    int claim(
+            @Param("commitmentId") long commitmentId,
+            @Param("toBeCompletedAt") Instant toBeCompletedAt,
+            @Param("remindAt") Instant remindAt,
+            @Param("updatedAt") Instant updatedAt);
+}
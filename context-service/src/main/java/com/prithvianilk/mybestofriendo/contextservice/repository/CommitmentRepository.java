@@ -6,11 +6,16 @@ import org.springframework.stereotype.Repository;
 
 import java.time.Instant;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface CommitmentRepository extends JpaRepository<CommitmentEntity, Long> {
     List<CommitmentEntity> findByParticipantNumberAndToBeCompletedAtAfter(String participantNumber, Instant now);
 
     List<CommitmentEntity> findByToBeCompletedAtAfter(Instant now);
+
+    Optional<CommitmentEntity> findBySourceMessageKey(String sourceMessageKey);
+
+    Optional<CommitmentEntity> findByCalendarEventId(String calendarEventId);
 }
 
@@ -0,0 +1,51 @@
+package com.prithvianilk.mybestofriendo.contextservice.repository;
+
+import com.prithvianilk.mybestofriendo.contextservice.model.ConversationSummaryEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+
+/**
+ * Summaries are written by compare-and-set on {@link ConversationSummaryEntity#getVersion()}, so an instance
+ * that lost the participant in a rebalance cannot overwrite the new owner's summary with one folded from a
+ * stale read. Both writes return the number of rows written, zero when the summary changed underneath.
+ */
+@Repository
+public interface ConversationSummaryRepository extends JpaRepository<ConversationSummaryEntity, String> {
+
+    @Modifying
+    @Transactional
+    @Query(value = """
+            INSERT INTO conversation_summary (participant_number, summary, summarized_message_count,
+                last_summarized_message_sent_at, updated_at, version)
+            VALUES (:participant, :summary, :count, :lastSentAt, :updatedAt, 0)
+            ON CONFLICT (participant_number) DO NOTHING""", nativeQuery = true)
+    int insertIfAbsent(
+            @Param("participant") String participantNumber,
+            @Param("summary") String summary,
+            @Param("count") long summarizedMessageCount,
+            @Param("lastSentAt") Instant lastSummarizedMessageSentAt,
+            @Param("updatedAt") Instant updatedAt);
+
+    @Modifying
+    @Transactional
+    @Query("""
+            update ConversationSummaryEntity s
+            set s.summary = :summary, s.summarizedMessageCount = :count,
+                s.lastSummarizedMessageSentAt = :lastSentAt, s.updatedAt = :updatedAt,
+                s.version = coalesce(s.version, 0) + 1
+            where s.participantNumber = :participant
+                and (s.version = :expectedVersion or (s.version is null and :expectedVersion is null))""")
+    int compareAndSet(
+            @Param("participant") String participantNumber,
+            @Param("expectedVersion") Long expectedVersion,
+            @Param("summary") String summary,
+            @Param("count") long summarizedMessageCount,
+            @Param("lastSentAt") Instant lastSummarizedMessageSentAt,
+            @Param("updatedAt") Instant updatedAt);
+}
@@ -0,0 +1,218 @@
+package com.prithvianilk.mybestofriendo.contextservice.repository;
+
+import com.prithvianilk.mybestofriendo.contextservice.config.TemporalResolutionConfig;
+import com.prithvianilk.mybestofriendo.contextservice.model.Commitment;
+import com.prithvianilk.mybestofriendo.contextservice.model.CommitmentEntity;
+import com.prithvianilk.mybestofriendo.contextservice.reminder.CommitmentReminderScheduler;
+import com.prithvianilk.mybestofriendo.contextservice.tenant.TenantContext;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * In-memory index of commitments that have a completion time, grouped by participant and ordered by
+ * {@code toBeCompletedAt}, with each commitment's prompt line rendered once when it is indexed.
+ * <p>
+ * A participant's commitments are loaded from {@link CommitmentRepository} on first access; after that
+ * every write to a commitment must be mirrored here through {@link #put(CommitmentEntity)} and
+ * {@link #remove(CommitmentEntity)}, on the thread of the tenant the commitment belongs to. Writes are
+ * passed on to {@link CommitmentReminderScheduler}, whether or not the participant is loaded. Inside a
+ * transaction they are applied once it commits, so a rolled back write never reaches the index.
+ */
+@Slf4j
+@Repository
+@RequiredArgsConstructor
+public class FutureCommitmentIndex {
+
+    private static final String SNAPSHOT_SEPARATOR = " || ";
+
+    private final CommitmentRepository commitmentRepository;
+    private final CommitmentReminderScheduler reminderScheduler;
+    private final TemporalResolutionConfig temporalResolutionConfig;
+
+    // Commitments by tenant, then by participant, each tenant's coming from its own shard
+    private final Map<String, Map<String, ParticipantCommitments>> commitmentsByTenant = new ConcurrentHashMap<>();
+
+    public List<CommitmentEntity> getFutureCommitments(String participantNumber, Instant after) {
+        return getParticipantCommitments(participantNumber, after).appendSnapshot(after, null, null);
+    }
+
+    /**
+     * Appends the pre-rendered lines of the participant's commitments due after {@code after} to
+     * {@code buffer}.
+     *
+     * @return the commitments that were appended, ordered by {@code toBeCompletedAt}
+     */
+    public List<CommitmentEntity> appendFutureCommitmentsSnapshot(
+            String participantNumber,
+            Instant after,
+            StringBuilder buffer) {
+        return getParticipantCommitments(participantNumber, after).appendSnapshot(after, null, buffer);
+    }
+
+    /**
+     * Like {@link #appendFutureCommitmentsSnapshot(String, Instant, StringBuilder)}, but only appends the
+     * commitments whose ids are in {@code ids}.
+     */
+    public List<CommitmentEntity> appendFutureCommitmentsSnapshot(
+            String participantNumber,
+            Instant after,
+            Set<Long> ids,
+            StringBuilder buffer) {
+        return getParticipantCommitments(participantNumber, after).appendSnapshot(after, ids, buffer);
+    }
+
+    public void put(CommitmentEntity entity) {
+        afterCommit(() -> apply(entity));
+    }
+
+    public void remove(CommitmentEntity entity) {
+        afterCommit(() -> applyRemoval(entity));
+    }
+
+    private void apply(CommitmentEntity entity) {
+        reminderScheduler.schedule(entity);
+        ParticipantCommitments commitments = commitmentsByParticipant().get(entity.getParticipantNumber());
+        if (Objects.nonNull(commitments)) {
+            commitments.put(entity);
+        }
+    }
+
+    private void applyRemoval(CommitmentEntity entity) {
+        reminderScheduler.cancel(entity);
+        ParticipantCommitments commitments = commitmentsByParticipant().get(entity.getParticipantNumber());
+        if (Objects.nonNull(commitments)) {
+            commitments.remove(entity.getId());
+        }
+    }
+
+    private static void afterCommit(Runnable write) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            write.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                write.run();
+            }
+        });
+    }
+
+    /**
+     * Drops the commitments of matching participants, so they are reloaded on next access.
+     */
+    public void evictIf(Predicate<String> participantFilter) {
+        commitmentsByTenant.values().forEach(commitments -> commitments.keySet().removeIf(participantFilter));
+    }
+
+    public void clear() {
+        commitmentsByTenant.clear();
+    }
+
+    private Map<String, ParticipantCommitments> commitmentsByParticipant() {
+        return commitmentsByTenant.computeIfAbsent(TenantContext.current(), _ -> new ConcurrentHashMap<>());
+    }
+
+    private ParticipantCommitments getParticipantCommitments(String participantNumber, Instant after) {
+        ParticipantCommitments commitments = commitmentsByParticipant().computeIfAbsent(
+                participantNumber,
+                _ -> new ParticipantCommitments());
+        commitments.loadIfNeeded(participantNumber, after);
+        return commitments;
+    }
+
+    // Written in the format the LLM answers in, so a CHANGE that keeps the time reads back the same instant
+    private String render(CommitmentEntity entity) {
+        return "ID:" + entity.getId()
+                + "|Participant:" + entity.getParticipantNumber()
+                + "|Description:" + entity.getDescription()
+                + "|ToBeCompletedAt:"
+                + Commitment.formatForPrompt(entity.getToBeCompletedAt(), temporalResolutionConfig.getZone());
+    }
+
+    private record IndexedCommitment(CommitmentEntity entity, String line) {
+    }
+
+    private record CommitmentKey(Instant toBeCompletedAt, long id) implements Comparable<CommitmentKey> {
+
+        private static final Comparator<CommitmentKey> COMPARATOR = Comparator
+                .comparing(CommitmentKey::toBeCompletedAt)
+                .thenComparingLong(CommitmentKey::id);
+
+        static CommitmentKey of(CommitmentEntity entity) {
+            return new CommitmentKey(entity.getToBeCompletedAt(), entity.getId());
+        }
+
+        @Override
+        public int compareTo(CommitmentKey other) {
+            return COMPARATOR.compare(this, other);
+        }
+    }
+
+    private class ParticipantCommitments {
+        private final NavigableMap<CommitmentKey, IndexedCommitment> commitmentsByKey = new TreeMap<>();
+        private final Map<Long, CommitmentKey> keysById = new HashMap<>();
+
+        // Commitments due after this instant are guaranteed to be loaded, null until the first load
+        private Instant loadedAfter;
+
+        synchronized void loadIfNeeded(String participantNumber, Instant after) {
+            if (Objects.nonNull(loadedAfter) && !after.isBefore(loadedAfter)) {
+                return;
+            }
+
+            log.debug("Loading future commitments for participant: {} after: {}", participantNumber, after);
+            commitmentRepository
+                    .findByParticipantNumberAndToBeCompletedAtAfter(participantNumber, after)
+                    .forEach(this::put);
+            loadedAfter = after;
+        }
+
+        synchronized void put(CommitmentEntity entity) {
+            remove(entity.getId());
+            if (Objects.isNull(entity.getToBeCompletedAt())) {
+                return;
+            }
+
+            CommitmentKey key = CommitmentKey.of(entity);
+            commitmentsByKey.put(key, new IndexedCommitment(entity, render(entity)));
+            keysById.put(entity.getId(), key);
+        }
+
+        synchronized void remove(Long id) {
+            CommitmentKey key = keysById.remove(id);
+            if (Objects.nonNull(key)) {
+                commitmentsByKey.remove(key);
+            }
+        }
+
+        synchronized List<CommitmentEntity> appendSnapshot(Instant after, Set<Long> ids, StringBuilder buffer) {
+            Collection<IndexedCommitment> futureCommitments = commitmentsByKey
+                    .tailMap(new CommitmentKey(after, Long.MAX_VALUE), false)
+                    .values();
+
+            List<CommitmentEntity> appendedCommitments = new ArrayList<>(futureCommitments.size());
+            for (IndexedCommitment commitment : futureCommitments) {
+                if (Objects.nonNull(ids) && !ids.contains(commitment.entity().getId())) {
+                    continue;
+                }
+                if (Objects.nonNull(buffer)) {
+                    if (!appendedCommitments.isEmpty()) {
+                        buffer.append(SNAPSHOT_SEPARATOR);
+                    }
+                    buffer.append(commitment.line());
+                }
+                appendedCommitments.add(commitment.entity());
+            }
+            return appendedCommitments;
+        }
+    }
+}
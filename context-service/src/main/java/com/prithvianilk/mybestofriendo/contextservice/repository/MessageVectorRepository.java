@@ -0,0 +1,445 @@
+package com.prithvianilk.mybestofriendo.contextservice.repository;
+
+import com.prithvianilk.mybestofriendo.contextservice.config.MessageMemoryConfig;
+import com.prithvianilk.mybestofriendo.contextservice.index.HnswIndex;
+import com.prithvianilk.mybestofriendo.contextservice.index.MessageEmbedder;
+import com.prithvianilk.mybestofriendo.contextservice.model.MessageMatch;
+import com.prithvianilk.mybestofriendo.contextservice.model.WhatsAppMessage;
+import com.prithvianilk.mybestofriendo.contextservice.tenant.TenantContext;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Repository;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+/**
+ * Long-term, on-disk memory of every ingested {@link WhatsAppMessage}, searchable by semantic similarity.
+ * <p>
+ * Messages are appended to a length-prefixed log, and their embeddings are indexed in an in-memory
+ * {@link HnswIndex} whose graph is snapshotted next to the log. On startup the log is replayed, the
+ * snapshot re-attached, and only messages logged after the snapshot are re-inserted. Message bodies are
+ * read back from the log on demand, so only vectors and file offsets are held in memory.
+ * <p>
+ * Each tenant has its own log and graph, so a search only walks that tenant's messages. The default tenant's
+ * live in {@link MessageMemoryConfig#getDirectory()}, every other tenant's in a subdirectory named after it,
+ * opened on first use like the tenant's database shard. A log written when all tenants shared one is split up
+ * when the default tenant's memory is opened. Memories stay open until shutdown, as reopening one means
+ * re-embedding its whole log.
+ */
+@Slf4j
+@Repository
+@RequiredArgsConstructor
+public class MessageVectorRepository {
+
+    private static final String LOG_FILE = "messages.log";
+    private static final String GRAPH_FILE = "graph.hnsw";
+    private static final String TENANTS_DIRECTORY = "tenants";
+    private static final long SEED = 42L;
+
+    private final MessageMemoryConfig config;
+    private final MessageEmbedder embedder;
+
+    private final Map<String, TenantMemory> memoriesByTenant = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void open() throws IOException {
+        if (!config.isEnabled()) {
+            return;
+        }
+
+        TenantMemory defaultMemory = memory(TenantContext.DEFAULT_TENANT);
+        List<WhatsAppMessage> otherTenantsMessages = defaultMemory.takeOtherTenantsMessages();
+        if (!otherTenantsMessages.isEmpty()) {
+            log.info("Moving {} messages of other tenants out of the shared message memory",
+                    otherTenantsMessages.size());
+            // Appended to their own logs before they leave the shared one, so a crash in between loses nothing
+            addAll(otherTenantsMessages);
+            defaultMemory.compact();
+        }
+        log.info("Opened message memory with {} messages", defaultMemory.size());
+    }
+
+    /**
+     * Appends the message to its tenant's log and indexes it. Messages already in memory are ignored, so
+     * Kafka redeliveries are safe.
+     */
+    public void add(WhatsAppMessage message) {
+        addAll(List.of(message));
+    }
+
+    /**
+     * Appends the messages to their tenants' logs, with a single gathering write per tenant, and indexes
+     * them, skipping messages already in memory.
+     */
+    public void addAll(List<WhatsAppMessage> messages) {
+        if (!config.isEnabled() || messages.isEmpty()) {
+            return;
+        }
+
+        Map<String, List<WhatsAppMessage>> messagesByTenant = messages.stream()
+                .collect(Collectors.groupingBy(WhatsAppMessage::tenantId, LinkedHashMap::new, Collectors.toList()));
+        messagesByTenant.forEach((tenantId, tenantMessages) -> {
+            List<float[]> vectors = tenantMessages.stream()
+                    .map(message -> embedder.embed(message.content()))
+                    .toList();
+            memory(tenantId).addAll(tenantMessages, vectors);
+        });
+    }
+
+    /**
+     * Returns up to {@code k} messages of the current tenant, across all its participants, most similar to
+     * {@code query}. The search returns whatever it has found once the configured search budget is spent.
+     */
+    public List<MessageMatch> findSimilar(String query, int k) {
+        if (!config.isEnabled()) {
+            return List.of();
+        }
+
+        float[] vector = embedder.embed(query);
+        long deadlineNanos = System.nanoTime() + config.getSearchBudget().toNanos();
+        return memory(TenantContext.current()).findSimilar(vector, k, deadlineNanos);
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        for (TenantMemory memory : memoriesByTenant.values()) {
+            memory.close();
+        }
+        memoriesByTenant.clear();
+    }
+
+    private TenantMemory memory(String tenantId) {
+        return memoriesByTenant.computeIfAbsent(tenantId, this::openMemory);
+    }
+
+    private TenantMemory openMemory(String tenantId) {
+        Path directory = TenantContext.DEFAULT_TENANT.equals(tenantId)
+                ? Path.of(config.getDirectory())
+                : Path.of(config.getDirectory(), TENANTS_DIRECTORY, tenantId);
+        try {
+            return new TenantMemory(tenantId, directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open message memory of tenant: " + tenantId, e);
+        }
+    }
+
+    /**
+     * One tenant's log and graph, and the keys, offsets and index rebuilt from them.
+     */
+    private class TenantMemory {
+        private final String tenantId;
+        private final Path directory;
+
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+        private final Set<String> messageKeys = new HashSet<>();
+        private long[] offsets = new long[1024];
+        // Messages of other tenants found in the log, only ever in the default tenant's log from before the split
+        private List<WhatsAppMessage> otherTenantsMessages = new ArrayList<>();
+
+        private FileChannel logChannel;
+        private HnswIndex index;
+        private int insertsSinceSnapshot;
+
+        TenantMemory(String tenantId, Path directory) throws IOException {
+            this.tenantId = tenantId;
+            this.directory = directory;
+
+            Files.createDirectories(directory);
+            logChannel = FileChannel.open(directory.resolve(LOG_FILE),
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+            List<float[]> vectors = replayLog();
+            // Graph node ids count every record, so a snapshot of a shared log does not fit this tenant's
+            index = otherTenantsMessages.isEmpty() ? restoreGraph(vectors) : emptyIndex();
+            for (int id = index.size(); id < vectors.size(); id++) {
+                index.insert(vectors.get(id));
+            }
+            log.info("Opened message memory of tenant: {} at {} with {} messages", tenantId, directory,
+                    index.size());
+        }
+
+        int size() {
+            lock.readLock().lock();
+            try {
+                return index.size();
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        List<WhatsAppMessage> takeOtherTenantsMessages() {
+            List<WhatsAppMessage> messages = otherTenantsMessages;
+            otherTenantsMessages = new ArrayList<>();
+            return messages;
+        }
+
+        void addAll(List<WhatsAppMessage> messages, List<float[]> vectors) {
+            lock.writeLock().lock();
+            try {
+                long offset = logChannel.size();
+                List<ByteBuffer> records = new ArrayList<>(messages.size());
+                List<float[]> newVectors = new ArrayList<>(messages.size());
+                List<Long> newOffsets = new ArrayList<>(messages.size());
+                for (int i = 0; i < messages.size(); i++) {
+                    if (!messageKeys.add(messages.get(i).messageKey())) {
+                        continue;
+                    }
+                    ByteBuffer record = encode(messages.get(i));
+                    records.add(record);
+                    newVectors.add(vectors.get(i));
+                    newOffsets.add(offset);
+                    offset += record.remaining();
+                }
+
+                writeRecords(records.toArray(ByteBuffer[]::new));
+                for (int i = 0; i < newVectors.size(); i++) {
+                    int id = index.insert(newVectors.get(i));
+                    recordOffset(id, newOffsets.get(i));
+                }
+
+                insertsSinceSnapshot += newVectors.size();
+                if (insertsSinceSnapshot >= config.getSnapshotInterval()) {
+                    writeGraphSnapshot();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to append messages to message memory of tenant: "
+                        + tenantId, e);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        List<MessageMatch> findSimilar(float[] vector, int k, long deadlineNanos) {
+            lock.readLock().lock();
+            try {
+                List<MessageMatch> matches = new ArrayList<>(k);
+                for (HnswIndex.SearchResult result : index.search(vector, k, config.getEfSearch(), deadlineNanos)) {
+                    matches.add(new MessageMatch(readMessage(offsets[result.id()]), result.score()));
+                }
+                return matches;
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to read message from message memory of tenant: "
+                        + tenantId, e);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        /**
+         * Rewrites the log with only this tenant's records, in the same order so graph node ids still match,
+         * and snapshots the graph rebuilt for them.
+         */
+        void compact() throws IOException {
+            lock.writeLock().lock();
+            try {
+                Path logFile = directory.resolve(LOG_FILE);
+                Path temporaryFile = directory.resolve(LOG_FILE + ".tmp");
+                long[] compactedOffsets = new long[offsets.length];
+                try (FileChannel output = FileChannel.open(temporaryFile, StandardOpenOption.CREATE,
+                        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                    for (int id = 0; id < index.size(); id++) {
+                        compactedOffsets[id] = output.position();
+                        ByteBuffer record = encode(readMessage(offsets[id]));
+                        while (record.hasRemaining()) {
+                            output.write(record);
+                        }
+                    }
+                    output.force(true);
+                }
+                logChannel.close();
+                Files.move(temporaryFile, logFile, StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+                logChannel = FileChannel.open(logFile, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                offsets = compactedOffsets;
+                writeGraphSnapshot();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        void close() throws IOException {
+            lock.writeLock().lock();
+            try {
+                writeGraphSnapshot();
+                logChannel.close();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        private List<float[]> replayLog() throws IOException {
+            List<float[]> vectors = new ArrayList<>();
+            long position = 0;
+            ByteBuffer lengthBuffer = ByteBuffer.allocate(Integer.BYTES);
+
+            while (true) {
+                lengthBuffer.clear();
+                if (!readFully(lengthBuffer, position)) {
+                    break;
+                }
+
+                ByteBuffer payload = ByteBuffer.allocate(lengthBuffer.flip().getInt());
+                if (!readFully(payload, position + Integer.BYTES)) {
+                    break;
+                }
+
+                WhatsAppMessage message = decode(payload.flip());
+                if (message.tenantId().equals(tenantId)) {
+                    messageKeys.add(message.messageKey());
+                    recordOffset(vectors.size(), position);
+                    vectors.add(embedder.embed(message.content()));
+                } else {
+                    otherTenantsMessages.add(message);
+                }
+                position += Integer.BYTES + payload.capacity();
+            }
+
+            if (position < logChannel.size()) {
+                log.warn("Truncating partially written message memory record of tenant: {} at offset {}",
+                        tenantId, position);
+                logChannel.truncate(position);
+            }
+            return vectors;
+        }
+
+        private HnswIndex restoreGraph(List<float[]> vectors) {
+            Path graphFile = directory.resolve(GRAPH_FILE);
+            if (!Files.exists(graphFile)) {
+                return emptyIndex();
+            }
+
+            try (DataInputStream input = new DataInputStream(
+                    new BufferedInputStream(Files.newInputStream(graphFile)))) {
+                HnswIndex restored = HnswIndex.restore(input, vectors, config.getEfConstruction(), SEED);
+                if (restored.dimensions() != config.getDimensions()) {
+                    log.warn("Discarding message memory graph snapshot built for different dimensions");
+                    return emptyIndex();
+                }
+                return restored;
+            } catch (IOException e) {
+                log.warn("Discarding unreadable message memory graph snapshot, rebuilding from the log", e);
+                return emptyIndex();
+            }
+        }
+
+        private HnswIndex emptyIndex() {
+            return new HnswIndex(config.getDimensions(), config.getM(), config.getEfConstruction(), SEED);
+        }
+
+        private void writeGraphSnapshot() throws IOException {
+            Path graphFile = directory.resolve(GRAPH_FILE);
+            Path temporaryFile = directory.resolve(GRAPH_FILE + ".tmp");
+            try (DataOutputStream output = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(temporaryFile)))) {
+                index.writeGraph(output);
+            }
+            Files.move(temporaryFile, graphFile, StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            insertsSinceSnapshot = 0;
+            log.debug("Wrote message memory graph snapshot of tenant: {} with {} nodes", tenantId, index.size());
+        }
+
+        private void writeRecords(ByteBuffer[] records) throws IOException {
+            if (records.length == 0) {
+                return;
+            }
+
+            logChannel.position(logChannel.size());
+            while (records[records.length - 1].hasRemaining()) {
+                logChannel.write(records);
+            }
+        }
+
+        private WhatsAppMessage readMessage(long offset) throws IOException {
+            ByteBuffer lengthBuffer = ByteBuffer.allocate(Integer.BYTES);
+            readFully(lengthBuffer, offset);
+            ByteBuffer payload = ByteBuffer.allocate(lengthBuffer.flip().getInt());
+            readFully(payload, offset + Integer.BYTES);
+            return decode(payload.flip());
+        }
+
+        private boolean readFully(ByteBuffer buffer, long position) throws IOException {
+            while (buffer.hasRemaining()) {
+                if (logChannel.read(buffer, position + buffer.position()) < 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void recordOffset(int id, long offset) {
+            if (id >= offsets.length) {
+                offsets = Arrays.copyOf(offsets, offsets.length * 2);
+            }
+            offsets[id] = offset;
+        }
+    }
+
+    private static ByteBuffer encode(WhatsAppMessage message) {
+        byte[] participant = bytes(message.participantMobileNumber());
+        byte[] senderName = bytes(message.senderName());
+        byte[] content = bytes(message.content());
+        byte[] tenant = bytes(message.tenantId());
+        int payloadLength = 4 * Integer.BYTES + participant.length + senderName.length + content.length
+                + 1 + Long.BYTES + Integer.BYTES + tenant.length;
+
+        ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES + payloadLength);
+        buffer.putInt(payloadLength);
+        buffer.putInt(participant.length).put(participant);
+        buffer.putInt(senderName.length).put(senderName);
+        buffer.putInt(content.length).put(content);
+        buffer.put((byte) (message.fromMe() ? 1 : 0));
+        buffer.putLong(message.sentAt().getEpochSecond());
+        buffer.putInt(message.sentAt().getNano());
+        buffer.putInt(tenant.length).put(tenant);
+        return buffer.flip();
+    }
+
+    private static WhatsAppMessage decode(ByteBuffer buffer) {
+        String participant = string(buffer);
+        String senderName = string(buffer);
+        String content = string(buffer);
+        boolean fromMe = buffer.get() == 1;
+        Instant sentAt = Instant.ofEpochSecond(buffer.getLong(), buffer.getInt());
+        // Records written before tenants existed end here
+        String tenantId = buffer.hasRemaining() ? string(buffer) : TenantContext.DEFAULT_TENANT;
+        return new WhatsAppMessage(participant, senderName, fromMe, content, sentAt, tenantId);
+    }
+
+    private static byte[] bytes(String value) {
+        return Objects.requireNonNullElse(value, "").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String string(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
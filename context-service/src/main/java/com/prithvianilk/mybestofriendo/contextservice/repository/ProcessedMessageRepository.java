@@ -0,0 +1,20 @@
+package com.prithvianilk.mybestofriendo.contextservice.repository;
+
+import com.prithvianilk.mybestofriendo.contextservice.model.ProcessedMessageEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+
+@Repository
+public interface ProcessedMessageRepository extends JpaRepository<ProcessedMessageEntity, String> {
+
+    @Modifying
+    @Transactional
+    @Query("delete from ProcessedMessageEntity p where p.processedAt < :before")
+    int deleteProcessedBefore(@Param("before") Instant before);
+}
@@ -0,0 +1,260 @@
+package com.prithvianilk.mybestofriendo.contextservice.repository;
+
+import com.prithvianilk.mybestofriendo.contextservice.index.MessageEmbedder;
+import com.prithvianilk.mybestofriendo.contextservice.model.MessageSearchPage;
+import com.prithvianilk.mybestofriendo.contextservice.model.MessageSearchQuery;
+import com.prithvianilk.mybestofriendo.contextservice.model.MessageSearchResult;
+import com.prithvianilk.mybestofriendo.contextservice.model.WhatsAppMessage;
+import com.prithvianilk.mybestofriendo.contextservice.tenant.TenantContext;
+import com.prithvianilk.mybestofriendo.contextservice.tenant.TenantDirectory;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * Append-only log of every ingested {@link WhatsAppMessage}, with a SQLite FTS5 index over message
+ * content and sender name kept in sync by trigger.
+ * <p>
+ * Searches are ordered newest first and paged by keyset on {@code (sent_at, id)}, so deep pages cost the
+ * same as the first one.
+ * <p>
+ * Each tenant's log lives in its own shard. The schema is SQLite specific, so on any other database the
+ * log is disabled: appends are ignored and {@link #isSearchSupported()} is false.
+ * <p>
+ * Rows are keyed by {@link WhatsAppMessage#messageKey()}, like the idempotency ledger. Rows logged under
+ * the older ad hoc key are rekeyed on startup, so their redeliveries are still ignored.
+ */
+@Slf4j
+@Repository
+@RequiredArgsConstructor
+public class WhatsAppMessageLogRepository {
+
+    private static final List<String> SCHEMA = List.of(
+            """
+            CREATE TABLE IF NOT EXISTS whatsapp_message_log (
+                id INTEGER PRIMARY KEY AUTOINCREMENT,
+                message_key TEXT NOT NULL UNIQUE,
+                participant_number TEXT NOT NULL,
+                sender_name TEXT,
+                from_me INTEGER NOT NULL,
+                content TEXT,
+                sent_at INTEGER NOT NULL
+            )""",
+            """
+            CREATE INDEX IF NOT EXISTS idx_whatsapp_message_log_participant_sent_at
+                ON whatsapp_message_log (participant_number, sent_at, id)""",
+            """
+            CREATE INDEX IF NOT EXISTS idx_whatsapp_message_log_sent_at
+                ON whatsapp_message_log (sent_at, id)""",
+            """
+            CREATE VIRTUAL TABLE IF NOT EXISTS whatsapp_message_fts USING fts5(
+                content,
+                sender_name,
+                content='whatsapp_message_log',
+                content_rowid='id',
+                tokenize='unicode61 remove_diacritics 2'
+            )""",
+            """
+            CREATE TRIGGER IF NOT EXISTS whatsapp_message_log_after_insert
+            AFTER INSERT ON whatsapp_message_log BEGIN
+                INSERT INTO whatsapp_message_fts (rowid, content, sender_name)
+                VALUES (new.id, new.content, new.sender_name);
+            END""");
+
+    private static final String INSERT = """
+            INSERT OR IGNORE INTO whatsapp_message_log
+                (message_key, participant_number, sender_name, from_me, content, sent_at)
+            VALUES (?, ?, ?, ?, ?, ?)""";
+
+    private static final String LEGACY_KEYED_ROWS = """
+            SELECT id, participant_number, sender_name, from_me, content, sent_at
+            FROM whatsapp_message_log
+            WHERE length(message_key) <> 64""";
+
+    // Ignored for a row that duplicates one already rekeyed, which keeps its legacy key
+    private static final String REKEY = "UPDATE OR IGNORE whatsapp_message_log SET message_key = ? WHERE id = ?";
+
+    private static final String SEARCH = """
+            SELECT l.id, l.participant_number, l.sender_name, l.from_me, l.content, l.sent_at,
+                   snippet(whatsapp_message_fts, 0, '[', ']', '...', 16) AS snippet
+            FROM whatsapp_message_fts f
+            JOIN whatsapp_message_log l ON l.id = f.rowid
+            WHERE whatsapp_message_fts MATCH ?""";
+
+    private static final RowMapper<MessageSearchResult> RESULT_MAPPER = (resultSet, _) -> new MessageSearchResult(
+            resultSet.getLong("id"),
+            toMessage(resultSet),
+            resultSet.getString("snippet"));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TenantDirectory tenantDirectory;
+
+    private boolean enabled;
+
+    @PostConstruct
+    public void createSchema() {
+        String databaseProductName = jdbcTemplate.execute(
+                (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+        enabled = "SQLite".equalsIgnoreCase(databaseProductName);
+        if (!enabled) {
+            log.warn("Message log needs SQLite FTS5, disabling it on {}", databaseProductName);
+            return;
+        }
+        SCHEMA.forEach(jdbcTemplate::execute);
+
+        for (String tenantId : tenantDirectory.tenantIds()) {
+            try {
+                TenantContext.run(tenantId, this::rekeyLegacyRows);
+            } catch (RuntimeException e) {
+                log.warn("Failed to rekey message log of tenant: {}", tenantId, e);
+            }
+        }
+    }
+
+    private void rekeyLegacyRows() {
+        List<Object[]> keysById = jdbcTemplate.query(LEGACY_KEYED_ROWS,
+                (resultSet, _) -> new Object[]{toMessage(resultSet).messageKey(), resultSet.getLong("id")});
+        if (keysById.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(REKEY, keysById);
+        log.info("Rekeyed {} message log rows of tenant: {}", keysById.size(), TenantContext.current());
+    }
+
+    /**
+     * Appends the message to the log. Redelivered messages are ignored.
+     */
+    public void append(WhatsAppMessage message) {
+        if (!enabled) {
+            return;
+        }
+        jdbcTemplate.update(INSERT, statement -> setInsertParameters(statement, message));
+    }
+
+    /**
+     * Appends the messages to the log as one JDBC batch in a single transaction. Redelivered messages are
+     * ignored.
+     */
+    @Transactional
+    public void appendAll(List<WhatsAppMessage> messages) {
+        if (!enabled || messages.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT, messages, messages.size(),
+                WhatsAppMessageLogRepository::setInsertParameters);
+    }
+
+    /**
+     * Whether this database holds the log, so searches can find anything.
+     */
+    public boolean isSearchSupported() {
+        return enabled;
+    }
+
+    public MessageSearchPage search(MessageSearchQuery query) {
+        String matchExpression = toMatchExpression(query.text());
+        if (!enabled || matchExpression.isEmpty()) {
+            return new MessageSearchPage(List.of(), null);
+        }
+
+        StringBuilder sql = new StringBuilder(SEARCH);
+        List<Object> arguments = new ArrayList<>();
+        arguments.add(matchExpression);
+
+        if (Objects.nonNull(query.participantNumber())) {
+            sql.append(" AND l.participant_number = ?");
+            arguments.add(query.participantNumber());
+        }
+        if (Objects.nonNull(query.from())) {
+            sql.append(" AND l.sent_at >= ?");
+            arguments.add(query.from().toEpochMilli());
+        }
+        if (Objects.nonNull(query.to())) {
+            sql.append(" AND l.sent_at < ?");
+            arguments.add(query.to().toEpochMilli());
+        }
+        if (Objects.nonNull(query.cursor())) {
+            Cursor cursor = Cursor.decode(query.cursor());
+            sql.append(" AND (l.sent_at < ? OR (l.sent_at = ? AND l.id < ?))");
+            arguments.add(cursor.sentAt());
+            arguments.add(cursor.sentAt());
+            arguments.add(cursor.id());
+        }
+
+        // Fetch one extra row to know whether there is a next page
+        sql.append(" ORDER BY l.sent_at DESC, l.id DESC LIMIT ?");
+        arguments.add(query.limit() + 1);
+
+        List<MessageSearchResult> results = jdbcTemplate.query(sql.toString(), RESULT_MAPPER, arguments.toArray());
+        if (results.size() <= query.limit()) {
+            return new MessageSearchPage(results, null);
+        }
+
+        List<MessageSearchResult> page = results.subList(0, query.limit());
+        MessageSearchResult last = page.getLast();
+        return new MessageSearchPage(page, new Cursor(last.message().sentAt().toEpochMilli(), last.id()).encode());
+    }
+
+    /**
+     * Turns free text into an FTS5 expression matching every word as a prefix, so user input can never
+     * be a syntax error and "grocer" matches "groceries".
+     */
+    private static String toMatchExpression(String text) {
+        return MessageEmbedder.tokenize(text).stream()
+                .map(word -> "\"" + word + "\"*")
+                .collect(Collectors.joining(" "));
+    }
+
+    private static void setInsertParameters(PreparedStatement statement, WhatsAppMessage message)
+            throws SQLException {
+        statement.setString(1, message.messageKey());
+        statement.setString(2, message.participantMobileNumber());
+        statement.setString(3, message.senderName());
+        statement.setInt(4, message.fromMe() ? 1 : 0);
+        statement.setString(5, message.content());
+        statement.setLong(6, message.sentAt().toEpochMilli());
+    }
+
+    private static WhatsAppMessage toMessage(ResultSet resultSet) throws SQLException {
+        return new WhatsAppMessage(
+                resultSet.getString("participant_number"),
+                resultSet.getString("sender_name"),
+                resultSet.getInt("from_me") == 1,
+                resultSet.getString("content"),
+                Instant.ofEpochMilli(resultSet.getLong("sent_at")),
+                TenantContext.current());
+    }
+
+    private record Cursor(long sentAt, long id) {
+
+        static Cursor decode(String cursor) {
+            String[] parts = cursor.split("_");
+            try {
+                if (parts.length != 2) {
+                    throw new NumberFormatException();
+                }
+                return new Cursor(Long.parseLong(parts[0]), Long.parseLong(parts[1]));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid search cursor: " + cursor);
+            }
+        }
+
+        String encode() {
+            return sentAt + "_" + id;
+        }
+    }
+}
@@ -1,41 +1,141 @@
 package com.prithvianilk.mybestofriendo.contextservice.repository;
 
+import com.prithvianilk.mybestofriendo.contextservice.config.TemporalResolutionConfig;
 import com.prithvianilk.mybestofriendo.contextservice.config.WhatsAppMessageConfig;
+import com.prithvianilk.mybestofriendo.contextservice.model.RenderedWhatsAppMessage;
 import com.prithvianilk.mybestofriendo.contextservice.model.WhatsAppMessage;
+import com.prithvianilk.mybestofriendo.contextservice.tenant.TenantContext;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
 
 @Slf4j
 @Repository
 @RequiredArgsConstructor
 public class WhatsAppMessageRepository {
-    private final Map<String, Queue<WhatsAppMessage>> messagesByParticipant = new ConcurrentHashMap<>();
+    // Windows by tenant, then by participant, so the same contact in two tenants' chats never shares one. Each
+    // window is read by the catch-up lane and timed out dispatcher workers too, so it is guarded by itself
+    private final Map<String, Map<String, Queue<RenderedWhatsAppMessage>>> messagesByTenant = new ConcurrentHashMap<>();
     private final WhatsAppMessageConfig config;
+    private final TemporalResolutionConfig temporalResolutionConfig;
 
-    public void add(WhatsAppMessage message) {
+    /**
+     * Adds a message to its participant's window, unless it is already in it, as it is when a message whose
+     * processing failed after entering the window is redelivered.
+     *
+     * @return the messages that fell out of the window to make room for it, oldest first
+     */
+    public List<WhatsAppMessage> add(WhatsAppMessage message) {
         log.debug("Adding message: {}", message);
-        Queue<WhatsAppMessage> messages = messagesByParticipant.computeIfAbsent(
+        Queue<RenderedWhatsAppMessage> messages = messagesByParticipant(message.tenantId()).computeIfAbsent(
                 message.participantMobileNumber(),
                 _ -> new LinkedList<>());
-        messages.offer(message);
-        removeOldestMessagesIfExceedingMaxWindowSize(messages);
+        RenderedWhatsAppMessage rendered = RenderedWhatsAppMessage.of(message, temporalResolutionConfig.getZone());
+        synchronized (messages) {
+            if (messages.stream().anyMatch(windowed -> windowed.message().equals(message))) {
+                return List.of();
+            }
+            messages.offer(rendered);
+            return removeOldestMessagesIfExceedingMaxWindowSize(messages);
+        }
     }
 
-    private void removeOldestMessagesIfExceedingMaxWindowSize(Queue<WhatsAppMessage> messages) {
+    private List<WhatsAppMessage> removeOldestMessagesIfExceedingMaxWindowSize(Queue<RenderedWhatsAppMessage> messages) {
+        List<WhatsAppMessage> evictedMessages = new ArrayList<>();
         while (messages.size() > config.getMaxWindowSize()) {
-            messages.poll();
+            evictedMessages.add(messages.poll().message());
         }
+        return evictedMessages;
     }
 
     public Collection<WhatsAppMessage> getMessages(String participantMobileNumber) {
-        return messagesByParticipant.getOrDefault(participantMobileNumber, new LinkedList<>());
+        Queue<RenderedWhatsAppMessage> messages = messagesByParticipant().get(participantMobileNumber);
+        if (Objects.isNull(messages)) {
+            return List.of();
+        }
+        synchronized (messages) {
+            return messages.stream()
+                    .map(RenderedWhatsAppMessage::message)
+                    .toList();
+        }
+    }
+
+    /**
+     * Appends the pre-rendered lines of the participant's window to {@code buffer}, one per line.
+     *
+     * @return the messages that were appended, oldest first
+     */
+    public List<WhatsAppMessage> appendHistorySnapshot(String participantMobileNumber, StringBuilder buffer) {
+        return appendHistorySnapshot(participantMobileNumber, Instant.MAX, buffer);
+    }
+
+    /**
+     * Like {@link #appendHistorySnapshot(String, StringBuilder)}, but leaves out messages sent after
+     * {@code until}, so a message processed late is judged against the conversation as it was then.
+     */
+    public List<WhatsAppMessage> appendHistorySnapshot(
+            String participantMobileNumber,
+            Instant until,
+            StringBuilder buffer) {
+        Queue<RenderedWhatsAppMessage> messages = messagesByParticipant().get(participantMobileNumber);
+        if (Objects.isNull(messages)) {
+            return List.of();
+        }
+
+        synchronized (messages) {
+            List<WhatsAppMessage> appendedMessages = new ArrayList<>(messages.size());
+            for (RenderedWhatsAppMessage message : messages) {
+                if (message.message().sentAt().isAfter(until)) {
+                    continue;
+                }
+                if (!appendedMessages.isEmpty()) {
+                    buffer.append('\n');
+                }
+                buffer.append(message.line());
+                appendedMessages.add(message.message());
+            }
+            return appendedMessages;
+        }
+    }
+
+    /**
+     * Replaces the participant's window with {@code messages}, keeping only the newest ones that fit. Used
+     * to hydrate windows from snapshots, so nothing is reported as evicted.
+     */
+    public void replace(String participantMobileNumber, List<WhatsAppMessage> messages) {
+        Queue<RenderedWhatsAppMessage> window = new LinkedList<>();
+        for (WhatsAppMessage message : messages) {
+            window.offer(RenderedWhatsAppMessage.of(message, temporalResolutionConfig.getZone()));
+        }
+        removeOldestMessagesIfExceedingMaxWindowSize(window);
+        messagesByParticipant().put(participantMobileNumber, window);
+    }
+
+    public void remove(String participantMobileNumber) {
+        messagesByParticipant().remove(participantMobileNumber);
+    }
+
+    /**
+     * Drops the windows of matching participants, e.g. when their partition moves to another instance.
+     */
+    public void removeIf(Predicate<String> participantFilter) {
+        messagesByTenant.values().forEach(windows -> windows.keySet().removeIf(participantFilter));
     }
 
     public void clear() {
-        messagesByParticipant.clear();
+        messagesByTenant.clear();
+    }
+
+    private Map<String, Queue<RenderedWhatsAppMessage>> messagesByParticipant() {
+        return messagesByParticipant(TenantContext.current());
+    }
+
+    private Map<String, Queue<RenderedWhatsAppMessage>> messagesByParticipant(String tenantId) {
+        return messagesByTenant.computeIfAbsent(tenantId, _ -> new ConcurrentHashMap<>());
     }
 }
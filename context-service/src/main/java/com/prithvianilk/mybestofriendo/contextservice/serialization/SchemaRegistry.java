@@ -0,0 +1,68 @@
+package com.prithvianilk.mybestofriendo.contextservice.serialization;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Stand-in for a schema registry: the Avro schemas checked in at
+ * {@code schemas/<subject>/<version>.avsc} on the classpath, each identified as {@code <subject>/<version>}.
+ * Producers name the schema they wrote with in the record's content type, and new versions are added as
+ * new files.
+ */
+public class SchemaRegistry {
+
+    private static final String LOCATION_PATTERN = "classpath*:schemas/*/*.avsc";
+    private static final String EXTENSION = ".avsc";
+
+    private final Map<String, JsonNode> schemasById;
+
+    SchemaRegistry(Map<String, JsonNode> schemasById) {
+        this.schemasById = Map.copyOf(schemasById);
+    }
+
+    public static SchemaRegistry load() {
+        PathMatchingResourcePatternResolver resolver = new PathMatchingResourcePatternResolver();
+        ObjectMapper objectMapper = new ObjectMapper();
+        Map<String, JsonNode> schemasById = new HashMap<>();
+        try {
+            for (Resource resource : resolver.getResources(LOCATION_PATTERN)) {
+                String path = resource.getURL().getPath();
+                String[] segments = path.split("/");
+                String version = segments[segments.length - 1].replace(EXTENSION, "");
+                String subject = segments[segments.length - 2];
+                try (InputStream input = resource.getInputStream()) {
+                    schemasById.put(subject + "/" + version, objectMapper.readTree(input));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to load schemas from " + LOCATION_PATTERN, e);
+        }
+        return new SchemaRegistry(schemasById);
+    }
+
+    public JsonNode get(String schemaId) {
+        JsonNode schema = schemasById.get(schemaId);
+        if (Objects.isNull(schema)) {
+            throw new IllegalArgumentException("Unknown schema: " + schemaId);
+        }
+        return schema;
+    }
+
+    public boolean contains(String schemaId) {
+        return schemasById.containsKey(schemaId);
+    }
+
+    public Set<String> schemaIds() {
+        return schemasById.keySet();
+    }
+}
@@ -0,0 +1,176 @@
+package com.prithvianilk.mybestofriendo.contextservice.serialization;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.prithvianilk.mybestofriendo.contextservice.model.WhatsAppMessage;
+import org.apache.kafka.common.errors.SerializationException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Avro binary encoding of {@link WhatsAppMessage} for schema {@value #SCHEMA_ID}, written out by hand so
+ * decoding is a single pass over the bytes, with no reflection or intermediate generic record.
+ * <p>
+ * The field order must match {@code schemas/whatsapp-message/1.avsc}, which {@link #verify(JsonNode)}
+ * checks when the deserializer is configured. A schema change gets a new version and its own decoder.
+ */
+public final class WhatsAppMessageAvroCodec {
+
+    public static final String SCHEMA_ID = "whatsapp-message/1";
+
+    public static final String CONTENT_TYPE = "application/avro;schema=" + SCHEMA_ID;
+
+    static final List<String> FIELDS = List.of(
+            "participantMobileNumber", "senderName", "fromMe", "content", "sentAt", "tenantId");
+
+    private static final int NULL_BRANCH = 0;
+    private static final int VALUE_BRANCH = 1;
+
+    private WhatsAppMessageAvroCodec() {
+    }
+
+    public static byte[] encode(WhatsAppMessage message) {
+        Writer writer = new Writer();
+        writer.writeString(message.participantMobileNumber());
+        writer.writeNullableString(message.senderName());
+        writer.writeBoolean(message.fromMe());
+        writer.writeNullableString(message.content());
+        writer.writeLong(message.sentAt().toEpochMilli());
+        writer.writeString(message.tenantId());
+        return writer.toByteArray();
+    }
+
+    public static WhatsAppMessage decode(byte[] data) {
+        Reader reader = new Reader(data);
+        WhatsAppMessage message = new WhatsAppMessage(
+                reader.readString(),
+                reader.readNullableString(),
+                reader.readBoolean(),
+                reader.readNullableString(),
+                Instant.ofEpochMilli(reader.readLong()),
+                reader.readString());
+        if (reader.position != data.length) {
+            throw new SerializationException(
+                    "%d trailing bytes after %s record".formatted(data.length - reader.position, SCHEMA_ID));
+        }
+        return message;
+    }
+
+    /**
+     * Checks that {@code schema} has exactly the fields this codec reads and writes, in the same order.
+     */
+    public static void verify(JsonNode schema) {
+        List<String> fields = new ArrayList<>();
+        schema.path("fields").forEach(field -> fields.add(field.path("name").asText()));
+        if (!FIELDS.equals(fields)) {
+            throw new IllegalStateException(
+                    "Schema %s has fields %s, but the codec handles %s".formatted(SCHEMA_ID, fields, FIELDS));
+        }
+    }
+
+    private static final class Reader {
+        private final byte[] data;
+        private int position;
+
+        private Reader(byte[] data) {
+            this.data = data;
+        }
+
+        long readLong() {
+            long unsigned = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte current = readByte();
+                unsigned |= (long) (current & 0x7f) << shift;
+                if (current >= 0) {
+                    // Zigzag decoding
+                    return (unsigned >>> 1) ^ -(unsigned & 1);
+                }
+            }
+            throw new SerializationException("Malformed varint at byte " + position);
+        }
+
+        boolean readBoolean() {
+            return readByte() != 0;
+        }
+
+        String readString() {
+            long length = readLong();
+            if (length < 0 || length > data.length - position) {
+                throw new SerializationException("Invalid string length " + length + " at byte " + position);
+            }
+            String value = new String(data, position, (int) length, StandardCharsets.UTF_8);
+            position += (int) length;
+            return value;
+        }
+
+        String readNullableString() {
+            long branch = readLong();
+            if (branch == NULL_BRANCH) {
+                return null;
+            }
+            if (branch != VALUE_BRANCH) {
+                throw new SerializationException("Invalid union branch " + branch + " at byte " + position);
+            }
+            return readString();
+        }
+
+        private byte readByte() {
+            if (position >= data.length) {
+                throw new SerializationException("Truncated " + SCHEMA_ID + " record");
+            }
+            return data[position++];
+        }
+    }
+
+    private static final class Writer {
+        private byte[] buffer = new byte[128];
+        private int size;
+
+        void writeLong(long value) {
+            ensureCapacity(10);
+            // Zigzag encoding, then 7 bits per byte with the high bit set on all but the last
+            long unsigned = (value << 1) ^ (value >> 63);
+            while ((unsigned & ~0x7fL) != 0) {
+                buffer[size++] = (byte) ((unsigned & 0x7f) | 0x80);
+                unsigned >>>= 7;
+            }
+            buffer[size++] = (byte) unsigned;
+        }
+
+        void writeBoolean(boolean value) {
+            ensureCapacity(1);
+            buffer[size++] = (byte) (value ? 1 : 0);
+        }
+
+        void writeString(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeLong(bytes.length);
+            ensureCapacity(bytes.length);
+            System.arraycopy(bytes, 0, buffer, size, bytes.length);
+            size += bytes.length;
+        }
+
+        void writeNullableString(String value) {
+            if (Objects.isNull(value)) {
+                writeLong(NULL_BRANCH);
+                return;
+            }
+            writeLong(VALUE_BRANCH);
+            writeString(value);
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, size);
+        }
+
+        private void ensureCapacity(int additional) {
+            if (size + additional > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + additional));
+            }
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.prithvianilk.mybestofriendo.contextservice.serialization;
+
+import com.prithvianilk.mybestofriendo.contextservice.model.WhatsAppMessage;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Decodes {@link WhatsAppMessage} values by their {@value #CONTENT_TYPE_HEADER} header, so producers can
+ * move from JSON to Avro one at a time:
+ * <ul>
+ *     <li>{@code application/avro;schema=<id>}, with {@link WhatsAppMessageAvroCodec} for its schema</li>
+ *     <li>{@code application/json}, or no header at all, with {@link JsonDeserializer} as configured</li>
+ * </ul>
+ */
+public class WhatsAppMessageDeserializer implements Deserializer<WhatsAppMessage> {
+
+    public static final String CONTENT_TYPE_HEADER = "content-type";
+
+    private static final String AVRO = "application/avro";
+    private static final String JSON = "application/json";
+    private static final String SCHEMA_PARAMETER = "schema=";
+
+    private final JsonDeserializer<WhatsAppMessage> jsonDeserializer = new JsonDeserializer<>();
+
+    private SchemaRegistry schemaRegistry;
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        jsonDeserializer.configure(configs, isKey);
+        schemaRegistry = SchemaRegistry.load();
+        WhatsAppMessageAvroCodec.verify(schemaRegistry.get(WhatsAppMessageAvroCodec.SCHEMA_ID));
+    }
+
+    @Override
+    public WhatsAppMessage deserialize(String topic, byte[] data) {
+        return jsonDeserializer.deserialize(topic, data);
+    }
+
+    @Override
+    public WhatsAppMessage deserialize(String topic, Headers headers, byte[] data) {
+        Header header = headers.lastHeader(CONTENT_TYPE_HEADER);
+        if (Objects.isNull(header) || Objects.isNull(data)) {
+            return jsonDeserializer.deserialize(topic, headers, data);
+        }
+
+        String contentType = new String(header.value(), StandardCharsets.UTF_8);
+        if (contentType.startsWith(JSON)) {
+            return jsonDeserializer.deserialize(topic, headers, data);
+        }
+        if (!contentType.startsWith(AVRO)) {
+            throw new SerializationException("Unsupported content type: " + contentType);
+        }
+
+        String schemaId = schemaId(contentType);
+        if (WhatsAppMessageAvroCodec.SCHEMA_ID.equals(schemaId)) {
+            return WhatsAppMessageAvroCodec.decode(data);
+        }
+        throw new SerializationException(schemaRegistry.contains(schemaId)
+                ? "No decoder for schema: " + schemaId
+                : "Unknown schema: " + schemaId);
+    }
+
+    @Override
+    public void close() {
+        jsonDeserializer.close();
+    }
+
+    private static String schemaId(String contentType) {
+        for (String parameter : contentType.split(";")) {
+            String trimmed = parameter.trim();
+            if (trimmed.startsWith(SCHEMA_PARAMETER)) {
+                return trimmed.substring(SCHEMA_PARAMETER.length());
+            }
+        }
+        throw new SerializationException("Avro content type without a schema: " + contentType);
+    }
+}
@@ -0,0 +1,202 @@
+package com.prithvianilk.mybestofriendo.contextservice.service;
+
+import com.google.api.client.auth.oauth2.Credential;
+import com.google.api.client.extensions.java6.auth.oauth2.AuthorizationCodeInstalledApp;
+import com.google.api.client.extensions.jetty.auth.oauth2.LocalServerReceiver;
+import com.google.api.client.googleapis.auth.oauth2.GoogleAuthorizationCodeFlow;
+import com.google.api.client.http.HttpTransport;
+import com.google.api.client.json.JsonFactory;
+import com.google.api.client.json.gson.GsonFactory;
+import com.google.api.client.util.store.FileDataStoreFactory;
+import com.google.api.services.calendar.Calendar;
+import com.google.api.services.calendar.CalendarScopes;
+import com.prithvianilk.mybestofriendo.contextservice.config.GoogleCalendarConfig;
+import com.prithvianilk.mybestofriendo.contextservice.tenant.TenantContext;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * One Google Calendar client per tenant, created on first use and kept for the life of the process. All
+ * clients share one HTTP transport; each tenant has its own stored OAuth credential.
+ * <p>
+ * Clients are only ever created from a stored credential. A tenant that has never authorised fails fast
+ * instead of blocking a listener thread on a browser consent flow; it is authorised up front with
+ * {@link CalendarConsentRunner}, which runs the consent flow on the command line.
+ * <p>
+ * Access tokens are refreshed in the background shortly before they expire, so Calendar calls do not pay
+ * for a token refresh inline. Clients of tenants with a stored credential are likewise created in the
+ * background at startup, so neither startup nor the first Calendar call waits on loading credentials.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CalendarClientPool {
+
+    private static final JsonFactory JSON_FACTORY = GsonFactory.getDefaultInstance();
+    private static final List<String> SCOPES = List.of(CalendarScopes.CALENDAR);
+    private static final String APPLICATION_NAME = "MyBestoFriendo";
+    private static final String STORED_CREDENTIAL = "StoredCredential";
+    private static final String CREDENTIAL_USER = "user";
+
+    private final GoogleCalendarConfig config;
+    private final HttpTransport googleHttpTransport;
+
+    private final Map<String, Calendar> clientsByTenant = new ConcurrentHashMap<>();
+    private final Map<String, Credential> credentialsByTenant = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService tokenRefresher = Executors.newSingleThreadScheduledExecutor(
+            runnable -> Thread.ofPlatform().name("calendar-token-refresher").daemon().unstarted(runnable));
+
+    @PostConstruct
+    public void startTokenRefresher() {
+        tokenRefresher.execute(this::createAuthorisedClients);
+        long intervalMillis = config.getTokenRefreshCheckInterval().toMillis();
+        tokenRefresher.scheduleWithFixedDelay(this::refreshExpiringTokens, intervalMillis, intervalMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    public Calendar forCurrentTenant() {
+        return clientsByTenant.computeIfAbsent(TenantContext.current(), this::createClient);
+    }
+
+    /**
+     * Tenants that have authorised Calendar, either with a client already or with a stored credential, so
+     * creating their client will not start the consent flow.
+     */
+    public Set<String> authorisedTenantIds() {
+        Set<String> tenantIds = new HashSet<>(clientsByTenant.keySet());
+        if (Files.exists(credentialsDirectory(TenantContext.DEFAULT_TENANT).resolve(STORED_CREDENTIAL))) {
+            tenantIds.add(TenantContext.DEFAULT_TENANT);
+        }
+
+        Path tenantsDirectory = Path.of(config.getCredentialsPath()).resolve("tenants");
+        if (Files.isDirectory(tenantsDirectory)) {
+            try (Stream<Path> directories = Files.list(tenantsDirectory)) {
+                directories
+                        .filter(directory -> Files.exists(directory.resolve(STORED_CREDENTIAL)))
+                        .map(directory -> directory.getFileName().toString())
+                        .forEach(tenantIds::add);
+            } catch (IOException e) {
+                log.warn("Failed to list stored Google Calendar credentials in {}", tenantsDirectory, e);
+            }
+        }
+        return tenantIds;
+    }
+
+    /**
+     * Refreshes the access token of every tenant whose token expires within
+     * {@link GoogleCalendarConfig#getTokenRefreshAhead()}.
+     */
+    public void refreshExpiringTokens() {
+        credentialsByTenant.forEach((tenantId, credential) -> {
+            if (!isExpiringSoon(credential, config.getTokenRefreshAhead())) {
+                return;
+            }
+            try {
+                if (credential.refreshToken()) {
+                    log.debug("Refreshed Google Calendar access token for tenant: {}", tenantId);
+                } else {
+                    log.warn("Google Calendar access token refresh was rejected for tenant: {}", tenantId);
+                }
+            } catch (IOException e) {
+                log.warn("Failed to refresh Google Calendar access token for tenant: {}", tenantId, e);
+            }
+        });
+    }
+
+    private void createAuthorisedClients() {
+        Set<String> tenantIds = authorisedTenantIds();
+        if (tenantIds.isEmpty()) {
+            log.warn("No tenant has authorised Google Calendar, commitments will fail until one does");
+        }
+        for (String tenantId : tenantIds) {
+            try {
+                clientsByTenant.computeIfAbsent(tenantId, this::createClient);
+            } catch (RuntimeException e) {
+                log.warn("Failed to create Google Calendar client for tenant: {}", tenantId, e);
+            }
+        }
+        refreshExpiringTokens();
+    }
+
+    static boolean isExpiringSoon(Credential credential, Duration refreshAhead) {
+        Long expiresInSeconds = credential.getExpiresInSeconds();
+        return Objects.isNull(credential.getAccessToken())
+                || (Objects.nonNull(expiresInSeconds) && expiresInSeconds <= refreshAhead.toSeconds());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        tokenRefresher.shutdownNow();
+    }
+
+    /**
+     * Runs the browser consent flow for a tenant and stores its credential, receiving the OAuth redirect on
+     * {@link GoogleCalendarConfig#getConsentPort()}. Blocks until consent is given.
+     */
+    public void authorise(String tenantId) throws IOException {
+        LocalServerReceiver receiver = new LocalServerReceiver.Builder()
+                .setHost("localhost")
+                .setPort(config.getConsentPort())
+                .build();
+        new AuthorizationCodeInstalledApp(authorizationFlow(tenantId), receiver).authorize(CREDENTIAL_USER);
+        log.info("Stored Google Calendar credential for tenant: {}", tenantId);
+    }
+
+    private Calendar createClient(String tenantId) {
+        log.info("Creating Google Calendar client for tenant: {}", tenantId);
+        try {
+            Credential credential = authorizationFlow(tenantId).loadCredential(CREDENTIAL_USER);
+            if (Objects.isNull(credential)) {
+                throw new IllegalStateException(("Google Calendar is not authorised for tenant: %s, authorise it "
+                        + "with --google.calendar.consent-tenant=%s").formatted(tenantId, tenantId));
+            }
+            credentialsByTenant.put(tenantId, credential);
+            int connectTimeoutMillis = (int) config.getConnectTimeout().toMillis();
+            int readTimeoutMillis = (int) config.getReadTimeout().toMillis();
+            return new Calendar.Builder(googleHttpTransport, JSON_FACTORY, request -> {
+                credential.initialize(request);
+                request.setConnectTimeout(connectTimeoutMillis);
+                request.setReadTimeout(readTimeoutMillis);
+            })
+                    .setApplicationName(APPLICATION_NAME)
+                    .build();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to load Google Calendar credential for tenant: " + tenantId, e);
+        }
+    }
+
+    private GoogleAuthorizationCodeFlow authorizationFlow(String tenantId) throws IOException {
+        return new GoogleAuthorizationCodeFlow.Builder(
+                googleHttpTransport, JSON_FACTORY, config.getClientId(), config.getClientSecret(), SCOPES)
+                .setDataStoreFactory(new FileDataStoreFactory(credentialsDirectory(tenantId).toFile()))
+                .setAccessType("offline")
+                .build();
+    }
+
+    private Path credentialsDirectory(String tenantId) {
+        Path credentialsPath = Path.of(config.getCredentialsPath());
+        return TenantContext.DEFAULT_TENANT.equals(tenantId)
+                ? credentialsPath
+                : credentialsPath.resolve("tenants").resolve(tenantId);
+    }
+}
@@ -0,0 +1,47 @@
+package com.prithvianilk.mybestofriendo.contextservice.service;
+
+import com.prithvianilk.mybestofriendo.contextservice.config.GoogleCalendarConfig;
+import com.prithvianilk.mybestofriendo.contextservice.tenant.TenantContext;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+/**
+ * Command-line Calendar consent. With {@code google.calendar.consent-tenant} set, the service runs the browser
+ * consent flow for that tenant once the context is up, stores its credential and exits, with status 1 if
+ * consent failed. Use it with the consent profile, which keeps the web server and Kafka listeners from
+ * starting, on a host with a browser or with the port forwarded:
+ * <pre>
+ * java -jar context-service.jar --spring.profiles.active=consent \
+ *     --google.calendar.consent-tenant=family --google.calendar.consent-port=8889
+ * </pre>
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "google.calendar.consent-tenant")
+public class CalendarConsentRunner implements ApplicationRunner {
+
+    private final GoogleCalendarConfig config;
+    private final CalendarClientPool calendarClientPool;
+    private final ConfigurableApplicationContext context;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        int exitCode = 0;
+        try {
+            calendarClientPool.authorise(TenantContext.validate(config.getConsentTenant()));
+        } catch (Exception e) {
+            log.error("Google Calendar consent for tenant {} failed", config.getConsentTenant(), e);
+            exitCode = 1;
+        }
+
+        int status = exitCode;
+        System.exit(SpringApplication.exit(context, () -> status));
+    }
+}
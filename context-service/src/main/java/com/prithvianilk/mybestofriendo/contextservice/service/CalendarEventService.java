@@ -1,11 +1,17 @@
 package com.prithvianilk.mybestofriendo.contextservice.service;
 
+import com.google.api.client.googleapis.json.GoogleJsonResponseException;
+import com.google.api.client.http.HttpStatusCodes;
 import com.google.api.client.util.DateTime;
 import com.google.api.services.calendar.Calendar;
 import com.google.api.services.calendar.model.Event;
 import com.google.api.services.calendar.model.EventDateTime;
 import com.google.api.services.calendar.model.EventReminder;
+import com.prithvianilk.mybestofriendo.contextservice.logging.CommitmentManagementContext;
+import com.prithvianilk.mybestofriendo.contextservice.logging.WideEventContext;
 import com.prithvianilk.mybestofriendo.contextservice.model.CalendarEvent;
+import com.prithvianilk.mybestofriendo.contextservice.tracing.Span;
+import com.prithvianilk.mybestofriendo.contextservice.tracing.Tracer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -13,13 +19,15 @@ import org.springframework.stereotype.Service;
 import java.io.IOException;
 import java.time.Instant;
 import java.util.List;
+import java.util.Objects;
 import java.util.stream.Stream;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class CalendarEventService {
-    private final Calendar calendarService;
+    private final CalendarClientPool calendarClientPool;
+    private final Tracer tracer;
 
     /**
      * Default event reminders at intervals before the start time:
@@ -37,44 +45,110 @@ public class CalendarEventService {
 
     private static final String TIME_ZONE = "Asia/Kolkata";
     private static final String CALENDAR_ID = "primary";
+    private static final int STATUS_CODE_GONE = 410;
 
     public String createEvent(CalendarEvent calendarEvent) {
-        Event event = toGoogleEvent(calendarEvent);
+        return createEvent(calendarEvent, null);
+    }
 
-        try {
-            Event createdEvent = calendarService.events().insert(CALENDAR_ID, event).execute();
-            log.info("Created calendar event: {} with ID: {}", calendarEvent.summary(), createdEvent.getId());
-            return createdEvent.getId();
-        } catch (IOException e) {
-            log.error("Failed to create calendar event: {}", calendarEvent.summary(), e);
-            throw new RuntimeException("Failed to create calendar event", e);
+    /**
+     * Creates the event with a caller-chosen ID, so creating it again for the same commitment, say after a
+     * crash and redelivery, finds the existing event instead of adding a duplicate.
+     *
+     * @param eventId lowercase hex characters, between 5 and 1024 long, or {@code null} to let Calendar
+     *                pick one
+     */
+    public String createEvent(CalendarEvent calendarEvent, String eventId) {
+        Event event = toGoogleEvent(calendarEvent);
+        if (Objects.nonNull(eventId)) {
+            event.setId(eventId);
         }
+
+        Span span = tracer.start("calendar.events.insert", Span.Kind.CLIENT)
+                .setAttribute("calendar.event_id", eventId);
+        return tracer.inSpan(span, () -> {
+            try {
+                Event createdEvent = calendar().events().insert(CALENDAR_ID, event).execute();
+                log.info("Created calendar event: {} with ID: {}", calendarEvent.summary(), createdEvent.getId());
+                span.setAttribute("calendar.event_id", createdEvent.getId());
+                recordEndToEnd(span, "create");
+                return createdEvent.getId();
+            } catch (GoogleJsonResponseException e) {
+                if (e.getStatusCode() == HttpStatusCodes.STATUS_CODE_CONFLICT && Objects.nonNull(eventId)) {
+                    log.info("Calendar event with ID: {} already exists", eventId);
+                    return eventId;
+                }
+                log.error("Failed to create calendar event: {}", calendarEvent.summary(), e);
+                throw new RuntimeException("Failed to create calendar event", e);
+            } catch (IOException e) {
+                log.error("Failed to create calendar event: {}", calendarEvent.summary(), e);
+                throw new RuntimeException("Failed to create calendar event", e);
+            }
+        });
     }
 
     public String updateEvent(String eventId, CalendarEvent calendarEvent) {
-        try {
-            Event existingEvent = calendarService.events().get(CALENDAR_ID, eventId).execute();
-            updateGoogleEvent(existingEvent, calendarEvent);
-
-            Event updatedEvent = calendarService.events().update(CALENDAR_ID, eventId, existingEvent).execute();
-            log.info("Updated calendar event: {} with ID: {}", calendarEvent.summary(), updatedEvent.getId());
-            return updatedEvent.getId();
-        } catch (IOException e) {
-            log.error("Failed to update calendar event with ID: {}", eventId, e);
-            throw new RuntimeException("Failed to update calendar event", e);
-        }
+        Span span = tracer.start("calendar.events.update", Span.Kind.CLIENT)
+                .setAttribute("calendar.event_id", eventId);
+        return tracer.inSpan(span, () -> {
+            try {
+                Event existingEvent = calendar().events().get(CALENDAR_ID, eventId).execute();
+                updateGoogleEvent(existingEvent, calendarEvent);
+
+                Event updatedEvent = calendar().events().update(CALENDAR_ID, eventId, existingEvent).execute();
+                log.info("Updated calendar event: {} with ID: {}", calendarEvent.summary(), updatedEvent.getId());
+                recordEndToEnd(span, "update");
+                return updatedEvent.getId();
+            } catch (IOException e) {
+                log.error("Failed to update calendar event with ID: {}", eventId, e);
+                throw new RuntimeException("Failed to update calendar event", e);
+            }
+        });
     }
 
+    /**
+     * Deletes the event, succeeding if it is already gone, so that replaying a cancellation whose database
+     * writes were rolled back does not fail on the event it deleted the first time.
+     */
     public void deleteEvent(String eventId) {
-        try {
-            calendarService.events().delete(CALENDAR_ID, eventId).execute();
-            log.info("Deleted calendar event with ID: {}", eventId);
-        } catch (IOException e) {
-            log.error("Failed to delete calendar event with ID: {}", eventId, e);
-            throw new RuntimeException("Failed to delete calendar event", e);
+        Span span = tracer.start("calendar.events.delete", Span.Kind.CLIENT)
+                .setAttribute("calendar.event_id", eventId);
+        tracer.inSpan(span, () -> {
+            try {
+                calendar().events().delete(CALENDAR_ID, eventId).execute();
+                log.info("Deleted calendar event with ID: {}", eventId);
+                recordEndToEnd(span, "delete");
+            } catch (GoogleJsonResponseException e) {
+                if (e.getStatusCode() == HttpStatusCodes.STATUS_CODE_NOT_FOUND
+                        || e.getStatusCode() == STATUS_CODE_GONE) {
+                    log.info("Calendar event with ID: {} was already deleted", eventId);
+                    return;
+                }
+                log.error("Failed to delete calendar event with ID: {}", eventId, e);
+                throw new RuntimeException("Failed to delete calendar event", e);
+            } catch (IOException e) {
+                log.error("Failed to delete calendar event with ID: {}", eventId, e);
+                throw new RuntimeException("Failed to delete calendar event", e);
+            }
+        });
+    }
+
+    /**
+     * The Calendar write is where a message ends up, so its latency from whatsapp-service receiving the
+     * message is recorded here, on the span and in the wide event.
+     */
+    private void recordEndToEnd(Span span, String operation) {
+        Long endToEndMillis = tracer.recordEndToEnd(span, operation);
+        if (Objects.nonNull(endToEndMillis)) {
+            WideEventContext.enrich("commitmentManagement",
+                    CommitmentManagementContext.builder().endToEndMillis(endToEndMillis).build());
         }
     }
 
+    private Calendar calendar() {
+        return calendarClientPool.forCurrentTenant();
+    }
+
     private Event toGoogleEvent(CalendarEvent calendarEvent) {
         Event event = new Event()
                 .setSummary(calendarEvent.summary())
@@ -0,0 +1,223 @@
+package com.prithvianilk.mybestofriendo.contextservice.service;
+
+import com.google.api.client.googleapis.json.GoogleJsonResponseException;
+import com.google.api.client.util.DateTime;
+import com.google.api.services.calendar.Calendar;
+import com.google.api.services.calendar.model.Event;
+import com.google.api.services.calendar.model.EventDateTime;
+import com.google.api.services.calendar.model.Events;
+import com.prithvianilk.mybestofriendo.contextservice.config.CalendarSyncConfig;
+import com.prithvianilk.mybestofriendo.contextservice.model.CalendarSyncStateEntity;
+import com.prithvianilk.mybestofriendo.contextservice.model.CommitmentEntity;
+import com.prithvianilk.mybestofriendo.contextservice.repository.CalendarSyncStateRepository;
+import com.prithvianilk.mybestofriendo.contextservice.repository.CommitmentRepository;
+import com.prithvianilk.mybestofriendo.contextservice.repository.FutureCommitmentIndex;
+import com.prithvianilk.mybestofriendo.contextservice.tenant.TenantContext;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pulls changes made directly in Google Calendar back into the commitments: an event deleted on the phone
+ * deletes its commitment, an event moved or renamed updates it, both in the database and in
+ * {@link FutureCommitmentIndex}.
+ * <p>
+ * Each run lists only the events changed since the previous one, using the {@code nextSyncToken} stored in
+ * {@link CalendarSyncStateRepository}. Without a token, or once Calendar expires it, the whole calendar is
+ * listed again and future commitments whose events no longer exist are deleted as well.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CalendarSyncReconciler {
+
+    private static final String CALENDAR_ID = "primary";
+    private static final String CANCELLED = "cancelled";
+    private static final int STATUS_CODE_GONE = 410;
+
+    private final CalendarSyncConfig config;
+    private final CalendarClientPool calendarClientPool;
+    private final CommitmentRepository commitmentRepository;
+    private final CalendarSyncStateRepository calendarSyncStateRepository;
+    private final FutureCommitmentIndex futureCommitmentIndex;
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+            runnable -> Thread.ofPlatform().name("calendar-sync-reconciler").daemon().unstarted(runnable));
+
+    @PostConstruct
+    public void start() {
+        if (!config.isEnabled()) {
+            return;
+        }
+        long intervalMillis = config.getInterval().toMillis();
+        scheduler.scheduleWithFixedDelay(this::reconcileAll, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Reconciles every tenant that has authorised Calendar. A failing tenant is logged and retried on the
+     * next run.
+     */
+    public void reconcileAll() {
+        for (String tenantId : calendarClientPool.authorisedTenantIds()) {
+            try {
+                TenantContext.run(tenantId, this::reconcile);
+            } catch (RuntimeException e) {
+                log.warn("Failed to reconcile Google Calendar of tenant: {}", tenantId, e);
+            }
+        }
+    }
+
+    /**
+     * Reconciles the calendar of the current tenant.
+     */
+    public void reconcile() {
+        Calendar calendar = calendarClientPool.forCurrentTenant();
+        String syncToken = calendarSyncStateRepository.findById(CALENDAR_ID)
+                .map(CalendarSyncStateEntity::getSyncToken)
+                .orElse(null);
+        try {
+            try {
+                sync(calendar, syncToken);
+            } catch (GoogleJsonResponseException e) {
+                if (Objects.isNull(syncToken) || e.getStatusCode() != STATUS_CODE_GONE) {
+                    throw e;
+                }
+                log.info("Calendar sync token expired for tenant: {}, running a full sync", TenantContext.current());
+                calendarSyncStateRepository.deleteById(CALENDAR_ID);
+                sync(calendar, null);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to list Google Calendar events", e);
+        }
+    }
+
+    private void sync(Calendar calendar, String syncToken) throws IOException {
+        boolean fullSync = Objects.isNull(syncToken);
+        Instant syncStart = Instant.now();
+        Set<String> liveEventIds = new HashSet<>();
+        int changed = 0;
+        String pageToken = null;
+        Events page;
+        do {
+            // Every request must use the same parameters as the full sync the token came from
+            Calendar.Events.List request = calendar.events().list(CALENDAR_ID)
+                    .setShowDeleted(true)
+                    .setMaxResults(config.getPageSize())
+                    .setPageToken(pageToken);
+            if (!fullSync) {
+                request.setSyncToken(syncToken);
+            }
+
+            page = request.execute();
+            for (Event event : Optional.ofNullable(page.getItems()).orElse(List.of())) {
+                if (!CANCELLED.equals(event.getStatus())) {
+                    liveEventIds.add(event.getId());
+                }
+                if (apply(event)) {
+                    changed++;
+                }
+            }
+            pageToken = page.getNextPageToken();
+        } while (Objects.nonNull(pageToken));
+
+        if (fullSync) {
+            changed += deleteCommitmentsWithoutEvents(liveEventIds, syncStart);
+        }
+
+        calendarSyncStateRepository.save(CalendarSyncStateEntity.builder()
+                .calendarId(CALENDAR_ID)
+                .syncToken(page.getNextSyncToken())
+                .updatedAt(Instant.now())
+                .build());
+        log.info("Reconciled Google Calendar of tenant: {}, full sync: {}, commitments changed: {}",
+                TenantContext.current(), fullSync, changed);
+    }
+
+    /**
+     * @return whether the event changed its commitment
+     */
+    private boolean apply(Event event) {
+        Optional<CommitmentEntity> commitmentOptional = commitmentRepository.findByCalendarEventId(event.getId());
+        if (commitmentOptional.isEmpty()) {
+            return false;
+        }
+
+        CommitmentEntity commitment = commitmentOptional.get();
+        if (CANCELLED.equals(event.getStatus())) {
+            log.info("Calendar event: {} was deleted, deleting commitment: {}", event.getId(), commitment.getId());
+            deleteCommitment(commitment);
+            return true;
+        }
+
+        Instant startTime = startTime(event.getStart());
+        boolean moved = Objects.nonNull(startTime) && !startTime.equals(commitment.getToBeCompletedAt());
+        // Events are created with the commitment description as their summary
+        String summary = event.getSummary();
+        boolean renamed = Objects.nonNull(summary) && !summary.equals(commitment.getDescription());
+        if (!moved && !renamed) {
+            return false;
+        }
+
+        log.info("Calendar event: {} was changed, updating commitment: {}", event.getId(), commitment.getId());
+        if (moved) {
+            commitment.setToBeCompletedAt(startTime);
+        }
+        if (renamed) {
+            commitment.setDescription(summary);
+        }
+        CommitmentEntity savedCommitment = commitmentRepository.save(commitment);
+        futureCommitmentIndex.put(savedCommitment);
+        return true;
+    }
+
+    /**
+     * Deletes future commitments whose events were not listed. Commitments created after the listing
+     * started are kept, their events may have been inserted after the page they would be on was read.
+     */
+    private int deleteCommitmentsWithoutEvents(Set<String> liveEventIds, Instant syncStart) {
+        List<CommitmentEntity> orphans = commitmentRepository.findByToBeCompletedAtAfter(Instant.now()).stream()
+                .filter(commitment -> Objects.nonNull(commitment.getCalendarEventId()))
+                .filter(commitment -> Objects.isNull(commitment.getCreatedAt())
+                        || commitment.getCreatedAt().isBefore(syncStart))
+                .filter(commitment -> !liveEventIds.contains(commitment.getCalendarEventId()))
+                .toList();
+        orphans.forEach(commitment -> {
+            log.info("Calendar event: {} no longer exists, deleting commitment: {}",
+                    commitment.getCalendarEventId(), commitment.getId());
+            deleteCommitment(commitment);
+        });
+        return orphans.size();
+    }
+
+    private void deleteCommitment(CommitmentEntity commitment) {
+        commitmentRepository.delete(commitment);
+        futureCommitmentIndex.remove(commitment);
+    }
+
+    private static Instant startTime(EventDateTime start) {
+        if (Objects.isNull(start)) {
+            return null;
+        }
+        DateTime dateTime = Objects.nonNull(start.getDateTime()) ? start.getDateTime() : start.getDate();
+        return Objects.isNull(dateTime) ? null : Instant.ofEpochMilli(dateTime.getValue());
+    }
+}
@@ -0,0 +1,159 @@
+package com.prithvianilk.mybestofriendo.contextservice.service;
+
+import com.prithvianilk.mybestofriendo.contextservice.config.CommitmentCandidateConfig;
+import com.prithvianilk.mybestofriendo.contextservice.index.MessageEmbedder;
+import com.prithvianilk.mybestofriendo.contextservice.model.CommitmentEntity;
+import com.prithvianilk.mybestofriendo.contextservice.model.WhatsAppMessage;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Ranks a participant's future commitments by how likely the latest messages are to be about them, so
+ * only the best few are put in the prompt, and spots obvious cancellations that can be applied without
+ * asking the LLM.
+ * <p>
+ * The score mixes embedding similarity between the recent messages and the commitment description,
+ * the share of the description's words that appear in the messages, and a bonus when a time mentioned
+ * in the latest message is close to the commitment's completion time.
+ */
+@Component
+@RequiredArgsConstructor
+public class CommitmentCandidateRanker {
+
+    private static final double EMBEDDING_WEIGHT = 0.5;
+    private static final double LEXICAL_WEIGHT = 0.4;
+    private static final double TIME_BONUS = 0.1;
+    private static final Duration TIME_BONUS_WINDOW = Duration.ofHours(3);
+
+    private static final Pattern OBVIOUS_CANCEL = Pattern.compile(
+            "\\b(can'?t make it|cannot make it|won'?t make it|won'?t be able to|not able to make it"
+                    + "|cancel|call it off|not coming|can'?t come|let'?s skip|never ?mind)\\b",
+            Pattern.CASE_INSENSITIVE);
+
+    // A negation shortly before a cancellation phrase in the same clause, like "don't cancel", "no need to
+    // cancel" or "we won't call it off"
+    private static final Pattern NEGATION_BEFORE = Pattern.compile(
+            "\\b(don['’]?t|do not|doesn['’]?t|won['’]?t|will not|not|no|never|shouldn['’]?t|wouldn['’]?t)\\b"
+                    + "[^.!?,;]{0,20}$",
+            Pattern.CASE_INSENSITIVE);
+
+    private static final Set<String> STOP_WORDS = Set.of(
+            "a", "an", "the", "to", "for", "of", "and", "or", "in", "on", "at", "with", "by", "i", "you", "we",
+            "me", "my", "your", "it", "is", "be", "will", "ll", "s", "t", "that", "this", "then", "so");
+
+    private final CommitmentCandidateConfig config;
+    private final MessageEmbedder embedder;
+
+    public record RankedCommitment(CommitmentEntity commitment, double score) {
+    }
+
+    /**
+     * Ranks {@code commitments} against the latest of {@code recentMessages}, best first.
+     *
+     * @param mentionedTimes times resolved from the latest message
+     */
+    public List<RankedCommitment> rank(
+            List<WhatsAppMessage> recentMessages,
+            List<CommitmentEntity> commitments,
+            List<Instant> mentionedTimes) {
+        if (commitments.isEmpty()) {
+            return List.of();
+        }
+
+        String context = recentMessages.stream()
+                .skip(Math.max(0, recentMessages.size() - config.getContextMessages()))
+                .map(WhatsAppMessage::content)
+                .filter(Objects::nonNull)
+                .collect(Collectors.joining("\n"));
+        float[] contextVector = embedder.embed(context);
+        Set<String> contextWords = contentWords(context);
+
+        return commitments.stream()
+                .map(commitment -> new RankedCommitment(commitment,
+                        score(commitment, contextVector, contextWords, mentionedTimes)))
+                .sorted(Comparator.comparingDouble(RankedCommitment::score).reversed())
+                .toList();
+    }
+
+    /**
+     * Returns the commitment the latest message obviously cancels: the user wrote a cancellation phrase
+     * that is not negated and exactly one commitment clearly stands out. A sole future commitment has no
+     * second best to stand out from, so it needs a higher score instead.
+     */
+    public Optional<CommitmentEntity> findObviousCancellation(WhatsAppMessage latest, List<RankedCommitment> ranked) {
+        if (!config.isCancelShortcutEnabled()
+                || ranked.isEmpty()
+                || !latest.fromMe()
+                || Objects.isNull(latest.content())
+                || !hasCancellationPhrase(latest.content())) {
+            return Optional.empty();
+        }
+
+        RankedCommitment best = ranked.getFirst();
+        if (ranked.size() == 1) {
+            return best.score() < config.getCancelShortcutSoleMinScore()
+                    ? Optional.empty()
+                    : Optional.of(best.commitment());
+        }
+        if (best.score() < config.getCancelShortcutMinScore()
+                || best.score() - ranked.get(1).score() < config.getCancelShortcutMinMargin()) {
+            return Optional.empty();
+        }
+        return Optional.of(best.commitment());
+    }
+
+    private static boolean hasCancellationPhrase(String content) {
+        Matcher matcher = OBVIOUS_CANCEL.matcher(content);
+        while (matcher.find()) {
+            if (!NEGATION_BEFORE.matcher(content.substring(0, matcher.start())).find()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private double score(
+            CommitmentEntity commitment,
+            float[] contextVector,
+            Set<String> contextWords,
+            List<Instant> mentionedTimes) {
+        float[] descriptionVector = embedder.embed(commitment.getDescription());
+        double similarity = 0;
+        for (int i = 0; i < contextVector.length; i++) {
+            similarity += contextVector[i] * descriptionVector[i];
+        }
+
+        Set<String> descriptionWords = contentWords(commitment.getDescription());
+        double lexical = 0;
+        if (!descriptionWords.isEmpty()) {
+            long shared = descriptionWords.stream().filter(contextWords::contains).count();
+            lexical = (double) shared / descriptionWords.size();
+        }
+
+        double timeBonus = isMentionedTime(commitment.getToBeCompletedAt(), mentionedTimes) ? TIME_BONUS : 0;
+        return EMBEDDING_WEIGHT * Math.max(0, similarity) + LEXICAL_WEIGHT * lexical + timeBonus;
+    }
+
+    private static boolean isMentionedTime(Instant toBeCompletedAt, List<Instant> mentionedTimes) {
+        return Objects.nonNull(toBeCompletedAt) && mentionedTimes.stream()
+                .anyMatch(time -> Duration.between(time, toBeCompletedAt).abs().compareTo(TIME_BONUS_WINDOW) <= 0);
+    }
+
+    private static Set<String> contentWords(String text) {
+        Set<String> words = new HashSet<>(MessageEmbedder.tokenize(text));
+        words.removeAll(STOP_WORDS);
+        return words;
+    }
+}
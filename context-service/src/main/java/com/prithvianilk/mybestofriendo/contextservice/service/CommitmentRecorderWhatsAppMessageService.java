@@ -1,69 +1,251 @@
 package com.prithvianilk.mybestofriendo.contextservice.service;
 
+import com.prithvianilk.mybestofriendo.contextservice.config.ChatImportConfig;
+import com.prithvianilk.mybestofriendo.contextservice.config.CommitmentCandidateConfig;
+import com.prithvianilk.mybestofriendo.contextservice.config.TemporalResolutionConfig;
+import com.prithvianilk.mybestofriendo.contextservice.experiment.PromptExperiment;
+import com.prithvianilk.mybestofriendo.contextservice.experiment.PromptVariant;
+import com.prithvianilk.mybestofriendo.contextservice.experiment.PromptVariantClient;
 import com.prithvianilk.mybestofriendo.contextservice.logging.CommitmentManagementContext;
 import com.prithvianilk.mybestofriendo.contextservice.logging.WideEventContext;
+import com.prithvianilk.mybestofriendo.contextservice.logging.WithWideEventLogging;
 
 import com.prithvianilk.mybestofriendo.contextservice.mapper.CalendarEventMapper;
 import com.prithvianilk.mybestofriendo.contextservice.mapper.CommitmentMapper;
 import com.prithvianilk.mybestofriendo.contextservice.model.CalendarEvent;
 import com.prithvianilk.mybestofriendo.contextservice.model.Commitment;
 import com.prithvianilk.mybestofriendo.contextservice.model.CommitmentActionResponse;
+import com.prithvianilk.mybestofriendo.contextservice.model.CommitmentActionType;
 import com.prithvianilk.mybestofriendo.contextservice.model.CommitmentEntity;
 import com.prithvianilk.mybestofriendo.contextservice.model.WhatsAppMessage;
 import com.prithvianilk.mybestofriendo.contextservice.repository.CommitmentRepository;
+import com.prithvianilk.mybestofriendo.contextservice.repository.FutureCommitmentIndex;
 import com.prithvianilk.mybestofriendo.contextservice.repository.WhatsAppMessageRepository;
 import jakarta.validation.ConstraintViolation;
 import jakarta.validation.Validator;
-import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.stereotype.Service;
 
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
 import java.time.ZoneId;
-import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.List;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
 public class CommitmentRecorderWhatsAppMessageService extends WhatsAppMessageService {
 
-    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-    private final ChatClient chatClient;
+    /**
+     * Commitment detection prompt with placeholders for, in order, the future commitments snapshot, the
+     * locally resolved times, the earlier conversation summary and the conversation itself.
+     */
+    private static final String COMMITMENT_DETECTION_PROMPT = """
+            Analyze the following conversation to identify commitments made by the user and determine the appropriate action.
+            
+            A commitment is a statement where the user explicitly or implicitly promises to:
+            - Perform a specific action in the future
+            - Deliver something by a certain time
+            - Meet someone or attend an event
+            - Complete a task or responsibility
+            
+            Examples of commitments:
+            - "I'll send you the report tomorrow"
+            - "I can help you with that"
+            - "Let me get back to you on this"
+            - "I'll be there at 5pm"
+            
+            It could also be a reply to an ask for a commitment.
+            For example:
+            - "[person 1] Hey, lets meet for sushi tmmrw?"
+            - "[person 2] Yup, I'm in.
+            
+            - "[person 1] Can you send the slides?"
+            - "[person 2] Will send them in an hour.
+            
+            - "[person 1] Are you coming to the party?"
+            - "[person 2] Yes, I'll be there.
+            
+            Here, the second message in each exchange is a commitment.
+            IMPORTANT: Whenever the message is replied to in a commiting and positive fashion, assume it's a commitment.
+            Even informal responses like yes, yep, ya, etc are commitments.
+            
+            Review the conversation and determine the action type for the latest message:
+            
+            Action Types:
+            1. CREATE: A new commitment is being made that doesn't modify or cancel an existing one.
+               - IMPORTANT: Before using CREATE, check the "Existing Future Commitments" list below.
+               - If you find a matching commitment in that list (same participant, similar description, or similar message content), DO NOT use CREATE.
+               - Instead, use CHANGE if the commitment is being modified, or CANCEL if it's being withdrawn.
+               - Only use CREATE if the commitment is truly new and not found in the existing commitments list.
+            2. CHANGE: An existing commitment is being modified (e.g., changing the time, date, or details).
+               - Examples: "Actually, let's meet at 6pm instead of 5pm", "Can we push that to next week?"
+               - You MUST match this with an existing commitment from the "Existing Future Commitments" list below.
+            3. CANCEL: An existing commitment is being cancelled or withdrawn.
+               - Examples: "I can't make it", "Let's cancel that", "Never mind, I won't be able to do that"
+               - You MUST match this with an existing commitment from the "Existing Future Commitments" list below.
+            
+            Existing Future Commitments:
+            The following are the existing commitments scheduled in the future that best match the conversation.
+            - Use these to identify which commitment is being changed or cancelled (for CHANGE/CANCEL actions).
+            - Check this list BEFORE using CREATE to ensure you're not creating a duplicate commitment.
+            - If a commitment in the conversation matches one in this list, use CHANGE or CANCEL instead of CREATE.
+            %s
+            
+            If a commitment action is found, extract:
+            - type: One of CREATE, CHANGE, or CANCEL
+            - commitment:
+              - committedAt: The timestamp when the commitment was made. Expected format: 2025-11-03T17:00:00Z
+              - description: A brief description of the commitment. Make this an explicit mention of the commitment task to be done.
+              - toBeCompletedAt:
+                - The timestamp when the user committed to complete the task (e.g., if they say "I'll meet you for dinner at 5pm tomorrow", this would be tomorrow at 5pm with the appropriate date). Expected format: 2025-11-03T17:00:00Z
+                - If a date is not mentioned, but a category of day is mentioned (morning, evening, etc), take morning as 9AM, afternoon as 1PM, evening as 4PM, night as 7PM.
+                - If a date is not mentioned and a category is also not mentioned, take the time as 12PM.
+                - These times were already resolved from the latest messages. Use them when they match what was agreed:
+                %s
+            - id: (REQUIRED for CHANGE and CANCEL actions, null for CREATE)
+              - For CHANGE or CANCEL actions, you MUST identify which existing commitment is being modified or cancelled.
+              - Match the commitment from the conversation with one of the existing future commitments listed above.
+              - Use the ID from the matching commitment in the "Existing Future Commitments" list.
+              - If the action is CREATE, set id to null.
+              - If the action is CHANGE or CANCEL but you cannot find a matching commitment, still set the id to null (but this will cause an error, so try your best to match it).
+            
+            If no commitment action is found, return null for both type and commitment.
+            
+            Earlier Conversation Summary:
+            A summary of older messages with this participant that are no longer part of the conversation below.
+            Use it only as background; the action must be determined for the latest message in the conversation.
+            %s
+            
+            Conversation:
+            %s
+            """;
+
+    private static final String[] PROMPT_SEGMENTS = COMMITMENT_DETECTION_PROMPT.split("%s", -1);
+
+    private static final int MAX_RETAINED_PROMPT_BUFFER_CAPACITY = 64 * 1024;
+
+    // Prompts are assembled into a per-thread buffer that is reused across messages
+    private static final ThreadLocal<StringBuilder> PROMPT_BUFFER = ThreadLocal.withInitial(
+            () -> new StringBuilder(COMMITMENT_DETECTION_PROMPT.length() * 2));
+
+    private final PromptVariantClient variantClient;
+    private final PromptExperiment promptExperiment;
     private final CalendarEventService calendarEventService;
     private final CommitmentRepository commitmentRepository;
     private final CommitmentMapper commitmentMapper;
     private final CalendarEventMapper calendarEventMapper;
     private final Validator validator;
+    private final ConversationSummaryService conversationSummaryService;
+    private final FutureCommitmentIndex futureCommitmentIndex;
+    private final MessageAdmissionController admissionController;
+    private final TemporalExpressionResolver temporalResolver;
+    private final TemporalResolutionConfig temporalResolutionConfig;
+    private final CommitmentCandidateRanker candidateRanker;
+    private final CommitmentCandidateConfig candidateConfig;
+    private final ChatImportConfig importConfig;
+    private final Clock clock;
 
     public CommitmentRecorderWhatsAppMessageService(
             WhatsAppMessageRepository repository,
             CommitmentRepository commitmentRepository,
             CalendarEventService calendarEventService,
-            ChatClient chatClient,
+            PromptVariantClient variantClient,
+            PromptExperiment promptExperiment,
             CommitmentMapper commitmentMapper,
             CalendarEventMapper calendarEventMapper,
-            Validator validator) {
+            Validator validator,
+            ConversationSummaryService conversationSummaryService,
+            FutureCommitmentIndex futureCommitmentIndex,
+            MessageAdmissionController admissionController,
+            TemporalExpressionResolver temporalResolver,
+            TemporalResolutionConfig temporalResolutionConfig,
+            CommitmentCandidateRanker candidateRanker,
+            CommitmentCandidateConfig candidateConfig,
+            ChatImportConfig importConfig,
+            Clock clock) {
         super(repository);
-        this.chatClient = chatClient;
+        this.variantClient = variantClient;
+        this.promptExperiment = promptExperiment;
         this.calendarEventService = calendarEventService;
         this.commitmentRepository = commitmentRepository;
         this.commitmentMapper = commitmentMapper;
         this.calendarEventMapper = calendarEventMapper;
         this.validator = validator;
+        this.conversationSummaryService = conversationSummaryService;
+        this.futureCommitmentIndex = futureCommitmentIndex;
+        this.admissionController = admissionController;
+        this.temporalResolver = temporalResolver;
+        this.temporalResolutionConfig = temporalResolutionConfig;
+        this.candidateRanker = candidateRanker;
+        this.candidateConfig = candidateConfig;
+        this.importConfig = importConfig;
+        this.clock = clock;
     }
 
     @Override
     public void onNewWhatsAppMessage(WhatsAppMessage message) {
         enrichMessageContext(message);
 
-        String prompt = getPrompt(message);
+        MessageAdmissionController.Admission admission = admissionController.admit(message);
+        enrich(CommitmentManagementContext.builder()
+                .priority(admission.priority())
+                .deferralReason(admission.deferralReason()));
+        if (admission.isDeferred()) {
+            return;
+        }
 
-        CommitmentActionResponse response = chatClient.prompt()
-                .user(prompt)
-                .call()
-                .entity(CommitmentActionResponse.class);
+        recordCommitment(message);
+    }
+
+    /**
+     * Runs commitment detection on a message that was deferred to the catch-up topic.
+     */
+    @WithWideEventLogging
+    public void onCatchUpMessage(WhatsAppMessage message) {
+        enrichMessageContext(message);
+        enrich(CommitmentManagementContext.builder()
+                .priority(MessageAdmissionController.classify(message))
+                .deferralReason("catch-up"));
+
+        recordCommitment(message);
+    }
+
+    private void recordCommitment(WhatsAppMessage message) {
+        TemporalExpressionResolver.Resolution resolution = resolveTimes(message);
+        List<CommitmentCandidateRanker.RankedCommitment> rankedCommitments = rankFutureCommitments(message, resolution);
+
+        Optional<CommitmentEntity> obviousCancellation = candidateRanker
+                .findObviousCancellation(message, rankedCommitments);
+        if (obviousCancellation.isPresent()) {
+            cancelWithoutLlm(message, obviousCancellation.get());
+            return;
+        }
+
+        Set<Long> candidateIds = rankedCommitments.stream()
+                .limit(candidateConfig.getMaxCandidates())
+                .map(ranked -> ranked.commitment().getId())
+                .collect(Collectors.toSet());
+        PromptVariant variant = promptExperiment.assign(message.participantMobileNumber());
+        List<String> promptSections = promptExperiment.hasShadows(variant) ? new ArrayList<>() : null;
+        String prompt = getPrompt(message, resolution, candidateIds, variant.segments(PROMPT_SEGMENTS),
+                promptSections);
+
+        PromptVariantClient.VariantCall call = variantClient.call(variant, prompt, false);
+        enrich(CommitmentManagementContext.builder()
+                .promptVariant(variant.name())
+                .llmLatencyMillis(call.latencyMillis())
+                .promptTokens(call.promptTokens())
+                .completionTokens(call.completionTokens()));
+        if (Objects.nonNull(promptSections)) {
+            promptExperiment.runShadows(variant, call.outcome(), message.participantMobileNumber(), PROMPT_SEGMENTS,
+                    promptSections);
+        }
+
+        CommitmentActionResponse response = call.response();
 
         if (Objects.isNull(response)) {
             enrich(CommitmentManagementContext.builder()
@@ -77,7 +259,7 @@ public class CommitmentRecorderWhatsAppMessageService extends WhatsAppMessageSer
             return;
         }
 
-        Commitment commitment = response.commitment();
+        Commitment commitment = correctToBeCompletedAt(response, resolution);
         enrichResponseContext(response, commitment);
 
         switch (response.type()) {
@@ -87,25 +269,142 @@ public class CommitmentRecorderWhatsAppMessageService extends WhatsAppMessageSer
         }
     }
 
-    private String getPrompt(WhatsAppMessage message) {
-        Collection<WhatsAppMessage> historyMessages = getWhatsAppMessages(message);
-        String messageHistorySnapshot = getHistorySnapshot(historyMessages);
+    private List<CommitmentCandidateRanker.RankedCommitment> rankFutureCommitments(
+            WhatsAppMessage message,
+            TemporalExpressionResolver.Resolution resolution) {
+        List<CommitmentEntity> futureCommitments = futureCommitmentIndex
+                .getFutureCommitments(message.participantMobileNumber(), message.sentAt());
+        if (futureCommitments.isEmpty()) {
+            return List.of();
+        }
+
+        List<WhatsAppMessage> recentMessages = repository.getMessages(message.participantMobileNumber()).stream()
+                .filter(recent -> !recent.sentAt().isAfter(message.sentAt()))
+                .toList();
+        return candidateRanker.rank(recentMessages, futureCommitments, resolution.candidates());
+    }
+
+    private void cancelWithoutLlm(WhatsAppMessage message, CommitmentEntity commitment) {
+        CommitmentActionResponse response = new CommitmentActionResponse(
+                CommitmentActionType.CANCEL,
+                new Commitment(message.sentAt(), commitment.getDescription(), null),
+                commitment.getId());
+
+        enrich(CommitmentManagementContext.builder().resolvedWithoutLlm(true));
+        enrichResponseContext(response, response.commitment());
+        cancelCommitment(response, response.commitment());
+    }
+
+    private TemporalExpressionResolver.Resolution resolveTimes(WhatsAppMessage message) {
+        if (!temporalResolutionConfig.isEnabled()) {
+            return TemporalExpressionResolver.Resolution.NONE;
+        }
+        return temporalResolver.resolve(message.content(), message.sentAt());
+    }
+
+    /**
+     * Reads the LLM's completion time in the conversation's zone, and replaces it with the locally resolved
+     * one when the latest message has a single, unambiguous time expression that disagrees with it on the
+     * same day. A resolved time on another day is more likely a different time mentioned in passing, like
+     * "leaving office at 6" in reply to dinner tomorrow at 8.
+     */
+    private Commitment correctToBeCompletedAt(
+            CommitmentActionResponse response,
+            TemporalExpressionResolver.Resolution resolution) {
+        ZoneId zone = temporalResolutionConfig.getZone();
+        Commitment commitment = response.commitment().atZone(zone);
+        if (response.type() == CommitmentActionType.CANCEL) {
+            return commitment;
+        }
 
-        List<CommitmentEntity> futureCommitments = getFutureCommitments(message);
-        String futureCommitmentsSnapshot = getFutureCommitmentsSnapshot(futureCommitments);
+        Instant llmTime = commitment.toBeCompletedAt();
+        return resolution.unambiguousCandidate()
+                .filter(resolved -> !resolved.equals(llmTime))
+                .filter(resolved -> Objects.isNull(llmTime) || LocalDate.ofInstant(resolved, zone)
+                        .equals(LocalDate.ofInstant(llmTime, zone)))
+                .map(resolved -> {
+                    enrich(CommitmentManagementContext.builder().toBeCompletedAtCorrected(true));
+                    return commitment.withToBeCompletedAt(resolved);
+                })
+                .orElse(commitment);
+    }
 
-        String prompt = buildCommitmentDetectionPrompt(messageHistorySnapshot, futureCommitmentsSnapshot);
+    /**
+     * Builds the prompt from the variant's template segments. When {@code sections} is not null, the text put
+     * between the segments is also collected into it, so shadow variants can be given the same inputs.
+     */
+    private String getPrompt(
+            WhatsAppMessage message,
+            TemporalExpressionResolver.Resolution resolution,
+            Set<Long> candidateIds,
+            String[] segments,
+            List<String> sections) {
+        String participantMobileNumber = message.participantMobileNumber();
+        String conversationSummary = conversationSummaryService
+                .getSummary(participantMobileNumber)
+                .orElse("None");
+
+        StringBuilder buffer = PROMPT_BUFFER.get();
+        buffer.setLength(0);
+
+        buffer.append(segments[0]);
+        int sectionStart = buffer.length();
+        List<CommitmentEntity> futureCommitments = futureCommitmentIndex
+                .appendFutureCommitmentsSnapshot(participantMobileNumber, message.sentAt(), candidateIds, buffer);
+        addSection(buffer, sectionStart, sections);
+        buffer.append(segments[1]);
+        sectionStart = buffer.length();
+        appendResolvedTimes(message, resolution, buffer);
+        addSection(buffer, sectionStart, sections);
+        buffer.append(segments[2]);
+        sectionStart = buffer.length();
+        buffer.append(conversationSummary);
+        addSection(buffer, sectionStart, sections);
+        buffer.append(segments[3]);
+        sectionStart = buffer.length();
+        List<WhatsAppMessage> historyMessages = repository
+                .appendHistorySnapshot(participantMobileNumber, message.sentAt(), buffer);
+        addSection(buffer, sectionStart, sections);
+        buffer.append(segments[4]);
+
+        String prompt = buffer.toString();
+        if (buffer.capacity() > MAX_RETAINED_PROMPT_BUFFER_CAPACITY) {
+            PROMPT_BUFFER.remove();
+        }
 
         enrich(CommitmentManagementContext.builder()
                 .historySnapshotSize(historyMessages.size())
-                .historyMessages(new ArrayList<>(historyMessages))
+                .historyMessages(historyMessages)
                 .futureCommitmentsSnapshotSize(futureCommitments.size())
                 .futureCommitments(futureCommitments)
+                .conversationSummaryLength(conversationSummary.length())
+                .resolvedTimes(resolution.candidates())
                 .prompt(prompt));
 
         return prompt;
     }
 
+    private static void addSection(StringBuilder buffer, int start, List<String> sections) {
+        if (Objects.nonNull(sections)) {
+            sections.add(buffer.substring(start));
+        }
+    }
+
+    private void appendResolvedTimes(
+            WhatsAppMessage message,
+            TemporalExpressionResolver.Resolution resolution,
+            StringBuilder buffer) {
+        if (resolution.candidates().isEmpty()) {
+            buffer.append("None");
+            return;
+        }
+
+        buffer.append('"').append(message.content()).append("\" ->");
+        for (Instant candidate : resolution.candidates()) {
+            buffer.append(' ').append(temporalResolver.formatForPrompt(candidate));
+        }
+    }
+
     private void enrichMessageContext(WhatsAppMessage message) {
         enrich(CommitmentManagementContext.builder()
                 .participantMobileNumber(message.participantMobileNumber())
@@ -115,38 +414,30 @@ public class CommitmentRecorderWhatsAppMessageService extends WhatsAppMessageSer
                 .messageSentAt(message.sentAt()));
     }
 
-    private static String getFutureCommitmentsSnapshot(List<CommitmentEntity> futureCommitments) {
-        return futureCommitments.stream()
-                .map(entity -> String.format("ID:%d|Participant:%s|Description:%s|ToBeCompletedAt:%s",
-                        entity.getId(),
-                        entity.getParticipantNumber(),
-                        entity.getDescription(),
-                        entity.getToBeCompletedAt()))
-                .collect(Collectors.joining(" || "));
-    }
-
-    private List<CommitmentEntity> getFutureCommitments(WhatsAppMessage message) {
-        return commitmentRepository
-                .findByParticipantNumberAndToBeCompletedAtAfter(
-                        message.participantMobileNumber(),
-                        message.sentAt());
-    }
-
-    private String getHistorySnapshot(Collection<WhatsAppMessage> historyMessages) {
-        return historyMessages.stream()
-                .map(this::formatMessage)
-                .collect(Collectors.joining("\n"));
-    }
+    private void createCommitment(WhatsAppMessage message, Commitment commitment) {
+        if (isDueBeforeImport(commitment)) {
+            enrich(CommitmentManagementContext.builder()
+                    .success(false)
+                    .failureReason("Due before import"));
+            return;
+        }
 
-    private Collection<WhatsAppMessage> getWhatsAppMessages(WhatsAppMessage message) {
-        return repository.getMessages(message.participantMobileNumber());
-    }
+        String messageKey = message.messageKey();
+        Optional<CommitmentEntity> existing = commitmentRepository.findBySourceMessageKey(messageKey);
+        if (existing.isPresent()) {
+            enrich(CommitmentManagementContext.builder()
+                    .commitmentId(existing.get().getId())
+                    .calendarEventId(existing.get().getCalendarEventId())
+                    .success(true));
+            return;
+        }
 
-    private void createCommitment(WhatsAppMessage message, Commitment commitment) {
         CalendarEvent calendarEvent = calendarEventMapper.toCalendarEvent(commitment);
-        String eventId = calendarEventService.createEvent(calendarEvent);
+        String eventId = calendarEventService.createEvent(calendarEvent, messageKey);
         CommitmentEntity entity = commitmentMapper.toEntity(commitment, message.participantMobileNumber(), eventId);
+        entity.setSourceMessageKey(messageKey);
         entity = commitmentRepository.save(entity);
+        futureCommitmentIndex.put(entity);
 
         enrich(CommitmentManagementContext.builder()
                 .commitmentId(entity.getId())
@@ -154,6 +445,15 @@ public class CommitmentRecorderWhatsAppMessageService extends WhatsAppMessageSer
                 .success(true));
     }
 
+    /**
+     * Imported chats are read after the fact, so a commitment from an imported message may already be due.
+     * It gets no Calendar event or reminders.
+     */
+    private boolean isDueBeforeImport(Commitment commitment) {
+        return importConfig.isImporting() && Objects.nonNull(commitment.toBeCompletedAt())
+                && commitment.toBeCompletedAt().isBefore(clock.instant());
+    }
+
     private void updateCommitment(CommitmentActionResponse response, Commitment commitment) {
         if (Objects.isNull(response.id())) {
             enrich(CommitmentManagementContext.builder()
@@ -170,7 +470,7 @@ public class CommitmentRecorderWhatsAppMessageService extends WhatsAppMessageSer
                     String newCalendarEventId = calendarEventService
                             .updateEvent(existingCommitment.getCalendarEventId(), calendarEvent);
                     existingCommitment.setCalendarEventId(newCalendarEventId);
-                    commitmentRepository.save(existingCommitment);
+                    futureCommitmentIndex.put(commitmentRepository.save(existingCommitment));
 
                     enrich(CommitmentManagementContext.builder()
                             .calendarEventId(newCalendarEventId)
@@ -194,6 +494,7 @@ public class CommitmentRecorderWhatsAppMessageService extends WhatsAppMessageSer
                 existingCommitment -> {
                     calendarEventService.deleteEvent(existingCommitment.getCalendarEventId());
                     commitmentRepository.delete(existingCommitment);
+                    futureCommitmentIndex.remove(existingCommitment);
 
                     enrich(CommitmentManagementContext.builder()
                             .success(true));
@@ -231,89 +532,4 @@ public class CommitmentRecorderWhatsAppMessageService extends WhatsAppMessageSer
         entity.setDescription(commitment.description());
         entity.setToBeCompletedAt(commitment.toBeCompletedAt());
     }
-
-    private String formatMessage(WhatsAppMessage message) {
-        String formattedTime = message.sentAt()
-                .atZone(ZoneId.systemDefault())
-                .format(FORMATTER);
-
-        return String.format("[%s] %s: %s", formattedTime, message.senderName(), message.content());
-    }
-
-    private String buildCommitmentDetectionPrompt(String messageSnapshot, String futureCommitmentsSnapshot) {
-        return """
-                Analyze the following conversation to identify commitments made by the user and determine the appropriate action.
-                
-                A commitment is a statement where the user explicitly or implicitly promises to:
-                - Perform a specific action in the future
-                - Deliver something by a certain time
-                - Meet someone or attend an event
-                - Complete a task or responsibility
-                
-                Examples of commitments:
-                - "I'll send you the report tomorrow"
-                - "I can help you with that"
-                - "Let me get back to you on this"
-                - "I'll be there at 5pm"
-                
-                It could also be a reply to an ask for a commitment.
-                For example:
-                - "[person 1] Hey, lets meet for sushi tmmrw?"
-                - "[person 2] Yup, I'm in.
-                
-                - "[person 1] Can you send the slides?"
-                - "[person 2] Will send them in an hour.
-                
-                - "[person 1] Are you coming to the party?"
-                - "[person 2] Yes, I'll be there.
-                
-                Here, the second message in each exchange is a commitment.
-                IMPORTANT: Whenever the message is replied to in a commiting and positive fashion, assume it's a commitment.
-                Even informal responses like yes, yep, ya, etc are commitments.
-                
-                Review the conversation and determine the action type for the latest message:
-                
-                Action Types:
-                1. CREATE: A new commitment is being made that doesn't modify or cancel an existing one.
-                   - IMPORTANT: Before using CREATE, check the "Existing Future Commitments" list below.
-                   - If you find a matching commitment in that list (same participant, similar description, or similar message content), DO NOT use CREATE.
-                   - Instead, use CHANGE if the commitment is being modified, or CANCEL if it's being withdrawn.
-                   - Only use CREATE if the commitment is truly new and not found in the existing commitments list.
-                2. CHANGE: An existing commitment is being modified (e.g., changing the time, date, or details).
-                   - Examples: "Actually, let's meet at 6pm instead of 5pm", "Can we push that to next week?"
-                   - You MUST match this with an existing commitment from the "Existing Future Commitments" list below.
-                3. CANCEL: An existing commitment is being cancelled or withdrawn.
-                   - Examples: "I can't make it", "Let's cancel that", "Never mind, I won't be able to do that"
-                   - You MUST match this with an existing commitment from the "Existing Future Commitments" list below.
-                
-                Existing Future Commitments:
-                The following are existing commitments that are scheduled to be completed in the future.
-                - Use these to identify which commitment is being changed or cancelled (for CHANGE/CANCEL actions).
-                - Check this list BEFORE using CREATE to ensure you're not creating a duplicate commitment.
-                - If a commitment in the conversation matches one in this list, use CHANGE or CANCEL instead of CREATE.
-                %s
-                
-                If a commitment action is found, extract:
-                - type: One of CREATE, CHANGE, or CANCEL
-                - commitment:
-                  - committedAt: The timestamp when the commitment was made. Expected format: 2025-11-03T17:00:00Z
-                  - description: A brief description of the commitment. Make this an explicit mention of the commitment task to be done.
-                  - toBeCompletedAt:
-                    - The timestamp when the user committed to complete the task (e.g., if they say "I'll meet you for dinner at 5pm tomorrow", this would be tomorrow at 5pm with the appropriate date). Expected format: 2025-11-03T17:00:00Z
-                    - If a date is not mentioned, but a category of day is mentioned (morning, evening, etc), take morning as 9AM, afternoon as 1PM, evening as 4PM, night as 7PM.
-                    - If a date is not mentioned and a category is also not mentioned, take the time as 12PM.
-                - id: (REQUIRED for CHANGE and CANCEL actions, null for CREATE)
-                  - For CHANGE or CANCEL actions, you MUST identify which existing commitment is being modified or cancelled.
-                  - Match the commitment from the conversation with one of the existing future commitments listed above.
-                  - Use the ID from the matching commitment in the "Existing Future Commitments" list.
-                  - If the action is CREATE, set id to null.
-                  - If the action is CHANGE or CANCEL but you cannot find a matching commitment, still set the id to null (but this will cause an error, so try your best to match it).
-                
-                If no commitment action is found, return null for both type and commitment.
-                
-                Conversation:
-                %s
-                """
-                .formatted(futureCommitmentsSnapshot, messageSnapshot);
-    }
 }
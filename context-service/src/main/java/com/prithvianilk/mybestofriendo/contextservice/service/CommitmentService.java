@@ -2,6 +2,7 @@ package com.prithvianilk.mybestofriendo.contextservice.service;
 
 import com.prithvianilk.mybestofriendo.contextservice.model.CommitmentEntity;
 import com.prithvianilk.mybestofriendo.contextservice.repository.CommitmentRepository;
+import com.prithvianilk.mybestofriendo.contextservice.repository.FutureCommitmentIndex;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -17,6 +18,7 @@ public class CommitmentService {
 
     private final CommitmentRepository commitmentRepository;
     private final CalendarEventService calendarEventService;
+    private final FutureCommitmentIndex futureCommitmentIndex;
 
     @Transactional
     public void deleteByCommitmentId(Long id) {
@@ -29,6 +31,7 @@ public class CommitmentService {
 
         CommitmentEntity commitment = commitmentOptional.get();
         commitmentRepository.delete(commitment);
+        futureCommitmentIndex.remove(commitment);
         deleteCalendarEvent(commitment.getCalendarEventId());
         log.info("Successfully deleted commitment with ID: {}", id);
     }
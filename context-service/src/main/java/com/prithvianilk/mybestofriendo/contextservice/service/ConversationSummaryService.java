@@ -0,0 +1,231 @@
+package com.prithvianilk.mybestofriendo.contextservice.service;
+
+import com.prithvianilk.mybestofriendo.contextservice.config.ConversationSummaryConfig;
+import com.prithvianilk.mybestofriendo.contextservice.config.TemporalResolutionConfig;
+import com.prithvianilk.mybestofriendo.contextservice.model.ConversationSummaryEntity;
+import com.prithvianilk.mybestofriendo.contextservice.model.RenderedWhatsAppMessage;
+import com.prithvianilk.mybestofriendo.contextservice.model.WhatsAppMessage;
+import com.prithvianilk.mybestofriendo.contextservice.repository.ConversationSummaryRepository;
+import com.prithvianilk.mybestofriendo.contextservice.tenant.TenantContext;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * Maintains a rolling, per-participant summary of the conversation that has fallen out of the
+ * in-memory message window.
+ * <p>
+ * Evicted messages are buffered per participant and folded into the existing summary in the
+ * background once {@link ConversationSummaryConfig#getBatchSize()} of them have accumulated, so the
+ * LLM is only asked to summarise each message once. Summaries are persisted in the tenant's shard and
+ * cached in memory for prompt building.
+ * <p>
+ * After a rebalance the old owner may still be folding a participant's messages when the new owner
+ * starts folding its own. Each write is a compare-and-set against the row the summary was folded from,
+ * and a lost race folds the same messages again into the summary that won, so neither update is lost.
+ */
+@Slf4j
+@Service
+public class ConversationSummaryService {
+
+    private static final int MAX_WRITE_ATTEMPTS = 3;
+
+    private final ChatClient chatClient;
+    private final ConversationSummaryRepository summaryRepository;
+    private final ConversationSummaryConfig config;
+    private final TemporalResolutionConfig temporalResolutionConfig;
+    private final Clock clock;
+
+    // Keyed by TenantContext#qualify(participant)
+    private final Map<String, List<WhatsAppMessage>> pendingEvictionsByParticipant = new ConcurrentHashMap<>();
+    private final Map<String, Optional<String>> summaryByParticipant = new ConcurrentHashMap<>();
+
+    // Single worker thread, so updates for a participant are applied in eviction order
+    private final ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>(),
+            runnable -> Thread.ofPlatform().name("conversation-summarizer").daemon().unstarted(runnable));
+
+    public ConversationSummaryService(
+            ChatClient chatClient,
+            ConversationSummaryRepository summaryRepository,
+            ConversationSummaryConfig config,
+            TemporalResolutionConfig temporalResolutionConfig,
+            Clock clock) {
+        this.chatClient = chatClient;
+        this.summaryRepository = summaryRepository;
+        this.config = config;
+        this.temporalResolutionConfig = temporalResolutionConfig;
+        this.clock = clock;
+    }
+
+    public void onMessagesEvicted(String participantMobileNumber, List<WhatsAppMessage> evictedMessages) {
+        if (!config.isEnabled() || evictedMessages.isEmpty()) {
+            return;
+        }
+
+        List<WhatsAppMessage> batch = new ArrayList<>();
+        pendingEvictionsByParticipant.compute(TenantContext.qualify(participantMobileNumber), (_, pending) -> {
+            List<WhatsAppMessage> messages = Objects.isNull(pending) ? new ArrayList<>() : pending;
+            messages.addAll(evictedMessages);
+            if (messages.size() < config.getBatchSize()) {
+                return messages;
+            }
+            batch.addAll(messages);
+            return null;
+        });
+
+        if (!batch.isEmpty()) {
+            submitUpdate(TenantContext.current(), participantMobileNumber, batch);
+        }
+    }
+
+    /**
+     * Summary updates waiting for the summariser thread.
+     */
+    public int queuedUpdates() {
+        return executor.getQueue().size();
+    }
+
+    public Optional<String> getSummary(String participantMobileNumber) {
+        return summaryByParticipant.computeIfAbsent(TenantContext.qualify(participantMobileNumber),
+                _ -> summaryRepository
+                        .findById(participantMobileNumber)
+                        .map(ConversationSummaryEntity::getSummary));
+    }
+
+    /**
+     * Drops the cached summaries of matching participants and summarises their pending evictions right
+     * away, so no buffered messages are lost when another instance takes the participant over.
+     */
+    public void evictIf(Predicate<String> participantFilter) {
+        summaryByParticipant.keySet().removeIf(key -> participantFilter.test(participantOf(key)));
+        pendingEvictionsByParticipant.keySet().stream()
+                .filter(key -> participantFilter.test(participantOf(key)))
+                .toList()
+                .forEach(key -> {
+                    List<WhatsAppMessage> pending = pendingEvictionsByParticipant.remove(key);
+                    if (Objects.nonNull(pending) && !pending.isEmpty()) {
+                        submitUpdate(pending.getFirst().tenantId(), participantOf(key), pending);
+                    }
+                });
+    }
+
+    private void submitUpdate(String tenantId, String participantMobileNumber, List<WhatsAppMessage> evictedMessages) {
+        executor.execute(() -> TenantContext.run(tenantId,
+                () -> updateSummary(participantMobileNumber, evictedMessages)));
+    }
+
+    private static String participantOf(String qualifiedKey) {
+        return qualifiedKey.substring(qualifiedKey.indexOf('/') + 1);
+    }
+
+    private void updateSummary(String participantMobileNumber, List<WhatsAppMessage> evictedMessages) {
+        try {
+            for (int attempt = 1; attempt <= MAX_WRITE_ATTEMPTS; attempt++) {
+                Optional<ConversationSummaryEntity> current = summaryRepository.findById(participantMobileNumber);
+                String summary = chatClient.prompt()
+                        .user(buildSummaryPrompt(
+                                current.map(ConversationSummaryEntity::getSummary).orElse(null), evictedMessages))
+                        .call()
+                        .content();
+
+                if (Objects.isNull(summary) || summary.isBlank()) {
+                    log.warn("LLM returned an empty summary for participant: {}", participantMobileNumber);
+                    return;
+                }
+
+                String truncated = truncate(summary.strip());
+                if (write(participantMobileNumber, current, truncated, evictedMessages)) {
+                    summaryByParticipant.put(TenantContext.qualify(participantMobileNumber), Optional.of(truncated));
+                    log.debug("Updated conversation summary for participant: {} with {} messages",
+                            participantMobileNumber, evictedMessages.size());
+                    return;
+                }
+                log.info("Conversation summary for participant: {} changed while summarising, retrying",
+                        participantMobileNumber);
+            }
+            throw new IllegalStateException("Conversation summary kept changing after %d attempts"
+                    .formatted(MAX_WRITE_ATTEMPTS));
+        } catch (Exception e) {
+            log.error("Failed to update conversation summary for participant: {}", participantMobileNumber, e);
+            requeue(participantMobileNumber, evictedMessages);
+        }
+    }
+
+    /**
+     * Writes the summary only if the row is still the one it was folded from, false if another instance
+     * wrote it in the meantime.
+     */
+    private boolean write(
+            String participantMobileNumber,
+            Optional<ConversationSummaryEntity> current,
+            String summary,
+            List<WhatsAppMessage> evictedMessages) {
+        long summarizedMessageCount = current.map(ConversationSummaryEntity::getSummarizedMessageCount).orElse(0L)
+                + evictedMessages.size();
+        Instant lastSentAt = evictedMessages.getLast().sentAt();
+        Instant now = Instant.now(clock);
+        if (current.isEmpty()) {
+            return summaryRepository.insertIfAbsent(
+                    participantMobileNumber, summary, summarizedMessageCount, lastSentAt, now) == 1;
+        }
+        return summaryRepository.compareAndSet(participantMobileNumber, current.get().getVersion(),
+                summary, summarizedMessageCount, lastSentAt, now) == 1;
+    }
+
+    private void requeue(String participantMobileNumber, List<WhatsAppMessage> evictedMessages) {
+        pendingEvictionsByParticipant.compute(TenantContext.qualify(participantMobileNumber), (_, pending) -> {
+            List<WhatsAppMessage> messages = new ArrayList<>(evictedMessages);
+            if (Objects.nonNull(pending)) {
+                messages.addAll(pending);
+            }
+            return messages;
+        });
+    }
+
+    private String truncate(String summary) {
+        return summary.length() > config.getMaxLength() ? summary.substring(0, config.getMaxLength()) : summary;
+    }
+
+    private String buildSummaryPrompt(String existingSummary, List<WhatsAppMessage> evictedMessages) {
+        String messages = evictedMessages.stream()
+                .map(message -> RenderedWhatsAppMessage.render(message, temporalResolutionConfig.getZone()))
+                .collect(Collectors.joining("\n"));
+
+        return """
+                You maintain a running summary of a WhatsApp conversation between the user and one participant.
+                Update the existing summary with the new messages below and return only the updated summary.
+
+                - Keep facts that matter later: plans, promises, dates, times, places, preferences and open questions.
+                - Drop small talk and anything superseded by a later message.
+                - Write in plain sentences and keep the summary under %d characters.
+
+                Existing summary:
+                %s
+
+                New messages:
+                %s
+                """
+                .formatted(config.getMaxLength(), Objects.requireNonNullElse(existingSummary, "None"), messages);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
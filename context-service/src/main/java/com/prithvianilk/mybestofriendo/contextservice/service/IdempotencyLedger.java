@@ -0,0 +1,223 @@
+package com.prithvianilk.mybestofriendo.contextservice.service;
+
+import com.prithvianilk.mybestofriendo.contextservice.config.IdempotencyConfig;
+import com.prithvianilk.mybestofriendo.contextservice.model.ConsumerOffsetEntity;
+import com.prithvianilk.mybestofriendo.contextservice.model.MessagePosition;
+import com.prithvianilk.mybestofriendo.contextservice.model.ProcessedMessageEntity;
+import com.prithvianilk.mybestofriendo.contextservice.model.WhatsAppMessage;
+import com.prithvianilk.mybestofriendo.contextservice.repository.ConsumerOffsetRepository;
+import com.prithvianilk.mybestofriendo.contextservice.repository.ProcessedMessageRepository;
+import com.prithvianilk.mybestofriendo.contextservice.tenant.TenantContext;
+import com.prithvianilk.mybestofriendo.contextservice.tenant.TenantDirectory;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.kafka.listener.ConsumerSeekAware;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records every message that has been fully processed, keyed by {@link WhatsAppMessage#messageKey()},
+ * together with the next Kafka offset to read for its partition. Only messages every service handled are
+ * recorded, and an entry whose outcome names a service that did not succeed, as written before failed
+ * dispatches were retried, does not count as processed.
+ * <p>
+ * Listeners check the ledger before any LLM or Calendar work, so a redelivered message costs one primary
+ * key lookup. The ledger entry and the offset are written in one SQLite transaction, and on partition
+ * assignment the consumer is moved past anything the ledger already has, even if Kafka never received
+ * the offset commit.
+ * <p>
+ * Ledger entries live in the shard of the message's tenant. Offsets are per partition, not per tenant, so
+ * only messages of the default tenant move them; other tenants' redeliveries are still caught by the
+ * entry lookup. Entries older than {@link IdempotencyConfig#getRetention()} are purged from every tenant.
+ * <p>
+ * The main listener records a message it deferred to the catch-up lane as processed, so the catch-up lane
+ * keeps its own entries, under {@link #catchUpKey(WhatsAppMessage)}.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class IdempotencyLedger {
+
+    private static final int MAX_OUTCOME_LENGTH = 500;
+    private static final String SUCCESS = "success";
+
+    private final ProcessedMessageRepository processedMessageRepository;
+    private final ConsumerOffsetRepository consumerOffsetRepository;
+    private final Clock clock;
+    private final IdempotencyConfig config;
+    private final TenantDirectory tenantDirectory;
+
+    private final ScheduledExecutorService purger = Executors.newSingleThreadScheduledExecutor(
+            runnable -> Thread.ofPlatform().name("idempotency-ledger-purger").daemon().unstarted(runnable));
+
+    @PostConstruct
+    public void start() {
+        long intervalMillis = config.getPurgeInterval().toMillis();
+        purger.scheduleWithFixedDelay(this::purgeExpired, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        purger.shutdownNow();
+    }
+
+    public boolean isProcessed(WhatsAppMessage message) {
+        return isProcessed(message.messageKey());
+    }
+
+    public boolean isCaughtUp(WhatsAppMessage message) {
+        return isProcessed(catchUpKey(message));
+    }
+
+    /**
+     * @param outcome the outcome of every service, like {@code CommitmentRecorder=success}, all of them
+     *                successful
+     */
+    @Transactional
+    public void record(WhatsAppMessage message, MessagePosition position, String outcome) {
+        processedMessageRepository.save(ProcessedMessageEntity.builder()
+                .messageKey(message.messageKey())
+                .topic(Objects.isNull(position) ? null : position.topic())
+                .kafkaPartition(Objects.isNull(position) ? null : position.partition())
+                .kafkaOffset(Objects.isNull(position) ? null : position.offset())
+                .outcome(outcome.length() > MAX_OUTCOME_LENGTH ? outcome.substring(0, MAX_OUTCOME_LENGTH) : outcome)
+                .processedAt(Instant.now(clock))
+                .build());
+        advance(position);
+    }
+
+    /**
+     * Records a message handled by the catch-up lane. Its position is on the catch-up topic, whose offsets
+     * are left to Kafka.
+     */
+    @Transactional
+    public void recordCaughtUp(WhatsAppMessage message, MessagePosition position, String outcome) {
+        processedMessageRepository.save(ProcessedMessageEntity.builder()
+                .messageKey(catchUpKey(message))
+                .topic(position.topic())
+                .kafkaPartition(position.partition())
+                .kafkaOffset(position.offset())
+                .outcome(outcome)
+                .processedAt(Instant.now(clock))
+                .build());
+    }
+
+    /**
+     * Records messages that did not come from Kafka, such as imported chat history, in one transaction.
+     */
+    @Transactional
+    public void recordAll(List<WhatsAppMessage> messages, String outcome) {
+        Instant processedAt = Instant.now(clock);
+        processedMessageRepository.saveAll(messages.stream()
+                .map(message -> ProcessedMessageEntity.builder()
+                        .messageKey(message.messageKey())
+                        .outcome(outcome)
+                        .processedAt(processedAt)
+                        .build())
+                .toList());
+    }
+
+    /**
+     * Moves the stored offset of the message's partition past it. Used for messages skipped as duplicates.
+     */
+    @Transactional
+    public void advance(MessagePosition position) {
+        if (Objects.isNull(position) || !TenantContext.isDefault()) {
+            return;
+        }
+
+        String topicPartition = position.topic() + "-" + position.partition();
+        ConsumerOffsetEntity offset = consumerOffsetRepository.findById(topicPartition)
+                .orElseGet(() -> ConsumerOffsetEntity.builder().topicPartition(topicPartition).build());
+        if (offset.getNextOffset() > position.offset()) {
+            return;
+        }
+        offset.setNextOffset(position.offset() + 1);
+        offset.setUpdatedAt(Instant.now(clock));
+        consumerOffsetRepository.save(offset);
+    }
+
+    /**
+     * Deletes entries past the retention in every tenant. A failing tenant is logged and retried on the next
+     * run.
+     */
+    public void purgeExpired() {
+        Instant before = Instant.now(clock).minus(config.getRetention());
+        for (String tenantId : tenantDirectory.tenantIds()) {
+            try {
+                int purged = TenantContext.call(tenantId,
+                        () -> processedMessageRepository.deleteProcessedBefore(before));
+                if (purged > 0) {
+                    log.info("Purged {} processed messages of tenant: {}", purged, tenantId);
+                }
+            } catch (RuntimeException e) {
+                log.warn("Failed to purge processed messages of tenant: {}", tenantId, e);
+            }
+        }
+    }
+
+    /**
+     * Seeks each newly assigned partition to the ledger's offset when it is ahead of the committed one.
+     */
+    public void seekToRecordedOffsets(
+            Map<TopicPartition, Long> assignments,
+            ConsumerSeekAware.ConsumerSeekCallback callback) {
+        assignments.forEach((partition, committedOffset) -> consumerOffsetRepository
+                .findById(partition.topic() + "-" + partition.partition())
+                .filter(offset -> offset.getNextOffset() > committedOffset)
+                .ifPresent(offset -> {
+                    log.info("Seeking {} from committed offset {} to ledger offset {}",
+                            partition, committedOffset, offset.getNextOffset());
+                    callback.seek(partition.topic(), partition.partition(), offset.getNextOffset());
+                }));
+    }
+
+    /**
+     * Ledger key of the message's run through the catch-up lane: the SHA-256 of its message key, so it is as
+     * long as a message key and never equal to one.
+     */
+    static String catchUpKey(WhatsAppMessage message) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256")
+                    .digest(("catch-up\n" + message.messageKey()).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private boolean isProcessed(String messageKey) {
+        return processedMessageRepository.findById(messageKey)
+                .filter(processed -> succeeded(processed.getOutcome()))
+                .isPresent();
+    }
+
+    private static boolean succeeded(String outcome) {
+        if (Objects.isNull(outcome)) {
+            return true;
+        }
+        for (String serviceOutcome : outcome.split(",")) {
+            int separator = serviceOutcome.indexOf('=');
+            if (separator >= 0 && !serviceOutcome.substring(separator + 1).equals(SUCCESS)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,192 @@
+package com.prithvianilk.mybestofriendo.contextservice.service;
+
+import com.prithvianilk.mybestofriendo.contextservice.config.MessagePriorityConfig;
+import com.prithvianilk.mybestofriendo.contextservice.config.PartitionOwnershipConfig;
+import com.prithvianilk.mybestofriendo.contextservice.model.MessagePriority;
+import com.prithvianilk.mybestofriendo.contextservice.model.WhatsAppMessage;
+import com.prithvianilk.mybestofriendo.contextservice.tracing.TraceContext;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.regex.Pattern;
+
+/**
+ * Decides whether a message is run through commitment detection now or deferred to the catch-up topic.
+ * <p>
+ * Messages sent by the user or mentioning a time are {@link MessagePriority#HIGH} and are always admitted.
+ * Other messages are deferred when the listener is behind, judged by how old the message is when it is
+ * consumed, or when their participant has used up their token bucket, so a flood from one chat cannot
+ * delay the important messages behind it. Each tenant also has a bucket shared by all of its chats, so one
+ * busy tenant is moved to the catch-up lane instead of starving the others.
+ * <p>
+ * The catch-up lane runs on its own consumer group, so once a participant has a message deferred, every
+ * later message of theirs is deferred behind it, whatever its priority, until the catch-up lane has
+ * {@link #release(WhatsAppMessage) released} the last one. The catch-up topic is keyed by participant, so a
+ * participant's CREATE, CHANGE and CANCEL are then applied in the order they were sent. Like the buckets,
+ * holds are kept per instance, and the catch-up lane is not partitioned by window ownership, so priority
+ * lanes refuse to start alongside {@link PartitionOwnershipConfig#isEnabled() ownership}: a deferred
+ * message could be detected on an instance without its participant's window, and released on an instance
+ * that never held it.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MessageAdmissionController {
+
+    private static final Pattern TIME_EXPRESSION = Pattern.compile(
+            "\\b(today|tonight|tomorrow|tmrw|tmmrw|tmr|yesterday|morning|afternoon|evening|night|noon|midnight"
+                    + "|weekend|next (week|month)|mon(day)?|tue(sday)?|wed(nesday)?|thu(rsday)?|fri(day)?"
+                    + "|sat(urday)?|sun(day)?|in (an?|\\d+) (min(ute)?s?|hours?|hrs?|days?|weeks?)"
+                    + "|\\d{1,2}(:\\d{2})? ?(am|pm)|\\d{1,2}:\\d{2}|at \\d{1,2})\\b",
+            Pattern.CASE_INSENSITIVE);
+
+    private final MessagePriorityConfig config;
+    private final PartitionOwnershipConfig ownershipConfig;
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final MeterRegistry meterRegistry;
+    private final Clock clock;
+
+    // Keyed by tenant and participant
+    private final Map<String, TokenBucket> bucketsByParticipant = new ConcurrentHashMap<>();
+    // Message key of the last message deferred for each held participant, keyed by tenant and participant
+    private final Map<String, String> lastDeferredByParticipant = new ConcurrentHashMap<>();
+    private final Map<String, TokenBucket> bucketsByTenant = new ConcurrentHashMap<>();
+
+    public record Admission(MessagePriority priority, String deferralReason) {
+
+        public boolean isDeferred() {
+            return Objects.nonNull(deferralReason);
+        }
+    }
+
+    @PostConstruct
+    public void checkOwnership() {
+        if (config.isEnabled() && ownershipConfig.isEnabled()) {
+            throw new IllegalStateException("whatsapp.priority.enabled cannot be combined with "
+                    + "whatsapp.ownership.enabled, the catch-up lane does not follow partition ownership");
+        }
+    }
+
+    public static MessagePriority classify(WhatsAppMessage message) {
+        if (message.fromMe()) {
+            return MessagePriority.HIGH;
+        }
+        if (Objects.nonNull(message.content()) && TIME_EXPRESSION.matcher(message.content()).find()) {
+            return MessagePriority.HIGH;
+        }
+        return MessagePriority.NORMAL;
+    }
+
+    /**
+     * Classifies the message and, if it is deferred, publishes it to the catch-up topic.
+     *
+     * @throws IllegalStateException if the deferred message could not be published, so it is retried
+     *                               rather than lost
+     */
+    public Admission admit(WhatsAppMessage message) {
+        MessagePriority priority = classify(message);
+        Admission admission = new Admission(priority, config.isEnabled() ? deferralReason(priority, message) : null);
+
+        if (admission.isDeferred()) {
+            ProducerRecord<String, Object> record = new ProducerRecord<>(config.getCatchUpTopic(),
+                    message.participantMobileNumber(), message);
+            TraceContext.inject(record.headers());
+            // Held before sending, so the catch-up lane cannot release the message before it is held. A failed
+            // send leaves the hold, the message is retried and deferred again
+            lastDeferredByParticipant.put(participantKey(message), message.messageKey());
+            try {
+                kafkaTemplate.send(record).get(config.getDeferralTimeout().toMillis(), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while deferring message to catch-up", e);
+            } catch (ExecutionException | TimeoutException e) {
+                throw new IllegalStateException("Failed to defer message from participant %s to catch-up"
+                        .formatted(message.participantMobileNumber()), e);
+            }
+            log.debug("Deferred message from participant: {} to catch-up, reason: {}",
+                    message.participantMobileNumber(), admission.deferralReason());
+        }
+
+        meterRegistry.counter("whatsapp.admission",
+                        "priority", priority.name(),
+                        "decision", admission.isDeferred() ? admission.deferralReason() : "admitted")
+                .increment();
+        return admission;
+    }
+
+    /**
+     * Called by the catch-up lane once it has handled a deferred message. Admits the participant's messages
+     * again if it was the last one deferred.
+     */
+    public void release(WhatsAppMessage message) {
+        lastDeferredByParticipant.remove(participantKey(message), message.messageKey());
+    }
+
+    private String deferralReason(MessagePriority priority, WhatsAppMessage message) {
+        if (lastDeferredByParticipant.containsKey(participantKey(message))) {
+            return "catch-up-pending";
+        }
+        if (priority == MessagePriority.HIGH) {
+            return null;
+        }
+        if (Duration.between(message.sentAt(), clock.instant()).compareTo(config.getShedAfter()) > 0) {
+            return "backlog";
+        }
+        TokenBucket bucket = bucketsByParticipant.computeIfAbsent(
+                participantKey(message),
+                _ -> new TokenBucket(config.getBucketCapacity(), config.getRefillInterval(), clock.millis()));
+        if (!bucket.tryAcquire(clock.millis())) {
+            return "rate-limited";
+        }
+        TokenBucket tenantBucket = bucketsByTenant.computeIfAbsent(
+                message.tenantId(),
+                _ -> new TokenBucket(config.getTenantBucketCapacity(), config.getTenantRefillInterval(),
+                        clock.millis()));
+        if (!tenantBucket.tryAcquire(clock.millis())) {
+            return "tenant-rate-limited";
+        }
+        return null;
+    }
+
+    private static String participantKey(WhatsAppMessage message) {
+        return message.tenantId() + "/" + message.participantMobileNumber();
+    }
+
+    private static class TokenBucket {
+        private final int capacity;
+        private final long refillIntervalMillis;
+        private double tokens;
+        private long refilledAtMillis;
+
+        TokenBucket(int capacity, Duration refillInterval, long refilledAtMillis) {
+            this.capacity = capacity;
+            this.refillIntervalMillis = refillInterval.toMillis();
+            this.tokens = capacity;
+            this.refilledAtMillis = refilledAtMillis;
+        }
+
+        synchronized boolean tryAcquire(long nowMillis) {
+            double refilled = (double) (nowMillis - refilledAtMillis) / refillIntervalMillis;
+            tokens = Math.min(capacity, tokens + Math.max(0, refilled));
+            refilledAtMillis = nowMillis;
+            if (tokens < 1) {
+                return false;
+            }
+            tokens--;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package com.prithvianilk.mybestofriendo.contextservice.service;
+
+import com.prithvianilk.mybestofriendo.contextservice.config.TemporalResolutionConfig;
+import com.prithvianilk.mybestofriendo.contextservice.model.Commitment;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZonedDateTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.regex.MatchResult;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Resolves time expressions in a message, such as "tomorrow evening", "friday at 6" or "in 2 hours",
+ * against the time the message was sent, in {@link TemporalResolutionConfig#getZone()}.
+ * <p>
+ * Follows the same defaults the commitment prompt gives the LLM: morning is 9AM, afternoon 1PM, evening
+ * 4PM, night 7PM, and a day without a time is 12PM. A time without a day is the next time that clock
+ * time comes around.
+ */
+@Component
+@RequiredArgsConstructor
+public class TemporalExpressionResolver {
+
+    private static final LocalTime DEFAULT_TIME = LocalTime.NOON;
+
+    private static final Pattern DAY = Pattern.compile(
+            "\\b(day after tomorrow|today|tonight|tomorrow|tmrw|tmmrw|tmr|next week|(?:this )?weekend"
+                    + "|(next )?(monday|tuesday|wednesday|thursday|friday|saturday|sunday|mon|tue|wed|thu|fri))\\b");
+
+    private static final Pattern CLOCK_TIME = Pattern.compile(
+            "\\b(\\d{1,2})(?::([0-5]\\d))? ?(am|pm)\\b"
+                    + "|\\b([01]?\\d|2[0-3]):([0-5]\\d)\\b"
+                    + "|\\bat (\\d{1,2})\\b(?!:| ?[ap]m\\b)");
+
+    private static final Pattern PART_OF_DAY = Pattern.compile(
+            "\\b(morning|afternoon|evening|night|tonight|noon|midnight)\\b");
+
+    private static final Pattern RELATIVE = Pattern.compile(
+            "\\bin (an?|\\d+) (min(?:ute)?s?|hours?|hrs?|days?|weeks?)\\b");
+
+    private static final Map<String, LocalTime> PART_OF_DAY_TIMES = Map.of(
+            "morning", LocalTime.of(9, 0),
+            "afternoon", LocalTime.of(13, 0),
+            "evening", LocalTime.of(16, 0),
+            "night", LocalTime.of(19, 0),
+            "tonight", LocalTime.of(19, 0),
+            "noon", LocalTime.NOON,
+            "midnight", LocalTime.MIDNIGHT);
+
+    private static final Map<String, DayOfWeek> DAYS_OF_WEEK = Map.ofEntries(
+            Map.entry("monday", DayOfWeek.MONDAY), Map.entry("mon", DayOfWeek.MONDAY),
+            Map.entry("tuesday", DayOfWeek.TUESDAY), Map.entry("tue", DayOfWeek.TUESDAY),
+            Map.entry("wednesday", DayOfWeek.WEDNESDAY), Map.entry("wed", DayOfWeek.WEDNESDAY),
+            Map.entry("thursday", DayOfWeek.THURSDAY), Map.entry("thu", DayOfWeek.THURSDAY),
+            Map.entry("friday", DayOfWeek.FRIDAY), Map.entry("fri", DayOfWeek.FRIDAY),
+            Map.entry("saturday", DayOfWeek.SATURDAY),
+            Map.entry("sunday", DayOfWeek.SUNDAY));
+
+    private final TemporalResolutionConfig config;
+
+    /**
+     * Result of resolving a message.
+     *
+     * @param candidates  resolved instants, the absolute expression first followed by relative ones
+     * @param unambiguous whether the message names a single time, so its one candidate can be trusted
+     *                    over the LLM's reading
+     */
+    public record Resolution(List<Instant> candidates, boolean unambiguous) {
+
+        public static final Resolution NONE = new Resolution(List.of(), false);
+
+        public Optional<Instant> unambiguousCandidate() {
+            return unambiguous ? Optional.of(candidates.getFirst()) : Optional.empty();
+        }
+    }
+
+    public Resolution resolve(String text, Instant sentAt) {
+        if (Objects.isNull(text) || text.isBlank()) {
+            return Resolution.NONE;
+        }
+
+        String normalized = text.toLowerCase(Locale.ROOT);
+        ZonedDateTime sentAtLocal = sentAt.atZone(config.getZone());
+
+        List<MatchResult> days = findAll(DAY, normalized);
+        List<MatchResult> clockTimes = findAll(CLOCK_TIME, normalized);
+        List<MatchResult> partsOfDay = findAll(PART_OF_DAY, normalized);
+        List<MatchResult> relatives = findAll(RELATIVE, normalized);
+
+        List<Instant> candidates = new ArrayList<>();
+        LocalDate day = days.isEmpty() ? null : resolveDay(days.getFirst(), sentAtLocal.toLocalDate());
+        LocalTime time = !clockTimes.isEmpty()
+                ? resolveClockTime(clockTimes.getFirst())
+                : partsOfDay.isEmpty() ? null : PART_OF_DAY_TIMES.get(partsOfDay.getFirst().group(1));
+
+        if (Objects.nonNull(day) || Objects.nonNull(time)) {
+            candidates.add(combine(day, time, sentAtLocal));
+        }
+        for (MatchResult relative : relatives) {
+            candidates.add(sentAt.plus(resolveDuration(relative)));
+        }
+
+        if (candidates.isEmpty()) {
+            return Resolution.NONE;
+        }
+
+        // "6pm instead of 5pm" or "friday or saturday" could mean either, a day alone like "push it to next
+        // week" may keep the original time, and "at 30" or "13pm" are not times at all, so leave those to the LLM
+        boolean invalidClockTime = !clockTimes.isEmpty() && Objects.isNull(time);
+        boolean unambiguous = candidates.size() == 1
+                && !invalidClockTime
+                && days.size() <= 1
+                && clockTimes.size() <= 1
+                && partsOfDay.size() <= 1
+                && clockTimes.size() + partsOfDay.size() + relatives.size() > 0;
+        return new Resolution(List.copyOf(candidates), unambiguous);
+    }
+
+    /**
+     * Formats an instant the way the commitment prompt asks the LLM to write times: wall-clock time in the
+     * conversation's zone with a {@code Z} suffix.
+     */
+    public String formatForPrompt(Instant instant) {
+        return Commitment.formatForPrompt(instant, config.getZone());
+    }
+
+    private Instant combine(LocalDate day, LocalTime time, ZonedDateTime sentAtLocal) {
+        if (Objects.nonNull(day)) {
+            return LocalDateTime.of(day, Objects.requireNonNullElse(time, DEFAULT_TIME))
+                    .atZone(config.getZone())
+                    .toInstant();
+        }
+
+        ZonedDateTime sameDay = sentAtLocal.with(time).withSecond(0).withNano(0);
+        return (sameDay.isAfter(sentAtLocal) ? sameDay : sameDay.plusDays(1)).toInstant();
+    }
+
+    private static LocalDate resolveDay(MatchResult matcher, LocalDate today) {
+        String day = matcher.group(1);
+        return switch (day) {
+            case "today", "tonight" -> today;
+            case "tomorrow", "tmrw", "tmmrw", "tmr" -> today.plusDays(1);
+            case "day after tomorrow" -> today.plusDays(2);
+            case "next week" -> today.plusWeeks(1);
+            case "weekend", "this weekend" -> today.with(TemporalAdjusters.nextOrSame(DayOfWeek.SATURDAY));
+            default -> {
+                DayOfWeek dayOfWeek = DAYS_OF_WEEK.get(matcher.group(3));
+                yield Objects.nonNull(matcher.group(2))
+                        ? today.with(TemporalAdjusters.next(dayOfWeek))
+                        : today.with(TemporalAdjusters.nextOrSame(dayOfWeek));
+            }
+        };
+    }
+
+    private static LocalTime resolveClockTime(MatchResult matcher) {
+        if (Objects.nonNull(matcher.group(3))) {
+            int hour = Integer.parseInt(matcher.group(1));
+            if (hour > 12) {
+                return null;
+            }
+            hour %= 12;
+            int minute = Objects.isNull(matcher.group(2)) ? 0 : Integer.parseInt(matcher.group(2));
+            return LocalTime.of(matcher.group(3).equals("pm") ? hour + 12 : hour, minute);
+        }
+        if (Objects.nonNull(matcher.group(4))) {
+            return LocalTime.of(Integer.parseInt(matcher.group(4)), Integer.parseInt(matcher.group(5)));
+        }
+
+        // A bare "at 6" in conversation almost always means the afternoon or evening
+        int hour = Integer.parseInt(matcher.group(6));
+        if (hour > 23) {
+            return null;
+        }
+        return LocalTime.of(hour >= 1 && hour <= 7 ? hour + 12 : hour, 0);
+    }
+
+    private static Duration resolveDuration(MatchResult matcher) {
+        long amount = matcher.group(1).startsWith("a") ? 1 : Long.parseLong(matcher.group(1));
+        String unit = matcher.group(2);
+        if (unit.startsWith("min")) {
+            return Duration.ofMinutes(amount);
+        }
+        if (unit.startsWith("h")) {
+            return Duration.ofHours(amount);
+        }
+        if (unit.startsWith("day")) {
+            return Duration.ofDays(amount);
+        }
+        return Duration.ofDays(7 * amount);
+    }
+
+    private static List<MatchResult> findAll(Pattern pattern, String text) {
+        List<MatchResult> matches = new ArrayList<>();
+        Matcher matcher = pattern.matcher(text);
+        while (matcher.find()) {
+            matches.add(matcher.toMatchResult());
+        }
+        return matches;
+    }
+}
@@ -0,0 +1,224 @@
+package com.prithvianilk.mybestofriendo.contextservice.service;
+
+import com.prithvianilk.mybestofriendo.contextservice.config.MessageDispatchConfig;
+import com.prithvianilk.mybestofriendo.contextservice.logging.WideEventContext;
+import com.prithvianilk.mybestofriendo.contextservice.model.WhatsAppMessage;
+import com.prithvianilk.mybestofriendo.contextservice.tenant.TenantContext;
+import com.prithvianilk.mybestofriendo.contextservice.tracing.Span;
+import com.prithvianilk.mybestofriendo.contextservice.tracing.TraceContext;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.ClassUtils;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Runs every {@link WhatsAppMessageService} on a message concurrently, so a message costs as much as the
+ * slowest service rather than the sum of all of them.
+ * <p>
+ * Each service has its own pool of single-threaded workers with bounded queues, and each participant is
+ * pinned to one worker, so services see a participant's messages in order and a slow service cannot take
+ * threads or queue space from another. Wide event context written by workers is merged back into the
+ * caller's, and their spans are children of the caller's.
+ * <p>
+ * A service that fails, times out or is full does not hold up the others, but once every service has
+ * finished the dispatch fails, so the listener does not commit past the message and its error handler
+ * retries it. Services must therefore tolerate seeing a message again. Interrupting a timed out worker
+ * does not stop a blocking LLM or Calendar call, so the worker is abandoned and replaced rather than left
+ * to reject the participant's later messages; its tasks still queued are cancelled.
+ * <p>
+ * Inside a transaction, as in the batch listener, services run on the caller thread one after another so
+ * their writes join the transaction and failures still propagate.
+ */
+@Slf4j
+@Service
+public class WhatsAppMessageDispatcher {
+
+    private final MessageDispatchConfig config;
+    private final MeterRegistry meterRegistry;
+    private final Map<WhatsAppMessageService, AtomicReferenceArray<ThreadPoolExecutor>> workersByService =
+            new LinkedHashMap<>();
+
+    public WhatsAppMessageDispatcher(
+            List<WhatsAppMessageService> services,
+            MessageDispatchConfig config,
+            MeterRegistry meterRegistry) {
+        this.config = config;
+        this.meterRegistry = meterRegistry;
+        for (WhatsAppMessageService service : services) {
+            workersByService.put(service, createWorkers(serviceName(service)));
+        }
+    }
+
+    /**
+     * @return the outcome for each service, by service name, all of them {@code success}
+     * @throws IllegalStateException if any service failed, timed out or was full
+     */
+    public Map<String, String> dispatch(WhatsAppMessage message) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            Map<String, String> outcomes = new LinkedHashMap<>();
+            for (WhatsAppMessageService service : workersByService.keySet()) {
+                service.onNewWhatsAppMessage(message);
+                outcomes.put(serviceName(service), "success");
+            }
+            return outcomes;
+        }
+
+        List<Dispatch> dispatches = new ArrayList<>(workersByService.size());
+        workersByService.forEach((service, workers) -> dispatches.add(submit(service, workers, message)));
+
+        long deadline = System.nanoTime() + config.getTimeout().toNanos();
+        Map<String, String> outcomes = new LinkedHashMap<>();
+        Throwable firstFailure = null;
+        for (Dispatch dispatch : dispatches) {
+            String outcome;
+            try {
+                outcome = await(dispatch, message, deadline);
+            } catch (ExecutionException e) {
+                outcome = e.getCause() instanceof RejectedExecutionException ? "rejected" : "failure";
+                firstFailure = Objects.isNull(firstFailure) ? e.getCause() : firstFailure;
+            }
+            outcomes.put(dispatch.serviceName(), outcome);
+            dispatch.sample().stop(Timer.builder("whatsapp.dispatch")
+                    .tag("service", dispatch.serviceName())
+                    .tag("outcome", outcome)
+                    .register(meterRegistry));
+        }
+        WideEventContext.put("dispatch", outcomes);
+        if (outcomes.values().stream().anyMatch(outcome -> !outcome.equals("success"))) {
+            throw new IllegalStateException("Services did not handle message from participant %s: %s"
+                    .formatted(message.participantMobileNumber(), outcomes), firstFailure);
+        }
+        return outcomes;
+    }
+
+    private Dispatch submit(
+            WhatsAppMessageService service,
+            AtomicReferenceArray<ThreadPoolExecutor> workers,
+            WhatsAppMessage message) {
+        String serviceName = serviceName(service);
+        Timer.Sample sample = Timer.start(meterRegistry);
+        int stripe = Math.floorMod(message.participantMobileNumber().hashCode(), workers.length());
+        ThreadPoolExecutor worker = workers.get(stripe);
+        Span span = TraceContext.current();
+        try {
+            Future<Map<String, Object>> future = worker.submit(() -> TraceContext.call(span,
+                    () -> TenantContext.call(message.tenantId(), () -> {
+                        try {
+                            service.onNewWhatsAppMessage(message);
+                            return WideEventContext.getContext();
+                        } finally {
+                            WideEventContext.clear();
+                        }
+                    })));
+            return new Dispatch(serviceName, sample, future, () -> replaceWorker(workers, stripe, worker));
+        } catch (RejectedExecutionException e) {
+            return new Dispatch(serviceName, sample, CompletableFuture.failedFuture(e), () -> {
+            });
+        }
+    }
+
+    /**
+     * @throws ExecutionException if the service failed or its worker was full
+     */
+    private String await(Dispatch dispatch, WhatsAppMessage message, long deadline) throws ExecutionException {
+        try {
+            long remainingNanos = Math.max(0, deadline - System.nanoTime());
+            WideEventContext.mergeAll(dispatch.future().get(remainingNanos, TimeUnit.NANOSECONDS));
+            return "success";
+        } catch (TimeoutException e) {
+            log.warn("Service {} timed out on message from participant: {}",
+                    dispatch.serviceName(), message.participantMobileNumber());
+            dispatch.onTimeout().run();
+            return "timeout";
+        } catch (CancellationException e) {
+            log.warn("Service {} abandoned message from participant: {}",
+                    dispatch.serviceName(), message.participantMobileNumber());
+            return "cancelled";
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RejectedExecutionException) {
+                log.warn("Service {} is full, rejecting message from participant: {}",
+                        dispatch.serviceName(), message.participantMobileNumber());
+            } else {
+                log.error("Service {} failed on message from participant: {}",
+                        dispatch.serviceName(), message.participantMobileNumber(), e.getCause());
+            }
+            throw e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            dispatch.future().cancel(true);
+            return "interrupted";
+        }
+    }
+
+    /**
+     * Swaps a worker stuck past the timeout for a fresh one, unless another caller already has. The stuck
+     * thread is interrupted and left to finish on its own, and the tasks queued behind it are cancelled so
+     * their callers fail now instead of at their own timeout.
+     */
+    private void replaceWorker(AtomicReferenceArray<ThreadPoolExecutor> workers, int stripe, ThreadPoolExecutor stuck) {
+        ThreadPoolExecutor replacement = createWorker(stuck.getThreadFactory());
+        if (!workers.compareAndSet(stripe, stuck, replacement)) {
+            replacement.shutdown();
+            return;
+        }
+        for (Runnable queued : stuck.shutdownNow()) {
+            if (queued instanceof Future<?> future) {
+                future.cancel(false);
+            }
+        }
+    }
+
+    private AtomicReferenceArray<ThreadPoolExecutor> createWorkers(String serviceName) {
+        AtomicReferenceArray<ThreadPoolExecutor> workers = new AtomicReferenceArray<>(config.getStripes());
+        for (int i = 0; i < workers.length(); i++) {
+            String threadName = serviceName + "-" + i;
+            workers.set(i, createWorker(runnable -> Thread.ofPlatform().name(threadName).daemon().unstarted(runnable)));
+        }
+        return workers;
+    }
+
+    private ThreadPoolExecutor createWorker(ThreadFactory threadFactory) {
+        return new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(config.getQueueCapacity()), threadFactory);
+    }
+
+    private static String serviceName(WhatsAppMessageService service) {
+        return ClassUtils.getUserClass(service).getSimpleName();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workersByService.values().forEach(workers -> {
+            for (int i = 0; i < workers.length(); i++) {
+                workers.get(i).shutdown();
+            }
+        });
+    }
+
+    private record Dispatch(
+            String serviceName,
+            Timer.Sample sample,
+            Future<Map<String, Object>> future,
+            Runnable onTimeout) {
+    }
+}
@@ -0,0 +1,127 @@
+package com.prithvianilk.mybestofriendo.contextservice.service;
+
+import com.prithvianilk.mybestofriendo.contextservice.logging.CommitmentManagementContext;
+import com.prithvianilk.mybestofriendo.contextservice.logging.WideEventContext;
+import com.prithvianilk.mybestofriendo.contextservice.logging.WithWideEventLogging;
+import com.prithvianilk.mybestofriendo.contextservice.model.MessagePosition;
+import com.prithvianilk.mybestofriendo.contextservice.model.WhatsAppMessage;
+import com.prithvianilk.mybestofriendo.contextservice.repository.MessageVectorRepository;
+import com.prithvianilk.mybestofriendo.contextservice.repository.WhatsAppMessageLogRepository;
+import com.prithvianilk.mybestofriendo.contextservice.repository.WhatsAppMessageRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Ingests WhatsApp messages into the message stores and dispatches them to every {@link WhatsAppMessageService},
+ * logging one wide event per message. Shared by the record and batch Kafka listeners.
+ * <p>
+ * Messages already in the {@link IdempotencyLedger} are skipped before they reach the window or any
+ * service, and each processed message is recorded in it afterwards. A message a service failed on is
+ * not recorded, the dispatcher throws first, so its redelivery is processed again.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class WhatsAppMessageProcessor {
+
+    private final WhatsAppMessageRepository repository;
+    private final WhatsAppMessageDispatcher dispatcher;
+    private final ConversationSummaryService conversationSummaryService;
+    private final MessageVectorRepository messageVectorRepository;
+    private final WhatsAppMessageLogRepository messageLogRepository;
+    private final WindowSnapshotPublisher windowSnapshotPublisher;
+    private final IdempotencyLedger idempotencyLedger;
+
+    @WithWideEventLogging
+    public void process(WhatsAppMessage message, MessagePosition position) {
+        WideEventContext.enrich("commitmentManagement", CommitmentManagementContext.builder()
+                .whatsappMessageReceivedAt(Instant.now())
+                .build());
+        log.info("Received WhatsApp message: {}", message);
+        if (skipIfProcessed(message, position)) {
+            return;
+        }
+
+        messageLogRepository.append(message);
+        messageVectorRepository.add(message);
+        addToWindow(message, position);
+        dispatch(message, position);
+    }
+
+    /**
+     * Appends a batch of messages to the durable message stores in one go. Each message must then be
+     * passed to {@link #processIngested(WhatsAppMessage, MessagePosition)}, in order, so that it enters its
+     * window right before the services see it and is evaluated against the same history it would have
+     * had if consumed on its own.
+     */
+    public void ingestAll(List<WhatsAppMessage> messages) {
+        log.info("Received batch of {} WhatsApp messages", messages.size());
+        messageLogRepository.appendAll(messages);
+        messageVectorRepository.addAll(messages);
+    }
+
+    @WithWideEventLogging
+    public void processIngested(WhatsAppMessage message, MessagePosition position) {
+        WideEventContext.enrich("commitmentManagement", CommitmentManagementContext.builder()
+                .whatsappMessageReceivedAt(Instant.now())
+                .build());
+        if (skipIfProcessed(message, position)) {
+            return;
+        }
+
+        addToWindow(message, position);
+        dispatch(message, position);
+    }
+
+    /**
+     * Adds ingested messages of one participant to their window without dispatching them to the services,
+     * recording them in the ledger in one transaction. For chat history too old to detect commitments in.
+     */
+    public void processHistory(String participantMobileNumber, List<WhatsAppMessage> messages) {
+        List<WhatsAppMessage> unprocessed = messages.stream()
+                .filter(message -> !idempotencyLedger.isProcessed(message))
+                .toList();
+        if (unprocessed.isEmpty()) {
+            return;
+        }
+
+        for (WhatsAppMessage message : unprocessed) {
+            List<WhatsAppMessage> evictedMessages = repository.add(message);
+            conversationSummaryService.onMessagesEvicted(participantMobileNumber, evictedMessages);
+        }
+        // Only the final window matters, so it is published once rather than per message
+        windowSnapshotPublisher.publish(participantMobileNumber, null);
+        idempotencyLedger.recordAll(unprocessed, "history");
+    }
+
+    private boolean skipIfProcessed(WhatsAppMessage message, MessagePosition position) {
+        if (!idempotencyLedger.isProcessed(message)) {
+            return false;
+        }
+
+        log.info("Skipping already processed WhatsApp message at {}", position);
+        WideEventContext.put("duplicate", true);
+        idempotencyLedger.advance(position);
+        return true;
+    }
+
+    private void addToWindow(WhatsAppMessage message, MessagePosition position) {
+        List<WhatsAppMessage> evictedMessages = repository.add(message);
+        conversationSummaryService.onMessagesEvicted(message.participantMobileNumber(), evictedMessages);
+        windowSnapshotPublisher.publish(message.participantMobileNumber(), position);
+    }
+
+    private void dispatch(WhatsAppMessage message, MessagePosition position) {
+        Map<String, String> outcomes = dispatcher.dispatch(message);
+        String outcome = outcomes.entrySet().stream()
+                .map(entry -> entry.getKey() + "=" + entry.getValue())
+                .collect(Collectors.joining(","));
+        idempotencyLedger.record(message, position, outcome);
+    }
+}
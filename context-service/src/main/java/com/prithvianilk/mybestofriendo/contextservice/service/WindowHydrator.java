@@ -0,0 +1,202 @@
+package com.prithvianilk.mybestofriendo.contextservice.service;
+
+import com.prithvianilk.mybestofriendo.contextservice.config.PartitionOwnershipConfig;
+import com.prithvianilk.mybestofriendo.contextservice.config.WindowSnapshotConfig;
+import com.prithvianilk.mybestofriendo.contextservice.model.MessagePosition;
+import com.prithvianilk.mybestofriendo.contextservice.model.WindowSnapshot;
+import com.prithvianilk.mybestofriendo.contextservice.repository.WhatsAppMessageRepository;
+import com.prithvianilk.mybestofriendo.contextservice.tenant.TenantContext;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.listener.AbstractMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Rebuilds the in-memory message windows from the compacted snapshot topic on startup.
+ * <p>
+ * Runs as a {@link SmartLifecycle} in an earlier phase than the Kafka listener containers, so
+ * whatsapp-messages is not consumed until every window is hydrated. Because this happens while the
+ * context is refreshing, the readiness probe keeps reporting {@code REFUSING_TRAFFIC} until it is done.
+ * Windows are replaced directly in the repository, so hydration never triggers summarisation. A snapshot
+ * republished after a crash can follow snapshots of later messages, so one whose
+ * {@link WindowSnapshotPublisher#SOURCE_POSITION_HEADER} is behind the last applied one from the same
+ * partition is skipped.
+ * <p>
+ * With {@link PartitionOwnershipConfig#isEnabled()} the startup pass is skipped, and only the snapshot
+ * partitions matching the instance's assigned whatsapp-messages partitions are replayed, through
+ * {@link #hydratePartitions(Collection)}, as they are assigned.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class WindowHydrator implements SmartLifecycle {
+
+    private static final Duration POLL_TIMEOUT = Duration.ofMillis(500);
+
+    private final WindowSnapshotConfig config;
+    private final PartitionOwnershipConfig ownershipConfig;
+    private final WhatsAppMessageRepository repository;
+    private final ConsumerFactory<String, WindowSnapshot> windowSnapshotConsumerFactory;
+    private final MeterRegistry meterRegistry;
+
+    private volatile boolean running;
+
+    @Override
+    public void start() {
+        running = true;
+        if (!config.isEnabled() || ownershipConfig.isEnabled()) {
+            return;
+        }
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            int participants = hydrate();
+            long durationNanos = sample.stop(meterRegistry.timer("whatsapp.window.hydration"));
+            log.info("Hydrated {} message windows in {} ms", participants, Duration.ofNanos(durationNanos).toMillis());
+        } catch (Exception e) {
+            sample.stop(meterRegistry.timer("whatsapp.window.hydration"));
+            log.error("Failed to hydrate message windows, starting with whatever was read", e);
+        }
+    }
+
+    /**
+     * Reads the snapshot topic from the beginning up to its end offsets at startup, applying the latest
+     * snapshot of each participant.
+     *
+     * @return the number of snapshots applied
+     */
+    private int hydrate() {
+        try (Consumer<String, WindowSnapshot> consumer = windowSnapshotConsumerFactory.createConsumer()) {
+            List<PartitionInfo> partitionInfos = consumer.partitionsFor(config.getTopic());
+            if (Objects.isNull(partitionInfos) || partitionInfos.isEmpty()) {
+                return 0;
+            }
+
+            List<TopicPartition> partitions = partitionInfos.stream()
+                    .map(info -> new TopicPartition(info.topic(), info.partition()))
+                    .toList();
+            return hydrate(consumer, partitions);
+        }
+    }
+
+    /**
+     * Replays the snapshot partitions with the given numbers. The snapshot topic is keyed by participant
+     * like whatsapp-messages, so with equal partition counts these hold exactly the participants of the
+     * whatsapp-messages partitions with the same numbers.
+     *
+     * @return the number of snapshots applied
+     */
+    public int hydratePartitions(Collection<Integer> partitionNumbers) {
+        if (!config.isEnabled() || partitionNumbers.isEmpty()) {
+            return 0;
+        }
+
+        List<TopicPartition> partitions = partitionNumbers.stream()
+                .map(partition -> new TopicPartition(config.getTopic(), partition))
+                .toList();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try (Consumer<String, WindowSnapshot> consumer = windowSnapshotConsumerFactory.createConsumer()) {
+            return hydrate(consumer, partitions);
+        } finally {
+            sample.stop(meterRegistry.timer("whatsapp.window.hydration"));
+        }
+    }
+
+    /**
+     * Replays the given partitions of the snapshot topic into the repository.
+     *
+     * @return the number of snapshots applied
+     */
+    public int hydrate(Consumer<String, WindowSnapshot> consumer, Collection<TopicPartition> partitions) {
+        consumer.assign(partitions);
+        consumer.seekToBeginning(partitions);
+        Map<TopicPartition, Long> endOffsets = consumer.endOffsets(partitions);
+
+        long deadline = System.nanoTime() + config.getHydrationTimeout().toNanos();
+        Map<String, MessagePosition> appliedPositions = new HashMap<>();
+        int applied = 0;
+        while (!caughtUp(consumer, endOffsets)) {
+            if (System.nanoTime() - deadline > 0) {
+                log.warn("Window hydration timed out after {} snapshots", applied);
+                break;
+            }
+            for (ConsumerRecord<String, WindowSnapshot> record : consumer.poll(POLL_TIMEOUT)) {
+                if (isStale(record, appliedPositions)) {
+                    continue;
+                }
+                apply(record);
+                applied++;
+            }
+        }
+        return applied;
+    }
+
+    /**
+     * Whether the record is a republished snapshot older than one already applied for its key, and if not
+     * remembers its position.
+     */
+    private static boolean isStale(
+            ConsumerRecord<String, WindowSnapshot> record,
+            Map<String, MessagePosition> appliedPositions) {
+        MessagePosition position = WindowSnapshotPublisher.sourcePosition(record.headers());
+        MessagePosition appliedPosition = appliedPositions.get(record.key());
+        if (Objects.nonNull(position) && Objects.nonNull(appliedPosition)
+                && position.topic().equals(appliedPosition.topic())
+                && position.partition() == appliedPosition.partition()
+                && position.offset() < appliedPosition.offset()) {
+            return true;
+        }
+        if (Objects.isNull(record.value())) {
+            appliedPositions.remove(record.key());
+        } else if (Objects.nonNull(position)) {
+            appliedPositions.put(record.key(), position);
+        }
+        return false;
+    }
+
+    private void apply(ConsumerRecord<String, WindowSnapshot> record) {
+        WindowSnapshot snapshot = record.value();
+        if (Objects.isNull(snapshot)) {
+            // Tombstones only carry the key, the participant for the default tenant
+            repository.remove(record.key());
+            return;
+        }
+        TenantContext.run(snapshot.tenantId(),
+                () -> repository.replace(snapshot.participantMobileNumber(), snapshot.messages()));
+    }
+
+    private static boolean caughtUp(Consumer<?, ?> consumer, Map<TopicPartition, Long> endOffsets) {
+        return endOffsets.entrySet().stream()
+                .allMatch(entry -> consumer.position(entry.getKey()) >= entry.getValue());
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return AbstractMessageListenerContainer.DEFAULT_PHASE - 100;
+    }
+}
@@ -0,0 +1,86 @@
+package com.prithvianilk.mybestofriendo.contextservice.service;
+
+import com.prithvianilk.mybestofriendo.contextservice.config.WindowSnapshotConfig;
+import com.prithvianilk.mybestofriendo.contextservice.listener.WindowOwnershipRebalanceListener;
+import com.prithvianilk.mybestofriendo.contextservice.model.MessagePosition;
+import com.prithvianilk.mybestofriendo.contextservice.model.WhatsAppMessage;
+import com.prithvianilk.mybestofriendo.contextservice.model.WindowSnapshot;
+import com.prithvianilk.mybestofriendo.contextservice.repository.WhatsAppMessageRepository;
+import com.prithvianilk.mybestofriendo.contextservice.tenant.TenantContext;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Publishes a participant's current window to the compacted snapshot topic after every window change, so
+ * {@link WindowHydrator} can rebuild it after a restart.
+ * <p>
+ * Snapshots are sent before the offset of the message that changed the window is committed, so a crash in
+ * between publishes the snapshot again once the message is redelivered, possibly after snapshots of later
+ * messages. Each snapshot therefore carries the position of that message in the
+ * {@value #SOURCE_POSITION_HEADER} header, {@code topic:partition:offset}, for consumers to drop snapshots
+ * older than one they already have.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class WindowSnapshotPublisher {
+
+    public static final String SOURCE_POSITION_HEADER = "whatsapp.source-position";
+
+    private final WindowSnapshotConfig config;
+    private final WhatsAppMessageRepository repository;
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+
+    /**
+     * @param sourcePosition position of the message that changed the window, or null when it did not come
+     *                       from Kafka
+     */
+    public void publish(String participantMobileNumber, MessagePosition sourcePosition) {
+        if (!config.isEnabled()) {
+            return;
+        }
+
+        List<WhatsAppMessage> messages = List.copyOf(repository.getMessages(participantMobileNumber));
+        // Partitioned by participant alone, like whatsapp-messages, but keyed per tenant for compaction
+        int partition = WindowOwnershipRebalanceListener.partitionFor(participantMobileNumber, config.getPartitions());
+        ProducerRecord<String, Object> record = new ProducerRecord<>(config.getTopic(), partition,
+                TenantContext.qualify(participantMobileNumber),
+                new WindowSnapshot(participantMobileNumber, messages, TenantContext.current()));
+        if (Objects.nonNull(sourcePosition)) {
+            String header = sourcePosition.topic() + ":" + sourcePosition.partition() + ":" + sourcePosition.offset();
+            record.headers().add(SOURCE_POSITION_HEADER, header.getBytes(StandardCharsets.UTF_8));
+        }
+        kafkaTemplate.send(record)
+                .whenComplete((_, e) -> {
+                    if (Objects.nonNull(e)) {
+                        log.warn("Failed to publish window snapshot for participant: {}", participantMobileNumber, e);
+                    }
+                });
+    }
+
+    /**
+     * @return the position in the {@value #SOURCE_POSITION_HEADER} header of a snapshot, or null without one
+     */
+    public static MessagePosition sourcePosition(Headers headers) {
+        Header header = headers.lastHeader(SOURCE_POSITION_HEADER);
+        if (Objects.isNull(header)) {
+            return null;
+        }
+        // Topic names cannot contain ':', so the last two fields are always the partition and offset
+        String value = new String(header.value(), StandardCharsets.UTF_8);
+        int offsetSeparator = value.lastIndexOf(':');
+        int partitionSeparator = value.lastIndexOf(':', offsetSeparator - 1);
+        return new MessagePosition(value.substring(0, partitionSeparator),
+                Integer.parseInt(value.substring(partitionSeparator + 1, offsetSeparator)),
+                Long.parseLong(value.substring(offsetSeparator + 1)));
+    }
+}
@@ -0,0 +1,94 @@
+package com.prithvianilk.mybestofriendo.contextservice.tenant;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Brings a tenant schema up to the default schema of the shared PostgreSQL database, which Hibernate keeps
+ * current.
+ * <p>
+ * Tables missing from the tenant schema are created like the default schema's, with their defaults,
+ * constraints, indexes and identity columns, and columns added to existing tables since are added to it.
+ * Nothing is ever dropped or altered, as with {@link SqliteSchemaSync}.
+ */
+final class PostgresSchemaSync {
+
+    private static final String TABLES = """
+            SELECT table_name FROM information_schema.tables
+            WHERE table_schema = ? AND table_type = 'BASE TABLE'""";
+
+    private static final String COLUMNS = """
+            SELECT a.attname, format_type(a.atttypid, a.atttypmod) AS type FROM pg_attribute a
+            JOIN pg_class c ON c.oid = a.attrelid
+            JOIN pg_namespace n ON n.oid = c.relnamespace
+            WHERE n.nspname = ? AND c.relname = ? AND a.attnum > 0 AND NOT a.attisdropped
+            ORDER BY a.attnum""";
+
+    private PostgresSchemaSync() {
+    }
+
+    static void sync(Connection connection, String sourceSchema, String targetSchema) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE SCHEMA IF NOT EXISTS " + quote(targetSchema));
+            Set<String> targetTables = readTables(connection, targetSchema);
+            for (String table : readTables(connection, sourceSchema)) {
+                if (!targetTables.contains(table)) {
+                    statement.execute("CREATE TABLE IF NOT EXISTS %s.%s (LIKE %s.%s INCLUDING ALL)".formatted(
+                            quote(targetSchema), quote(table), quote(sourceSchema), quote(table)));
+                } else {
+                    addMissingColumns(connection, statement, sourceSchema, targetSchema, table);
+                }
+            }
+        }
+    }
+
+    private static void addMissingColumns(Connection connection, Statement statement, String sourceSchema,
+                                          String targetSchema, String table) throws SQLException {
+        Map<String, String> targetColumns = readColumns(connection, targetSchema, table);
+        for (Map.Entry<String, String> column : readColumns(connection, sourceSchema, table).entrySet()) {
+            if (!targetColumns.containsKey(column.getKey())) {
+                statement.execute("ALTER TABLE %s.%s ADD COLUMN IF NOT EXISTS %s %s".formatted(
+                        quote(targetSchema), quote(table), quote(column.getKey()), column.getValue()));
+            }
+        }
+    }
+
+    private static Set<String> readTables(Connection connection, String schema) throws SQLException {
+        Set<String> tables = new LinkedHashSet<>();
+        try (PreparedStatement statement = connection.prepareStatement(TABLES)) {
+            statement.setString(1, schema);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    tables.add(resultSet.getString("table_name"));
+                }
+            }
+        }
+        return tables;
+    }
+
+    private static Map<String, String> readColumns(Connection connection, String schema, String table)
+            throws SQLException {
+        Map<String, String> columns = new LinkedHashMap<>();
+        try (PreparedStatement statement = connection.prepareStatement(COLUMNS)) {
+            statement.setString(1, schema);
+            statement.setString(2, table);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    columns.put(resultSet.getString("attname"), resultSet.getString("type"));
+                }
+            }
+        }
+        return columns;
+    }
+
+    private static String quote(String identifier) {
+        return '"' + identifier.replace("\"", "\"\"") + '"';
+    }
+}
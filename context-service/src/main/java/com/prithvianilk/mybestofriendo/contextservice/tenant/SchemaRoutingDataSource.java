@@ -0,0 +1,105 @@
+package com.prithvianilk.mybestofriendo.contextservice.tenant;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Hands out connections to the schema of {@link TenantContext#current()} in a shared PostgreSQL database, the
+ * counterpart of {@link TenantRoutingDataSource} for several instances, where tenants cannot each have a
+ * SQLite file.
+ * <p>
+ * The default tenant uses the pool's own schema, on which Hibernate manages the schema. Every other tenant
+ * gets a {@code tenant_<id>} schema, created on first use and brought up to the default one with
+ * {@link PostgresSchemaSync}. Every table, query and unique key is therefore scoped to one tenant without
+ * the entities knowing about tenants, as it is with SQLite shards. The schema is set per connection, and the
+ * pool resets it when the connection is returned.
+ */
+@Slf4j
+public class SchemaRoutingDataSource extends AbstractDataSource implements Closeable {
+
+    static final String SCHEMA_PREFIX = "tenant_";
+    private static final int MAX_IDENTIFIER_LENGTH = 63;
+
+    private final HikariDataSource primary;
+    private final Set<String> syncedSchemas = ConcurrentHashMap.newKeySet();
+
+    public SchemaRoutingDataSource(HikariDataSource primary) {
+        this.primary = primary;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        Connection connection = primary.getConnection();
+        if (TenantContext.isDefault()) {
+            return connection;
+        }
+
+        try {
+            String schema = schemaName(TenantContext.current());
+            if (!syncedSchemas.contains(schema)) {
+                sync(connection, schema);
+            }
+            connection.setSchema(schema);
+            return connection;
+        } catch (SQLException | RuntimeException e) {
+            connection.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Tenant schemas use the configured credentials");
+    }
+
+    /**
+     * Every tenant other than the default one that has a schema.
+     */
+    public Set<String> tenantIds() throws SQLException {
+        Set<String> tenantIds = new LinkedHashSet<>();
+        try (Connection connection = primary.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("""
+                     SELECT schema_name FROM information_schema.schemata
+                     WHERE schema_name LIKE 'tenant\\_%' ORDER BY schema_name""")) {
+            while (resultSet.next()) {
+                tenantIds.add(resultSet.getString("schema_name").substring(SCHEMA_PREFIX.length()));
+            }
+        }
+        return tenantIds;
+    }
+
+    @Override
+    public void close() {
+        primary.close();
+    }
+
+    static String schemaName(String tenantId) {
+        String schema = SCHEMA_PREFIX + tenantId;
+        // Longer identifiers are silently truncated, which could put two tenants in one schema
+        if (schema.length() > MAX_IDENTIFIER_LENGTH) {
+            throw new IllegalArgumentException("Tenant id is too long for a PostgreSQL schema: " + tenantId);
+        }
+        return schema;
+    }
+
+    private synchronized void sync(Connection connection, String schema) throws SQLException {
+        if (syncedSchemas.contains(schema)) {
+            return;
+        }
+        log.info("Syncing schema {} with {}", schema, connection.getSchema());
+        PostgresSchemaSync.sync(connection, connection.getSchema(), schema);
+        syncedSchemas.add(schema);
+    }
+}
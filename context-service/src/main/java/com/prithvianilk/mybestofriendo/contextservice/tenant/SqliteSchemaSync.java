@@ -0,0 +1,110 @@
+package com.prithvianilk.mybestofriendo.contextservice.tenant;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Brings a tenant shard up to the schema of the primary SQLite database, which Hibernate and
+ * {@link com.prithvianilk.mybestofriendo.contextservice.repository.WhatsAppMessageLogRepository} keep
+ * current.
+ * <p>
+ * Tables, indexes, triggers and virtual tables missing from the shard are created from the primary's
+ * stored DDL, and columns added to existing tables since the shard was created are added to it. Nothing
+ * is ever dropped or altered.
+ */
+final class SqliteSchemaSync {
+
+    private static final String SCHEMA = """
+            SELECT type, name, sql FROM sqlite_master
+            WHERE sql IS NOT NULL AND name NOT LIKE 'sqlite_%'
+            ORDER BY rowid""";
+
+    // Created by SQLite along with an FTS5 table, named <table>_<suffix>
+    private static final List<String> FTS5_SHADOW_SUFFIXES = List.of("_data", "_idx", "_content", "_docsize",
+            "_config");
+
+    private SqliteSchemaSync() {
+    }
+
+    static void sync(Connection source, Connection target) throws SQLException {
+        List<SchemaObject> sourceObjects = readSchema(source);
+        Set<String> targetNames = readSchema(target).stream()
+                .map(SchemaObject::name)
+                .collect(Collectors.toSet());
+        List<String> virtualTables = sourceObjects.stream()
+                .filter(SchemaObject::isVirtualTable)
+                .map(SchemaObject::name)
+                .toList();
+
+        try (Statement statement = target.createStatement()) {
+            for (SchemaObject object : sourceObjects) {
+                if (isShadowTable(object.name(), virtualTables)) {
+                    continue;
+                }
+                if (!targetNames.contains(object.name())) {
+                    statement.execute(object.sql());
+                } else if (object.type().equals("table") && !object.isVirtualTable()) {
+                    addMissingColumns(source, target, statement, object.name());
+                }
+            }
+        }
+    }
+
+    private static void addMissingColumns(Connection source, Connection target, Statement statement, String table)
+            throws SQLException {
+        Map<String, String> targetColumns = readColumns(target, table);
+        for (Map.Entry<String, String> column : readColumns(source, table).entrySet()) {
+            if (!targetColumns.containsKey(column.getKey())) {
+                statement.execute("ALTER TABLE %s ADD COLUMN %s %s"
+                        .formatted(quote(table), quote(column.getKey()), column.getValue()));
+            }
+        }
+    }
+
+    private static List<SchemaObject> readSchema(Connection connection) throws SQLException {
+        List<SchemaObject> objects = new ArrayList<>();
+        try (Statement statement = connection.createStatement(); ResultSet resultSet = statement.executeQuery(SCHEMA)) {
+            while (resultSet.next()) {
+                objects.add(new SchemaObject(resultSet.getString("type"), resultSet.getString("name"),
+                        resultSet.getString("sql")));
+            }
+        }
+        return objects;
+    }
+
+    private static Map<String, String> readColumns(Connection connection, String table) throws SQLException {
+        Map<String, String> columns = new LinkedHashMap<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("PRAGMA table_info(%s)".formatted(quote(table)))) {
+            while (resultSet.next()) {
+                columns.put(resultSet.getString("name"), resultSet.getString("type"));
+            }
+        }
+        return columns;
+    }
+
+    private static boolean isShadowTable(String name, List<String> virtualTables) {
+        return virtualTables.stream().anyMatch(virtualTable -> FTS5_SHADOW_SUFFIXES.stream()
+                .anyMatch(suffix -> name.equals(virtualTable + suffix)));
+    }
+
+    private static String quote(String identifier) {
+        return '"' + identifier.replace("\"", "\"\"") + '"';
+    }
+
+    private record SchemaObject(String type, String name, String sql) {
+
+        boolean isVirtualTable() {
+            return sql.toUpperCase(Locale.ROOT).startsWith("CREATE VIRTUAL TABLE");
+        }
+    }
+}
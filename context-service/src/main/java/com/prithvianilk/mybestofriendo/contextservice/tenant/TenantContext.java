@@ -0,0 +1,84 @@
+package com.prithvianilk.mybestofriendo.contextservice.tenant;
+
+import java.util.Objects;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * The tenant the current thread is working for. Storage, caches and Calendar clients are picked by it, so
+ * it must be set before any of them are touched and handed over explicitly when work moves to another
+ * thread. Threads that never set it act for {@link #DEFAULT_TENANT}, the single user of older deployments.
+ */
+public final class TenantContext {
+
+    public static final String DEFAULT_TENANT = "default";
+
+    private static final Pattern TENANT_ID = Pattern.compile("[a-z0-9][a-z0-9-]{0,62}");
+    private static final ThreadLocal<String> TENANT = new ThreadLocal<>();
+
+    private TenantContext() {
+    }
+
+    public static String current() {
+        return Objects.requireNonNullElse(TENANT.get(), DEFAULT_TENANT);
+    }
+
+    public static boolean isDefault() {
+        return DEFAULT_TENANT.equals(current());
+    }
+
+    public static void run(String tenantId, Runnable action) {
+        call(tenantId, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    public static <T> T call(String tenantId, Supplier<T> action) {
+        String previous = enter(tenantId);
+        try {
+            return action.get();
+        } finally {
+            exit(previous);
+        }
+    }
+
+    /**
+     * Switches the current thread to {@code tenantId}, returning the value to pass to {@link #exit(String)}.
+     * For callers that cannot wrap their work in a lambda, such as servlet filters.
+     */
+    static String enter(String tenantId) {
+        String previous = TENANT.get();
+        TENANT.set(validate(tenantId));
+        return previous;
+    }
+
+    static void exit(String previous) {
+        if (Objects.isNull(previous)) {
+            TENANT.remove();
+        } else {
+            TENANT.set(previous);
+        }
+    }
+
+    /**
+     * Qualifies a per-participant key with the current tenant, leaving keys of the default tenant as they
+     * were before tenants existed.
+     */
+    public static String qualify(String key) {
+        return isDefault() ? key : current() + "/" + key;
+    }
+
+    /**
+     * Tenant ids end up in file names, so only lowercase letters, digits and dashes are allowed.
+     */
+    public static String validate(String tenantId) {
+        if (Objects.isNull(tenantId)) {
+            return DEFAULT_TENANT;
+        }
+        if (!TENANT_ID.matcher(tenantId).matches()) {
+            throw new IllegalArgumentException("Invalid tenant id: " + tenantId);
+        }
+        return tenantId;
+    }
+}
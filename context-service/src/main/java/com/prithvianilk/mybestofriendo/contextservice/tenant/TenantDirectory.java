@@ -0,0 +1,57 @@
+package com.prithvianilk.mybestofriendo.contextservice.tenant;
+
+import com.prithvianilk.mybestofriendo.contextservice.config.TenancyConfig;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Lists the tenants that have stored anything, for background work that runs for every tenant.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TenantDirectory {
+
+    private final TenancyConfig tenancyConfig;
+    private final DataSource dataSource;
+
+    /**
+     * The default tenant and every tenant with a shard or schema.
+     */
+    public Set<String> tenantIds() {
+        Set<String> tenantIds = new LinkedHashSet<>();
+        tenantIds.add(TenantContext.DEFAULT_TENANT);
+        if (dataSource instanceof SchemaRoutingDataSource schemas) {
+            try {
+                tenantIds.addAll(schemas.tenantIds());
+            } catch (SQLException e) {
+                log.warn("Failed to list tenant schemas", e);
+            }
+            return tenantIds;
+        }
+
+        Path shardDirectory = Path.of(tenancyConfig.getShardDirectory());
+        if (!tenancyConfig.isShardingEnabled() || !Files.isDirectory(shardDirectory)) {
+            return tenantIds;
+        }
+        try (Stream<Path> files = Files.list(shardDirectory)) {
+            files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.endsWith(".db"))
+                    .map(name -> name.substring(0, name.length() - ".db".length()))
+                    .forEach(tenantIds::add);
+        } catch (IOException e) {
+            log.warn("Failed to list tenant shards in {}", shardDirectory, e);
+        }
+        return tenantIds;
+    }
+}
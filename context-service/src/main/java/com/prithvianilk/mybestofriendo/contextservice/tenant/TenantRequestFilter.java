@@ -0,0 +1,39 @@
+package com.prithvianilk.mybestofriendo.contextservice.tenant;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Runs each HTTP request as the tenant named in the {@code X-Tenant-Id} header, or the default tenant
+ * when it is missing.
+ */
+@Component
+public class TenantRequestFilter extends OncePerRequestFilter {
+
+    public static final String TENANT_HEADER = "X-Tenant-Id";
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String previous;
+        try {
+            previous = TenantContext.enter(request.getHeader(TENANT_HEADER));
+        } catch (IllegalArgumentException e) {
+            response.sendError(HttpStatus.BAD_REQUEST.value(), e.getMessage());
+            return;
+        }
+
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            TenantContext.exit(previous);
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.prithvianilk.mybestofriendo.contextservice.tenant;
+
+import com.prithvianilk.mybestofriendo.contextservice.config.TenancyConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hands out connections to the shard of {@link TenantContext#current()}.
+ * <p>
+ * The default tenant uses the primary data source, on which Hibernate manages the schema. Every other
+ * tenant gets a SQLite file in {@link TenancyConfig#getShardDirectory()}, opened with its own small pool
+ * on first use and brought up to the primary's schema with {@link SqliteSchemaSync}. Shards with no open
+ * connections are closed once idle for {@link TenancyConfig#getShardIdleTimeout()}; a connection request
+ * that races with the close simply reopens the shard.
+ */
+@Slf4j
+public class TenantRoutingDataSource extends AbstractDataSource implements Closeable {
+
+    private static final String SHARD_URL_PARAMETERS = "?journal_mode=WAL&busy_timeout=30000";
+
+    private final HikariDataSource primary;
+    private final TenancyConfig config;
+
+    private final Map<String, Shard> shardsByTenant = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService sweeper = Executors.newSingleThreadScheduledExecutor(
+            runnable -> Thread.ofPlatform().name("tenant-shard-sweeper").daemon().unstarted(runnable));
+
+    public TenantRoutingDataSource(HikariDataSource primary, TenancyConfig config) {
+        this.primary = primary;
+        this.config = config;
+        long sweepIntervalMillis = Math.max(1, config.getShardIdleTimeout().toMillis() / 2);
+        sweeper.scheduleWithFixedDelay(this::closeIdleShards, sweepIntervalMillis, sweepIntervalMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (TenantContext.isDefault()) {
+            return primary.getConnection();
+        }
+
+        String tenantId = TenantContext.current();
+        while (true) {
+            Shard shard = shardsByTenant.computeIfAbsent(tenantId, this::openShard);
+            shard.touch();
+            try {
+                return shard.dataSource().getConnection();
+            } catch (SQLException e) {
+                if (!shard.dataSource().isClosed()) {
+                    throw e;
+                }
+                // Closed by the sweeper after we picked it up, open it again
+                shardsByTenant.remove(tenantId, shard);
+            }
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Tenant shards use the configured credentials");
+    }
+
+    /**
+     * Closes shards that have no connections in use and have not been asked for one within the idle
+     * timeout.
+     */
+    public void closeIdleShards() {
+        long idleBeforeNanos = System.nanoTime() - config.getShardIdleTimeout().toNanos();
+        shardsByTenant.forEach((tenantId, shard) -> {
+            if (shard.lastUsedNanos() - idleBeforeNanos < 0 && shard.activeConnections() == 0
+                    && shardsByTenant.remove(tenantId, shard)) {
+                log.info("Closing idle shard of tenant: {}", tenantId);
+                shard.dataSource().close();
+            }
+        });
+    }
+
+    public int openShardCount() {
+        return shardsByTenant.size();
+    }
+
+    @Override
+    public void close() {
+        sweeper.shutdownNow();
+        shardsByTenant.values().forEach(shard -> shard.dataSource().close());
+        shardsByTenant.clear();
+        primary.close();
+    }
+
+    private Shard openShard(String tenantId) {
+        Path file = Path.of(config.getShardDirectory(), tenantId + ".db");
+        log.info("Opening shard of tenant: {} at {}", tenantId, file);
+
+        HikariDataSource dataSource = new HikariDataSource();
+        try {
+            Files.createDirectories(file.getParent());
+            dataSource.setJdbcUrl("jdbc:sqlite:" + file + SHARD_URL_PARAMETERS);
+            dataSource.setMaximumPoolSize(config.getShardPoolSize());
+            dataSource.setPoolName("tenant-" + tenantId);
+
+            try (Connection source = primary.getConnection(); Connection target = dataSource.getConnection()) {
+                SqliteSchemaSync.sync(source, target);
+            }
+            return new Shard(dataSource);
+        } catch (IOException e) {
+            dataSource.close();
+            throw new UncheckedIOException("Failed to create shard directory for tenant: " + tenantId, e);
+        } catch (SQLException e) {
+            dataSource.close();
+            throw new IllegalStateException("Failed to open shard of tenant: " + tenantId, e);
+        }
+    }
+
+    private static final class Shard {
+        private final HikariDataSource dataSource;
+        private volatile long lastUsedNanos = System.nanoTime();
+
+        private Shard(HikariDataSource dataSource) {
+            this.dataSource = dataSource;
+        }
+
+        HikariDataSource dataSource() {
+            return dataSource;
+        }
+
+        long lastUsedNanos() {
+            return lastUsedNanos;
+        }
+
+        void touch() {
+            lastUsedNanos = System.nanoTime();
+        }
+
+        int activeConnections() {
+            return dataSource.getHikariPoolMXBean().getActiveConnections();
+        }
+    }
+}
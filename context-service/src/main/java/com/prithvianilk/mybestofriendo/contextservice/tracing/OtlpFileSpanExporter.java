@@ -0,0 +1,177 @@
+package com.prithvianilk.mybestofriendo.contextservice.tracing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.prithvianilk.mybestofriendo.contextservice.config.TracingConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Appends ended spans to a file as OTLP/JSON, one export request per line, so that they can be read by the
+ * OpenTelemetry Collector's otlpjsonfile receiver or any OTLP tool without running a collector next to the
+ * service. Spans are queued and written by a background thread once per flush interval.
+ * <p>
+ * The file is rotated once it reaches {@link TracingConfig#getMaxFileSize()}, keeping one previous file, which
+ * the otlpjsonfile receiver follows.
+ */
+@Slf4j
+@Component
+public class OtlpFileSpanExporter implements SpanExporter {
+
+    private static final String SCOPE_NAME = "com.prithvianilk.mybestofriendo.contextservice";
+    private static final int STATUS_CODE_ERROR = 2;
+
+    private final TracingConfig config;
+    private final ObjectMapper objectMapper;
+    private final BlockingQueue<Span> queue;
+    private final Counter droppedSpans;
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(
+            runnable -> Thread.ofPlatform().name("span-exporter").daemon().unstarted(runnable));
+
+    private Path path;
+    private BufferedWriter writer;
+    private long fileBytes;
+
+    public OtlpFileSpanExporter(TracingConfig config, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.config = config;
+        this.objectMapper = objectMapper;
+        this.queue = new ArrayBlockingQueue<>(config.getQueueCapacity());
+        this.droppedSpans = meterRegistry.counter("whatsapp.tracing.dropped");
+    }
+
+    @PostConstruct
+    public void open() throws IOException {
+        if (!config.isEnabled()) {
+            return;
+        }
+
+        path = Path.of(config.getPath()).toAbsolutePath();
+        Files.createDirectories(path.getParent());
+        openWriter();
+
+        long flushMillis = config.getFlushInterval().toMillis();
+        flusher.scheduleWithFixedDelay(this::flush, flushMillis, flushMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        flusher.shutdownNow();
+        if (Objects.nonNull(writer)) {
+            flush();
+            writer.close();
+        }
+    }
+
+    @Override
+    public void export(Span span) {
+        if (config.isEnabled() && !queue.offer(span)) {
+            droppedSpans.increment();
+        }
+    }
+
+    /**
+     * Writes the queued spans as one export request.
+     */
+    public synchronized void flush() {
+        if (Objects.isNull(writer) || queue.isEmpty()) {
+            return;
+        }
+        List<Span> spans = new ArrayList<>(queue.size());
+        queue.drainTo(spans);
+        try {
+            String line = objectMapper.writeValueAsString(exportRequest(spans)) + System.lineSeparator();
+            writer.write(line);
+            writer.flush();
+            fileBytes += line.getBytes(StandardCharsets.UTF_8).length;
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to export {} spans", spans.size(), e);
+            droppedSpans.increment(spans.size());
+        }
+        if (fileBytes >= config.getMaxFileSize().toBytes()) {
+            rotate();
+        }
+    }
+
+    private void openWriter() throws IOException {
+        writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        fileBytes = Files.size(path);
+    }
+
+    private void rotate() {
+        try {
+            writer.close();
+            Files.move(path, path.resolveSibling(path.getFileName() + ".1"), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            log.warn("Failed to rotate {}", path, e);
+        }
+        try {
+            openWriter();
+        } catch (IOException e) {
+            log.error("Failed to reopen {}, no longer exporting spans", path, e);
+            writer = null;
+        }
+    }
+
+    private Map<String, Object> exportRequest(List<Span> spans) {
+        Map<String, Object> resource = Map.of(
+                "attributes", List.of(attribute("service.name", config.getServiceName())));
+        Map<String, Object> scopeSpans = Map.of(
+                "scope", Map.of("name", SCOPE_NAME),
+                "spans", spans.stream().map(OtlpFileSpanExporter::toOtlp).toList());
+        return Map.of("resourceSpans", List.of(Map.of("resource", resource, "scopeSpans", List.of(scopeSpans))));
+    }
+
+    private static Map<String, Object> toOtlp(Span span) {
+        Map<String, Object> otlp = new LinkedHashMap<>();
+        otlp.put("traceId", span.context().traceId());
+        otlp.put("spanId", span.context().spanId());
+        if (Objects.nonNull(span.parentSpanId())) {
+            otlp.put("parentSpanId", span.parentSpanId());
+        }
+        otlp.put("name", span.name());
+        otlp.put("kind", span.kind().ordinal() + 1);
+        // 64-bit integers are strings in OTLP/JSON
+        otlp.put("startTimeUnixNano", Long.toString(span.startEpochNanos()));
+        otlp.put("endTimeUnixNano", Long.toString(span.endEpochNanos()));
+        otlp.put("attributes", span.attributes().entrySet().stream()
+                .map(entry -> attribute(entry.getKey(), entry.getValue()))
+                .toList());
+        if (Objects.nonNull(span.errorMessage())) {
+            otlp.put("status", Map.of("code", STATUS_CODE_ERROR, "message", span.errorMessage()));
+        }
+        return otlp;
+    }
+
+    private static Map<String, Object> attribute(String key, Object value) {
+        Map<String, Object> anyValue = switch (value) {
+            case Boolean b -> Map.of("boolValue", b);
+            case Integer i -> Map.of("intValue", Integer.toString(i));
+            case Long l -> Map.of("intValue", Long.toString(l));
+            case Double d -> Map.of("doubleValue", d);
+            default -> Map.of("stringValue", value.toString());
+        };
+        return Map.of("key", key, "value", anyValue);
+    }
+}
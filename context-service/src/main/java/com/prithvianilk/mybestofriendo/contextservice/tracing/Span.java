@@ -0,0 +1,116 @@
+package com.prithvianilk.mybestofriendo.contextservice.tracing;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * A timed stage of a trace. Started by the {@link Tracer} and exported once {@link #end()} is called.
+ */
+public final class Span {
+
+    /**
+     * Span kinds, in the order of their OTLP values, starting at 1.
+     */
+    public enum Kind {
+        INTERNAL,
+        SERVER,
+        CLIENT,
+        PRODUCER,
+        CONSUMER
+    }
+
+    private final String name;
+    private final Kind kind;
+    private final SpanContext context;
+    private final String parentSpanId;
+    private final Long receivedAtMillis;
+    private final long startEpochNanos;
+    private final long startNanoTime;
+    private final Consumer<Span> onEnd;
+    private final Map<String, Object> attributes = new LinkedHashMap<>();
+
+    private long endEpochNanos;
+    private String errorMessage;
+    private boolean ended;
+
+    Span(String name, Kind kind, SpanContext context, String parentSpanId, Long receivedAtMillis,
+         long startEpochNanos, Consumer<Span> onEnd) {
+        this.name = name;
+        this.kind = kind;
+        this.context = context;
+        this.parentSpanId = parentSpanId;
+        this.receivedAtMillis = receivedAtMillis;
+        this.startEpochNanos = startEpochNanos;
+        this.startNanoTime = System.nanoTime();
+        this.onEnd = onEnd;
+    }
+
+    public SpanContext context() {
+        return context;
+    }
+
+    /**
+     * When whatsapp-service received the message this trace started from, null for traces that did not
+     * start from a message.
+     */
+    public Long receivedAtMillis() {
+        return receivedAtMillis;
+    }
+
+    /**
+     * @param value a string, number or boolean, ignored when null
+     */
+    public synchronized Span setAttribute(String key, Object value) {
+        if (Objects.nonNull(value)) {
+            attributes.put(key, value);
+        }
+        return this;
+    }
+
+    public synchronized void recordException(Throwable throwable) {
+        errorMessage = throwable.getClass().getSimpleName() + ": " + throwable.getMessage();
+        attributes.put("exception.type", throwable.getClass().getName());
+    }
+
+    public void end() {
+        synchronized (this) {
+            if (ended) {
+                return;
+            }
+            ended = true;
+            endEpochNanos = startEpochNanos + (System.nanoTime() - startNanoTime);
+        }
+        onEnd.accept(this);
+    }
+
+    String name() {
+        return name;
+    }
+
+    Kind kind() {
+        return kind;
+    }
+
+    String parentSpanId() {
+        return parentSpanId;
+    }
+
+    long startEpochNanos() {
+        return startEpochNanos;
+    }
+
+    synchronized long endEpochNanos() {
+        return endEpochNanos;
+    }
+
+    synchronized String errorMessage() {
+        return errorMessage;
+    }
+
+    synchronized Map<String, Object> attributes() {
+        return Collections.unmodifiableMap(new LinkedHashMap<>(attributes));
+    }
+}
@@ -0,0 +1,66 @@
+package com.prithvianilk.mybestofriendo.contextservice.tracing;
+
+import java.util.HexFormat;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Ids of a span, as carried by a W3C {@code traceparent} header.
+ */
+public record SpanContext(String traceId, String spanId) {
+
+    private static final Pattern TRACEPARENT = Pattern.compile(
+            "([0-9a-f]{2})-([0-9a-f]{32})-([0-9a-f]{16})-[0-9a-f]{2}");
+    private static final String INVALID_TRACE_ID = "0".repeat(32);
+    private static final String INVALID_SPAN_ID = "0".repeat(16);
+
+    /**
+     * @return the parent context in the header, empty if it is missing or invalid
+     */
+    public static Optional<SpanContext> fromTraceparent(String traceparent) {
+        if (Objects.isNull(traceparent)) {
+            return Optional.empty();
+        }
+        Matcher matcher = TRACEPARENT.matcher(traceparent.trim());
+        if (!matcher.matches() || "ff".equals(matcher.group(1)) || INVALID_TRACE_ID.equals(matcher.group(2))
+                || INVALID_SPAN_ID.equals(matcher.group(3))) {
+            return Optional.empty();
+        }
+        return Optional.of(new SpanContext(matcher.group(2), matcher.group(3)));
+    }
+
+    static SpanContext newTrace() {
+        return new SpanContext(randomId(16), randomId(8));
+    }
+
+    SpanContext newChild() {
+        return new SpanContext(traceId, randomId(8));
+    }
+
+    /**
+     * Every span is recorded, so the sampled flag is always set.
+     */
+    public String traceparent() {
+        return "00-" + traceId + "-" + spanId + "-01";
+    }
+
+    private static String randomId(int bytes) {
+        byte[] id = new byte[bytes];
+        do {
+            ThreadLocalRandom.current().nextBytes(id);
+        } while (isZero(id));
+        return HexFormat.of().formatHex(id);
+    }
+
+    private static boolean isZero(byte[] id) {
+        for (byte b : id) {
+            if (b != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,9 @@
+package com.prithvianilk.mybestofriendo.contextservice.tracing;
+
+/**
+ * Receives every span once it has ended. Must not block.
+ */
+public interface SpanExporter {
+
+    void export(Span span);
+}
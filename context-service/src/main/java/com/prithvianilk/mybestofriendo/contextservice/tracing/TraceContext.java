@@ -0,0 +1,113 @@
+package com.prithvianilk.mybestofriendo.contextservice.tracing;
+
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * The span the current thread is working in, which new spans are started as children of. Like
+ * {@link com.prithvianilk.mybestofriendo.contextservice.tenant.TenantContext}, it must be handed over
+ * explicitly when work moves to another thread.
+ * <p>
+ * Across Kafka it travels in W3C {@code traceparent} and {@code baggage} headers, the baggage carrying when
+ * whatsapp-service received the message.
+ */
+public final class TraceContext {
+
+    public static final String TRACEPARENT_HEADER = "traceparent";
+    public static final String BAGGAGE_HEADER = "baggage";
+    public static final String RECEIVED_AT_BAGGAGE = "whatsapp.received_at";
+
+    private static final ThreadLocal<Span> CURRENT = new ThreadLocal<>();
+
+    private TraceContext() {
+    }
+
+    /**
+     * @return the current span, null outside of any
+     */
+    public static Span current() {
+        return CURRENT.get();
+    }
+
+    public static void run(Span span, Runnable action) {
+        call(span, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    public static <T> T call(Span span, Supplier<T> action) {
+        Span previous = enter(span);
+        try {
+            return action.get();
+        } finally {
+            exit(previous);
+        }
+    }
+
+    /**
+     * Makes {@code span} the current one, returning the value to pass to {@link #exit(Span)}. For callers
+     * that cannot wrap their work in a lambda, such as aspects.
+     */
+    public static Span enter(Span span) {
+        Span previous = CURRENT.get();
+        if (Objects.isNull(span)) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(span);
+        }
+        return previous;
+    }
+
+    public static void exit(Span previous) {
+        enter(previous);
+    }
+
+    /**
+     * Adds the current span's context to the headers of an outgoing record.
+     */
+    public static void inject(Headers headers) {
+        Span span = current();
+        if (Objects.isNull(span)) {
+            return;
+        }
+        headers.remove(TRACEPARENT_HEADER);
+        headers.add(TRACEPARENT_HEADER, span.context().traceparent().getBytes(StandardCharsets.UTF_8));
+        if (Objects.nonNull(span.receivedAtMillis())) {
+            headers.remove(BAGGAGE_HEADER);
+            headers.add(BAGGAGE_HEADER, (RECEIVED_AT_BAGGAGE + "=" + span.receivedAtMillis())
+                    .getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    static String header(Headers headers, String name) {
+        Header header = headers.lastHeader(name);
+        return Objects.isNull(header) || Objects.isNull(header.value())
+                ? null
+                : new String(header.value(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return when whatsapp-service received the message, from the baggage header, or null
+     */
+    static Long receivedAtMillis(String baggage) {
+        if (Objects.isNull(baggage)) {
+            return null;
+        }
+        for (String member : baggage.split(",")) {
+            String[] keyAndValue = member.split(";", 2)[0].split("=", 2);
+            if (keyAndValue.length == 2 && RECEIVED_AT_BAGGAGE.equals(keyAndValue[0].trim())) {
+                try {
+                    return Long.parseLong(keyAndValue[1].trim());
+                } catch (NumberFormatException e) {
+                    return null;
+                }
+            }
+        }
+        return null;
+    }
+}
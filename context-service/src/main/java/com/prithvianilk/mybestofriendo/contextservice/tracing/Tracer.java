@@ -0,0 +1,104 @@
+package com.prithvianilk.mybestofriendo.contextservice.tracing;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * Starts spans for the stages of handling a message, from the Kafka record whatsapp-service published through
+ * the LLM call to the Calendar write, and exports them once they end.
+ */
+@Component
+public class Tracer {
+
+    private final SpanExporter exporter;
+    private final MeterRegistry meterRegistry;
+    private final Clock clock;
+
+    public Tracer(SpanExporter exporter, MeterRegistry meterRegistry, Clock clock) {
+        this.exporter = exporter;
+        this.meterRegistry = meterRegistry;
+        this.clock = clock;
+    }
+
+    /**
+     * Starts a child of the current span, or a new trace outside of any.
+     */
+    public Span start(String name, Span.Kind kind) {
+        Span parent = TraceContext.current();
+        if (Objects.isNull(parent)) {
+            return start(name, kind, SpanContext.newTrace(), null, null);
+        }
+        return start(name, kind, parent.context().newChild(), parent.context().spanId(), parent.receivedAtMillis());
+    }
+
+    /**
+     * Starts the span of processing a record, continuing the trace in its headers if it has one.
+     */
+    public Span startConsumer(String name, ConsumerRecord<?, ?> record) {
+        Long receivedAtMillis = TraceContext.receivedAtMillis(
+                TraceContext.header(record.headers(), TraceContext.BAGGAGE_HEADER));
+        Span span = SpanContext.fromTraceparent(TraceContext.header(record.headers(), TraceContext.TRACEPARENT_HEADER))
+                .map(parent -> start(name, Span.Kind.CONSUMER, parent.newChild(), parent.spanId(), receivedAtMillis))
+                .orElseGet(() -> start(name, Span.Kind.CONSUMER, SpanContext.newTrace(), null, receivedAtMillis));
+        return span.setAttribute("messaging.system", "kafka")
+                .setAttribute("messaging.operation.type", "process")
+                .setAttribute("messaging.destination.name", record.topic())
+                .setAttribute("messaging.destination.partition.id", Integer.toString(record.partition()))
+                .setAttribute("messaging.kafka.offset", record.offset());
+    }
+
+    /**
+     * Runs the action as the current span, ending the span afterwards and recording what it threw.
+     */
+    public void inSpan(Span span, Runnable action) {
+        inSpan(span, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    public <T> T inSpan(Span span, Supplier<T> action) {
+        try {
+            return TraceContext.call(span, action);
+        } catch (RuntimeException e) {
+            span.recordException(e);
+            throw e;
+        } finally {
+            span.end();
+        }
+    }
+
+    /**
+     * Records the time from whatsapp-service receiving the message of the current trace until now, on the span
+     * and in the {@code whatsapp.end-to-end} timer.
+     *
+     * @return the end-to-end latency, null if the trace did not start from a message
+     */
+    public Long recordEndToEnd(Span span, String operation) {
+        if (Objects.isNull(span.receivedAtMillis())) {
+            return null;
+        }
+        long endToEndMillis = Math.max(0, clock.millis() - span.receivedAtMillis());
+        span.setAttribute("whatsapp.end_to_end_ms", endToEndMillis);
+        Timer.builder("whatsapp.end-to-end")
+                .tag("operation", operation)
+                .register(meterRegistry)
+                .record(Duration.ofMillis(endToEndMillis));
+        return endToEndMillis;
+    }
+
+    private Span start(String name, Span.Kind kind, SpanContext context, String parentSpanId,
+                       Long receivedAtMillis) {
+        Instant now = clock.instant();
+        long startEpochNanos = now.getEpochSecond() * 1_000_000_000L + now.getNano();
+        return new Span(name, kind, context, parentSpanId, receivedAtMillis, startEpochNanos, exporter::export);
+    }
+}
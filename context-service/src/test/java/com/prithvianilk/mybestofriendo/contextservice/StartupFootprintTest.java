@@ -0,0 +1,131 @@
+package com.prithvianilk.mybestofriendo.contextservice;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Starts the packaged service several times with the footprint profile and reports the median time until
+ * the context is started and the median resident memory at that point. Run through the
+ * {@code startupFootprint} Gradle task, which packages the service and passes the command to start it.
+ */
+@EnabledIfSystemProperty(named = "startup.command", matches = ".+")
+class StartupFootprintTest {
+
+    private static final String STARTED = "Started ContextServiceApplication";
+    private static final Duration START_TIMEOUT = Duration.ofMinutes(2);
+
+    private static final List<String> FOOTPRINT_ARGUMENTS = List.of(
+            "--spring.profiles.active=footprint",
+            "--spring.config.on-not-found=ignore");
+
+    @TempDir
+    Path workingDirectory;
+
+    private record Footprint(long startupMillis, long rssKilobytes) {
+    }
+
+    @Test
+    void testStartupTimeAndMemory() throws Exception {
+        String mode = System.getProperty("startup.mode", "jvm");
+        int runs = Integer.getInteger("startup.runs", 5);
+
+        // The first start warms the page cache, and trains the AOT cache in aot-cache mode
+        start(workingDirectory.resolve("warm-up"));
+        List<Footprint> footprints = new ArrayList<>();
+        for (int run = 0; run < runs; run++) {
+            footprints.add(start(workingDirectory.resolve("run-" + run)));
+        }
+
+        long startupMillis = median(footprints.stream().map(Footprint::startupMillis).toList());
+        long rssMegabytes = median(footprints.stream().map(Footprint::rssKilobytes).toList()) / 1024;
+        System.out.printf("Startup footprint of %s over %d runs: median %d ms to started, %d MB RSS%n",
+                mode, runs, startupMillis, rssMegabytes);
+
+        Long maxMillis = Long.getLong("startup.max-millis");
+        if (Objects.nonNull(maxMillis)) {
+            assertTrue(startupMillis <= maxMillis, "Startup took " + startupMillis + " ms");
+        }
+        Long maxRssMegabytes = Long.getLong("startup.max-rss-mb");
+        if (Objects.nonNull(maxRssMegabytes)) {
+            assertTrue(rssMegabytes <= maxRssMegabytes, "RSS was " + rssMegabytes + " MB");
+        }
+    }
+
+    private static Footprint start(Path directory) throws Exception {
+        Files.createDirectories(directory);
+        List<String> command = new ArrayList<>(Arrays.asList(System.getProperty("startup.command").split(" ")));
+        command.addAll(FOOTPRINT_ARGUMENTS);
+
+        long startNanos = System.nanoTime();
+        Process process = new ProcessBuilder(command)
+                .directory(directory.toFile())
+                .redirectErrorStream(true)
+                .start();
+        try {
+            CompletableFuture<Boolean> started = CompletableFuture.supplyAsync(() -> awaitStarted(process));
+            if (!started.get(START_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS)) {
+                throw new IllegalStateException("Service exited before starting, see the output above");
+            }
+            long startupMillis = Duration.ofNanos(System.nanoTime() - startNanos).toMillis();
+            return new Footprint(startupMillis, rssKilobytes(process.pid()));
+        } finally {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        }
+    }
+
+    /**
+     * Echoes the service's output until it has started, then keeps draining it in the background.
+     *
+     * @return whether the service started, false if it exited first
+     */
+    private static boolean awaitStarted(Process process) {
+        BufferedReader reader = new BufferedReader(
+                new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                System.out.println(line);
+                if (line.contains(STARTED)) {
+                    Thread.ofVirtual().start(() -> reader.lines().forEach(_ -> {
+                    }));
+                    return true;
+                }
+            }
+            return false;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static long rssKilobytes(long pid) throws IOException, InterruptedException {
+        Process ps = new ProcessBuilder("ps", "-o", "rss=", "-p", Long.toString(pid)).start();
+        String output = new String(ps.getInputStream().readAllBytes(), StandardCharsets.UTF_8).trim();
+        ps.waitFor();
+        return Long.parseLong(output);
+    }
+
+    private static long median(List<Long> values) {
+        List<Long> sorted = values.stream().sorted().toList();
+        return sorted.get(sorted.size() / 2);
+    }
+}
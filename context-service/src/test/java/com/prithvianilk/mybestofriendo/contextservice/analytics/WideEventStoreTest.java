@@ -0,0 +1,180 @@
+package com.prithvianilk.mybestofriendo.contextservice.analytics;
+
+import com.prithvianilk.mybestofriendo.contextservice.config.WideEventAnalyticsConfig;
+import com.prithvianilk.mybestofriendo.contextservice.logging.CommitmentManagementContext;
+import com.prithvianilk.mybestofriendo.contextservice.logging.ShadowVariantContext;
+import com.prithvianilk.mybestofriendo.contextservice.model.CommitmentActionType;
+import com.prithvianilk.mybestofriendo.contextservice.model.HourlyRollup;
+import com.prithvianilk.mybestofriendo.contextservice.model.LatencyRollup;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class WideEventStoreTest {
+
+    private static final Instant HOUR = Instant.parse("2025-01-15T10:00:00Z");
+    private static final String STAGE = "WhatsAppMessageProcessor.process";
+
+    @TempDir
+    private Path directory;
+
+    private Clock clock;
+    private WideEventStore store;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        clock = mock(Clock.class);
+        at(HOUR.plus(Duration.ofMinutes(5)));
+        WideEventAnalyticsConfig config = new WideEventAnalyticsConfig();
+        config.setPath(directory.resolve("wide-events.db").toString());
+        config.setFlushInterval(Duration.ofHours(1));
+        store = new WideEventStore(config, new SimpleMeterRegistry(), clock);
+        store.open();
+    }
+
+    @AfterEach
+    void tearDown() {
+        store.close();
+    }
+
+    @Test
+    void testLatencyPercentilesPerStageAcrossFlushes() {
+        for (int millis = 1; millis <= 1000; millis++) {
+            store.append(STAGE, millis, Map.of("commitmentManagement", CommitmentManagementContext.builder()
+                    .llmLatencyMillis(millis * 2L)
+                    .build()), "{}");
+            if (millis % 250 == 0) {
+                store.flush();
+            }
+        }
+        at(HOUR.plus(Duration.ofHours(1)));
+        store.append(STAGE, 100_000, Map.of(), "{}");
+        store.flush();
+
+        List<LatencyRollup> rollups = store.latency(null, HOUR, HOUR.plus(Duration.ofMinutes(30)), List.of(0.5, 0.99));
+        assertEquals(2, rollups.size());
+        LatencyRollup process = rollup(rollups, STAGE);
+        assertEquals(1000, process.events());
+        assertEquals(HOUR, process.from());
+        assertEquals(HOUR.plus(Duration.ofHours(1)), process.to());
+        assertWithin(500, process.percentiles().get("p50"));
+        assertWithin(990, process.percentiles().get("p99"));
+        assertWithin(1980, rollup(rollups, "llm").percentiles().get("p99"));
+
+        List<LatencyRollup> twoHours = store.latency(STAGE, HOUR, HOUR.plus(Duration.ofHours(2)), List.of(1.0));
+        assertEquals(1001, twoHours.getFirst().events());
+        assertWithin(100_000, twoHours.getFirst().percentiles().get("p100"));
+    }
+
+    @Test
+    void testActionFailureAndTokenRollupsByHour() {
+        store.append(STAGE, 10, Map.of("commitmentManagement", CommitmentManagementContext.builder()
+                .llmLatencyMillis(800L).promptVariant("control").promptTokens(1000).completionTokens(50)
+                .actionType(CommitmentActionType.CREATE).success(true)
+                .build()), "{}");
+        store.append(STAGE, 10, Map.of("commitmentManagement", CommitmentManagementContext.builder()
+                .llmLatencyMillis(900L).promptVariant("control").promptTokens(1200).completionTokens(60)
+                .actionType(CommitmentActionType.CANCEL).success(false).failureReason("Not found with ID")
+                .build()), "{}");
+        store.append(STAGE, 10, Map.of("commitmentManagement", CommitmentManagementContext.builder()
+                .llmLatencyMillis(700L).promptVariant("control").promptTokens(900).completionTokens(5)
+                .build()), "{}");
+        store.append("ShadowVariantRunner.run", 400, Map.of("shadowVariant", ShadowVariantContext.builder()
+                .variant("terse").agreesWithPrimary(false).llmLatencyMillis(400L).promptTokens(300).completionTokens(5)
+                .build()), "{}");
+        store.flush();
+
+        Instant to = HOUR.plus(Duration.ofHours(1));
+        assertEquals(List.of(
+                        new HourlyRollup(HOUR, "CANCEL", 1, 1200, 60),
+                        new HourlyRollup(HOUR, "CREATE", 1, 1000, 50),
+                        new HourlyRollup(HOUR, "NONE", 1, 900, 5)),
+                store.counts(WideEventStore.Dimension.ACTION, HOUR, to).stream()
+                        .sorted((a, b) -> a.value().compareTo(b.value()))
+                        .toList());
+        assertEquals(List.of(new HourlyRollup(HOUR, "Not found with ID", 1, 1200, 60)),
+                store.counts(WideEventStore.Dimension.FAILURE, HOUR, to));
+        assertEquals(List.of(new HourlyRollup(HOUR, "control", 3, 3100, 115)),
+                store.counts(WideEventStore.Dimension.VARIANT, HOUR, to));
+        assertEquals(List.of(new HourlyRollup(HOUR, "terse:disagree", 1, 300, 5)),
+                store.counts(WideEventStore.Dimension.SHADOW, HOUR, to));
+        assertTrue(store.counts(WideEventStore.Dimension.ACTION, to, to.plus(Duration.ofHours(1))).isEmpty());
+    }
+
+    @Test
+    void testSampledOutEventsOnlyCountInRollupsAndPayloadsAreStoredOnce() throws SQLException {
+        Map<String, Object> context = Map.of("commitmentManagement", CommitmentManagementContext.builder()
+                .llmLatencyMillis(500L)
+                .build());
+        String json = "{\"commitmentManagement\":{\"prompt\":\"sha256:aa\"}}";
+        store.append(STAGE, 10, context, null);
+        assertTrue(store.storePayloads(Map.of("aa", "prompt", "bb", "message")));
+        // Stored before the event referencing them is flushed
+        assertEquals(Optional.of("prompt"), store.payload("aa"));
+        store.append(STAGE, 10, context, json);
+        store.flush();
+        assertTrue(store.storePayloads(Map.of("aa", "prompt")));
+        store.append(STAGE, 10, context, json);
+        store.flush();
+
+        assertEquals(3, store.counts(WideEventStore.Dimension.ACTION, HOUR, HOUR.plus(Duration.ofHours(1)))
+                .getFirst().events());
+        assertEquals(2, count("SELECT COUNT(*) FROM wide_event"));
+        assertEquals(2, count("SELECT COUNT(*) FROM wide_event_payload"));
+
+        // A payload still referenced a month later is refreshed before the purge, the other one is purged
+        at(HOUR.plus(Duration.ofDays(31)));
+        assertTrue(store.storePayloads(Map.of("bb", "message")));
+        store.append(STAGE, 10, context, json);
+        store.flush();
+
+        assertEquals(Optional.empty(), store.payload("aa"));
+        assertEquals(Optional.of("message"), store.payload("bb"));
+    }
+
+    @Test
+    void testPayloadsAreNotStoredWhenTheStoreIsClosed() {
+        store.close();
+
+        assertFalse(store.storePayloads(Map.of("aa", "prompt")));
+    }
+
+    private void at(Instant instant) {
+        when(clock.millis()).thenReturn(instant.toEpochMilli());
+    }
+
+    private long count(String sql) throws SQLException {
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + directory.resolve("wide-events.db"));
+             ResultSet resultSet = connection.createStatement().executeQuery(sql)) {
+            return resultSet.getLong(1);
+        }
+    }
+
+    private static LatencyRollup rollup(List<LatencyRollup> rollups, String stage) {
+        return rollups.stream().filter(rollup -> rollup.stage().equals(stage)).findFirst().orElseThrow();
+    }
+
+    private static void assertWithin(long expected, long actual) {
+        assertTrue(Math.abs(actual - expected) <= expected * 0.05, "Expected about " + expected + ", got " + actual);
+    }
+}
@@ -0,0 +1,79 @@
+package com.prithvianilk.mybestofriendo.contextservice.eval;
+
+import org.junit.jupiter.api.function.ThrowingConsumer;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+/**
+ * Runs eval cases concurrently and reports accuracy, latency and token usage for one prompt variant.
+ * <p>
+ * A case passes when its check returns normally, so checks can use the usual assertions. Model calls are
+ * collected through {@link FixtureChatModel}, and a case's latency is its local processing time plus the
+ * recorded latency of every model call, so replayed runs report the speed the live model had. Cases share
+ * the application context, so each must keep its data apart, for example in its own tenant.
+ */
+public class EvalHarness {
+
+    private final int parallelism;
+
+    public EvalHarness(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    public <T> EvalReport run(String variant, List<T> cases, Function<T, String> names, ThrowingConsumer<T> check)
+            throws InterruptedException {
+        long startNanos = System.nanoTime();
+        List<Future<EvalReport.CaseResult>> futures = new ArrayList<>(cases.size());
+        try (ExecutorService executor = Executors.newFixedThreadPool(parallelism,
+                Thread.ofPlatform().name("eval-", 0).daemon().factory())) {
+            for (T testCase : cases) {
+                futures.add(executor.submit(() -> runCase(names.apply(testCase), testCase, check)));
+            }
+        }
+
+        List<EvalReport.CaseResult> results = new ArrayList<>(futures.size());
+        for (Future<EvalReport.CaseResult> future : futures) {
+            try {
+                results.add(future.get());
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Eval case could not be run", e.getCause());
+            }
+        }
+        return new EvalReport(variant, parallelism, Duration.ofNanos(System.nanoTime() - startNanos).toMillis(),
+                results);
+    }
+
+    private static <T> EvalReport.CaseResult runCase(String name, T testCase, ThrowingConsumer<T> check) {
+        FixtureChatModel.startCapture();
+        long startNanos = System.nanoTime();
+        String failure = null;
+        try {
+            check.accept(testCase);
+        } catch (Throwable e) {
+            failure = e.getClass().getSimpleName() + ": " + e.getMessage();
+        }
+        long localMillis = Duration.ofNanos(System.nanoTime() - startNanos).toMillis();
+        List<FixtureChatModel.ModelCall> calls = FixtureChatModel.stopCapture();
+
+        long modelMillis = 0;
+        long replayedMillis = 0;
+        int promptTokens = 0;
+        int completionTokens = 0;
+        for (FixtureChatModel.ModelCall call : calls) {
+            modelMillis += call.latencyMillis();
+            // A live call's latency is already part of the local time
+            replayedMillis += call.replayed() ? call.latencyMillis() : 0;
+            promptTokens += call.promptTokens();
+            completionTokens += call.completionTokens();
+        }
+        return new EvalReport.CaseResult(name, failure, localMillis + replayedMillis, modelMillis, calls.size(),
+                promptTokens, completionTokens);
+    }
+}
@@ -0,0 +1,87 @@
+package com.prithvianilk.mybestofriendo.contextservice.eval;
+
+import com.prithvianilk.mybestofriendo.contextservice.eval.FixtureChatModel.Mode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.metadata.ChatResponseMetadata;
+import org.springframework.ai.chat.metadata.DefaultUsage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class EvalHarnessTest {
+
+    private static final String MODEL = "test/model";
+
+    @TempDir
+    Path fixtureDirectory;
+
+    private ChatModel liveModel;
+
+    @BeforeEach
+    void setUp() {
+        liveModel = mock(ChatModel.class);
+        when(liveModel.call(any(Prompt.class))).thenAnswer(invocation -> {
+            Thread.sleep(50);
+            Prompt prompt = invocation.getArgument(0);
+            return new ChatResponse(
+                    List.of(new Generation(new AssistantMessage("answer to " + prompt.getContents()))),
+                    ChatResponseMetadata.builder().usage(new DefaultUsage(10, 5)).build());
+        });
+    }
+
+    @Test
+    void testRecordedResponsesReplayWithoutTheLiveModel() {
+        FixtureChatModel recording = new FixtureChatModel(liveModel, MODEL, fixtureDirectory, Mode.AUTO);
+        recording.call(new Prompt("hello"));
+        recording.call(new Prompt("hello"));
+        verify(liveModel, times(1)).call(any(Prompt.class));
+
+        FixtureChatModel replaying = new FixtureChatModel(null, MODEL, fixtureDirectory, Mode.REPLAY);
+        ChatResponse response = replaying.call(new Prompt("hello"));
+        assertEquals("answer to hello", response.getResult().getOutput().getText());
+        assertEquals(10, response.getMetadata().getUsage().getPromptTokens());
+        assertEquals(5, response.getMetadata().getUsage().getCompletionTokens());
+
+        assertThrows(IllegalStateException.class, () -> replaying.call(new Prompt("something new")));
+        FixtureChatModel otherModel = new FixtureChatModel(null, "other/model", fixtureDirectory, Mode.REPLAY);
+        assertThrows(IllegalStateException.class, () -> otherModel.call(new Prompt("hello")));
+    }
+
+    @Test
+    void testReportsAccuracyRecordedLatencyAndTokens() throws Exception {
+        List<String> prompts = List.of("one", "two", "three", "four");
+        FixtureChatModel recording = new FixtureChatModel(liveModel, MODEL, fixtureDirectory, Mode.AUTO);
+        prompts.forEach(prompt -> recording.call(new Prompt(prompt)));
+
+        FixtureChatModel replaying = new FixtureChatModel(null, MODEL, fixtureDirectory, Mode.REPLAY);
+        EvalReport report = new EvalHarness(2).run("variant", prompts, prompt -> prompt, prompt -> {
+            replaying.call(new Prompt(prompt));
+            assertNotEquals("four", prompt, "wrong answer");
+        });
+
+        assertEquals(0.75, report.accuracy());
+        assertEquals("four", report.failureNames());
+        assertEquals(40, report.promptTokens());
+        assertEquals(20, report.completionTokens());
+        assertTrue(report.modelLatencyPercentile(0.5) >= 50);
+        assertTrue(report.latencyPercentile(0.5) >= report.modelLatencyPercentile(0.5));
+        assertTrue(report.write(fixtureDirectory.resolve("reports")).toFile().exists());
+    }
+}
@@ -0,0 +1,115 @@
+package com.prithvianilk.mybestofriendo.contextservice.eval;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collectors;
+
+/**
+ * Results of one {@link EvalHarness} run of a prompt variant.
+ */
+public record EvalReport(String variant, int parallelism, long wallMillis, List<CaseResult> results) {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    /**
+     * @param failure        why the case failed, null if it passed
+     * @param latencyMillis  local processing time plus the recorded latency of the model calls
+     * @param modelMillis    recorded latency of the model calls alone
+     */
+    public record CaseResult(String name, String failure, long latencyMillis, long modelMillis, int modelCalls,
+                             int promptTokens, int completionTokens) {
+
+        public boolean passed() {
+            return Objects.isNull(failure);
+        }
+    }
+
+    @JsonProperty
+    public double accuracy() {
+        if (results.isEmpty()) {
+            return 0;
+        }
+        return (double) results.stream().filter(CaseResult::passed).count() / results.size();
+    }
+
+    /**
+     * Nearest-rank percentile of case latency.
+     */
+    public long latencyPercentile(double percentile) {
+        return percentile(CaseResult::latencyMillis, percentile);
+    }
+
+    public long modelLatencyPercentile(double percentile) {
+        return percentile(CaseResult::modelMillis, percentile);
+    }
+
+    @JsonProperty
+    public Map<String, Long> latencyPercentiles() {
+        Map<String, Long> percentiles = new LinkedHashMap<>();
+        percentiles.put("p50", latencyPercentile(0.5));
+        percentiles.put("p90", latencyPercentile(0.9));
+        percentiles.put("p99", latencyPercentile(0.99));
+        return percentiles;
+    }
+
+    @JsonProperty
+    public long promptTokens() {
+        return results.stream().mapToLong(CaseResult::promptTokens).sum();
+    }
+
+    @JsonProperty
+    public long completionTokens() {
+        return results.stream().mapToLong(CaseResult::completionTokens).sum();
+    }
+
+    public List<CaseResult> failures() {
+        return results.stream().filter(result -> !result.passed()).toList();
+    }
+
+    public String summary() {
+        StringBuilder summary = new StringBuilder()
+                .append(String.format("Eval of %s: %d cases at parallelism %d in %d ms%n",
+                        variant, results.size(), parallelism, wallMillis))
+                .append(String.format("  accuracy %.1f%%%n", accuracy() * 100))
+                .append(String.format("  latency p50 %d ms, p90 %d ms, p99 %d ms (model p50 %d ms, p90 %d ms)%n",
+                        latencyPercentile(0.5), latencyPercentile(0.9), latencyPercentile(0.99),
+                        modelLatencyPercentile(0.5), modelLatencyPercentile(0.9)))
+                .append(String.format("  tokens %d prompt, %d completion%n", promptTokens(), completionTokens()));
+        for (CaseResult failure : failures()) {
+            summary.append(String.format("  FAILED %s: %s%n", failure.name(), failure.failure()));
+        }
+        return summary.toString();
+    }
+
+    /**
+     * Writes the report as JSON to {@code <variant>.json} in the directory, for comparing runs.
+     */
+    public Path write(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        Path path = directory.resolve(variant.replaceAll("[^A-Za-z0-9._-]", "_") + ".json");
+        OBJECT_MAPPER.writerWithDefaultPrettyPrinter().writeValue(path.toFile(), this);
+        return path;
+    }
+
+    public String failureNames() {
+        return failures().stream().map(CaseResult::name).collect(Collectors.joining(", "));
+    }
+
+    private long percentile(ToLongFunction<CaseResult> metric, double percentile) {
+        if (results.isEmpty()) {
+            return 0;
+        }
+        long[] sorted = results.stream().mapToLong(metric).sorted().toArray();
+        int rank = (int) Math.ceil(percentile * sorted.length);
+        return sorted[Math.max(0, rank - 1)];
+    }
+}
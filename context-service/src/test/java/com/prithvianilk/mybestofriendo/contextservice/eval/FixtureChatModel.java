@@ -0,0 +1,171 @@
+package com.prithvianilk.mybestofriendo.contextservice.eval;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.metadata.ChatResponseMetadata;
+import org.springframework.ai.chat.metadata.DefaultUsage;
+import org.springframework.ai.chat.metadata.Usage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.ChatOptions;
+import org.springframework.ai.chat.prompt.Prompt;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Chat model that records the responses of a live model to fixture files and replays them offline.
+ * <p>
+ * Fixtures are keyed by the SHA-256 of the model, the prompt's own if it names one, and the full prompt
+ * text, so any change to the prompt, the conversation it is built from or the model is a miss rather than
+ * a stale answer. Each fixture keeps the token usage and latency of the live call, so replayed runs still
+ * report what the model cost.
+ * <p>
+ * Calls made on a thread between {@link #startCapture()} and {@link #stopCapture()} are collected for the
+ * {@link EvalHarness}.
+ */
+public class FixtureChatModel implements ChatModel {
+
+    public enum Mode {
+        /**
+         * Only replay fixtures, failing on a miss. Needs no network access or API key.
+         */
+        REPLAY,
+        /**
+         * Replay fixtures and call the live model on a miss, recording its response.
+         */
+        AUTO,
+        /**
+         * Always call the live model, overwriting fixtures.
+         */
+        RECORD
+    }
+
+    public record Fixture(String model, String prompt, String response, int promptTokens, int completionTokens,
+                          long latencyMillis) {
+    }
+
+    public record ModelCall(long latencyMillis, int promptTokens, int completionTokens, boolean replayed) {
+    }
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final ThreadLocal<List<ModelCall>> CAPTURED_CALLS = new ThreadLocal<>();
+
+    private final ChatModel delegate;
+    private final String model;
+    private final Path fixtureDirectory;
+    private final Mode mode;
+
+    public FixtureChatModel(ChatModel delegate, String model, Path fixtureDirectory, Mode mode) {
+        this.delegate = delegate;
+        this.model = model;
+        this.fixtureDirectory = fixtureDirectory;
+        this.mode = mode;
+    }
+
+    @Override
+    public ChatResponse call(Prompt prompt) {
+        String text = prompt.getContents();
+        String promptModel = Optional.ofNullable(prompt.getOptions()).map(ChatOptions::getModel).orElse(model);
+        Path fixturePath = fixtureDirectory.resolve(key(promptModel, text) + ".json");
+        if (mode != Mode.RECORD && Files.exists(fixturePath)) {
+            Fixture fixture = read(fixturePath);
+            capture(new ModelCall(fixture.latencyMillis(), fixture.promptTokens(), fixture.completionTokens(), true));
+            return toResponse(fixture);
+        }
+        if (mode == Mode.REPLAY) {
+            throw new IllegalStateException("No fixture for prompt " + fixturePath.getFileName()
+                    + ", record it with -Peval.mode=auto");
+        }
+
+        long startNanos = System.nanoTime();
+        ChatResponse response = delegate.call(prompt);
+        long latencyMillis = Duration.ofNanos(System.nanoTime() - startNanos).toMillis();
+
+        Usage usage = response.getMetadata().getUsage();
+        Fixture fixture = new Fixture(promptModel, text, response.getResult().getOutput().getText(),
+                tokens(usage.getPromptTokens()), tokens(usage.getCompletionTokens()), latencyMillis);
+        write(fixturePath, fixture);
+        capture(new ModelCall(latencyMillis, fixture.promptTokens(), fixture.completionTokens(), false));
+        return response;
+    }
+
+    public static void startCapture() {
+        CAPTURED_CALLS.set(new ArrayList<>());
+    }
+
+    /**
+     * @return the calls made on this thread since {@link #startCapture()}
+     */
+    public static List<ModelCall> stopCapture() {
+        List<ModelCall> calls = CAPTURED_CALLS.get();
+        CAPTURED_CALLS.remove();
+        return Objects.isNull(calls) ? List.of() : calls;
+    }
+
+    private static void capture(ModelCall call) {
+        List<ModelCall> calls = CAPTURED_CALLS.get();
+        if (Objects.nonNull(calls)) {
+            calls.add(call);
+        }
+    }
+
+    private ChatResponse toResponse(Fixture fixture) {
+        return new ChatResponse(
+                List.of(new Generation(new AssistantMessage(fixture.response()))),
+                ChatResponseMetadata.builder()
+                        .model(fixture.model())
+                        .usage(new DefaultUsage(fixture.promptTokens(), fixture.completionTokens()))
+                        .build());
+    }
+
+    private static String key(String model, String prompt) {
+        String identity = model + '\n' + prompt;
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(identity.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static Fixture read(Path path) {
+        try {
+            return OBJECT_MAPPER.readValue(path.toFile(), Fixture.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read fixture " + path, e);
+        }
+    }
+
+    /**
+     * Writes to a temporary file and moves it into place, so cases running in parallel never read a
+     * partly written fixture.
+     */
+    private static void write(Path path, Fixture fixture) {
+        try {
+            Files.createDirectories(path.getParent());
+            Path temporary = Files.createTempFile(path.getParent(), path.getFileName().toString(), ".tmp");
+            OBJECT_MAPPER.writerWithDefaultPrettyPrinter().writeValue(temporary.toFile(), fixture);
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write fixture " + path, e);
+        }
+    }
+
+    private static int tokens(Integer tokens) {
+        return Objects.isNull(tokens) ? 0 : tokens;
+    }
+}
@@ -0,0 +1,125 @@
+package com.prithvianilk.mybestofriendo.contextservice.experiment;
+
+import com.prithvianilk.mybestofriendo.contextservice.config.PromptExperimentConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+class PromptExperimentTest {
+
+    private static final String[] DEFAULT_SEGMENTS = {"A[", "] B[", "] C[", "] D[", "]"};
+
+    @TempDir
+    Path promptDirectory;
+
+    private ShadowVariantRunner shadowRunner;
+    private PromptExperimentConfig config;
+
+    @BeforeEach
+    void setUp() {
+        shadowRunner = mock(ShadowVariantRunner.class);
+        config = new PromptExperimentConfig();
+        config.setEnabled(true);
+    }
+
+    @Test
+    void testParticipantsAreAssignedDeterministicallyByWeight() {
+        config.setVariants(List.of(variant("control", null, null, 3), variant("cheap", "cheap-model", null, 1),
+                variant("shadow-only", null, null, 0)));
+        PromptExperiment experiment = experiment();
+
+        Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < 4000; i++) {
+            String participant = Integer.toString(9000000 + i);
+            PromptVariant variant = experiment.assign(participant);
+            assertSame(variant, experiment.assign(participant));
+            counts.merge(variant.name(), 1, Integer::sum);
+        }
+
+        assertFalse(counts.containsKey("shadow-only"));
+        assertEquals(0.25, counts.get("cheap") / 4000.0, 0.03);
+        assertEquals(0.75, counts.get("control") / 4000.0, 0.03);
+    }
+
+    @Test
+    void testDisabledExperimentUsesTheBuiltInPrompt() {
+        config.setEnabled(false);
+        config.setVariants(List.of(variant("cheap", "cheap-model", null, 1)));
+        config.setShadowVariants(List.of("cheap"));
+        PromptExperiment experiment = experiment();
+
+        assertSame(PromptVariant.DEFAULT, experiment.assign("9876543210"));
+        assertFalse(experiment.hasShadows(PromptVariant.DEFAULT));
+        assertSame(DEFAULT_SEGMENTS, PromptVariant.DEFAULT.segments(DEFAULT_SEGMENTS));
+    }
+
+    @Test
+    void testShadowsGetTheSamePromptSectionsInTheirOwnTemplate() throws IOException {
+        Path template = Files.writeString(promptDirectory.resolve("terse.txt"), "1:%s 2:%s 3:%s 4:%s");
+        config.setVariants(List.of(variant("control", null, null, 1),
+                variant("terse", "cheap-model", template.toUri().toString(), 0)));
+        config.setShadowVariants(List.of("terse", "control"));
+        PromptExperiment experiment = experiment();
+
+        PromptVariant control = experiment.assign("9876543210");
+        assertEquals("control", control.name());
+        assertTrue(experiment.hasShadows(control));
+
+        experiment.runShadows(control, "CREATE", "9876543210", DEFAULT_SEGMENTS, List.of("w", "x", "y", "z"));
+
+        ArgumentCaptor<ShadowVariantRunner.ShadowRun> captor =
+                ArgumentCaptor.forClass(ShadowVariantRunner.ShadowRun.class);
+        verify(shadowRunner, timeout(1000)).run(captor.capture());
+        ShadowVariantRunner.ShadowRun run = captor.getValue();
+        assertEquals("terse", run.variant().name());
+        assertEquals("cheap-model", run.variant().model());
+        assertEquals("1:w 2:x 3:y 4:z", run.prompt());
+        assertEquals("control", run.primaryVariant());
+        assertEquals("CREATE", run.primaryOutcome());
+        assertEquals("A[w] B[x] C[y] D[z]", control.render(DEFAULT_SEGMENTS, List.of("w", "x", "y", "z")));
+        experiment.shutdown();
+    }
+
+    @Test
+    void testTemplatesNeedEveryPlaceholder() throws IOException {
+        Path template = Files.writeString(promptDirectory.resolve("broken.txt"), "only %s and %s");
+        config.setVariants(List.of(variant("broken", null, template.toUri().toString(), 1)));
+        assertThrows(IllegalStateException.class, this::experiment);
+
+        config.setVariants(List.of(variant("control", null, null, 1)));
+        config.setShadowVariants(List.of("missing"));
+        assertThrows(IllegalStateException.class, this::experiment);
+    }
+
+    private PromptExperiment experiment() {
+        return new PromptExperiment(config, new DefaultResourceLoader(), shadowRunner, new SimpleMeterRegistry());
+    }
+
+    private static PromptExperimentConfig.Variant variant(String name, String model, String prompt, int weight) {
+        PromptExperimentConfig.Variant variant = new PromptExperimentConfig.Variant();
+        variant.setName(name);
+        variant.setModel(model);
+        variant.setPrompt(prompt);
+        variant.setWeight(weight);
+        return variant;
+    }
+}
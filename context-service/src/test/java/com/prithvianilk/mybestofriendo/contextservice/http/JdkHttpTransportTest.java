@@ -0,0 +1,78 @@
+package com.prithvianilk.mybestofriendo.contextservice.http;
+
+import com.google.api.client.http.ByteArrayContent;
+import com.google.api.client.http.GenericUrl;
+import com.google.api.client.http.HttpRequestFactory;
+import com.google.api.client.http.HttpResponse;
+import com.google.api.client.http.HttpResponseException;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class JdkHttpTransportTest {
+
+    private HttpServer server;
+    private JdkHttpTransport transport;
+    private HttpRequestFactory requestFactory;
+    private String baseUrl;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/calendars/primary/events", exchange -> {
+            String body = exchange.getRequestMethod() + " "
+                    + exchange.getRequestHeaders().getFirst("Content-Type") + " "
+                    + new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            byte[] response = body.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "text/plain");
+            exchange.sendResponseHeaders(200, response.length);
+            exchange.getResponseBody().write(response);
+            exchange.close();
+        });
+        server.createContext("/calendars/primary/events/missing", exchange -> {
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+        });
+        server.start();
+
+        baseUrl = "http://localhost:" + server.getAddress().getPort() + "/calendars/primary/events";
+        transport = new JdkHttpTransport(Duration.ofSeconds(2));
+        requestFactory = transport.createRequestFactory();
+    }
+
+    @AfterEach
+    void tearDown() {
+        transport.shutdown();
+        server.stop(0);
+    }
+
+    @Test
+    void testSendsMethodContentTypeAndBody() throws IOException {
+        HttpResponse post = requestFactory.buildPostRequest(new GenericUrl(baseUrl),
+                ByteArrayContent.fromString("application/json", "{\"summary\":\"Dinner\"}")).execute();
+        HttpResponse put = requestFactory.buildPutRequest(new GenericUrl(baseUrl),
+                ByteArrayContent.fromString("application/json", "{}")).execute();
+
+        assertEquals(200, post.getStatusCode());
+        assertEquals("text/plain", post.getContentType());
+        assertEquals("POST application/json {\"summary\":\"Dinner\"}", post.parseAsString());
+        assertEquals("PUT application/json {}", put.parseAsString());
+    }
+
+    @Test
+    void testErrorStatusIsReportedAsHttpResponseException() {
+        HttpResponseException exception = assertThrows(HttpResponseException.class,
+                () -> requestFactory.buildGetRequest(new GenericUrl(baseUrl + "/missing")).execute());
+
+        assertEquals(404, exception.getStatusCode());
+    }
+}
@@ -0,0 +1,134 @@
+package com.prithvianilk.mybestofriendo.contextservice.importer;
+
+import com.prithvianilk.mybestofriendo.contextservice.config.ChatImportConfig;
+import com.prithvianilk.mybestofriendo.contextservice.model.WhatsAppMessage;
+import com.prithvianilk.mybestofriendo.contextservice.service.ConversationSummaryService;
+import com.prithvianilk.mybestofriendo.contextservice.service.WhatsAppMessageProcessor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class ChatExportImporterTest {
+
+    private static final String EXPORT = """
+            30/12/23, 8:00 pm - Rahul: Happy new year in advance
+            30/12/23, 8:01 pm - Me: Same to you
+            04/01/24, 9:41 pm - Rahul: Dinner on Saturday?
+            """;
+
+    @TempDir
+    Path directory;
+
+    private Path file;
+    private ChatImportConfig config;
+    private WhatsAppMessageProcessor processor;
+    private ChatExportImporter importer;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        file = directory.resolve("chat.txt");
+        Files.writeString(file, EXPORT, StandardCharsets.UTF_8);
+
+        config = new ChatImportConfig();
+        config.setFile(file);
+        config.setParticipant("9876543210");
+        config.setOwnerName("Me");
+        config.setBatchSize(2);
+        config.setDetectCommitmentsWithin(Duration.ofDays(3));
+        processor = mock(WhatsAppMessageProcessor.class);
+
+        importer = new ChatExportImporter(config, processor, mock(ConversationSummaryService.class),
+                new SimpleMeterRegistry(), Clock.fixed(Instant.parse("2024-01-05T00:00:00Z"), ZoneOffset.UTC));
+    }
+
+    @Test
+    void testImportsOldMessagesAsHistoryAndDetectsCommitmentsInRecentOnes() throws Exception {
+        ImportCheckpoint checkpoint = importer.importExport(file);
+
+        ArgumentCaptor<List<WhatsAppMessage>> history = listCaptor();
+        verify(processor).processHistory(anyString(), history.capture());
+        assertEquals(List.of("Happy new year in advance", "Same to you"),
+                history.getValue().stream().map(WhatsAppMessage::content).toList());
+        assertFalse(history.getValue().get(0).fromMe());
+        assertTrue(history.getValue().get(1).fromMe());
+        assertEquals(Instant.parse("2023-12-30T14:30:00Z"), history.getValue().get(0).sentAt());
+
+        ArgumentCaptor<WhatsAppMessage> recent = ArgumentCaptor.forClass(WhatsAppMessage.class);
+        verify(processor).processIngested(recent.capture(), any());
+        assertEquals("Dinner on Saturday?", recent.getValue().content());
+        assertEquals("9876543210", recent.getValue().participantMobileNumber());
+
+        assertEquals(new ImportCheckpoint(EXPORT.length(), 3, true), checkpoint);
+        assertEquals(checkpoint, ImportCheckpoint.load(config.checkpointPath()));
+    }
+
+    @Test
+    void testResumesFromCheckpoint() throws Exception {
+        new ImportCheckpoint(EXPORT.indexOf("30/12/23, 8:01"), 1, false).save(config.checkpointPath());
+
+        ImportCheckpoint checkpoint = importer.importExport(file);
+
+        ArgumentCaptor<List<WhatsAppMessage>> ingested = listCaptor();
+        verify(processor).ingestAll(ingested.capture());
+        assertEquals(List.of("Same to you", "Dinner on Saturday?"),
+                ingested.getValue().stream().map(WhatsAppMessage::content).toList());
+        assertEquals(3, checkpoint.messages());
+    }
+
+    @Test
+    void testSkipsCompletedImport() throws Exception {
+        new ImportCheckpoint(EXPORT.length(), 3, true).save(config.checkpointPath());
+
+        importer.importExport(file);
+
+        verify(processor, never()).ingestAll(anyList());
+    }
+
+    @Test
+    void testRepeatedMessagesGetTheirOwnKeysAndStayInOneBatch() throws Exception {
+        Files.writeString(file, """
+                04/01/24, 9:41 pm - Rahul: ok
+                04/01/24, 9:41 pm - Rahul: ok
+                04/01/24, 9:41 pm - Rahul: ok
+                04/01/24, 9:42 pm - Me: See you
+                """, StandardCharsets.UTF_8);
+
+        importer.importExport(file);
+
+        ArgumentCaptor<List<WhatsAppMessage>> batches = listCaptor();
+        verify(processor, times(2)).ingestAll(batches.capture());
+        List<WhatsAppMessage> repeats = batches.getAllValues().getFirst();
+        Instant sentAt = Instant.parse("2024-01-04T16:11:00Z");
+        assertEquals(List.of(sentAt, sentAt.plusMillis(1), sentAt.plusMillis(2)),
+                repeats.stream().map(WhatsAppMessage::sentAt).toList());
+        assertEquals(3, repeats.stream().map(WhatsAppMessage::messageKey).distinct().count());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ArgumentCaptor<List<WhatsAppMessage>> listCaptor() {
+        return ArgumentCaptor.forClass(List.class);
+    }
+}
@@ -0,0 +1,118 @@
+package com.prithvianilk.mybestofriendo.contextservice.importer;
+
+import com.prithvianilk.mybestofriendo.contextservice.config.ChatImportConfig.DateOrder;
+import com.prithvianilk.mybestofriendo.contextservice.importer.ChatExportParser.ExportedMessage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ChatExportParserTest {
+
+    private static final String ANDROID_EXPORT = """
+            31/12/23, 9:41 pm - Messages and calls are end-to-end encrypted. Tap to learn more.
+            31/12/23, 9:41 pm - Rahul: Dinner tomorrow?
+            31/12/23, 9:42 pm - Me: Sure
+            bring the board games
+            31/12/23, 9:43 pm - Rahul: <Media omitted>
+            01/01/24, 10:05 am - Rahul: Running late, 8 instead of 7:30
+            """;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testParsesAndroidExportWithMultiLineMessages() throws IOException {
+        List<ExportedMessage> messages = parse(write("chat.txt", ANDROID_EXPORT), 0, DateOrder.DAY_FIRST);
+
+        assertEquals(3, messages.size());
+        assertEquals(new ExportedMessage("Rahul", "Dinner tomorrow?", LocalDateTime.of(2023, 12, 31, 21, 41),
+                offsetOf(ANDROID_EXPORT, "31/12/23, 9:42"), 0), messages.get(0));
+        assertEquals("Sure\nbring the board games", messages.get(1).content());
+        assertEquals("Me", messages.get(1).senderName());
+        assertEquals(LocalDateTime.of(2024, 1, 1, 10, 5), messages.get(2).sentAt());
+        assertEquals(ANDROID_EXPORT.getBytes(StandardCharsets.UTF_8).length, messages.get(2).nextOffset());
+    }
+
+    @Test
+    void testParsesZippedIosExport() throws IOException {
+        String export = """
+                \uFEFF[12/31/23, 9:41:05 PM] Rahul: Dinner tomorrow?\r
+                \u200E[12/31/23, 9:41:30 PM] Rahul: \u200Eimage omitted\r
+                [12/31/23, 21:42:00] Me: Sure\r
+                """;
+        Path zip = directory.resolve("WhatsApp Chat - Rahul.zip");
+        try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(zip))) {
+            out.putNextEntry(new ZipEntry("IMG-0001.jpg"));
+            out.write(new byte[]{1, 2, 3});
+            out.putNextEntry(new ZipEntry("_chat.txt"));
+            out.write(export.getBytes(StandardCharsets.UTF_8));
+        }
+
+        List<ExportedMessage> messages = parse(zip, 0, DateOrder.MONTH_FIRST);
+
+        assertEquals(2, messages.size());
+        assertEquals("Dinner tomorrow?", messages.get(0).content());
+        assertEquals(LocalDateTime.of(2023, 12, 31, 21, 41, 5), messages.get(0).sentAt());
+        assertEquals(LocalDateTime.of(2023, 12, 31, 21, 42), messages.get(1).sentAt());
+    }
+
+    @Test
+    void testResumesFromOffset() throws IOException {
+        Path file = write("chat.txt", ANDROID_EXPORT);
+        long offset = parse(file, 0, DateOrder.DAY_FIRST).getFirst().nextOffset();
+
+        List<ExportedMessage> messages = parse(file, offset, DateOrder.DAY_FIRST);
+
+        assertEquals(List.of("Sure\nbring the board games", "Running late, 8 instead of 7:30"),
+                messages.stream().map(ExportedMessage::content).toList());
+    }
+
+    @Test
+    void testNumbersRepeatsOfAMessageAtOneTimestamp() throws IOException {
+        List<ExportedMessage> messages = parse(write("chat.txt", """
+                31/12/23, 9:41 pm - Rahul: ok
+                31/12/23, 9:41 pm - Me: ok
+                31/12/23, 9:41 pm - Rahul: ok
+                31/12/23, 9:42 pm - Rahul: ok
+                """), 0, DateOrder.DAY_FIRST);
+
+        assertEquals(List.of(0, 0, 1, 0), messages.stream().map(ExportedMessage::repeat).toList());
+    }
+
+    private Path write(String name, String content) throws IOException {
+        Path file = directory.resolve(name);
+        try (OutputStream out = Files.newOutputStream(file)) {
+            out.write(content.getBytes(StandardCharsets.UTF_8));
+        }
+        return file;
+    }
+
+    private static List<ExportedMessage> parse(Path file, long offset, DateOrder dateOrder) throws IOException {
+        List<ExportedMessage> messages = new ArrayList<>();
+        try (ChatExportLines lines = ChatExportLines.open(file, offset)) {
+            ChatExportParser parser = new ChatExportParser(lines, dateOrder);
+            ExportedMessage message;
+            while (Objects.nonNull(message = parser.next())) {
+                messages.add(message);
+            }
+        }
+        return messages;
+    }
+
+    private static long offsetOf(String export, String line) {
+        return export.substring(0, export.indexOf(line)).getBytes(StandardCharsets.UTF_8).length;
+    }
+}
@@ -0,0 +1,102 @@
+package com.prithvianilk.mybestofriendo.contextservice.index;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HnswIndexTest {
+
+    private static final int DIMENSIONS = 32;
+    private static final int SIZE = 2000;
+
+    private final Random random = new Random(7);
+    private final List<float[]> vectors = new ArrayList<>();
+    private HnswIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new HnswIndex(DIMENSIONS, 16, 100, 42);
+        for (int i = 0; i < SIZE; i++) {
+            float[] vector = randomUnitVector();
+            vectors.add(vector);
+            index.insert(vector);
+        }
+    }
+
+    @Test
+    void testSearchFindsExactNearestNeighbourForMostQueries() {
+        int hits = 0;
+        for (int i = 0; i < 100; i++) {
+            float[] query = randomUnitVector();
+            List<HnswIndex.SearchResult> results = index.search(query, 1, 64, HnswIndex.NO_DEADLINE);
+            if (results.getFirst().id() == bruteForceNearest(query)) {
+                hits++;
+            }
+        }
+        assertTrue(hits >= 90, "Expected at least 90% recall@1, got " + hits + "%");
+    }
+
+    @Test
+    void testSearchReturnsInsertedVectorFirst() {
+        List<HnswIndex.SearchResult> results = index.search(vectors.get(123), 5, 64, HnswIndex.NO_DEADLINE);
+
+        assertEquals(5, results.size());
+        assertEquals(123, results.getFirst().id());
+        assertTrue(results.get(0).score() >= results.get(1).score());
+    }
+
+    @Test
+    void testRestoredGraphReturnsSameResults() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        index.writeGraph(new DataOutputStream(bytes));
+
+        HnswIndex restored = HnswIndex.restore(
+                new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())), vectors, 100, 42);
+
+        float[] query = randomUnitVector();
+        assertEquals(SIZE, restored.size());
+        assertEquals(
+                index.search(query, 10, 64, HnswIndex.NO_DEADLINE),
+                restored.search(query, 10, 64, HnswIndex.NO_DEADLINE));
+    }
+
+    private int bruteForceNearest(float[] query) {
+        int best = -1;
+        float bestScore = Float.NEGATIVE_INFINITY;
+        for (int i = 0; i < vectors.size(); i++) {
+            float score = 0;
+            for (int d = 0; d < DIMENSIONS; d++) {
+                score += query[d] * vectors.get(i)[d];
+            }
+            if (score > bestScore) {
+                best = i;
+                bestScore = score;
+            }
+        }
+        return best;
+    }
+
+    private float[] randomUnitVector() {
+        float[] vector = new float[DIMENSIONS];
+        double norm = 0;
+        for (int d = 0; d < DIMENSIONS; d++) {
+            vector[d] = (float) random.nextGaussian();
+            norm += vector[d] * vector[d];
+        }
+        for (int d = 0; d < DIMENSIONS; d++) {
+            vector[d] /= (float) Math.sqrt(norm);
+        }
+        return vector;
+    }
+}
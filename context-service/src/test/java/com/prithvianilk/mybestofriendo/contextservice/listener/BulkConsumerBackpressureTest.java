@@ -0,0 +1,147 @@
+package com.prithvianilk.mybestofriendo.contextservice.listener;
+
+import com.prithvianilk.mybestofriendo.contextservice.config.BatchListenerConfig;
+import com.prithvianilk.mybestofriendo.contextservice.config.ConversationSummaryConfig;
+import com.prithvianilk.mybestofriendo.contextservice.config.TemporalResolutionConfig;
+import com.prithvianilk.mybestofriendo.contextservice.model.WhatsAppMessage;
+import com.prithvianilk.mybestofriendo.contextservice.repository.ConversationSummaryRepository;
+import com.prithvianilk.mybestofriendo.contextservice.service.ConversationSummaryService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.MessageListenerContainer;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs the backpressure against a real {@link ConversationSummaryService} whose summariser is stuck on the
+ * LLM, so updates pile up in its queue.
+ */
+class BulkConsumerBackpressureTest {
+
+    private final CountDownLatch llmReleased = new CountDownLatch(1);
+
+    private KafkaListenerEndpointRegistry listenerEndpointRegistry;
+    private MessageListenerContainer container;
+    private ConversationSummaryService conversationSummaryService;
+    private SimpleMeterRegistry meterRegistry;
+    private BulkConsumerBackpressure backpressure;
+
+    @BeforeEach
+    void setUp() {
+        listenerEndpointRegistry = mock(KafkaListenerEndpointRegistry.class);
+        container = mock(MessageListenerContainer.class);
+        when(listenerEndpointRegistry.getListenerContainer(WhatsAppMessageBatchListener.LISTENER_ID))
+                .thenReturn(container);
+        when(container.isRunning()).thenReturn(true);
+
+        ChatClient chatClient = mock(ChatClient.class);
+        when(chatClient.prompt()).thenAnswer(_ -> {
+            llmReleased.await();
+            throw new IllegalStateException("LLM unavailable");
+        });
+        ConversationSummaryRepository summaryRepository = mock(ConversationSummaryRepository.class);
+        when(summaryRepository.findById(anyString())).thenReturn(Optional.empty());
+        ConversationSummaryConfig summaryConfig = mock(ConversationSummaryConfig.class);
+        when(summaryConfig.isEnabled()).thenReturn(true);
+        when(summaryConfig.getBatchSize()).thenReturn(1);
+        when(summaryConfig.getMaxLength()).thenReturn(1500);
+        conversationSummaryService = new ConversationSummaryService(chatClient, summaryRepository, summaryConfig,
+                new TemporalResolutionConfig(), Clock.systemUTC());
+        meterRegistry = new SimpleMeterRegistry();
+
+        BatchListenerConfig config = new BatchListenerConfig();
+        config.setPauseAboveQueued(3);
+        config.setResumeBelowQueued(1);
+        backpressure = new BulkConsumerBackpressure(config, listenerEndpointRegistry, conversationSummaryService,
+                meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        llmReleased.countDown();
+        conversationSummaryService.shutdown();
+    }
+
+    @Test
+    void testPausesOnceSummaryBacklogReachesHighWatermark() {
+        evict(5);
+
+        backpressure.check();
+
+        verify(container).pause();
+        assertEquals(1.0, meterRegistry.counter("whatsapp.listener.backpressure", "action", "pause").count());
+    }
+
+    @Test
+    void testStaysPausedBetweenWatermarks() {
+        when(container.isPauseRequested()).thenReturn(true);
+        evict(3);
+
+        backpressure.check();
+
+        verify(container, never()).resume();
+        verify(container, never()).pause();
+    }
+
+    @Test
+    void testResumesOnceSummaryBacklogDrains() throws InterruptedException {
+        when(container.isPauseRequested()).thenReturn(true);
+        evict(5);
+        llmReleased.countDown();
+        while (conversationSummaryService.queuedUpdates() > 0) {
+            Thread.sleep(10);
+        }
+
+        backpressure.check();
+
+        verify(container).resume();
+        assertEquals(1.0, meterRegistry.counter("whatsapp.listener.backpressure", "action", "resume").count());
+    }
+
+    @Test
+    void testIgnoresStoppedContainer() {
+        when(container.isRunning()).thenReturn(false);
+        evict(5);
+
+        backpressure.check();
+
+        verify(container, never()).pause();
+    }
+
+    @Test
+    void testIgnoresMissingContainer() {
+        when(listenerEndpointRegistry.getListenerContainer(WhatsAppMessageBatchListener.LISTENER_ID))
+                .thenReturn(null);
+        evict(5);
+
+        backpressure.check();
+
+        verify(container, never()).pause();
+    }
+
+    /**
+     * Evicts one message from each of {@code participants} windows, one summary update each.
+     */
+    private void evict(int participants) {
+        for (int i = 0; i < participants; i++) {
+            String participant = "98765432" + (10 + i);
+            conversationSummaryService.onMessagesEvicted(participant, List.of(
+                    new WhatsAppMessage(participant, "User " + i, false, "Hello", Instant.now())));
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.prithvianilk.mybestofriendo.contextservice.listener;
+
+import com.prithvianilk.mybestofriendo.contextservice.model.MessagePosition;
+import com.prithvianilk.mybestofriendo.contextservice.model.WhatsAppMessage;
+import com.prithvianilk.mybestofriendo.contextservice.service.IdempotencyLedger;
+import com.prithvianilk.mybestofriendo.contextservice.service.WhatsAppMessageProcessor;
+import com.prithvianilk.mybestofriendo.contextservice.tracing.Tracer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static com.prithvianilk.mybestofriendo.contextservice.service.WhatsAppMessageTestUtil.MessageContent;
+import static com.prithvianilk.mybestofriendo.contextservice.service.WhatsAppMessageTestUtil.createMessages;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class WhatsAppMessageBatchListenerTest {
+
+    private final List<WhatsAppMessage> messages = createMessages(Instant.parse("2025-01-15T10:00:00Z"),
+            new MessageContent("Can you send me the report?", false),
+            new MessageContent("I'll send you the report tomorrow", true),
+            new MessageContent("Thanks!", false));
+
+    private final List<ConsumerRecord<String, WhatsAppMessage>> records = IntStream.range(0, messages.size())
+            .mapToObj(i -> new ConsumerRecord<>("whatsapp-messages", 0, 10L + i,
+                    messages.get(i).participantMobileNumber(), messages.get(i)))
+            .toList();
+
+    private WhatsAppMessageProcessor processor;
+    private PlatformTransactionManager transactionManager;
+    private SimpleTransactionStatus transactionStatus;
+    private WhatsAppMessageBatchListener listener;
+
+    @BeforeEach
+    void setUp() {
+        processor = mock(WhatsAppMessageProcessor.class);
+        transactionManager = mock(PlatformTransactionManager.class);
+        transactionStatus = new SimpleTransactionStatus();
+        when(transactionManager.getTransaction(any())).thenReturn(transactionStatus);
+        listener = new WhatsAppMessageBatchListener(processor, new TransactionTemplate(transactionManager),
+                mock(IdempotencyLedger.class), new Tracer(_ -> {
+        }, new SimpleMeterRegistry(), Clock.systemUTC()));
+    }
+
+    @Test
+    void testBatchIsIngestedOnceAndEachMessageIsCommittedOnItsOwn() {
+        listener.listen(records);
+
+        verify(processor).ingestAll(messages);
+        for (int i = 0; i < messages.size(); i++) {
+            verify(processor).processIngested(messages.get(i), new MessagePosition("whatsapp-messages", 0, 10L + i));
+        }
+        verify(transactionManager, times(messages.size())).commit(transactionStatus);
+    }
+
+    @Test
+    void testFailureCommitsEarlierMessagesAndReportsFailedIndex() {
+        doThrow(new IllegalStateException("Calendar unavailable"))
+                .when(processor).processIngested(messages.get(1), position(1));
+
+        BatchListenerFailedException exception = assertThrows(
+                BatchListenerFailedException.class, () -> listener.listen(records));
+
+        assertEquals(1, exception.getIndex());
+        verify(processor, never()).processIngested(messages.get(2), position(2));
+        verify(transactionManager, times(1)).commit(transactionStatus);
+        verify(transactionManager).rollback(transactionStatus);
+    }
+
+    @Test
+    void testFailedDatabaseWriteOnlyRetriesTheFailedMessage() {
+        doAnswer(_ -> {
+            transactionStatus.setRollbackOnly();
+            throw new IllegalStateException("Constraint violation");
+        }).when(processor).processIngested(messages.get(1), position(1));
+
+        BatchListenerFailedException exception = assertThrows(
+                BatchListenerFailedException.class, () -> listener.listen(records));
+
+        assertEquals(1, exception.getIndex());
+        verify(processor, times(1)).processIngested(messages.get(0), position(0));
+    }
+
+    private MessagePosition position(int index) {
+        return MessagePosition.of(records.get(index));
+    }
+}
@@ -0,0 +1,134 @@
+package com.prithvianilk.mybestofriendo.contextservice.listener;
+
+import com.prithvianilk.mybestofriendo.contextservice.config.PartitionOwnershipConfig;
+import com.prithvianilk.mybestofriendo.contextservice.config.TemporalResolutionConfig;
+import com.prithvianilk.mybestofriendo.contextservice.config.WhatsAppMessageConfig;
+import com.prithvianilk.mybestofriendo.contextservice.model.WhatsAppMessage;
+import com.prithvianilk.mybestofriendo.contextservice.repository.FutureCommitmentIndex;
+import com.prithvianilk.mybestofriendo.contextservice.repository.WhatsAppMessageRepository;
+import com.prithvianilk.mybestofriendo.contextservice.service.ConversationSummaryService;
+import com.prithvianilk.mybestofriendo.contextservice.service.WindowHydrator;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatcher;
+import org.mockito.InOrder;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class WindowOwnershipRebalanceListenerTest {
+
+    private static final String TOPIC = "whatsapp-messages";
+
+    private PartitionOwnershipConfig config;
+    private WindowHydrator windowHydrator;
+    private WhatsAppMessageRepository repository;
+    private FutureCommitmentIndex futureCommitmentIndex;
+    private ConversationSummaryService conversationSummaryService;
+    private ApplicationEventPublisher eventPublisher;
+    private Consumer<?, ?> consumer;
+    private WindowOwnershipRebalanceListener listener;
+
+    @BeforeEach
+    void setUp() {
+        config = new PartitionOwnershipConfig();
+        config.setEnabled(true);
+        WhatsAppMessageConfig messageConfig = mock(WhatsAppMessageConfig.class);
+        when(messageConfig.getMaxWindowSize()).thenReturn(5);
+        repository = new WhatsAppMessageRepository(messageConfig, new TemporalResolutionConfig());
+        windowHydrator = mock(WindowHydrator.class);
+        futureCommitmentIndex = mock(FutureCommitmentIndex.class);
+        conversationSummaryService = mock(ConversationSummaryService.class);
+        eventPublisher = mock(ApplicationEventPublisher.class);
+        consumer = mock(Consumer.class);
+        when(consumer.partitionsFor(TOPIC)).thenReturn(List.of(
+                new PartitionInfo(TOPIC, 0, null, null, null),
+                new PartitionInfo(TOPIC, 1, null, null, null)));
+        listener = new WindowOwnershipRebalanceListener(config, windowHydrator, repository, futureCommitmentIndex,
+                conversationSummaryService, eventPublisher);
+    }
+
+    @Test
+    void testRevokingPartitionEvictsOnlyItsParticipants() {
+        String onPartitionZero = participantOnPartition(0);
+        String onPartitionOne = participantOnPartition(1);
+        repository.add(message(onPartitionZero));
+        repository.add(message(onPartitionOne));
+
+        listener.onPartitionsRevokedAfterCommit(consumer, List.of(new TopicPartition(TOPIC, 0)));
+
+        assertTrue(repository.getMessages(onPartitionZero).isEmpty());
+        assertEquals(1, repository.getMessages(onPartitionOne).size());
+        verify(futureCommitmentIndex).evictIf(argThat(evicts(onPartitionZero, onPartitionOne)));
+        verify(conversationSummaryService).evictIf(argThat(evicts(onPartitionZero, onPartitionOne)));
+    }
+
+    @Test
+    void testAssigningPartitionsHydratesThemWhileRefusingTraffic() {
+        listener.onPartitionsAssigned(consumer, List.of(
+                new TopicPartition(TOPIC, 1),
+                new TopicPartition("whatsapp-messages-catchup", 0)));
+
+        InOrder ordered = inOrder(eventPublisher, windowHydrator);
+        ordered.verify(eventPublisher).publishEvent(argThat((ApplicationEvent event) -> isReadiness(event,
+                ReadinessState.REFUSING_TRAFFIC)));
+        ordered.verify(windowHydrator).hydratePartitions(Set.of(1));
+        ordered.verify(eventPublisher).publishEvent(argThat((ApplicationEvent event) -> isReadiness(event,
+                ReadinessState.ACCEPTING_TRAFFIC)));
+    }
+
+    @Test
+    void testDoesNothingWhenOwnershipIsDisabled() {
+        config.setEnabled(false);
+        repository.add(message(participantOnPartition(0)));
+
+        listener.onPartitionsAssigned(consumer, List.of(new TopicPartition(TOPIC, 0)));
+        listener.onPartitionsLost(consumer, List.of(new TopicPartition(TOPIC, 0)));
+
+        assertFalse(repository.getMessages(participantOnPartition(0)).isEmpty());
+        verifyNoInteractions(windowHydrator, eventPublisher);
+        verify(futureCommitmentIndex, never()).evictIf(any());
+    }
+
+    private static String participantOnPartition(int partition) {
+        return IntStream.range(0, 100)
+                .mapToObj(i -> "98765432" + String.format("%02d", i))
+                .filter(participant -> WindowOwnershipRebalanceListener.partitionFor(participant, 2) == partition)
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private static ArgumentMatcher<Predicate<String>> evicts(String evicted, String kept) {
+        return predicate -> predicate.test(evicted) && !predicate.test(kept);
+    }
+
+    private static boolean isReadiness(ApplicationEvent event, ReadinessState state) {
+        return event instanceof AvailabilityChangeEvent<?> change && change.getState() == state;
+    }
+
+    private static WhatsAppMessage message(String participant) {
+        return new WhatsAppMessage(participant, "Alice", false, "See you at 7", Instant.parse("2025-01-15T10:00:00Z"));
+    }
+}
@@ -0,0 +1,123 @@
+package com.prithvianilk.mybestofriendo.contextservice.logging;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.prithvianilk.mybestofriendo.contextservice.config.WideEventAnalyticsConfig;
+import com.prithvianilk.mybestofriendo.contextservice.config.WideEventLoggingConfig;
+import com.prithvianilk.mybestofriendo.contextservice.model.CommitmentActionType;
+import com.prithvianilk.mybestofriendo.contextservice.model.WhatsAppMessage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WideEventSamplingTest {
+
+    private static final Instant SENT_AT = Instant.parse("2025-01-15T10:00:00Z");
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private WideEventLoggingConfig config;
+    private WideEventSampler sampler;
+
+    @BeforeEach
+    void setUp() {
+        config = new WideEventLoggingConfig();
+        sampler = new WideEventSampler(config, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void testFailedSlowAndActionEventsAreAlwaysKept() {
+        config.setNoOpSampleRate(0);
+
+        assertEquals("failure", sampler.decide(commitmentManagement(CommitmentManagementContext.builder()
+                .success(false)), 10, false).reason());
+        assertEquals("failure", sampler.decide(Map.of("dispatch", Map.of("CommitmentRecorder", "timeout")),
+                10, false).reason());
+        assertEquals("failure", sampler.decide(Map.of("duplicate", true), 10, true).reason());
+        assertEquals("slow", sampler.decide(commitmentManagement(CommitmentManagementContext.builder()
+                .llmLatencyMillis(6000L)), 6100, false).reason());
+        assertEquals("action", sampler.decide(commitmentManagement(CommitmentManagementContext.builder()
+                .actionType(CommitmentActionType.CANCEL)), 10, false).reason());
+        assertEquals("disagreement", sampler.decide(Map.of("shadowVariant", ShadowVariantContext.builder()
+                .agreesWithPrimary(false)
+                .build()), 10, false).reason());
+        assertFalse(sampler.decide(commitmentManagement(CommitmentManagementContext.builder()
+                .llmLatencyMillis(800L)), 10, false).keep());
+    }
+
+    @Test
+    void testNoOpEventsAreSampledByMessage() {
+        int kept = 0;
+        for (int i = 0; i < 5000; i++) {
+            Map<String, Object> context = commitmentManagement(CommitmentManagementContext.builder()
+                    .participantMobileNumber(Integer.toString(9000000 + i))
+                    .messageSentAt(SENT_AT.plusSeconds(i)));
+            WideEventSampler.Decision decision = sampler.decide(context, 10, false);
+            assertEquals(decision, sampler.decide(context, 20, false));
+            if (decision.keep()) {
+                assertEquals(new WideEventSampler.Decision("sampled", 0.1), decision);
+                kept++;
+            }
+        }
+
+        assertEquals(0.1, kept / 5000.0, 0.02);
+    }
+
+    @Test
+    void testLargeFieldsAreReplacedByReferencesToTheirContent() throws Exception {
+        WideEventRedactor redactor = new WideEventRedactor(objectMapper, config, new WideEventAnalyticsConfig());
+        WhatsAppMessage dinner = new WhatsAppMessage("9876543210", "Rahul", false, "Dinner on Friday?", SENT_AT, null);
+        WhatsAppMessage reply = new WhatsAppMessage("9876543210", "Me", true, "Sure", SENT_AT.plusSeconds(60), null);
+        String prompt = "You are an assistant that detects commitments. ".repeat(10);
+
+        WideEventRedactor.Redacted redacted = redactor.redact(commitmentManagement(CommitmentManagementContext.builder()
+                .prompt(prompt)
+                .historyMessages(List.of(dinner, reply, dinner))
+                .futureCommitments(List.of())), new WideEventSampler.Decision("sampled", 0.1));
+
+        JsonNode logged = objectMapper.readTree(redacted.json());
+        JsonNode commitmentManagement = logged.get("commitmentManagement");
+        String promptReference = commitmentManagement.get("prompt").textValue();
+        assertEquals("sha256:" + WideEventRedactor.hash(prompt), promptReference);
+        assertEquals(prompt, redacted.payloads().get(promptReference.substring("sha256:".length())));
+        JsonNode historyMessages = commitmentManagement.get("historyMessages");
+        String dinnerReference = historyMessages.get(0).textValue();
+        assertEquals(dinnerReference, historyMessages.get(2).textValue());
+        assertEquals(dinner.content(), objectMapper.readTree(redacted.payloads()
+                .get(dinnerReference.substring("sha256:".length()))).get("content").textValue());
+        assertTrue(historyMessages.get(1).textValue().startsWith("sha256:"));
+        assertEquals(3, redacted.payloads().size());
+        // Too short to be worth a reference
+        assertTrue(commitmentManagement.get("futureCommitments").isArray());
+        assertEquals("sampled", logged.get("sampling").get("reason").textValue());
+        assertEquals(0.1, logged.get("sampling").get("rate").doubleValue());
+
+        // Logged in full when the payloads cannot be stored
+        JsonNode fallback = objectMapper.readTree(redactor.unredacted(commitmentManagement(
+                CommitmentManagementContext.builder().prompt(prompt)), new WideEventSampler.Decision("sampled", 0.1)));
+        assertEquals(prompt, fallback.get("commitmentManagement").get("prompt").textValue());
+
+        WideEventAnalyticsConfig disabledStore = new WideEventAnalyticsConfig();
+        disabledStore.setEnabled(false);
+        WideEventRedactor.Redacted unredacted = new WideEventRedactor(objectMapper, config, disabledStore)
+                .redact(Map.of("commitmentManagement", CommitmentManagementContext.builder().prompt(prompt).build()),
+                        new WideEventSampler.Decision("action", 1));
+        JsonNode unredactedLogged = objectMapper.readTree(unredacted.json());
+        assertEquals(prompt, unredactedLogged.get("commitmentManagement").get("prompt").textValue());
+        assertNull(unredactedLogged.get("sampling").get("rate"));
+        assertTrue(unredacted.payloads().isEmpty());
+    }
+
+    private static Map<String, Object> commitmentManagement(
+            CommitmentManagementContext.CommitmentManagementContextBuilder context) {
+        return Map.of("commitmentManagement", context.build());
+    }
+}
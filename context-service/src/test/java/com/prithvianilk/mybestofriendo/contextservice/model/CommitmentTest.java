@@ -3,23 +3,39 @@ package com.prithvianilk.mybestofriendo.contextservice.model;
 import org.junit.jupiter.api.Test;
 
 import java.time.Instant;
+import java.time.ZoneId;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 
 class CommitmentTest {
 
+    private static final Instant COMMITTED_AT = Instant.parse("2023-10-01T10:00:00Z");
+
+    @Test
+    void atZoneReadsLlmTimestampAsWallClockTimeInZone() {
+        Commitment commitment = new Commitment(COMMITTED_AT, "Test description", Instant.parse("2023-10-02T10:00:00Z"));
+
+        assertEquals(Instant.parse("2023-10-02T04:30:00Z"),
+                commitment.atZone(ZoneId.of("Asia/Kolkata")).toBeCompletedAt());
+        assertEquals(Instant.parse("2023-10-02T08:00:00Z"),
+                commitment.atZone(ZoneId.of("Europe/Berlin")).toBeCompletedAt());
+    }
+
     @Test
-    void constructorConvertsIstToUtc() {
-        Instant committedAt = Instant.parse("2023-10-01T10:00:00Z");
-        Instant toBeCompletedAtIst = Instant.parse("2023-10-02T10:00:00Z");
-        Instant expectedToBeCompletedAtUtc = Instant.parse("2023-10-02T04:30:00Z");
-
-        Commitment commitment = new Commitment(
-                committedAt,
-                "Test description",
-                toBeCompletedAtIst
-        );
-
-        assertEquals(expectedToBeCompletedAtUtc, commitment.toBeCompletedAt());
+    void atZoneKeepsMissingCompletionTime() {
+        Commitment commitment = new Commitment(COMMITTED_AT, "Test description", null);
+
+        assertNull(commitment.atZone(ZoneId.of("Asia/Kolkata")).toBeCompletedAt());
+    }
+
+    @Test
+    void withToBeCompletedAtKeepsTheGivenInstant() {
+        Instant toBeCompletedAt = Instant.parse("2023-10-02T04:30:00Z");
+
+        Commitment commitment = new Commitment(COMMITTED_AT, "Test description", null)
+                .withToBeCompletedAt(toBeCompletedAt);
+
+        assertEquals(toBeCompletedAt, commitment.toBeCompletedAt());
     }
 }
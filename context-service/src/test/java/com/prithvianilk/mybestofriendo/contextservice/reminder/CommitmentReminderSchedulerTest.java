@@ -0,0 +1,224 @@
+package com.prithvianilk.mybestofriendo.contextservice.reminder;
+
+import com.prithvianilk.mybestofriendo.contextservice.config.ReminderConfig;
+import com.prithvianilk.mybestofriendo.contextservice.config.TenancyConfig;
+import com.prithvianilk.mybestofriendo.contextservice.model.CommitmentEntity;
+import com.prithvianilk.mybestofriendo.contextservice.model.CommitmentReminder;
+import com.prithvianilk.mybestofriendo.contextservice.model.CommitmentReminderStateEntity;
+import com.prithvianilk.mybestofriendo.contextservice.repository.CommitmentReminderStateRepository;
+import com.prithvianilk.mybestofriendo.contextservice.repository.CommitmentRepository;
+import com.prithvianilk.mybestofriendo.contextservice.tenant.TenantDirectory;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import javax.sql.DataSource;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CommitmentReminderSchedulerTest {
+
+    private static final String TOPIC = "commitment-reminders";
+    private static final String PARTICIPANT = "9876543210";
+    private static final Instant NOW = Instant.parse("2025-01-15T10:00:00Z");
+
+    private Clock clock;
+    private CommitmentRepository commitmentRepository;
+    private CommitmentReminderStateRepository reminderStateRepository;
+    private KafkaTemplate<String, Object> kafkaTemplate;
+    private CommitmentReminderScheduler scheduler;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        clock = mock(Clock.class);
+        at(NOW);
+        commitmentRepository = mock(CommitmentRepository.class);
+        when(commitmentRepository.findById(anyLong())).thenReturn(Optional.empty());
+        reminderStateRepository = mock(CommitmentReminderStateRepository.class);
+        when(reminderStateRepository.claim(anyLong(), any(), any(), any())).thenReturn(1);
+        kafkaTemplate = mock(KafkaTemplate.class);
+        when(kafkaTemplate.send(anyString(), anyString(), any())).thenReturn(CompletableFuture.completedFuture(null));
+
+        TenancyConfig tenancyConfig = new TenancyConfig();
+        tenancyConfig.setShardingEnabled(false);
+        scheduler = new CommitmentReminderScheduler(new ReminderConfig(),
+                new TenantDirectory(tenancyConfig, mock(DataSource.class)), commitmentRepository,
+                reminderStateRepository, kafkaTemplate, new SimpleMeterRegistry(), clock);
+    }
+
+    @Test
+    void testFiresPreDueAndDueReminders() {
+        CommitmentEntity commitment = commitment(1L, NOW.plus(Duration.ofHours(2)));
+        scheduler.schedule(commitment);
+        assertEquals(2, scheduler.pendingReminders());
+
+        at(NOW.plus(Duration.ofMinutes(59)));
+        scheduler.tick();
+        verify(kafkaTemplate, never()).send(anyString(), anyString(), any());
+
+        at(NOW.plus(Duration.ofHours(1)).plusSeconds(1));
+        scheduler.tick();
+        at(NOW.plus(Duration.ofHours(2)).plusSeconds(1));
+        scheduler.tick();
+
+        List<CommitmentReminder> reminders = sentReminders(2);
+        assertEquals(CommitmentReminder.Type.PRE_DUE, reminders.get(0).type());
+        assertEquals(NOW.plus(Duration.ofHours(1)), reminders.get(0).remindAt());
+        assertEquals(CommitmentReminder.Type.DUE, reminders.get(1).type());
+        assertEquals("Call mom", reminders.get(1).description());
+        verify(reminderStateRepository, times(2)).claim(anyLong(), any(), any(), any());
+        assertEquals(0, scheduler.pendingReminders());
+    }
+
+    @Test
+    void testCancelledAndMovedCommitmentsDoNotFireOldReminders() {
+        CommitmentEntity cancelled = commitment(1L, NOW.plus(Duration.ofHours(2)));
+        CommitmentEntity moved = commitment(2L, NOW.plus(Duration.ofHours(2)));
+        scheduler.schedule(cancelled);
+        scheduler.schedule(moved);
+
+        scheduler.cancel(cancelled);
+        CommitmentEntity movedLater = commitment(2L, NOW.plus(Duration.ofHours(5)));
+        scheduler.schedule(movedLater);
+        assertEquals(2, scheduler.pendingReminders());
+
+        at(NOW.plus(Duration.ofHours(3)));
+        scheduler.tick();
+        verify(kafkaTemplate, never()).send(anyString(), anyString(), any());
+
+        at(NOW.plus(Duration.ofHours(4)).plusSeconds(1));
+        scheduler.tick();
+        assertEquals(CommitmentReminder.Type.PRE_DUE, sentReminders(1).getFirst().type());
+    }
+
+    @Test
+    void testLoadFiresLatestMissedReminderLateAndSchedulesUpcomingOnes() {
+        CommitmentEntity missed = commitment(1L, NOW.minus(Duration.ofMinutes(10)));
+        CommitmentEntity alreadyReminded = commitment(2L, NOW.minus(Duration.ofMinutes(20)));
+        CommitmentEntity upcoming = commitment(3L, NOW.plus(Duration.ofHours(2)));
+        when(commitmentRepository.findByToBeCompletedAtAfter(NOW.minus(Duration.ofHours(12))))
+                .thenReturn(List.of(missed, alreadyReminded, upcoming));
+        when(reminderStateRepository.findAllById(any())).thenReturn(List.of(
+                new CommitmentReminderStateEntity(2L, alreadyReminded.getToBeCompletedAt(),
+                        alreadyReminded.getToBeCompletedAt(), NOW)));
+
+        scheduler.loadAll();
+
+        CommitmentReminder reminder = sentReminders(1).getFirst();
+        assertEquals(1L, reminder.commitmentId());
+        assertEquals(CommitmentReminder.Type.DUE, reminder.type());
+        assertTrue(reminder.late());
+        assertEquals(2, scheduler.pendingReminders());
+    }
+
+    @Test
+    void testFailedSendIsRetriedWithBackoff() {
+        when(kafkaTemplate.send(anyString(), anyString(), any())).thenReturn(
+                CompletableFuture.failedFuture(new IllegalStateException("broker down")),
+                CompletableFuture.failedFuture(new IllegalStateException("broker down")),
+                CompletableFuture.completedFuture(null));
+        scheduler.schedule(commitment(1L, NOW.plus(Duration.ofMinutes(30))));
+
+        at(NOW.plus(Duration.ofMinutes(30)).plusSeconds(1));
+        scheduler.tick();
+        assertEquals(1, scheduler.pendingReminders());
+
+        // 10s, then 20s
+        at(NOW.plus(Duration.ofMinutes(30)).plusSeconds(12));
+        scheduler.tick();
+        at(NOW.plus(Duration.ofMinutes(30)).plusSeconds(25));
+        scheduler.tick();
+        verify(kafkaTemplate, times(2)).send(anyString(), anyString(), any());
+        at(NOW.plus(Duration.ofMinutes(30)).plusSeconds(33));
+        scheduler.tick();
+
+        assertEquals(CommitmentReminder.Type.DUE, sentReminders(3).getLast().type());
+        // Claimed once, the retries keep the claim
+        verify(reminderStateRepository).claim(anyLong(), any(), any(), any());
+        assertEquals(0, scheduler.pendingReminders());
+    }
+
+    @Test
+    void testReminderClaimedByAnotherInstanceIsNotSent() {
+        CommitmentEntity commitment = commitment(1L, NOW.plus(Duration.ofMinutes(30)));
+        when(reminderStateRepository.claim(1L, commitment.getToBeCompletedAt(), commitment.getToBeCompletedAt(),
+                NOW.plus(Duration.ofMinutes(30)).plusSeconds(1))).thenReturn(0);
+        scheduler.schedule(commitment);
+
+        at(NOW.plus(Duration.ofMinutes(30)).plusSeconds(1));
+        scheduler.tick();
+
+        verify(kafkaTemplate, never()).send(anyString(), anyString(), any());
+        assertEquals(0, scheduler.pendingReminders());
+    }
+
+    @Test
+    void testFailedSendIsAbandonedOnceOlderThanTheMissedFireWindow() {
+        when(kafkaTemplate.send(anyString(), anyString(), any()))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("broker down")));
+        CommitmentEntity missed = commitment(1L, NOW.minus(Duration.ofHours(12)).plusSeconds(5));
+        when(commitmentRepository.findByToBeCompletedAtAfter(NOW.minus(Duration.ofHours(12))))
+                .thenReturn(List.of(missed));
+
+        scheduler.loadAll();
+
+        verify(kafkaTemplate).send(anyString(), anyString(), any());
+        assertEquals(0, scheduler.pendingReminders());
+    }
+
+    @Test
+    void testLoadDoesNotRescheduleACommitmentWrittenSinceStartup() {
+        CommitmentEntity stale = commitment(1L, NOW.plus(Duration.ofHours(2)));
+        when(commitmentRepository.findByToBeCompletedAtAfter(any())).thenReturn(List.of(stale));
+        scheduler.schedule(commitment(1L, NOW.plus(Duration.ofHours(5))));
+
+        scheduler.loadAll();
+
+        assertEquals(2, scheduler.pendingReminders());
+        at(NOW.plus(Duration.ofHours(3)));
+        scheduler.tick();
+        verify(kafkaTemplate, never()).send(anyString(), anyString(), any());
+    }
+
+    private void at(Instant instant) {
+        when(clock.instant()).thenReturn(instant);
+        when(clock.millis()).thenReturn(instant.toEpochMilli());
+    }
+
+    private CommitmentEntity commitment(long id, Instant toBeCompletedAt) {
+        CommitmentEntity commitment = CommitmentEntity.builder()
+                .id(id)
+                .description("Call mom")
+                .participantNumber(PARTICIPANT)
+                .committedAt(NOW.minus(Duration.ofDays(1)))
+                .toBeCompletedAt(toBeCompletedAt)
+                .build();
+        when(commitmentRepository.findById(id)).thenReturn(Optional.of(commitment));
+        return commitment;
+    }
+
+    private List<CommitmentReminder> sentReminders(int count) {
+        ArgumentCaptor<Object> captor = ArgumentCaptor.forClass(Object.class);
+        verify(kafkaTemplate, times(count)).send(eq(TOPIC), eq(PARTICIPANT), captor.capture());
+        return captor.getAllValues().stream().map(CommitmentReminder.class::cast).toList();
+    }
+}
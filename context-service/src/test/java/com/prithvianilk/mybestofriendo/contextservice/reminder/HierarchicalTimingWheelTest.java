@@ -0,0 +1,77 @@
+package com.prithvianilk.mybestofriendo.contextservice.reminder;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HierarchicalTimingWheelTest {
+
+    private static final long START = 1_700_000_000_500L;
+    private static final long TICK = 1000;
+
+    @Test
+    void testTasksExpireWithinOneTickAfterTheirDeadline() {
+        HierarchicalTimingWheel<Long> wheel = new HierarchicalTimingWheel<>(TICK, 8, START);
+        Random random = new Random(7);
+        List<Long> deadlines = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            // Spread over level 0 and several cascading levels
+            long deadline = START + (long) Math.pow(10, random.nextDouble() * 7);
+            deadlines.add(deadline);
+            wheel.schedule(deadline, deadline);
+        }
+
+        long now = START;
+        int expired = 0;
+        while (expired < deadlines.size()) {
+            now += random.nextInt(5000);
+            for (long deadline : wheel.advance(now)) {
+                assertTrue(deadline <= now, "Expired early");
+                assertTrue(now - deadline < TICK + 5000, "Expired late");
+                expired++;
+            }
+        }
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void testCancelledTaskNeverExpires() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(TICK, 8, START);
+        HierarchicalTimingWheel.Timeout<String> cancelled = wheel.schedule(START + 100 * TICK, "cancelled");
+        wheel.schedule(START + 100 * TICK, "kept");
+
+        assertTrue(wheel.cancel(cancelled));
+        assertFalse(wheel.cancel(cancelled));
+
+        assertEquals(List.of("kept"), wheel.advance(START + 101 * TICK));
+        assertFalse(cancelled.isPending());
+    }
+
+    @Test
+    void testOverdueTaskExpiresOnNextAdvance() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(TICK, 8, START);
+        wheel.advance(START + 10 * TICK);
+
+        wheel.schedule(START, "overdue");
+
+        assertEquals(List.of("overdue"), wheel.advance(START + 10 * TICK));
+    }
+
+    @Test
+    void testIdleWheelSkipsAheadAndStillHandlesFarDeadlines() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(TICK, 512, START);
+        long yearMillis = 365L * 24 * 60 * 60 * 1000;
+        wheel.advance(START + yearMillis);
+
+        wheel.schedule(START + 2 * yearMillis, "next year");
+
+        assertEquals(List.of(), wheel.advance(START + 2 * yearMillis - TICK));
+        assertEquals(List.of("next year"), wheel.advance(START + 2 * yearMillis + TICK));
+    }
+}
@@ -0,0 +1,130 @@
+package com.prithvianilk.mybestofriendo.contextservice.repository;
+
+import com.prithvianilk.mybestofriendo.contextservice.config.TemporalResolutionConfig;
+import com.prithvianilk.mybestofriendo.contextservice.model.Commitment;
+import com.prithvianilk.mybestofriendo.contextservice.model.CommitmentEntity;
+import com.prithvianilk.mybestofriendo.contextservice.reminder.CommitmentReminderScheduler;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class FutureCommitmentIndexTest {
+
+    private static final String PARTICIPANT = "9876543210";
+    private static final Instant NOW = Instant.parse("2025-01-15T10:00:00Z");
+
+    private CommitmentRepository commitmentRepository;
+    private FutureCommitmentIndex index;
+
+    @BeforeEach
+    void setUp() {
+        commitmentRepository = mock(CommitmentRepository.class);
+        index = new FutureCommitmentIndex(commitmentRepository, mock(CommitmentReminderScheduler.class),
+                new TemporalResolutionConfig());
+    }
+
+    @Test
+    void testSnapshotIsRenderedInCompletionOrderAndLoadedOnce() {
+        CommitmentEntity later = commitment(1L, "Send slides", NOW.plusSeconds(7200));
+        CommitmentEntity sooner = commitment(2L, "Call mom", NOW.plusSeconds(3600));
+        when(commitmentRepository.findByParticipantNumberAndToBeCompletedAtAfter(PARTICIPANT, NOW))
+                .thenReturn(List.of(later, sooner));
+
+        StringBuilder buffer = new StringBuilder();
+        List<CommitmentEntity> commitments = index.appendFutureCommitmentsSnapshot(PARTICIPANT, NOW, buffer);
+
+        assertEquals(List.of(sooner, later), commitments);
+        assertEquals("ID:2|Participant:9876543210|Description:Call mom|ToBeCompletedAt:2025-01-15T16:30:00Z"
+                + " || ID:1|Participant:9876543210|Description:Send slides|ToBeCompletedAt:2025-01-15T17:30:00Z",
+                buffer.toString());
+
+        assertEquals(List.of(later), index.getFutureCommitments(PARTICIPANT, NOW.plusSeconds(3600)));
+        verify(commitmentRepository, times(1)).findByParticipantNumberAndToBeCompletedAtAfter(PARTICIPANT, NOW);
+    }
+
+    @Test
+    void testPutAndRemoveAreReflectedInSnapshot() {
+        when(commitmentRepository.findByParticipantNumberAndToBeCompletedAtAfter(PARTICIPANT, NOW))
+                .thenReturn(List.of());
+        index.getFutureCommitments(PARTICIPANT, NOW);
+
+        CommitmentEntity commitment = commitment(1L, "Call mom", NOW.plusSeconds(3600));
+        index.put(commitment);
+        assertEquals(List.of(commitment), index.getFutureCommitments(PARTICIPANT, NOW));
+
+        CommitmentEntity moved = commitment(1L, "Call mom", NOW.minusSeconds(60));
+        index.put(moved);
+        assertEquals(List.of(), index.getFutureCommitments(PARTICIPANT, NOW));
+
+        index.put(commitment);
+        index.remove(commitment);
+        assertEquals(List.of(), index.getFutureCommitments(PARTICIPANT, NOW));
+    }
+
+    @Test
+    void testWritesInsideATransactionAreAppliedOnlyOnCommit() {
+        when(commitmentRepository.findByParticipantNumberAndToBeCompletedAtAfter(PARTICIPANT, NOW))
+                .thenReturn(List.of());
+        index.getFutureCommitments(PARTICIPANT, NOW);
+        CommitmentEntity rolledBack = commitment(1L, "Call mom", NOW.plusSeconds(3600));
+        CommitmentEntity committed = commitment(2L, "Send slides", NOW.plusSeconds(7200));
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            index.put(rolledBack);
+            assertEquals(List.of(), index.getFutureCommitments(PARTICIPANT, NOW));
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(synchronization -> synchronization.afterCompletion(
+                            TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertEquals(List.of(), index.getFutureCommitments(PARTICIPANT, NOW));
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            index.put(committed);
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertEquals(List.of(committed), index.getFutureCommitments(PARTICIPANT, NOW));
+    }
+
+    @Test
+    void testChangeEchoingTheRenderedTimeKeepsTheCommitmentInPlace() {
+        CommitmentEntity commitment = commitment(1L, "Call mom", NOW.plusSeconds(3600));
+        when(commitmentRepository.findByParticipantNumberAndToBeCompletedAtAfter(PARTICIPANT, NOW))
+                .thenReturn(List.of(commitment));
+
+        StringBuilder buffer = new StringBuilder();
+        index.appendFutureCommitmentsSnapshot(PARTICIPANT, NOW, buffer);
+        String renderedTime = buffer.substring(buffer.indexOf("ToBeCompletedAt:") + "ToBeCompletedAt:".length());
+
+        // A CHANGE that only rewords the description answers with the time exactly as it was shown
+        Commitment changed = new Commitment(NOW, "Call mom and dad", Instant.parse(renderedTime))
+                .atZone(ZoneId.of("Asia/Kolkata"));
+
+        assertEquals(commitment.getToBeCompletedAt(), changed.toBeCompletedAt());
+    }
+
+    private static CommitmentEntity commitment(Long id, String description, Instant toBeCompletedAt) {
+        return CommitmentEntity.builder()
+                .id(id)
+                .participantNumber(PARTICIPANT)
+                .description(description)
+                .toBeCompletedAt(toBeCompletedAt)
+                .build();
+    }
+}
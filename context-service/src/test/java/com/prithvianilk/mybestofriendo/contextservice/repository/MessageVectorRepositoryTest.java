@@ -0,0 +1,83 @@
+package com.prithvianilk.mybestofriendo.contextservice.repository;
+
+import com.prithvianilk.mybestofriendo.contextservice.config.MessageMemoryConfig;
+import com.prithvianilk.mybestofriendo.contextservice.index.MessageEmbedder;
+import com.prithvianilk.mybestofriendo.contextservice.model.MessageMatch;
+import com.prithvianilk.mybestofriendo.contextservice.model.WhatsAppMessage;
+import com.prithvianilk.mybestofriendo.contextservice.tenant.TenantContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MessageVectorRepositoryTest {
+
+    private static final Instant NOW = Instant.parse("2025-01-15T10:00:00Z");
+
+    @TempDir
+    private Path directory;
+
+    private MessageMemoryConfig config;
+    private MessageVectorRepository repository;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        config = new MessageMemoryConfig();
+        config.setDirectory(directory.toString());
+        repository = open();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        repository.close();
+    }
+
+    @Test
+    void testEachTenantSearchesOnlyItsOwnMemory() {
+        repository.addAll(List.of(
+                message(TenantContext.DEFAULT_TENANT, "dinner at the usual place on friday"),
+                message("family", "dinner at grandma's on friday"),
+                message("family", "pick up the cake")));
+
+        List<MessageMatch> familyMatches = TenantContext.call("family", () -> repository.findSimilar("dinner", 5));
+        List<MessageMatch> defaultMatches = repository.findSimilar("dinner", 5);
+
+        assertEquals(2, familyMatches.size());
+        assertTrue(familyMatches.stream().allMatch(match -> match.message().tenantId().equals("family")));
+        assertEquals(List.of("dinner at the usual place on friday"),
+                defaultMatches.stream().map(match -> match.message().content()).toList());
+        assertTrue(Files.exists(directory.resolve("tenants").resolve("family").resolve("messages.log")));
+    }
+
+    @Test
+    void testTenantMemoryIsReopenedFromItsOwnLog() throws IOException {
+        repository.add(message("family", "dinner at grandma's on friday"));
+        repository.close();
+
+        repository = open();
+        repository.add(message("family", "dinner at grandma's on friday"));
+
+        List<MessageMatch> matches = TenantContext.call("family", () -> repository.findSimilar("dinner", 5));
+        assertEquals(1, matches.size());
+        assertTrue(repository.findSimilar("dinner", 5).isEmpty());
+    }
+
+    private MessageVectorRepository open() throws IOException {
+        MessageVectorRepository opened = new MessageVectorRepository(config, new MessageEmbedder(config));
+        opened.open();
+        return opened;
+    }
+
+    private static WhatsAppMessage message(String tenantId, String content) {
+        return new WhatsAppMessage("9876543210", "User 1", false, content, NOW, tenantId);
+    }
+}
@@ -0,0 +1,121 @@
+package com.prithvianilk.mybestofriendo.contextservice.repository;
+
+import com.prithvianilk.mybestofriendo.contextservice.config.TenancyConfig;
+import com.prithvianilk.mybestofriendo.contextservice.model.MessageSearchPage;
+import com.prithvianilk.mybestofriendo.contextservice.model.MessageSearchQuery;
+import com.prithvianilk.mybestofriendo.contextservice.model.MessageSearchResult;
+import com.prithvianilk.mybestofriendo.contextservice.model.WhatsAppMessage;
+import com.prithvianilk.mybestofriendo.contextservice.tenant.TenantDirectory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WhatsAppMessageLogRepositoryTest {
+
+    private static final Instant BASE_TIME = Instant.parse("2025-01-15T10:00:00Z");
+
+    @TempDir
+    private Path directory;
+
+    private SingleConnectionDataSource dataSource;
+    private WhatsAppMessageLogRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new SingleConnectionDataSource("jdbc:sqlite:" + directory.resolve("test.db"), true);
+        TenancyConfig tenancyConfig = new TenancyConfig();
+        tenancyConfig.setShardingEnabled(false);
+        repository = new WhatsAppMessageLogRepository(new JdbcTemplate(dataSource),
+                new TenantDirectory(tenancyConfig, dataSource));
+        repository.createSchema();
+    }
+
+    @AfterEach
+    void tearDown() {
+        dataSource.destroy();
+    }
+
+    @Test
+    void testSearchMatchesWordPrefixesAndFiltersByParticipant() {
+        repository.append(message("1111111111", "Mom", "Can you buy groceries on the way home?", 0));
+        repository.append(message("1111111111", "Mom", "Call me when you reach", 60));
+        repository.append(message("2222222222", "Alice", "I bought the groceries already", 120));
+
+        MessageSearchPage page = repository.search(query("grocer", "1111111111", null, 10));
+
+        assertEquals(1, page.results().size());
+        assertEquals("Can you buy groceries on the way home?", page.results().getFirst().message().content());
+        assertTrue(page.results().getFirst().snippet().contains("[groceries]"));
+        assertNull(page.nextCursor());
+    }
+
+    @Test
+    void testRedeliveredMessagesAreLoggedOnce() {
+        WhatsAppMessage message = message("1111111111", "Mom", "groceries", 0);
+        repository.append(message);
+        repository.append(message);
+
+        assertEquals(1, repository.search(query("groceries", null, null, 10)).results().size());
+    }
+
+    @Test
+    void testRowsLoggedUnderTheLegacyKeyAreRekeyedOnStartup() {
+        WhatsAppMessage message = message("1111111111", "Mom", "groceries", 0);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.update("""
+                INSERT INTO whatsapp_message_log
+                    (message_key, participant_number, sender_name, from_me, content, sent_at)
+                VALUES (?, ?, ?, 0, ?, ?)""",
+                "1111111111:" + BASE_TIME.toEpochMilli() + ":false:12345", "1111111111", "Mom", "groceries",
+                BASE_TIME.toEpochMilli());
+
+        repository.createSchema();
+        repository.append(message);
+
+        assertEquals(1, repository.search(query("groceries", null, null, 10)).results().size());
+        assertEquals(message.messageKey(),
+                jdbcTemplate.queryForObject("SELECT message_key FROM whatsapp_message_log", String.class));
+    }
+
+    @Test
+    void testKeysetPagingReturnsEveryMatchNewestFirst() {
+        for (int i = 0; i < 5; i++) {
+            repository.append(message("1111111111", "Mom", "groceries " + i, i * 60L));
+        }
+
+        MessageSearchPage firstPage = repository.search(query("groceries", null, null, 2));
+        MessageSearchPage secondPage = repository.search(query("groceries", null, firstPage.nextCursor(), 2));
+        MessageSearchPage lastPage = repository.search(query("groceries", null, secondPage.nextCursor(), 2));
+
+        assertEquals(List.of("groceries 4", "groceries 3"), contents(firstPage));
+        assertEquals(List.of("groceries 2", "groceries 1"), contents(secondPage));
+        assertEquals(List.of("groceries 0"), contents(lastPage));
+        assertNull(lastPage.nextCursor());
+    }
+
+    private static MessageSearchQuery query(String text, String participant, String cursor, int limit) {
+        return new MessageSearchQuery(text, participant, null, null, limit, cursor);
+    }
+
+    private static WhatsAppMessage message(String participant, String sender, String content, long offsetSeconds) {
+        return new WhatsAppMessage(participant, sender, false, content, BASE_TIME.plusSeconds(offsetSeconds));
+    }
+
+    private static List<String> contents(MessageSearchPage page) {
+        return page.results().stream()
+                .map(MessageSearchResult::message)
+                .map(WhatsAppMessage::content)
+                .toList();
+    }
+}
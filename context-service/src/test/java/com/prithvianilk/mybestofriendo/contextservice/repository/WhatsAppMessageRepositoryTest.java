@@ -1,5 +1,6 @@
 package com.prithvianilk.mybestofriendo.contextservice.repository;
 
+import com.prithvianilk.mybestofriendo.contextservice.config.TemporalResolutionConfig;
 import com.prithvianilk.mybestofriendo.contextservice.config.WhatsAppMessageConfig;
 import com.prithvianilk.mybestofriendo.contextservice.model.WhatsAppMessage;
 import org.junit.jupiter.api.BeforeEach;
@@ -7,6 +8,11 @@ import org.junit.jupiter.api.Test;
 
 import java.time.Instant;
 import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -22,7 +28,7 @@ class WhatsAppMessageRepositoryTest {
     void setUp() {
         config = mock(WhatsAppMessageConfig.class);
         when(config.getMaxWindowSize()).thenReturn(5);
-        repository = new WhatsAppMessageRepository(config);
+        repository = new WhatsAppMessageRepository(config, new TemporalResolutionConfig());
     }
 
     @Test
@@ -70,6 +76,29 @@ class WhatsAppMessageRepositoryTest {
         assertEquals(1, repository.getMessages("0123456789").size());
     }
     
+    @Test
+    void testAddReturnsMessagesEvictedFromWindow() {
+        when(config.getMaxWindowSize()).thenReturn(2);
+
+        WhatsAppMessage msg1 = new WhatsAppMessage("9876543210", "User 1", false, "1", Instant.now());
+        WhatsAppMessage msg2 = new WhatsAppMessage("9876543210", "User 1", false, "2", Instant.now());
+        WhatsAppMessage msg3 = new WhatsAppMessage("9876543210", "User 1", false, "3", Instant.now());
+
+        assertTrue(repository.add(msg1).isEmpty());
+        assertTrue(repository.add(msg2).isEmpty());
+        assertEquals(List.of(msg1), repository.add(msg3));
+    }
+
+    @Test
+    void testRedeliveredMessageIsNotAddedTwice() {
+        WhatsAppMessage message = new WhatsAppMessage("9876543210", "User 1", false, "1", Instant.now());
+
+        repository.add(message);
+
+        assertTrue(repository.add(message).isEmpty());
+        assertEquals(1, repository.getMessages("9876543210").size());
+    }
+
     @Test
     void testClear() {
          WhatsAppMessage msg1 = new WhatsAppMessage("9876543210", "User 1", false, "Hello", Instant.now());
@@ -79,4 +108,50 @@ class WhatsAppMessageRepositoryTest {
          
          assertTrue(repository.getMessages("9876543210").isEmpty());
     }
+
+    @Test
+    void testWindowCanBeReadWhileItIsWrittenTo() throws Exception {
+        Instant sentAt = Instant.parse("2025-01-15T10:00:00Z");
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            Future<?> writer = executor.submit(() -> {
+                for (int i = 0; i < 20_000; i++) {
+                    repository.add(new WhatsAppMessage("9876543210", "User 1", false, "m" + i, sentAt.plusSeconds(i)));
+                }
+            });
+            Future<?> snapshotReader = executor.submit(() -> {
+                while (!writer.isDone()) {
+                    List<WhatsAppMessage> appended =
+                            repository.appendHistorySnapshot("9876543210", new StringBuilder());
+                    assertTrue(appended.size() <= 5);
+                }
+            });
+            Future<?> messagesReader = executor.submit(() -> {
+                while (!writer.isDone()) {
+                    assertTrue(repository.getMessages("9876543210").size() <= 5);
+                }
+            });
+
+            writer.get(30, TimeUnit.SECONDS);
+            snapshotReader.get(30, TimeUnit.SECONDS);
+            messagesReader.get(30, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(5, repository.getMessages("9876543210").size());
+    }
+
+    @Test
+    void testReplaceKeepsNewestMessagesThatFitTheWindow() {
+        when(config.getMaxWindowSize()).thenReturn(2);
+
+        WhatsAppMessage msg1 = new WhatsAppMessage("9876543210", "User 1", false, "1", Instant.now());
+        WhatsAppMessage msg2 = new WhatsAppMessage("9876543210", "User 1", false, "2", Instant.now());
+        WhatsAppMessage msg3 = new WhatsAppMessage("9876543210", "User 1", false, "3", Instant.now());
+        repository.add(new WhatsAppMessage("9876543210", "User 1", false, "stale", Instant.now()));
+
+        repository.replace("9876543210", List.of(msg1, msg2, msg3));
+
+        assertEquals(List.of(msg2, msg3), repository.getMessages("9876543210"));
+    }
 }
@@ -0,0 +1,113 @@
+package com.prithvianilk.mybestofriendo.contextservice.serialization;
+
+import com.prithvianilk.mybestofriendo.contextservice.model.WhatsAppMessage;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WhatsAppMessageDeserializerTest {
+
+    private static final String TOPIC = "whatsapp-messages";
+
+    private static final WhatsAppMessage MESSAGE = new WhatsAppMessage(
+            "9876543210", "Rahul ₹", false, "Dinner at 8?", Instant.parse("2025-01-02T03:04:05.678Z"));
+
+    // What whatsapp-service's encodeAvro writes for MESSAGE
+    private static final String PRODUCER_AVRO_HEX = "143938373635343332313002125261686"
+            + "56c20e282b900021844696e6e657220617420383fdc8cc3cf84650e64656661756c74";
+
+    private WhatsAppMessageDeserializer deserializer;
+
+    @BeforeEach
+    void setUp() {
+        deserializer = new WhatsAppMessageDeserializer();
+        deserializer.configure(Map.of(
+                JsonDeserializer.TRUSTED_PACKAGES, "*",
+                JsonDeserializer.VALUE_DEFAULT_TYPE, WhatsAppMessage.class.getName(),
+                JsonDeserializer.USE_TYPE_INFO_HEADERS, false), false);
+    }
+
+    @AfterEach
+    void tearDown() {
+        deserializer.close();
+    }
+
+    @Test
+    void testDecodesAvroRecordsFromTheProducer() {
+        byte[] data = HexFormat.of().parseHex(PRODUCER_AVRO_HEX);
+
+        assertEquals(MESSAGE, deserializer.deserialize(TOPIC, avroHeaders(), data));
+        assertEquals(PRODUCER_AVRO_HEX, HexFormat.of().formatHex(WhatsAppMessageAvroCodec.encode(MESSAGE)));
+    }
+
+    @Test
+    void testRoundTripsNullFieldsNegativeTimesAndTenants() {
+        WhatsAppMessage message = new WhatsAppMessage("1", null, true, null, Instant.ofEpochMilli(-5), "acme");
+
+        assertEquals(message, deserializer.deserialize(TOPIC, avroHeaders(), WhatsAppMessageAvroCodec.encode(message)));
+    }
+
+    @Test
+    void testDecodesJsonRecordsWithOrWithoutContentType() {
+        byte[] json = """
+                {"participantMobileNumber":"9876543210","senderName":"Rahul ₹","fromMe":false,\
+                "content":"Dinner at 8?","sentAt":"2025-01-02T03:04:05.678Z","tenantId":"default"}"""
+                .getBytes(StandardCharsets.UTF_8);
+        RecordHeaders jsonHeaders = new RecordHeaders();
+        jsonHeaders.add(WhatsAppMessageDeserializer.CONTENT_TYPE_HEADER,
+                "application/json".getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(MESSAGE, deserializer.deserialize(TOPIC, new RecordHeaders(), json));
+        assertEquals(MESSAGE, deserializer.deserialize(TOPIC, jsonHeaders, json));
+    }
+
+    @Test
+    void testAvroIsSmallerThanJson() {
+        byte[] avro = WhatsAppMessageAvroCodec.encode(MESSAGE);
+        String json = """
+                {"participantMobileNumber":"9876543210","senderName":"Rahul ₹","fromMe":false,\
+                "content":"Dinner at 8?","sentAt":"2025-01-02T03:04:05.678Z","tenantId":"default"}""";
+
+        assertTrue(avro.length * 2 < json.getBytes(StandardCharsets.UTF_8).length);
+    }
+
+    @Test
+    void testRejectsUnknownSchemasAndMalformedRecords() {
+        RecordHeaders unknownSchema = new RecordHeaders();
+        unknownSchema.add(WhatsAppMessageDeserializer.CONTENT_TYPE_HEADER,
+                "application/avro;schema=whatsapp-message/99".getBytes(StandardCharsets.UTF_8));
+        byte[] data = WhatsAppMessageAvroCodec.encode(MESSAGE);
+        byte[] truncated = Arrays.copyOf(data, data.length - 3);
+
+        assertThrows(SerializationException.class, () -> deserializer.deserialize(TOPIC, unknownSchema, data));
+        assertThrows(SerializationException.class, () -> deserializer.deserialize(TOPIC, avroHeaders(), truncated));
+    }
+
+    @Test
+    void testCodecMatchesTheRegisteredSchema() {
+        SchemaRegistry registry = SchemaRegistry.load();
+
+        assertTrue(registry.contains(WhatsAppMessageAvroCodec.SCHEMA_ID));
+        WhatsAppMessageAvroCodec.verify(registry.get(WhatsAppMessageAvroCodec.SCHEMA_ID));
+    }
+
+    private static RecordHeaders avroHeaders() {
+        RecordHeaders headers = new RecordHeaders();
+        headers.add(WhatsAppMessageDeserializer.CONTENT_TYPE_HEADER,
+                WhatsAppMessageAvroCodec.CONTENT_TYPE.getBytes(StandardCharsets.UTF_8));
+        return headers;
+    }
+}
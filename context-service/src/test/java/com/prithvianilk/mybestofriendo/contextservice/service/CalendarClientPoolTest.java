@@ -0,0 +1,33 @@
+package com.prithvianilk.mybestofriendo.contextservice.service;
+
+import com.google.api.client.http.javanet.NetHttpTransport;
+import com.prithvianilk.mybestofriendo.contextservice.config.GoogleCalendarConfig;
+import com.prithvianilk.mybestofriendo.contextservice.tenant.TenantContext;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CalendarClientPoolTest {
+
+    @TempDir
+    private Path credentials;
+
+    @Test
+    void testTenantWithoutStoredCredentialFailsFastInsteadOfStartingConsent() {
+        GoogleCalendarConfig config = new GoogleCalendarConfig();
+        config.setClientId("client-id");
+        config.setClientSecret("client-secret");
+        config.setCredentialsPath(credentials.toString());
+        CalendarClientPool pool = new CalendarClientPool(config, new NetHttpTransport());
+
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> TenantContext.run("family", pool::forCurrentTenant));
+
+        assertTrue(exception.getMessage().contains("--google.calendar.consent-tenant=family"));
+        assertTrue(pool.authorisedTenantIds().isEmpty());
+    }
+}
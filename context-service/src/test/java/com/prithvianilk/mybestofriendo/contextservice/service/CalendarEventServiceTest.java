@@ -1,23 +1,31 @@
 package com.prithvianilk.mybestofriendo.contextservice.service;
 
+import com.google.api.client.googleapis.json.GoogleJsonResponseException;
+import com.google.api.client.http.HttpHeaders;
+import com.google.api.client.http.HttpResponseException;
 import com.google.api.client.util.DateTime;
 import com.google.api.services.calendar.Calendar;
 import com.google.api.services.calendar.model.Event;
 import com.google.api.services.calendar.model.EventDateTime;
 import com.google.api.services.calendar.model.EventReminder;
 import com.prithvianilk.mybestofriendo.contextservice.model.CalendarEvent;
+import com.prithvianilk.mybestofriendo.contextservice.tracing.Tracer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.io.IOException;
+import java.time.Clock;
 import java.time.Instant;
 import java.util.List;
 import java.util.stream.Stream;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.verify;
@@ -26,6 +34,9 @@ import static org.mockito.Mockito.when;
 @ExtendWith(MockitoExtension.class)
 class CalendarEventServiceTest {
 
+    @Mock
+    private CalendarClientPool calendarClientPool;
+
     @Mock
     private Calendar calendar;
 
@@ -35,9 +46,21 @@ class CalendarEventServiceTest {
     @Mock
     private Calendar.Events.Insert insert;
 
+    @Mock
+    private Calendar.Events.Delete delete;
+
+    @Spy
+    private Tracer tracer = new Tracer(_ -> {
+    }, new SimpleMeterRegistry(), Clock.systemUTC());
+
     @InjectMocks
     private CalendarEventService calendarEventService;
 
+    @BeforeEach
+    void setUp() {
+        when(calendarClientPool.forCurrentTenant()).thenReturn(calendar);
+    }
+
     @Test
     void createEvent_shouldCallInsertWithCorrectEvent() throws IOException {
         Event expectedEvent = createExpectedEvent();
@@ -58,6 +81,36 @@ class CalendarEventServiceTest {
         verify(insert).execute();
     }
 
+    @Test
+    void createEvent_withEventIdReturnsExistingEventOnConflict() throws IOException {
+        Event expectedEvent = createExpectedEvent().setId("abc123def456");
+        when(calendar.events()).thenReturn(events);
+        when(events.insert("primary", expectedEvent)).thenReturn(insert);
+        when(insert.execute()).thenThrow(new GoogleJsonResponseException(
+                new HttpResponseException.Builder(409, "Conflict", new HttpHeaders()), null));
+
+        CalendarEvent calendarEvent = CalendarEvent.builder()
+                .summary("Test Summary")
+                .description("Test Description")
+                .startTime(Instant.parse("2025-01-01T10:00:00Z"))
+                .endTime(Instant.parse("2025-01-01T11:00:00Z"))
+                .build();
+
+        assertEquals("abc123def456", calendarEventService.createEvent(calendarEvent, "abc123def456"));
+    }
+
+    @Test
+    void deleteEvent_succeedsWhenEventIsAlreadyGone() throws IOException {
+        when(calendar.events()).thenReturn(events);
+        when(events.delete("primary", "abc123def456")).thenReturn(delete);
+        when(delete.execute()).thenThrow(new GoogleJsonResponseException(
+                new HttpResponseException.Builder(410, "Gone", new HttpHeaders()), null));
+
+        calendarEventService.deleteEvent("abc123def456");
+
+        verify(delete).execute();
+    }
+
     private Event createExpectedEvent() {
         List<EventReminder> reminders = Stream
                 .of(30, 60, 180, 720, 1440)
@@ -0,0 +1,220 @@
+package com.prithvianilk.mybestofriendo.contextservice.service;
+
+import com.google.api.client.json.gson.GsonFactory;
+import com.google.api.services.calendar.Calendar;
+import com.prithvianilk.mybestofriendo.contextservice.config.CalendarSyncConfig;
+import com.prithvianilk.mybestofriendo.contextservice.http.JdkHttpTransport;
+import com.prithvianilk.mybestofriendo.contextservice.model.CalendarSyncStateEntity;
+import com.prithvianilk.mybestofriendo.contextservice.model.CommitmentEntity;
+import com.prithvianilk.mybestofriendo.contextservice.repository.CalendarSyncStateRepository;
+import com.prithvianilk.mybestofriendo.contextservice.repository.CommitmentRepository;
+import com.prithvianilk.mybestofriendo.contextservice.repository.FutureCommitmentIndex;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs the reconciler against a stub of the Calendar {@code events.list} endpoint.
+ */
+class CalendarSyncReconcilerTest {
+
+    private static final String EVENTS_PATH = "/calendar/v3/calendars/primary/events";
+
+    private HttpServer server;
+    private JdkHttpTransport transport;
+    private final Queue<StubResponse> responses = new ArrayDeque<>();
+    private final List<String> requestQueries = new CopyOnWriteArrayList<>();
+
+    private CommitmentRepository commitmentRepository;
+    private CalendarSyncStateRepository calendarSyncStateRepository;
+    private FutureCommitmentIndex futureCommitmentIndex;
+    private CalendarSyncReconciler reconciler;
+
+    private record StubResponse(int status, String body) {
+    }
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext(EVENTS_PATH, exchange -> {
+            requestQueries.add(Optional.ofNullable(exchange.getRequestURI().getRawQuery()).orElse(""));
+            StubResponse response = responses.remove();
+            byte[] body = response.body().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json; charset=UTF-8");
+            exchange.sendResponseHeaders(response.status(), body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.start();
+
+        transport = new JdkHttpTransport(Duration.ofSeconds(2));
+        Calendar calendar = new Calendar.Builder(transport, GsonFactory.getDefaultInstance(), null)
+                .setRootUrl("http://localhost:" + server.getAddress().getPort() + "/")
+                .setApplicationName("test")
+                .build();
+
+        CalendarClientPool calendarClientPool = mock(CalendarClientPool.class);
+        when(calendarClientPool.forCurrentTenant()).thenReturn(calendar);
+        commitmentRepository = mock(CommitmentRepository.class);
+        when(commitmentRepository.findByCalendarEventId(anyString())).thenReturn(Optional.empty());
+        when(commitmentRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        calendarSyncStateRepository = mock(CalendarSyncStateRepository.class);
+        futureCommitmentIndex = mock(FutureCommitmentIndex.class);
+
+        reconciler = new CalendarSyncReconciler(new CalendarSyncConfig(), calendarClientPool, commitmentRepository,
+                calendarSyncStateRepository, futureCommitmentIndex);
+    }
+
+    @AfterEach
+    void tearDown() {
+        transport.shutdown();
+        server.stop(0);
+    }
+
+    @Test
+    void testFullSyncDeletesCancelledAndUpdatesMovedCommitments() {
+        CommitmentEntity cancelled = commitment(1L, "event1", "Call mom", Instant.parse("2030-01-01T10:00:00Z"));
+        CommitmentEntity moved = commitment(2L, "event2", "Dinner", Instant.parse("2030-01-02T14:30:00Z"));
+        when(commitmentRepository.findByCalendarEventId("event1")).thenReturn(Optional.of(cancelled));
+        when(commitmentRepository.findByCalendarEventId("event2")).thenReturn(Optional.of(moved));
+        when(commitmentRepository.findByToBeCompletedAtAfter(any())).thenReturn(List.of(moved));
+        responses.add(new StubResponse(200, """
+                {"items": [
+                  {"id": "event1", "status": "cancelled"},
+                  {"id": "event2", "status": "confirmed", "summary": "Dinner with Rahul",
+                   "start": {"dateTime": "2030-01-03T20:00:00+05:30"}},
+                  {"id": "unrelated", "status": "confirmed", "summary": "Standup"}
+                ],
+                "nextSyncToken": "token-1"}"""));
+
+        reconciler.reconcile();
+
+        assertFalse(requestQueries.getFirst().contains("syncToken"));
+        assertTrue(requestQueries.getFirst().contains("showDeleted=true"));
+        verify(commitmentRepository).delete(cancelled);
+        verify(futureCommitmentIndex).remove(cancelled);
+        assertEquals(Instant.parse("2030-01-03T14:30:00Z"), moved.getToBeCompletedAt());
+        assertEquals("Dinner with Rahul", moved.getDescription());
+        verify(futureCommitmentIndex).put(moved);
+        assertEquals("token-1", savedSyncToken());
+    }
+
+    @Test
+    void testIncrementalSyncContinuesFromStoredTokenAcrossPages() {
+        storeSyncToken("token-1");
+        CommitmentEntity cancelled = commitment(1L, "event1", "Call mom", Instant.parse("2030-01-01T10:00:00Z"));
+        when(commitmentRepository.findByCalendarEventId("event1")).thenReturn(Optional.of(cancelled));
+        responses.add(new StubResponse(200, """
+                {"items": [], "nextPageToken": "page-2"}"""));
+        responses.add(new StubResponse(200, """
+                {"items": [{"id": "event1", "status": "cancelled"}], "nextSyncToken": "token-2"}"""));
+
+        reconciler.reconcile();
+
+        assertEquals(2, requestQueries.size());
+        assertTrue(requestQueries.get(0).contains("syncToken=token-1"));
+        assertTrue(requestQueries.get(1).contains("syncToken=token-1"));
+        assertTrue(requestQueries.get(1).contains("pageToken=page-2"));
+        verify(commitmentRepository).delete(cancelled);
+        verify(commitmentRepository, never()).findByToBeCompletedAtAfter(any());
+        assertEquals("token-2", savedSyncToken());
+    }
+
+    @Test
+    void testExpiredTokenFallsBackToFullSync() {
+        storeSyncToken("token-1");
+        responses.add(new StubResponse(410, """
+                {"error": {"code": 410, "message": "Sync token is no longer valid, a full sync is required.",
+                  "errors": [{"domain": "calendar", "reason": "fullSyncRequired"}]}}"""));
+        responses.add(new StubResponse(200, """
+                {"items": [], "nextSyncToken": "token-2"}"""));
+
+        reconciler.reconcile();
+
+        assertTrue(requestQueries.get(0).contains("syncToken=token-1"));
+        assertFalse(requestQueries.get(1).contains("syncToken"));
+        verify(calendarSyncStateRepository).deleteById("primary");
+        assertEquals("token-2", savedSyncToken());
+    }
+
+    @Test
+    void testFullSyncDeletesFutureCommitmentsWhoseEventsAreGone() {
+        CommitmentEntity kept = commitment(1L, "event1", "Call mom", Instant.parse("2030-01-01T10:00:00Z"));
+        CommitmentEntity orphan = commitment(2L, "event2", "Dinner", Instant.parse("2030-01-02T14:30:00Z"));
+        CommitmentEntity withoutEvent = commitment(3L, null, "Gym", Instant.parse("2030-01-02T01:30:00Z"));
+        when(commitmentRepository.findByCalendarEventId("event1")).thenReturn(Optional.of(kept));
+        when(commitmentRepository.findByToBeCompletedAtAfter(any())).thenReturn(List.of(kept, orphan, withoutEvent));
+        responses.add(new StubResponse(200, """
+                {"items": [{"id": "event1", "status": "confirmed", "summary": "Call mom",
+                  "start": {"dateTime": "2030-01-01T10:00:00Z"}}],
+                "nextSyncToken": "token-1"}"""));
+
+        reconciler.reconcile();
+
+        verify(commitmentRepository).delete(orphan);
+        verify(futureCommitmentIndex).remove(orphan);
+        verify(commitmentRepository, never()).delete(kept);
+        verify(commitmentRepository, never()).delete(withoutEvent);
+        verify(commitmentRepository, never()).save(any());
+    }
+
+    @Test
+    void testFullSyncKeepsCommitmentsCreatedDuringTheListing() {
+        CommitmentEntity created = commitment(1L, "event1", "Dinner", Instant.parse("2030-01-02T14:30:00Z"));
+        created.setCreatedAt(Instant.now().plusSeconds(60));
+        when(commitmentRepository.findByToBeCompletedAtAfter(any())).thenReturn(List.of(created));
+        responses.add(new StubResponse(200, """
+                {"items": [], "nextSyncToken": "token-1"}"""));
+
+        reconciler.reconcile();
+
+        verify(commitmentRepository, never()).delete(any());
+    }
+
+    private void storeSyncToken(String syncToken) {
+        when(calendarSyncStateRepository.findById("primary")).thenReturn(Optional.of(
+                new CalendarSyncStateEntity("primary", syncToken, Instant.now())));
+    }
+
+    private String savedSyncToken() {
+        ArgumentCaptor<CalendarSyncStateEntity> captor = ArgumentCaptor.forClass(CalendarSyncStateEntity.class);
+        verify(calendarSyncStateRepository).save(captor.capture());
+        return captor.getValue().getSyncToken();
+    }
+
+    private static CommitmentEntity commitment(Long id, String calendarEventId, String description,
+                                               Instant toBeCompletedAt) {
+        return CommitmentEntity.builder()
+                .id(id)
+                .calendarEventId(calendarEventId)
+                .description(description)
+                .participantNumber("9876543210")
+                .committedAt(Instant.parse("2029-12-31T10:00:00Z"))
+                .toBeCompletedAt(toBeCompletedAt)
+                .createdAt(Instant.parse("2029-12-31T10:00:00Z"))
+                .build();
+    }
+}
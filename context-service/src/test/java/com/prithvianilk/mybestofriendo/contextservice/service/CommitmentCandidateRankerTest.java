@@ -0,0 +1,113 @@
+package com.prithvianilk.mybestofriendo.contextservice.service;
+
+import com.prithvianilk.mybestofriendo.contextservice.config.CommitmentCandidateConfig;
+import com.prithvianilk.mybestofriendo.contextservice.config.MessageMemoryConfig;
+import com.prithvianilk.mybestofriendo.contextservice.index.MessageEmbedder;
+import com.prithvianilk.mybestofriendo.contextservice.model.CommitmentEntity;
+import com.prithvianilk.mybestofriendo.contextservice.model.WhatsAppMessage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import static com.prithvianilk.mybestofriendo.contextservice.service.WhatsAppMessageTestUtil.MessageContent;
+import static com.prithvianilk.mybestofriendo.contextservice.service.WhatsAppMessageTestUtil.createMessages;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CommitmentCandidateRankerTest {
+
+    private static final Instant BASE_TIME = Instant.parse("2025-01-15T10:00:00Z");
+
+    private final CommitmentCandidateRanker ranker = new CommitmentCandidateRanker(
+            new CommitmentCandidateConfig(), new MessageEmbedder(new MessageMemoryConfig()));
+
+    private final CommitmentEntity sushi = commitment(1L, "Sushi dinner with Alice");
+    private final CommitmentEntity report = commitment(2L, "Send Alice the quarterly report");
+    private final CommitmentEntity gym = commitment(3L, "Go to the gym with Alice");
+
+    @Test
+    void testRanksCommitmentMentionedInConversationFirst() {
+        List<WhatsAppMessage> messages = createMessages(BASE_TIME,
+                new MessageContent("Are we still on for sushi dinner tonight?", false),
+                new MessageContent("Can we push it to 9pm?", true));
+
+        List<CommitmentCandidateRanker.RankedCommitment> ranked = ranker.rank(messages, List.of(report, gym, sushi), List.of());
+
+        assertEquals(sushi, ranked.getFirst().commitment());
+        assertEquals(3, ranked.size());
+    }
+
+    @Test
+    void testFindsObviousCancellationOfClearBestMatch() {
+        List<WhatsAppMessage> messages = createMessages(BASE_TIME,
+                new MessageContent("Are we still on for sushi dinner tonight?", false),
+                new MessageContent("Sorry, I can't make it to sushi dinner tonight", true));
+
+        List<CommitmentCandidateRanker.RankedCommitment> ranked = ranker.rank(messages, List.of(report, gym, sushi), List.of());
+
+        assertEquals(Optional.of(sushi), ranker.findObviousCancellation(messages.getLast(), ranked));
+    }
+
+    @Test
+    void testNoObviousCancellationWhenTwoCommitmentsMatchEqually() {
+        List<WhatsAppMessage> messages = createMessages(BASE_TIME,
+                new MessageContent("Are we still on for sushi dinner tonight?", false),
+                new MessageContent("Sorry, I can't make it to sushi dinner tonight", true));
+        CommitmentEntity otherSushi = commitment(4L, "Sushi dinner with Bob");
+
+        List<CommitmentCandidateRanker.RankedCommitment> ranked = ranker.rank(messages, List.of(sushi, otherSushi), List.of());
+
+        assertTrue(ranker.findObviousCancellation(messages.getLast(), ranked).isEmpty());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "Don't cancel the sushi dinner tonight",
+            "No need to cancel sushi dinner tonight",
+            "We won't cancel sushi dinner tonight, see you there",
+            "Let's not call it off, sushi dinner tonight is on"})
+    void testNoObviousCancellationWhenCancelPhraseIsNegated(String content) {
+        List<WhatsAppMessage> messages = createMessages(BASE_TIME,
+                new MessageContent("Are we still on for sushi dinner tonight?", false),
+                new MessageContent(content, true));
+
+        List<CommitmentCandidateRanker.RankedCommitment> ranked = ranker.rank(messages, List.of(report, gym, sushi), List.of());
+
+        assertTrue(ranker.findObviousCancellation(messages.getLast(), ranked).isEmpty());
+    }
+
+    @Test
+    void testSoleCommitmentNeedsAHigherScoreForObviousCancellation() {
+        List<WhatsAppMessage> messages = createMessages(BASE_TIME,
+                new MessageContent("Are we still on for sushi dinner tonight?", false),
+                new MessageContent("Sorry, I can't make it to sushi dinner tonight", true));
+
+        List<CommitmentCandidateRanker.RankedCommitment> ranked = ranker.rank(messages, List.of(sushi), List.of());
+
+        assertTrue(ranked.getFirst().score() >= new CommitmentCandidateConfig().getCancelShortcutMinScore());
+        assertTrue(ranker.findObviousCancellation(messages.getLast(), ranked).isEmpty());
+    }
+
+    @Test
+    void testNoObviousCancellationWithoutCancelPhraseFromMe() {
+        List<WhatsAppMessage> messages = createMessages(BASE_TIME,
+                new MessageContent("Sorry, I can't make it to sushi dinner tonight", false));
+
+        List<CommitmentCandidateRanker.RankedCommitment> ranked = ranker.rank(messages, List.of(sushi), List.of());
+
+        assertTrue(ranker.findObviousCancellation(messages.getLast(), ranked).isEmpty());
+    }
+
+    private static CommitmentEntity commitment(Long id, String description) {
+        return CommitmentEntity.builder()
+                .id(id)
+                .participantNumber("1234567890")
+                .description(description)
+                .toBeCompletedAt(BASE_TIME.plusSeconds(86400))
+                .build();
+    }
+}
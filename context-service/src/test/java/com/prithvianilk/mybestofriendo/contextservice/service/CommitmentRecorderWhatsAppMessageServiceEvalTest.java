@@ -1,29 +1,70 @@
 package com.prithvianilk.mybestofriendo.contextservice.service;
 
-import com.google.api.services.calendar.Calendar;
+import com.prithvianilk.mybestofriendo.contextservice.eval.EvalHarness;
+import com.prithvianilk.mybestofriendo.contextservice.eval.EvalReport;
+import com.prithvianilk.mybestofriendo.contextservice.eval.FixtureChatModel;
+import com.prithvianilk.mybestofriendo.contextservice.logging.WideEventContext;
 import com.prithvianilk.mybestofriendo.contextservice.model.CommitmentEntity;
 import com.prithvianilk.mybestofriendo.contextservice.model.WhatsAppMessage;
 import com.prithvianilk.mybestofriendo.contextservice.repository.CommitmentRepository;
 import com.prithvianilk.mybestofriendo.contextservice.repository.WhatsAppMessageRepository;
-import org.junit.jupiter.api.BeforeEach;
-import org.junit.jupiter.params.ParameterizedTest;
-import org.junit.jupiter.params.provider.Arguments;
-import org.junit.jupiter.params.provider.MethodSource;
+import com.prithvianilk.mybestofriendo.contextservice.tenant.TenantContext;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.model.ChatModel;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Stream;
 
 import static com.prithvianilk.mybestofriendo.contextservice.service.WhatsAppMessageTestUtil.MessageContent;
 import static com.prithvianilk.mybestofriendo.contextservice.service.WhatsAppMessageTestUtil.createMessages;
 import static org.junit.jupiter.api.Assertions.assertEquals;
-
-@SpringBootTest
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Evaluates commitment detection against recorded LLM responses in src/test/resources/eval-fixtures.
+ * <p>
+ * {@code -Peval.mode} picks how the LLM is reached: {@code replay}, the default, never calls it and fails on
+ * a missing fixture, {@code auto} calls it only for prompts without a fixture and records them, and
+ * {@code record} re-records everything. In replay mode the eval fails straight away when the fixture
+ * directory has no fixtures, rather than passing without having evaluated anything, and a plain test run
+ * never needs an API key. Prompt times are rendered in {@code whatsapp.temporal.zone}, not the JVM's zone,
+ * so fixtures recorded on one machine replay on any other. {@code -Peval.parallelism} sets how many
+ * cases run at once and {@code -Peval.min-accuracy} the accuracy below which the eval fails. The report is
+ * printed and written to build/eval.
+ * <p>
+ * Every case runs in its own tenant shard, so cases can run concurrently and commitment ids, which end up
+ * in the prompt, are the same on every run.
+ */
+// Eval messages are dated in the past, so admission would defer them as backlog
+@SpringBootTest(properties = {
+        "whatsapp.priority.enabled=false",
+        "spring.kafka.listener.auto-startup=false",
+        "google.calendar.sync.enabled=false",
+        "whatsapp.reminder.enabled=false",
+        "spring.ai.openai.api-key=${SPRING_AI_OPENAI_API_KEY:replay-only}"})
 class CommitmentRecorderWhatsAppMessageServiceEvalTest {
 
+        private static final String PARTICIPANT = "1234567890";
+
+        private final AtomicInteger nextTenant = new AtomicInteger();
+
         @Autowired
         private CommitmentRecorderWhatsAppMessageService service;
 
@@ -33,101 +74,151 @@ class CommitmentRecorderWhatsAppMessageServiceEvalTest {
         @Autowired
         private CommitmentRepository commitmentRepository;
 
+        @Value("${spring.ai.openai.chat.options.model}")
+        private String model;
+
         @MockitoBean
         private CalendarEventService calendarEventService;
 
         @MockitoBean
-        private Calendar calendar;
+        private CalendarClientPool calendarClientPool;
 
-        @BeforeEach
-        void setUp() {
-                repository.clear();
-                commitmentRepository.deleteAll();
+        private record EvalCase(String name, boolean processEveryMessage, List<MessageContent> messages) {
+        }
+
+        @TestConfiguration
+        static class FixtureChatClientConfig {
 
+                @Bean
+                @Primary
+                public ChatClient fixtureChatClient(
+                                ChatModel chatModel,
+                                @Value("${spring.ai.openai.chat.options.model}") String model) {
+                        return ChatClient.builder(new FixtureChatModel(chatModel, model, fixtureDirectory(),
+                                        evalMode())).build();
+                }
         }
 
-        @ParameterizedTest(name = "{0}")
-        @MethodSource("testCases")
-        void testCreateCommitment(
-                        String testCaseName,
-                        List<WhatsAppMessage> inputMessages) {
-                for (WhatsAppMessage message : inputMessages) {
-                        repository.add(message);
+        private static FixtureChatModel.Mode evalMode() {
+                return FixtureChatModel.Mode.valueOf(System.getProperty("eval.mode", "replay").toUpperCase());
+        }
+
+        private static Path fixtureDirectory() {
+                return Path.of(System.getProperty("eval.fixtures", "src/test/resources/eval-fixtures"));
+        }
+
+        private static boolean hasFixtures(Path fixtureDirectory) throws IOException {
+                if (!Files.isDirectory(fixtureDirectory)) {
+                        return false;
+                }
+                try (Stream<Path> fixtures = Files.list(fixtureDirectory)) {
+                        return fixtures.anyMatch(fixture -> fixture.getFileName().toString().endsWith(".json"));
                 }
+        }
 
-                service.onNewWhatsAppMessage(inputMessages.getLast());
+        @DynamicPropertySource
+        static void shardDirectory(DynamicPropertyRegistry registry) {
+                registry.add("whatsapp.tenancy.shard-directory", () -> {
+                        try {
+                                return Files.createTempDirectory("eval-tenants").toString();
+                        } catch (IOException e) {
+                                throw new UncheckedIOException(e);
+                        }
+                });
+        }
 
-                List<CommitmentEntity> actualCommitments = commitmentRepository.findAll();
-                assertEquals(
-                                1,
-                                actualCommitments.size(),
-                                "Expected exactly 1 commitment to be created");
+        @Test
+        void testCommitmentDetection() throws Exception {
+                assertTrue(evalMode() != FixtureChatModel.Mode.REPLAY || hasFixtures(fixtureDirectory()),
+                                "No eval fixtures in " + fixtureDirectory()
+                                                + ", record them with -Peval.mode=auto and commit them");
+                EvalHarness harness = new EvalHarness(Integer.getInteger("eval.parallelism", 4));
+                EvalReport report = harness.run(model, evalCases(), EvalCase::name, this::evaluate);
+
+                System.out.print(report.summary());
+                report.write(Path.of(System.getProperty("eval.reports", "build/eval")));
+                double minAccuracy = Double.parseDouble(System.getProperty("eval.min-accuracy", "1.0"));
+                assertTrue(report.accuracy() >= minAccuracy, "Failed cases: " + report.failureNames());
+        }
 
-                CommitmentEntity actualCommitment = actualCommitments.getFirst();
-                assertEquals("1234567890", actualCommitment.getParticipantNumber());
+        /**
+         * Creation cases send only the latest message to the service, update cases every message in turn.
+         * Either way exactly one commitment must be left for the participant.
+         */
+        private void evaluate(EvalCase evalCase) {
+                String tenantId = "eval-" + nextTenant.incrementAndGet();
+                TenantContext.run(tenantId, () -> {
+                        try {
+                                List<WhatsAppMessage> messages = inTenant(tenantId, createMessages(
+                                                Instant.parse("2025-01-15T10:00:00Z"),
+                                                evalCase.messages().toArray(MessageContent[]::new)));
+                                for (WhatsAppMessage message : messages) {
+                                        repository.add(message);
+                                        if (evalCase.processEveryMessage()) {
+                                                service.onNewWhatsAppMessage(message);
+                                        }
+                                }
+                                if (!evalCase.processEveryMessage()) {
+                                        service.onNewWhatsAppMessage(messages.getLast());
+                                }
+
+                                List<CommitmentEntity> actualCommitments = commitmentRepository.findAll();
+                                assertEquals(1, actualCommitments.size(), "Expected exactly 1 commitment");
+                                assertEquals(PARTICIPANT, actualCommitments.getFirst().getParticipantNumber());
+                                // TODO: Assert the updated time as well
+                        } finally {
+                                WideEventContext.clear();
+                        }
+                });
         }
 
-        static Stream<Arguments> testCases() {
-                Instant baseTime = Instant.parse("2025-01-15T10:00:00Z");
+        private static List<WhatsAppMessage> inTenant(String tenantId, List<WhatsAppMessage> messages) {
+                List<WhatsAppMessage> result = new ArrayList<>(messages.size());
+                for (WhatsAppMessage message : messages) {
+                        result.add(new WhatsAppMessage(message.participantMobileNumber(), message.senderName(),
+                                        message.fromMe(), message.content(), message.sentAt(), tenantId));
+                }
+                return result;
+        }
 
-                return Stream.of(
-                                Arguments.of(
+        static List<EvalCase> evalCases() {
+                return List.of(
+                                new EvalCase(
                                                 "Simple commitment - 'I'll send you the report tomorrow'",
-                                                createMessages(baseTime,
+                                                false,
+                                                List.of(
                                                                 new MessageContent("Can you send me the report?",
                                                                                 false),
                                                                 new MessageContent("I'll send you the report tomorrow",
                                                                                 true))),
-                                Arguments.of(
+                                new EvalCase(
                                                 "Commitment with specific time - 'I'll be there at 5pm'",
-                                                createMessages(baseTime,
+                                                false,
+                                                List.of(
                                                                 new MessageContent("Are you coming to the meeting?",
                                                                                 false),
                                                                 new MessageContent("Yes, I'll be there at 5pm", true))),
-                                Arguments.of(
+                                new EvalCase(
                                                 "Implicit commitment - 'I can help you with that'",
-                                                createMessages(baseTime,
+                                                false,
+                                                List.of(
                                                                 new MessageContent("Can you help me with this project?",
                                                                                 false),
-                                                                new MessageContent("I can help you with that", true))));
-        }
-
-        @ParameterizedTest(name = "{0}")
-        @MethodSource("updateTestCases")
-        void testUpdateCommitment(
-                        String testCaseName,
-                        List<WhatsAppMessage> inputMessages) {
-                for (WhatsAppMessage message : inputMessages) {
-                        repository.add(message);
-                        service.onNewWhatsAppMessage(message);
-                }
-
-                List<CommitmentEntity> actualCommitments = commitmentRepository.findAll();
-                assertEquals(1, actualCommitments.size(),
-                                "Expected exactly 1 commitment in repository after update");
-
-                CommitmentEntity actualCommitment = actualCommitments.getFirst();
-                assertEquals("1234567890", actualCommitment.getParticipantNumber());
-                // TODO: Assert the updated time as well
-        }
-
-        static Stream<Arguments> updateTestCases() {
-                Instant baseTime = Instant.parse("2025-01-15T10:00:00Z");
-
-                return Stream.of(
-                                Arguments.of(
+                                                                new MessageContent("I can help you with that", true))),
+                                new EvalCase(
                                                 "Update meeting time from 5pm to 6pm",
-                                                createMessages(baseTime,
+                                                true,
+                                                List.of(
                                                                 new MessageContent("Hey, let's meet at 5pm?", false),
                                                                 new MessageContent("Yes, sure!", true),
                                                                 new MessageContent("No, let's postpone to 6pm?", false),
                                                                 new MessageContent("sure that works", true))),
-                                Arguments.of(
+                                new EvalCase(
                                                 "Update party date from 15th to 14th",
-                                                createMessages(baseTime,
-                                                                new MessageContent(
-                                                                                "Yo, planning a house party on 15th, you down?",
-                                                                                false),
+                                                true,
+                                                List.of(
+                                                                new MessageContent("Yo, planning a house party on "
+                                                                                + "15th, you down?", false),
                                                                 new MessageContent("Yessir!", true),
                                                                 new MessageContent("Bro, it's moved to 14th, dat fine?",
                                                                                 false),
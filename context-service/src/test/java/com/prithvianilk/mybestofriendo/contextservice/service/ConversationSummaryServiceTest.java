@@ -0,0 +1,95 @@
+package com.prithvianilk.mybestofriendo.contextservice.service;
+
+import com.prithvianilk.mybestofriendo.contextservice.config.ConversationSummaryConfig;
+import com.prithvianilk.mybestofriendo.contextservice.config.TemporalResolutionConfig;
+import com.prithvianilk.mybestofriendo.contextservice.model.ConversationSummaryEntity;
+import com.prithvianilk.mybestofriendo.contextservice.model.WhatsAppMessage;
+import com.prithvianilk.mybestofriendo.contextservice.repository.ConversationSummaryRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.client.ChatClient;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ConversationSummaryServiceTest {
+
+    private static final Instant NOW = Instant.parse("2025-01-15T10:00:00Z");
+    private static final String PARTICIPANT = "9876543210";
+
+    private ChatClient chatClient;
+    private ConversationSummaryRepository summaryRepository;
+    private ConversationSummaryService service;
+
+    @BeforeEach
+    void setUp() {
+        chatClient = mock(ChatClient.class, RETURNS_DEEP_STUBS);
+        when(chatClient.prompt().user(any(String.class)).call().content()).thenReturn("Dinner on Friday");
+        summaryRepository = mock(ConversationSummaryRepository.class);
+        ConversationSummaryConfig config = mock(ConversationSummaryConfig.class);
+        when(config.isEnabled()).thenReturn(true);
+        when(config.getBatchSize()).thenReturn(1);
+        when(config.getMaxLength()).thenReturn(1500);
+        service = new ConversationSummaryService(chatClient, summaryRepository, config,
+                new TemporalResolutionConfig(), Clock.fixed(NOW, ZoneOffset.UTC));
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void testLostWriteIsFoldedAgainIntoTheSummaryThatWon() {
+        when(summaryRepository.findById(PARTICIPANT)).thenReturn(
+                Optional.of(summary("Lunch on Monday", 1L)),
+                Optional.of(summary("Lunch moved to Tuesday", 2L)));
+        when(summaryRepository.compareAndSet(eq(PARTICIPANT), eq(1L), any(), anyLong(), any(), any())).thenReturn(0);
+        when(summaryRepository.compareAndSet(eq(PARTICIPANT), eq(2L), any(), anyLong(), any(), any())).thenReturn(1);
+
+        evict();
+
+        verify(summaryRepository, timeout(2000))
+                .compareAndSet(PARTICIPANT, 2L, "Dinner on Friday", 6L, NOW, NOW);
+        verify(chatClient.prompt(), timeout(2000)).user(contains("Lunch moved to Tuesday"));
+    }
+
+    @Test
+    void testFirstSummaryIsInsertedOnlyIfAbsent() {
+        when(summaryRepository.findById(PARTICIPANT)).thenReturn(Optional.empty());
+        when(summaryRepository.insertIfAbsent(any(), any(), anyLong(), any(), any())).thenReturn(1);
+
+        evict();
+
+        verify(summaryRepository, timeout(2000)).insertIfAbsent(PARTICIPANT, "Dinner on Friday", 1L, NOW, NOW);
+    }
+
+    private void evict() {
+        service.onMessagesEvicted(PARTICIPANT, List.of(
+                new WhatsAppMessage(PARTICIPANT, "Friend", false, "Dinner on Friday?", NOW)));
+    }
+
+    private static ConversationSummaryEntity summary(String text, long version) {
+        return ConversationSummaryEntity.builder()
+                .participantNumber(PARTICIPANT)
+                .summary(text)
+                .summarizedMessageCount(5)
+                .updatedAt(NOW)
+                .version(version)
+                .build();
+    }
+}
@@ -0,0 +1,147 @@
+package com.prithvianilk.mybestofriendo.contextservice.service;
+
+import com.prithvianilk.mybestofriendo.contextservice.config.IdempotencyConfig;
+import com.prithvianilk.mybestofriendo.contextservice.config.TenancyConfig;
+import com.prithvianilk.mybestofriendo.contextservice.model.ConsumerOffsetEntity;
+import com.prithvianilk.mybestofriendo.contextservice.model.MessagePosition;
+import com.prithvianilk.mybestofriendo.contextservice.model.ProcessedMessageEntity;
+import com.prithvianilk.mybestofriendo.contextservice.model.WhatsAppMessage;
+import com.prithvianilk.mybestofriendo.contextservice.repository.ConsumerOffsetRepository;
+import com.prithvianilk.mybestofriendo.contextservice.repository.ProcessedMessageRepository;
+import com.prithvianilk.mybestofriendo.contextservice.tenant.TenantDirectory;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.kafka.listener.ConsumerSeekAware;
+
+import javax.sql.DataSource;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class IdempotencyLedgerTest {
+
+    private static final Instant NOW = Instant.parse("2025-01-15T10:00:00Z");
+
+    private final WhatsAppMessage message = new WhatsAppMessage("9876543210", "User 1", false, "Hello", NOW);
+
+    private ProcessedMessageRepository processedMessageRepository;
+    private ConsumerOffsetRepository consumerOffsetRepository;
+    private IdempotencyLedger ledger;
+
+    @BeforeEach
+    void setUp() {
+        processedMessageRepository = mock(ProcessedMessageRepository.class);
+        consumerOffsetRepository = mock(ConsumerOffsetRepository.class);
+        when(consumerOffsetRepository.findById(anyString())).thenReturn(Optional.empty());
+        TenancyConfig tenancyConfig = new TenancyConfig();
+        tenancyConfig.setShardingEnabled(false);
+        ledger = new IdempotencyLedger(processedMessageRepository, consumerOffsetRepository,
+                Clock.fixed(NOW, ZoneOffset.UTC), new IdempotencyConfig(),
+                new TenantDirectory(tenancyConfig, mock(DataSource.class)));
+    }
+
+    @Test
+    void testMessageKeyIsStableAcrossRedeliveries() {
+        WhatsAppMessage redelivered = new WhatsAppMessage("9876543210", "User 1", false, "Hello", NOW);
+
+        assertEquals(message.messageKey(), redelivered.messageKey());
+        assertEquals(64, message.messageKey().length());
+    }
+
+    @Test
+    void testCatchUpEntryIsKeptApartFromTheDeferringEntry() {
+        when(processedMessageRepository.findById(message.messageKey())).thenReturn(Optional.of(
+                ProcessedMessageEntity.builder().messageKey(message.messageKey()).outcome("success").build()));
+        when(processedMessageRepository.findById(IdempotencyLedger.catchUpKey(message))).thenReturn(Optional.empty());
+
+        assertTrue(ledger.isProcessed(message));
+        assertFalse(ledger.isCaughtUp(message));
+
+        ledger.recordCaughtUp(message, new MessagePosition("whatsapp-messages-catchup", 0, 7), "success");
+
+        ArgumentCaptor<ProcessedMessageEntity> processed = ArgumentCaptor.forClass(ProcessedMessageEntity.class);
+        verify(processedMessageRepository).save(processed.capture());
+        assertEquals(IdempotencyLedger.catchUpKey(message), processed.getValue().getMessageKey());
+        assertEquals(64, processed.getValue().getMessageKey().length());
+        verify(consumerOffsetRepository, never()).save(any());
+    }
+
+    @Test
+    void testRecordStoresMessageAndNextOffset() {
+        ledger.record(message, new MessagePosition("whatsapp-messages", 2, 41), "CommitmentRecorder=success");
+
+        ArgumentCaptor<ProcessedMessageEntity> processed = ArgumentCaptor.forClass(ProcessedMessageEntity.class);
+        verify(processedMessageRepository).save(processed.capture());
+        assertEquals(message.messageKey(), processed.getValue().getMessageKey());
+
+        ArgumentCaptor<ConsumerOffsetEntity> offset = ArgumentCaptor.forClass(ConsumerOffsetEntity.class);
+        verify(consumerOffsetRepository).save(offset.capture());
+        assertEquals("whatsapp-messages-2", offset.getValue().getTopicPartition());
+        assertEquals(42, offset.getValue().getNextOffset());
+    }
+
+    @Test
+    void testMessageWithAFailedServiceIsNotProcessed() {
+        when(processedMessageRepository.findById(message.messageKey())).thenReturn(Optional.of(
+                ProcessedMessageEntity.builder()
+                        .messageKey(message.messageKey())
+                        .outcome("CommitmentRecorderWhatsAppMessageService=timeout")
+                        .build()));
+        WhatsAppMessage imported = new WhatsAppMessage("9876543210", "User 1", true, "Hi", NOW);
+        when(processedMessageRepository.findById(imported.messageKey())).thenReturn(Optional.of(
+                ProcessedMessageEntity.builder().messageKey(imported.messageKey()).outcome("history").build()));
+
+        assertFalse(ledger.isProcessed(message));
+        assertTrue(ledger.isProcessed(imported));
+    }
+
+    @Test
+    void testPurgeDeletesEntriesPastTheRetention() {
+        ledger.purgeExpired();
+
+        verify(processedMessageRepository).deleteProcessedBefore(NOW.minus(Duration.ofDays(30)));
+    }
+
+    @Test
+    void testAdvanceNeverMovesOffsetBackwards() {
+        when(consumerOffsetRepository.findById("whatsapp-messages-2")).thenReturn(Optional.of(
+                ConsumerOffsetEntity.builder().topicPartition("whatsapp-messages-2").nextOffset(50).build()));
+
+        ledger.advance(new MessagePosition("whatsapp-messages", 2, 41));
+
+        verify(consumerOffsetRepository, never()).save(any());
+    }
+
+    @Test
+    void testSeeksOnlyPartitionsWhereLedgerIsAhead() {
+        when(consumerOffsetRepository.findById("whatsapp-messages-0")).thenReturn(Optional.of(
+                ConsumerOffsetEntity.builder().topicPartition("whatsapp-messages-0").nextOffset(10).build()));
+        when(consumerOffsetRepository.findById("whatsapp-messages-1")).thenReturn(Optional.of(
+                ConsumerOffsetEntity.builder().topicPartition("whatsapp-messages-1").nextOffset(5).build()));
+        ConsumerSeekAware.ConsumerSeekCallback callback = mock(ConsumerSeekAware.ConsumerSeekCallback.class);
+
+        ledger.seekToRecordedOffsets(Map.of(
+                new TopicPartition("whatsapp-messages", 0), 7L,
+                new TopicPartition("whatsapp-messages", 1), 5L), callback);
+
+        verify(callback).seek("whatsapp-messages", 0, 10L);
+        verify(callback, never()).seek(eq("whatsapp-messages"), eq(1), anyLong());
+    }
+}
@@ -0,0 +1,171 @@
+package com.prithvianilk.mybestofriendo.contextservice.service;
+
+import com.prithvianilk.mybestofriendo.contextservice.config.MessagePriorityConfig;
+import com.prithvianilk.mybestofriendo.contextservice.config.PartitionOwnershipConfig;
+import com.prithvianilk.mybestofriendo.contextservice.model.MessagePriority;
+import com.prithvianilk.mybestofriendo.contextservice.model.WhatsAppMessage;
+import com.prithvianilk.mybestofriendo.contextservice.tracing.Span;
+import com.prithvianilk.mybestofriendo.contextservice.tracing.TraceContext;
+import com.prithvianilk.mybestofriendo.contextservice.tracing.Tracer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class MessageAdmissionControllerTest {
+
+    private static final Instant NOW = Instant.parse("2025-01-15T10:00:00Z");
+
+    private KafkaTemplate<String, Object> kafkaTemplate;
+    private MessageAdmissionController controller;
+
+    @BeforeEach
+    void setUp() {
+        MessagePriorityConfig config = new MessagePriorityConfig();
+        config.setBucketCapacity(2);
+        config.setRefillInterval(Duration.ofMinutes(1));
+        kafkaTemplate = acknowledgingKafkaTemplate();
+        controller = new MessageAdmissionController(config, new PartitionOwnershipConfig(), kafkaTemplate,
+                new SimpleMeterRegistry(), Clock.fixed(NOW, ZoneOffset.UTC));
+    }
+
+    @Test
+    void testRefusesToRunAlongsidePartitionOwnership() {
+        PartitionOwnershipConfig ownershipConfig = new PartitionOwnershipConfig();
+        ownershipConfig.setEnabled(true);
+        MessageAdmissionController owned = new MessageAdmissionController(new MessagePriorityConfig(),
+                ownershipConfig, kafkaTemplate, new SimpleMeterRegistry(), Clock.fixed(NOW, ZoneOffset.UTC));
+
+        assertThrows(IllegalStateException.class, owned::checkOwnership);
+    }
+
+    @Test
+    void testMessagesFromMeAndWithTimeExpressionsAreHighPriority() {
+        assertEquals(MessagePriority.HIGH, MessageAdmissionController.classify(message(true, "ok", NOW)));
+        assertEquals(MessagePriority.HIGH, MessageAdmissionController.classify(message(false, "dinner at 8pm?", NOW)));
+        assertEquals(MessagePriority.HIGH, MessageAdmissionController.classify(message(false, "see you tmrw", NOW)));
+        assertEquals(MessagePriority.NORMAL, MessageAdmissionController.classify(message(false, "lol nice", NOW)));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testOldNormalPriorityMessageIsDeferredToCatchUpInTheSameTrace() {
+        WhatsAppMessage message = message(false, "lol nice", NOW.minus(Duration.ofMinutes(10)));
+        Span span = new Tracer(_ -> {
+        }, new SimpleMeterRegistry(), Clock.fixed(NOW, ZoneOffset.UTC)).start("process", Span.Kind.CONSUMER);
+
+        MessageAdmissionController.Admission admission = TraceContext.call(span, () -> controller.admit(message));
+
+        assertTrue(admission.isDeferred());
+        assertEquals("backlog", admission.deferralReason());
+        ArgumentCaptor<ProducerRecord<String, Object>> captor = ArgumentCaptor.forClass(ProducerRecord.class);
+        verify(kafkaTemplate).send(captor.capture());
+        assertEquals("whatsapp-messages-catchup", captor.getValue().topic());
+        assertEquals("9876543210", captor.getValue().key());
+        assertEquals(message, captor.getValue().value());
+        byte[] traceparent = captor.getValue().headers().lastHeader(TraceContext.TRACEPARENT_HEADER).value();
+        assertEquals(span.context().traceparent(), new String(traceparent, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testOldHighPriorityMessageIsAdmitted() {
+        MessageAdmissionController.Admission admission = controller.admit(
+                message(true, "sure", NOW.minus(Duration.ofMinutes(10))));
+
+        assertFalse(admission.isDeferred());
+        verify(kafkaTemplate, never()).send(any(ProducerRecord.class));
+    }
+
+    @Test
+    void testParticipantIsRateLimitedOnceBucketIsEmpty() {
+        assertFalse(controller.admit(message(false, "one", NOW)).isDeferred());
+        assertFalse(controller.admit(message(false, "two", NOW)).isDeferred());
+
+        MessageAdmissionController.Admission admission = controller.admit(message(false, "three", NOW));
+
+        assertEquals("rate-limited", admission.deferralReason());
+    }
+
+    @Test
+    void testLaterMessagesOfADeferredParticipantAreDeferredUntilReleased() {
+        WhatsAppMessage deferred = message(false, "lol nice", NOW.minus(Duration.ofMinutes(10)));
+        assertTrue(controller.admit(deferred).isDeferred());
+
+        WhatsAppMessage cancellation = message(true, "let's cancel dinner", NOW);
+        assertEquals("catch-up-pending", controller.admit(cancellation).deferralReason());
+        assertFalse(controller.admit(tenantMessage("family", "9876543210", "other tenant")).isDeferred());
+
+        // Only handling the last deferred message releases the participant
+        controller.release(deferred);
+        assertTrue(controller.admit(message(true, "sure", NOW)).isDeferred());
+        controller.release(cancellation);
+        controller.release(message(true, "sure", NOW));
+
+        assertFalse(controller.admit(message(true, "see you", NOW)).isDeferred());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testFailedDeferralFailsTheAdmission() {
+        when(kafkaTemplate.send(any(ProducerRecord.class)))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("broker down")));
+
+        assertThrows(IllegalStateException.class,
+                () -> controller.admit(message(false, "lol nice", NOW.minus(Duration.ofMinutes(10)))));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testBusyTenantIsRateLimitedWithoutAffectingOtherTenants() {
+        MessagePriorityConfig config = new MessagePriorityConfig();
+        config.setBucketCapacity(2);
+        config.setTenantBucketCapacity(3);
+        config.setTenantRefillInterval(Duration.ofMinutes(1));
+        controller = new MessageAdmissionController(config, new PartitionOwnershipConfig(),
+                acknowledgingKafkaTemplate(), new SimpleMeterRegistry(), Clock.fixed(NOW, ZoneOffset.UTC));
+
+        assertFalse(controller.admit(tenantMessage("family", "1111111111", "one")).isDeferred());
+        assertFalse(controller.admit(tenantMessage("family", "1111111111", "two")).isDeferred());
+        assertFalse(controller.admit(tenantMessage("family", "2222222222", "three")).isDeferred());
+
+        MessageAdmissionController.Admission admission = controller.admit(
+                tenantMessage("family", "2222222222", "four"));
+
+        assertEquals("tenant-rate-limited", admission.deferralReason());
+        assertFalse(controller.admit(tenantMessage("friends", "2222222222", "five")).isDeferred());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static KafkaTemplate<String, Object> acknowledgingKafkaTemplate() {
+        KafkaTemplate<String, Object> kafkaTemplate = mock(KafkaTemplate.class);
+        when(kafkaTemplate.send(any(ProducerRecord.class))).thenReturn(CompletableFuture.completedFuture(null));
+        return kafkaTemplate;
+    }
+
+    private static WhatsAppMessage tenantMessage(String tenantId, String participant, String content) {
+        return new WhatsAppMessage(participant, "User 1", false, content, NOW, tenantId);
+    }
+
+    private static WhatsAppMessage message(boolean fromMe, String content, Instant sentAt) {
+        return new WhatsAppMessage("9876543210", fromMe ? "Me" : "User 1", fromMe, content, sentAt);
+    }
+}
@@ -0,0 +1,80 @@
+package com.prithvianilk.mybestofriendo.contextservice.service;
+
+import com.prithvianilk.mybestofriendo.contextservice.config.TemporalResolutionConfig;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TemporalExpressionResolverTest {
+
+    // Wednesday, 15:30 in Asia/Kolkata
+    private static final Instant SENT_AT = Instant.parse("2025-01-15T10:00:00Z");
+
+    private final TemporalExpressionResolver resolver = new TemporalExpressionResolver(new TemporalResolutionConfig());
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("unambiguousExpressions")
+    void testResolvesUnambiguousExpressions(String text, Instant expected) {
+        TemporalExpressionResolver.Resolution resolution = resolver.resolve(text, SENT_AT);
+
+        assertTrue(resolution.unambiguous());
+        assertEquals(List.of(expected), resolution.candidates());
+    }
+
+    static Stream<Arguments> unambiguousExpressions() {
+        return Stream.of(
+                Arguments.of("See you tomorrow evening", Instant.parse("2025-01-16T10:30:00Z")),
+                Arguments.of("Dinner at 8pm?", Instant.parse("2025-01-15T14:30:00Z")),
+                Arguments.of("I'll call you at 9am", Instant.parse("2025-01-16T03:30:00Z")),
+                Arguments.of("Meet at 6", Instant.parse("2025-01-15T12:30:00Z")),
+                Arguments.of("Let's do friday 7:30 pm", Instant.parse("2025-01-17T14:00:00Z")),
+                Arguments.of("Will send it in 2 hours", Instant.parse("2025-01-15T12:00:00Z")),
+                Arguments.of("Coming over tonight", Instant.parse("2025-01-15T13:30:00Z")));
+    }
+
+    @Test
+    void testDayWithoutTimeDefaultsToNoonButIsLeftToTheLlm() {
+        TemporalExpressionResolver.Resolution resolution = resolver.resolve("Let's meet friday", SENT_AT);
+
+        assertFalse(resolution.unambiguous());
+        assertEquals(List.of(Instant.parse("2025-01-17T06:30:00Z")), resolution.candidates());
+    }
+
+    @Test
+    void testWeekdayIsTodayUnlessPrefixedWithNext() {
+        assertEquals(List.of(Instant.parse("2025-01-15T06:30:00Z")),
+                resolver.resolve("wednesday works", SENT_AT).candidates());
+        assertEquals(List.of(Instant.parse("2025-01-22T06:30:00Z")),
+                resolver.resolve("next wednesday works", SENT_AT).candidates());
+    }
+
+    @Test
+    void testCompetingTimesAreAmbiguous() {
+        assertFalse(resolver.resolve("Actually 6pm instead of 5pm", SENT_AT).unambiguous());
+    }
+
+    @Test
+    void testInvalidClockTimesAreAmbiguous() {
+        assertFalse(resolver.resolve("Tomorrow at 30", SENT_AT).unambiguous());
+        assertFalse(resolver.resolve("Tomorrow 13pm", SENT_AT).unambiguous());
+    }
+
+    @Test
+    void testTextWithoutTimeExpressionsResolvesToNothing() {
+        assertEquals(TemporalExpressionResolver.Resolution.NONE, resolver.resolve("Sounds good, thanks!", SENT_AT));
+    }
+
+    @Test
+    void testFormatsForPromptAsWallClockTime() {
+        assertEquals("2025-01-16T16:00:00Z", resolver.formatForPrompt(Instant.parse("2025-01-16T10:30:00Z")));
+    }
+}
@@ -0,0 +1,148 @@
+package com.prithvianilk.mybestofriendo.contextservice.service;
+
+import com.prithvianilk.mybestofriendo.contextservice.config.MessageDispatchConfig;
+import com.prithvianilk.mybestofriendo.contextservice.logging.WideEventContext;
+import com.prithvianilk.mybestofriendo.contextservice.model.WhatsAppMessage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class WhatsAppMessageDispatcherTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private WhatsAppMessageDispatcher dispatcher;
+
+    @AfterEach
+    void tearDown() {
+        dispatcher.shutdown();
+        WideEventContext.clear();
+    }
+
+    @Test
+    void testFailingServiceDoesNotAffectOtherServicesButFailsTheDispatch() {
+        List<WhatsAppMessage> received = new CopyOnWriteArrayList<>();
+        dispatcher = createDispatcher(Duration.ofSeconds(5),
+                new TestService(_ -> {
+                    throw new IllegalStateException("boom");
+                }),
+                new TestService(received::add));
+
+        WhatsAppMessage message = message("9876543210", "Hello");
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> dispatcher.dispatch(message));
+
+        assertEquals("boom", exception.getCause().getMessage());
+        assertEquals(List.of(message), received);
+        assertEquals(1, meterRegistry.get("whatsapp.dispatch").tag("outcome", "failure").timer().count());
+        assertEquals(1, meterRegistry.get("whatsapp.dispatch").tag("outcome", "success").timer().count());
+    }
+
+    @Test
+    void testSlowServiceTimesOutWithoutBlockingOthers() {
+        List<WhatsAppMessage> received = new CopyOnWriteArrayList<>();
+        dispatcher = createDispatcher(Duration.ofMillis(100),
+                new TestService(_ -> sleep(Duration.ofSeconds(5))),
+                new TestService(received::add));
+
+        assertThrows(IllegalStateException.class, () -> dispatcher.dispatch(message("9876543210", "Hello")));
+
+        assertEquals(1, received.size());
+        assertEquals(1, meterRegistry.get("whatsapp.dispatch").tag("outcome", "timeout").timer().count());
+    }
+
+    @Test
+    void testWorkerStuckPastTheTimeoutIsReplaced() {
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> received = new CopyOnWriteArrayList<>();
+        dispatcher = createDispatcher(Duration.ofMillis(200), new TestService(message -> {
+            if (message.content().equals("stuck")) {
+                // Ignores interrupts, like a blocking HTTP call
+                awaitUninterruptibly(release);
+            }
+            received.add(message.content());
+        }));
+
+        try {
+            assertThrows(IllegalStateException.class, () -> dispatcher.dispatch(message("9876543210", "stuck")));
+            dispatcher.dispatch(message("9876543210", "next"));
+
+            assertEquals(List.of("next"), received);
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    void testMessagesOfAParticipantAreHandledInOrder() {
+        List<String> received = new CopyOnWriteArrayList<>();
+        dispatcher = createDispatcher(Duration.ofSeconds(5), new TestService(message -> received.add(message.content())));
+
+        for (int i = 0; i < 20; i++) {
+            dispatcher.dispatch(message("9876543210", String.valueOf(i)));
+        }
+
+        assertEquals(20, received.size());
+        for (int i = 0; i < 20; i++) {
+            assertEquals(String.valueOf(i), received.get(i));
+        }
+    }
+
+    private WhatsAppMessageDispatcher createDispatcher(Duration timeout, WhatsAppMessageService... services) {
+        MessageDispatchConfig config = new MessageDispatchConfig();
+        config.setStripes(2);
+        config.setQueueCapacity(10);
+        config.setTimeout(timeout);
+        return new WhatsAppMessageDispatcher(List.of(services), config, meterRegistry);
+    }
+
+    private static WhatsAppMessage message(String participant, String content) {
+        return new WhatsAppMessage(participant, "User 1", false, content, Instant.now());
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                latch.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(Duration duration) {
+        try {
+            Thread.sleep(duration);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static class TestService extends WhatsAppMessageService {
+        private final Consumer<WhatsAppMessage> handler;
+
+        TestService(Consumer<WhatsAppMessage> handler) {
+            super(null);
+            this.handler = handler;
+        }
+
+        @Override
+        public void onNewWhatsAppMessage(WhatsAppMessage message) {
+            handler.accept(message);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.prithvianilk.mybestofriendo.contextservice.service;
+
+import com.prithvianilk.mybestofriendo.contextservice.config.PartitionOwnershipConfig;
+import com.prithvianilk.mybestofriendo.contextservice.config.TemporalResolutionConfig;
+import com.prithvianilk.mybestofriendo.contextservice.config.WhatsAppMessageConfig;
+import com.prithvianilk.mybestofriendo.contextservice.config.WindowSnapshotConfig;
+import com.prithvianilk.mybestofriendo.contextservice.model.WhatsAppMessage;
+import com.prithvianilk.mybestofriendo.contextservice.model.WindowSnapshot;
+import com.prithvianilk.mybestofriendo.contextservice.repository.WhatsAppMessageRepository;
+import com.prithvianilk.mybestofriendo.contextservice.tenant.TenantContext;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.ConsumerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class WindowHydratorTest {
+
+    private static final String PARTICIPANT = "9876543210";
+    private static final Instant BASE_TIME = Instant.parse("2025-01-15T10:00:00Z");
+
+    private final WindowSnapshotConfig config = new WindowSnapshotConfig();
+    private final TopicPartition partition = new TopicPartition(config.getTopic(), 0);
+
+    @Test
+    void testSnapshotRepublishedAfterALaterOneIsSkipped() {
+        WhatsAppMessageConfig messageConfig = mock(WhatsAppMessageConfig.class);
+        when(messageConfig.getMaxWindowSize()).thenReturn(5);
+        WhatsAppMessageRepository repository =
+                new WhatsAppMessageRepository(messageConfig, new TemporalResolutionConfig());
+        @SuppressWarnings("unchecked")
+        WindowHydrator hydrator = new WindowHydrator(config, new PartitionOwnershipConfig(), repository,
+                mock(ConsumerFactory.class), new SimpleMeterRegistry());
+
+        WhatsAppMessage first = message("Dinner at 8?", 0);
+        WhatsAppMessage second = message("Yes!", 1);
+        MockConsumer<String, WindowSnapshot> consumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+        consumer.updateBeginningOffsets(Map.of(partition, 0L));
+        consumer.updateEndOffsets(Map.of(partition, 3L));
+        consumer.schedulePollTask(() -> {
+            consumer.addRecord(snapshot(0, "whatsapp-messages:0:11", List.of(first)));
+            consumer.addRecord(snapshot(1, "whatsapp-messages:0:12", List.of(first, second)));
+            // Redelivery of offset 11 after a crash before its commit
+            consumer.addRecord(snapshot(2, "whatsapp-messages:0:11", List.of(first)));
+        });
+
+        int applied = hydrator.hydrate(consumer, List.of(partition));
+
+        assertEquals(2, applied);
+        assertEquals(List.of(first, second), List.copyOf(repository.getMessages(PARTICIPANT)));
+    }
+
+    private ConsumerRecord<String, WindowSnapshot> snapshot(
+            long offset,
+            String sourcePosition,
+            List<WhatsAppMessage> messages) {
+        ConsumerRecord<String, WindowSnapshot> record = new ConsumerRecord<>(partition.topic(), partition.partition(),
+                offset, TenantContext.qualify(PARTICIPANT),
+                new WindowSnapshot(PARTICIPANT, messages, TenantContext.DEFAULT_TENANT));
+        record.headers().add(WindowSnapshotPublisher.SOURCE_POSITION_HEADER,
+                sourcePosition.getBytes(StandardCharsets.UTF_8));
+        return record;
+    }
+
+    private static WhatsAppMessage message(String content, int minutes) {
+        return new WhatsAppMessage(PARTICIPANT, "User 1", false, content, BASE_TIME.plusSeconds(60L * minutes));
+    }
+}
@@ -0,0 +1,94 @@
+package com.prithvianilk.mybestofriendo.contextservice.tenant;
+
+import com.prithvianilk.mybestofriendo.contextservice.config.TenancyConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TenantRoutingDataSourceTest {
+
+    @TempDir
+    private Path directory;
+
+    private TenancyConfig config;
+    private TenantRoutingDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        config = new TenancyConfig();
+        config.setShardDirectory(directory.resolve("tenants").toString());
+        config.setShardIdleTimeout(Duration.ofHours(1));
+
+        HikariDataSource primary = new HikariDataSource();
+        primary.setJdbcUrl("jdbc:sqlite:" + directory.resolve("primary.db"));
+        dataSource = new TenantRoutingDataSource(primary, config);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+
+        jdbcTemplate.execute("CREATE TABLE commitment (id INTEGER PRIMARY KEY, description TEXT)");
+        jdbcTemplate.execute("CREATE INDEX idx_commitment_description ON commitment (description)");
+        jdbcTemplate.execute("CREATE VIRTUAL TABLE commitment_fts USING fts5(description)");
+        jdbcTemplate.execute("""
+                CREATE TRIGGER commitment_after_insert AFTER INSERT ON commitment BEGIN
+                    INSERT INTO commitment_fts (rowid, description) VALUES (new.id, new.description);
+                END""");
+    }
+
+    @AfterEach
+    void tearDown() {
+        dataSource.close();
+    }
+
+    @Test
+    void testTenantsGetTheirOwnShardWithThePrimarySchema() {
+        jdbcTemplate.update("INSERT INTO commitment (description) VALUES ('default tenant')");
+        TenantContext.run("family", () -> jdbcTemplate.update(
+                "INSERT INTO commitment (description) VALUES ('family tenant')"));
+
+        assertEquals(List.of("default tenant"), descriptions());
+        assertEquals(List.of("family tenant"), TenantContext.call("family", this::descriptions));
+        assertEquals(1, TenantContext.call("family", () -> jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM commitment_fts WHERE commitment_fts MATCH 'family'", Integer.class)));
+        assertTrue(Files.exists(directory.resolve("tenants").resolve("family.db")));
+    }
+
+    @Test
+    void testIdleShardIsClosedAndReopenedWithNewColumns() {
+        TenantContext.run("family", () -> jdbcTemplate.update(
+                "INSERT INTO commitment (description) VALUES ('family tenant')"));
+        assertEquals(1, dataSource.openShardCount());
+
+        config.setShardIdleTimeout(Duration.ZERO);
+        dataSource.closeIdleShards();
+        assertEquals(0, dataSource.openShardCount());
+
+        jdbcTemplate.execute("ALTER TABLE commitment ADD COLUMN source_message_key TEXT");
+        TenantContext.run("family", () -> jdbcTemplate.update(
+                "UPDATE commitment SET source_message_key = 'key' WHERE description = 'family tenant'"));
+
+        assertEquals("key", TenantContext.call("family", () -> jdbcTemplate.queryForObject(
+                "SELECT source_message_key FROM commitment", String.class)));
+    }
+
+    @Test
+    void testRejectsTenantIdsThatAreNotSafeFileNames() {
+        assertThrows(IllegalArgumentException.class, () -> TenantContext.run("../primary", () -> {
+        }));
+    }
+
+    private List<String> descriptions() {
+        return jdbcTemplate.queryForList("SELECT description FROM commitment", String.class);
+    }
+}
@@ -0,0 +1,158 @@
+package com.prithvianilk.mybestofriendo.contextservice.tracing;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.prithvianilk.mybestofriendo.contextservice.config.TracingConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TracerTest {
+
+    private static final Instant NOW = Instant.parse("2025-01-15T10:00:00Z");
+    private static final String TRACE_ID = "4bf92f3577b34da6a3ce929d0e0e4736";
+    private static final String PARENT_SPAN_ID = "00f067aa0ba902b7";
+
+    private final List<Span> exported = new ArrayList<>();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private Tracer tracer;
+
+    @BeforeEach
+    void setUp() {
+        tracer = new Tracer(exported::add, meterRegistry, Clock.fixed(NOW, ZoneOffset.UTC));
+    }
+
+    @Test
+    void testConsumerSpanContinuesTheProducersTraceAndCarriesItOn() {
+        long receivedAtMillis = NOW.minusSeconds(3).toEpochMilli();
+        ConsumerRecord<String, String> record = record(
+                "00-" + TRACE_ID + "-" + PARENT_SPAN_ID + "-01",
+                "other=1, " + TraceContext.RECEIVED_AT_BAGGAGE + "=" + receivedAtMillis + ";ttl=5");
+
+        Span consumer = tracer.startConsumer("whatsapp-messages process", record);
+        Span child = TraceContext.call(consumer, () -> tracer.start("child", Span.Kind.INTERNAL));
+        RecordHeaders outgoing = new RecordHeaders();
+        TraceContext.run(child, () -> TraceContext.inject(outgoing));
+
+        assertEquals(TRACE_ID, consumer.context().traceId());
+        assertEquals(PARENT_SPAN_ID, consumer.parentSpanId());
+        assertEquals(TRACE_ID, child.context().traceId());
+        assertEquals(consumer.context().spanId(), child.parentSpanId());
+        assertEquals(receivedAtMillis, child.receivedAtMillis());
+        assertEquals(child.context().traceparent(), TraceContext.header(outgoing, TraceContext.TRACEPARENT_HEADER));
+        assertEquals(TraceContext.RECEIVED_AT_BAGGAGE + "=" + receivedAtMillis,
+                TraceContext.header(outgoing, TraceContext.BAGGAGE_HEADER));
+    }
+
+    @Test
+    void testRecordWithoutValidTraceparentStartsANewTrace() {
+        Span span = tracer.startConsumer("whatsapp-messages process",
+                record("00-" + "0".repeat(32) + "-" + PARENT_SPAN_ID + "-01", null));
+
+        assertNotEquals("0".repeat(32), span.context().traceId());
+        assertNull(span.parentSpanId());
+        assertNull(span.receivedAtMillis());
+        assertNull(tracer.recordEndToEnd(span, "create"));
+    }
+
+    @Test
+    void testEndToEndLatencyIsRecordedAndFailedSpansAreExportedOnce() {
+        Span consumer = tracer.startConsumer("whatsapp-messages process",
+                record("00-" + TRACE_ID + "-" + PARENT_SPAN_ID + "-01",
+                        TraceContext.RECEIVED_AT_BAGGAGE + "=" + NOW.minusSeconds(3).toEpochMilli()));
+
+        Runnable failingWrite = () -> {
+            Span calendar = tracer.start("calendar.events.insert", Span.Kind.CLIENT);
+            assertEquals(3000L, tracer.recordEndToEnd(calendar, "create"));
+            calendar.end();
+            throw new IllegalStateException("boom");
+        };
+
+        assertThrows(IllegalStateException.class, () -> tracer.inSpan(consumer, failingWrite));
+
+        assertEquals(List.of("calendar.events.insert", "whatsapp-messages process"),
+                exported.stream().map(Span::name).toList());
+        assertEquals(3000L, exported.getFirst().attributes().get("whatsapp.end_to_end_ms"));
+        assertEquals("IllegalStateException: boom", exported.getLast().errorMessage());
+        assertEquals(1, meterRegistry.timer("whatsapp.end-to-end", "operation", "create").count());
+        assertNull(TraceContext.current());
+    }
+
+    @Test
+    void testExporterWritesOtlpJsonLines(@TempDir Path directory) throws IOException {
+        TracingConfig config = new TracingConfig();
+        config.setPath(directory.resolve("traces.jsonl").toString());
+        ObjectMapper objectMapper = new ObjectMapper();
+        OtlpFileSpanExporter exporter = new OtlpFileSpanExporter(config, objectMapper, meterRegistry);
+        exporter.open();
+        tracer = new Tracer(exporter, meterRegistry, Clock.fixed(NOW, ZoneOffset.UTC));
+
+        Span span = tracer.start("chat gpt", Span.Kind.CLIENT)
+                .setAttribute("gen_ai.usage.input_tokens", 42)
+                .setAttribute("experiment.role", "primary");
+        span.end();
+        exporter.close();
+
+        List<String> lines = Files.readAllLines(Path.of(config.getPath()), StandardCharsets.UTF_8);
+        assertEquals(1, lines.size());
+        JsonNode resourceSpans = objectMapper.readTree(lines.getFirst()).get("resourceSpans").get(0);
+        assertEquals("context-service", resourceSpans.at("/resource/attributes/0/value/stringValue").asText());
+        JsonNode otlp = resourceSpans.at("/scopeSpans/0/spans/0");
+        assertEquals(span.context().traceId(), otlp.get("traceId").asText());
+        assertEquals(3, otlp.get("kind").asInt());
+        assertEquals(Long.toString(NOW.toEpochMilli() * 1_000_000), otlp.get("startTimeUnixNano").asText());
+        assertEquals("42", otlp.at("/attributes/0/value/intValue").asText());
+        assertEquals("primary", otlp.at("/attributes/1/value/stringValue").asText());
+    }
+
+    @Test
+    void testExporterRotatesTheFileOnceItIsFull(@TempDir Path directory) throws IOException {
+        TracingConfig config = new TracingConfig();
+        config.setPath(directory.resolve("traces.jsonl").toString());
+        config.setMaxFileSize(DataSize.ofBytes(1));
+        OtlpFileSpanExporter exporter = new OtlpFileSpanExporter(config, new ObjectMapper(), meterRegistry);
+        exporter.open();
+        tracer = new Tracer(exporter, meterRegistry, Clock.fixed(NOW, ZoneOffset.UTC));
+
+        tracer.start("first", Span.Kind.INTERNAL).end();
+        exporter.flush();
+        Span second = tracer.start("second", Span.Kind.INTERNAL);
+        second.end();
+        exporter.close();
+
+        assertEquals(List.of(), Files.readAllLines(directory.resolve("traces.jsonl")));
+        List<String> rotated = Files.readAllLines(directory.resolve("traces.jsonl.1"));
+        assertEquals(1, rotated.size());
+        assertTrue(rotated.getFirst().contains(second.context().traceId()));
+    }
+
+    private static ConsumerRecord<String, String> record(String traceparent, String baggage) {
+        ConsumerRecord<String, String> record = new ConsumerRecord<>("whatsapp-messages", 0, 10L, "key", "value");
+        record.headers().add(TraceContext.TRACEPARENT_HEADER, traceparent.getBytes(StandardCharsets.UTF_8));
+        if (Objects.nonNull(baggage)) {
+            record.headers().add(TraceContext.BAGGAGE_HEADER, baggage.getBytes(StandardCharsets.UTF_8));
+        }
+        return record;
+    }
+}
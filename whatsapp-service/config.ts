@@ -3,6 +3,14 @@ import z from 'zod';
 
 const ConfigSchema = z.object({
     whitelistedParticipantMobileNumbers: z.array(z.string()),
+    // The context-service user whose calendar and storage this WhatsApp account's messages go to
+    tenantId: z.string().regex(/^[a-z0-9][a-z0-9-]{0,62}$/).default('default'),
+    // Encoding of whatsapp-messages records, switch to avro once context-service reads it
+    wireFormat: z.enum(['json', 'avro']).default('json'),
+    // File spans are appended to as OTLP/JSON, null to propagate trace context but record no spans
+    tracesFile: z.string().nullable().default('traces.jsonl'),
+    // Size at which tracesFile is renamed to <tracesFile>.1, replacing the previous one
+    tracesMaxBytes: z.number().int().positive().default(64 * 1024 * 1024),
 });
 
 type Config = z.infer<typeof ConfigSchema>;
@@ -2,6 +2,7 @@ import type { BaileysEventMap } from 'baileys';
 import { MessageProducer } from './producer.js';
 import z from 'zod';
 import { config } from './config.js';
+import { endSpan, startProducerSpan, traceHeaders } from './tracing.js';
 
 export const Message = z.object({
     participantMobileNumber: z.string(),
@@ -9,6 +10,7 @@ export const Message = z.object({
     fromMe: z.boolean(),
     content: z.string(),
     sentAt: z.date(),
+    tenantId: z.string(),
 });
 
 export type Message = z.infer<typeof Message>;
@@ -27,6 +29,7 @@ export async function handleMessagesUpsert(
 
     await Promise.all(
         update.messages.map(async (rawMessage) => {
+            const receivedAt = Date.now();
             const sentAt = new Date((rawMessage.messageTimestamp as number) * 1000);
             const participantMobileNumber = rawMessage.key.remoteJid?.slice(0, 12).slice(-10)!;
             const senderName = rawMessage.pushName!;
@@ -40,6 +43,11 @@ export async function handleMessagesUpsert(
                 return;
             }
 
+            const span = startProducerSpan('whatsapp-messages publish', receivedAt, {
+                'messaging.system': 'kafka',
+                'messaging.operation.type': 'send',
+                'messaging.destination.name': 'whatsapp-messages',
+            });
             try {
                 const message = Message.parse({
                     participantMobileNumber,
@@ -47,13 +55,16 @@ export async function handleMessagesUpsert(
                     fromMe,
                     content,
                     sentAt,
+                    tenantId: config.tenantId,
                 });
 
                 console.log('Parsed message', message);
-                await messageProducer.publish(message);
+                await messageProducer.publish(message, traceHeaders(span));
+                endSpan(span);
             } catch (error) {
                 // TODO: Handle this?
                 console.log(`Failed to publish message ${JSON.stringify(rawMessage)} to Kafka:`, error);
+                endSpan(span, error);
             }
         })
     );
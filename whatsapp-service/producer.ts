@@ -1,8 +1,10 @@
 import { Kafka, Producer } from 'kafkajs';
 import { Message } from './handleMessagesUpsert';
+import { config } from './config.js';
+import { AVRO_CONTENT_TYPE, encodeAvro } from './wireFormat.js';
 
 export interface MessageProducer {
-    publish(message: Message): Promise<void>;
+    publish(message: Message, headers?: Record<string, string>): Promise<void>;
 }
 
 export class KafkaProducer implements MessageProducer {
@@ -18,14 +20,22 @@ export class KafkaProducer implements MessageProducer {
         this.producer = producer;
     }
 
-    async publish(message: Message): Promise<void> {
+    // headers carry the message's trace context, see tracing.ts
+    async publish(message: Message, headers: Record<string, string> = {}): Promise<void> {
         await this.producer.send({
             topic: 'whatsapp-messages',
             messages: [
-                {
-                    key: message.participantMobileNumber,
-                    value: JSON.stringify(message),
-                },
+                config.wireFormat === 'avro'
+                    ? {
+                          key: message.participantMobileNumber,
+                          value: encodeAvro(message),
+                          headers: { ...headers, 'content-type': AVRO_CONTENT_TYPE },
+                      }
+                    : {
+                          key: message.participantMobileNumber,
+                          value: JSON.stringify(message),
+                          headers,
+                      },
             ],
         });
     }
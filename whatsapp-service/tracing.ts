@@ -0,0 +1,137 @@
+import { randomBytes } from 'crypto';
+import { appendFile, rename, stat } from 'fs/promises';
+import { config } from './config.js';
+
+// Starts the trace of each message and hands it to context-service in W3C trace context headers,
+// see context-service/spec/tracing.md. Spans are appended to config.tracesFile as OTLP/JSON, one
+// export request per line, for the OpenTelemetry Collector's otlpjsonfile receiver. Once the file
+// reaches config.tracesMaxBytes it is rotated to <tracesFile>.1, so traces take at most twice that.
+const RECEIVED_AT_BAGGAGE = 'whatsapp.received_at';
+const SPAN_KIND_PRODUCER = 4;
+const STATUS_CODE_ERROR = 2;
+const FLUSH_INTERVAL_MILLIS = 1000;
+const MAX_PENDING_SPANS = 10000;
+
+export interface Span {
+    traceId: string;
+    spanId: string;
+    name: string;
+    // Epoch millis of receiving the message, the start of the span and of end-to-end latency
+    receivedAt: number;
+    attributes: Record<string, string>;
+}
+
+type OtlpSpan = {
+    traceId: string;
+    spanId: string;
+    name: string;
+    kind: number;
+    startTimeUnixNano: string;
+    endTimeUnixNano: string;
+    attributes: { key: string; value: { stringValue: string } }[];
+    status?: { code: number; message: string };
+};
+
+const pendingSpans: OtlpSpan[] = [];
+// Size of config.tracesFile, read from disk on the first flush
+let tracesFileBytes: number | undefined;
+
+export function startProducerSpan(
+    name: string,
+    receivedAt: number,
+    attributes: Record<string, string>
+): Span {
+    return { traceId: randomId(16), spanId: randomId(8), name, receivedAt, attributes };
+}
+
+export function traceHeaders(span: Span): Record<string, string> {
+    return {
+        traceparent: `00-${span.traceId}-${span.spanId}-01`,
+        baggage: `${RECEIVED_AT_BAGGAGE}=${span.receivedAt}`,
+    };
+}
+
+export function endSpan(span: Span, error?: unknown): void {
+    if (config.tracesFile === null || pendingSpans.length >= MAX_PENDING_SPANS) {
+        return;
+    }
+    pendingSpans.push({
+        traceId: span.traceId,
+        spanId: span.spanId,
+        name: span.name,
+        kind: SPAN_KIND_PRODUCER,
+        // 64-bit integers are strings in OTLP/JSON
+        startTimeUnixNano: unixNanos(span.receivedAt),
+        endTimeUnixNano: unixNanos(Date.now()),
+        attributes: Object.entries(span.attributes).map(([key, value]) => ({
+            key,
+            value: { stringValue: value },
+        })),
+        ...(error === undefined
+            ? {}
+            : {
+                  status: {
+                      code: STATUS_CODE_ERROR,
+                      message: error instanceof Error ? error.message : String(error),
+                  },
+              }),
+    });
+}
+
+async function flush(): Promise<void> {
+    if (config.tracesFile === null || pendingSpans.length === 0) {
+        return;
+    }
+    const spans = pendingSpans.splice(0, pendingSpans.length);
+    const request = {
+        resourceSpans: [
+            {
+                resource: {
+                    attributes: [
+                        { key: 'service.name', value: { stringValue: 'whatsapp-service' } },
+                    ],
+                },
+                scopeSpans: [{ scope: { name: 'whatsapp-service' }, spans }],
+            },
+        ],
+    };
+    const line = JSON.stringify(request) + '\n';
+    try {
+        tracesFileBytes ??= await fileSize(config.tracesFile);
+        await appendFile(config.tracesFile, line);
+        tracesFileBytes += Buffer.byteLength(line);
+    } catch (error) {
+        console.log(`Failed to export ${spans.length} spans:`, error);
+        return;
+    }
+    if (tracesFileBytes >= config.tracesMaxBytes) {
+        try {
+            await rename(config.tracesFile, `${config.tracesFile}.1`);
+            tracesFileBytes = 0;
+        } catch (error) {
+            console.log(`Failed to rotate ${config.tracesFile}:`, error);
+        }
+    }
+}
+
+async function fileSize(path: string): Promise<number> {
+    try {
+        return (await stat(path)).size;
+    } catch {
+        return 0;
+    }
+}
+
+function randomId(bytes: number): string {
+    let id: Buffer;
+    do {
+        id = randomBytes(bytes);
+    } while (id.every((b) => b === 0));
+    return id.toString('hex');
+}
+
+function unixNanos(epochMillis: number): string {
+    return (BigInt(epochMillis) * 1_000_000n).toString();
+}
+
+setInterval(flush, FLUSH_INTERVAL_MILLIS).unref();
@@ -0,0 +1,59 @@
+import { Message } from './handleMessagesUpsert.js';
+
+// Avro binary encoding of a Message, for the schema in
+// context-service/src/main/resources/schemas/whatsapp-message/1.avsc. Fields are written in schema order.
+export const AVRO_SCHEMA_ID = 'whatsapp-message/1';
+export const AVRO_CONTENT_TYPE = `application/avro;schema=${AVRO_SCHEMA_ID}`;
+
+const NULL_BRANCH = 0;
+const VALUE_BRANCH = 1;
+
+class AvroWriter {
+    private chunks: Buffer[] = [];
+
+    // Zigzag varint, exact for every integer a JS number holds, which covers epoch millis
+    writeLong(value: number): void {
+        let unsigned = value >= 0 ? value * 2 : -value * 2 - 1;
+        const bytes: number[] = [];
+        while (unsigned >= 0x80) {
+            bytes.push((unsigned % 0x80) | 0x80);
+            unsigned = Math.floor(unsigned / 0x80);
+        }
+        bytes.push(unsigned);
+        this.chunks.push(Buffer.from(bytes));
+    }
+
+    writeBoolean(value: boolean): void {
+        this.chunks.push(Buffer.from([value ? 1 : 0]));
+    }
+
+    writeString(value: string): void {
+        const bytes = Buffer.from(value, 'utf8');
+        this.writeLong(bytes.length);
+        this.chunks.push(bytes);
+    }
+
+    writeNullableString(value: string | null | undefined): void {
+        if (value === null || value === undefined) {
+            this.writeLong(NULL_BRANCH);
+            return;
+        }
+        this.writeLong(VALUE_BRANCH);
+        this.writeString(value);
+    }
+
+    toBuffer(): Buffer {
+        return Buffer.concat(this.chunks);
+    }
+}
+
+export function encodeAvro(message: Message): Buffer {
+    const writer = new AvroWriter();
+    writer.writeString(message.participantMobileNumber);
+    writer.writeNullableString(message.senderName);
+    writer.writeBoolean(message.fromMe);
+    writer.writeNullableString(message.content);
+    writer.writeLong(message.sentAt.getTime());
+    writer.writeString(message.tenantId);
+    return writer.toBuffer();
+}